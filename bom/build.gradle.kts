@@ -49,6 +49,9 @@ dependencies {
         apiv("com.fasterxml.jackson.core:jackson-annotations", "jackson")
         apiv("com.fasterxml.jackson.core:jackson-core", "jackson")
         apiv("com.fasterxml.jackson.core:jackson-databind", "jackson")
+        apiv("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor", "jackson")
+        apiv("com.fasterxml.jackson.dataformat:jackson-dataformat-smile", "jackson")
+        apiv("com.github.ben-manes.caffeine:caffeine")
         apiv("com.github.stephenc.jcip:jcip-annotations")
         apiv("com.google.guava:guava")
         apiv("com.google.protobuf:protobuf-java", "protobuf")
@@ -65,6 +68,8 @@ dependencies {
         apiv("org.apache.kerby:kerb-simplekdc", "kerby")
         apiv("org.bouncycastle:bcpkix-jdk15on", "bouncycastle")
         apiv("org.bouncycastle:bcprov-jdk15on", "bouncycastle")
+        apiv("org.eclipse.jetty.http2:http2-server", "jetty")
+        apiv("org.eclipse.jetty:jetty-alpn-server", "jetty")
         apiv("org.eclipse.jetty:jetty-http", "jetty")
         apiv("org.eclipse.jetty:jetty-security", "jetty")
         apiv("org.eclipse.jetty:jetty-server", "jetty")
@@ -73,6 +78,8 @@ dependencies {
         apiv("org.hsqldb:hsqldb")
         apiv("org.mockito:mockito-core", "mockito")
         apiv("org.mockito:mockito-inline", "mockito")
+        apiv("org.openjdk.jmh:jmh-core", "jmh")
+        apiv("org.openjdk.jmh:jmh-generator-annprocess", "jmh")
         apiv("org.ow2.asm:asm")
         apiv("org.ow2.asm:asm-all", "asm")
         apiv("org.ow2.asm:asm-analysis", "asm")
@@ -80,6 +87,8 @@ dependencies {
         apiv("org.ow2.asm:asm-tree", "asm")
         apiv("org.ow2.asm:asm-util", "asm")
         apiv("org.slf4j:slf4j-api", "slf4j")
+        runtimev("org.eclipse.jetty:jetty-alpn-java-server", "jetty")
+        runtimev("org.eclipse.jetty:jetty-alpn-openjdk8-server", "jetty")
         // The log4j2 binding should be a runtime dependency but given that
         // some modules shade this dependency we need to keep it as api
         apiv("org.apache.logging.log4j:log4j-slf4j-impl", "log4j2")
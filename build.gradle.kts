@@ -496,6 +496,10 @@ allprojects {
                 // Do not publish "root" project. Java plugin is applied here for DSL purposes only
                 return@configure
             }
+            if (project.path == ":ubenchmark") {
+                // Microbenchmarks are built from source only, they are not a release artifact
+                return@configure
+            }
             extraMavenPublications()
             publications {
                 create<MavenPublication>(project.name) {
@@ -1455,6 +1455,10 @@ public Map<DatabaseProperty, Object> call() {
     }
     return (String) o;
   }
+
+  @Override public void invalidateMetadataCache() {
+    connection.meta.invalidateMetadataCache(connection.handle);
+  }
 }
 
 // End AvaticaDatabaseMetaData.java
@@ -69,6 +69,7 @@ public class AvaticaResultSet extends ArrayFactoryImpl implements ResultSet {
   private int concurrency;
   private int holdability;
   private boolean closed;
+  private ColumnLabelIndex columnLabelIndex;
 
   /** Creates an {@link AvaticaResultSet}. */
   public AvaticaResultSet(AvaticaStatement statement,
@@ -101,15 +102,20 @@ public AvaticaResultSet(AvaticaStatement statement,
   }
 
   private int findColumn0(String columnLabel) throws SQLException {
-    for (ColumnMetaData columnMetaData : columnMetaDataList) {
-      // Per JDBC 3.0 specification, match is case-insensitive and if there is
-      // more than one column with a particular name, take the first.
-      if (columnMetaData.label.equalsIgnoreCase(columnLabel)) {
-        return columnMetaData.ordinal; // 0-based
-      }
+    // Per JDBC 3.0 specification, match is case-insensitive and if there is
+    // more than one column with a particular name, take the first.
+    // Applications that read by label do so for every row, so the labels
+    // are indexed on first use.
+    ColumnLabelIndex index = columnLabelIndex;
+    if (index == null) {
+      index = columnLabelIndex = new ColumnLabelIndex(columnMetaDataList);
     }
-    throw AvaticaConnection.HELPER.createException("column '" + columnLabel
-        + "' not found");
+    final int ordinal = columnLabel == null ? -1 : index.find(columnLabel);
+    if (ordinal < 0) {
+      throw AvaticaConnection.HELPER.createException("column '" + columnLabel
+          + "' not found");
+    }
+    return ordinal; // 0-based
   }
 
   protected void checkOpen() throws SQLException {
@@ -183,7 +189,7 @@ protected AvaticaResultSet execute() throws SQLException {
     final Iterable<Object> iterable1 =
         statement.connection.meta.createIterable(statement.handle, state, signature,
             Collections.<TypedValue>emptyList(), firstFrame);
-    this.cursor = MetaImpl.createCursor(signature.cursorFactory, iterable1);
+    this.cursor = MetaImpl.createCursor(signature.cursorFactory, iterable1, firstFrame);
     this.accessorList =
         cursor.createAccessors(columnMetaDataList, localCalendar, this);
     this.row = 0;
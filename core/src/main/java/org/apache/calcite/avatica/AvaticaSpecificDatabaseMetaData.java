@@ -53,6 +53,19 @@ public interface AvaticaSpecificDatabaseMetaData extends DatabaseMetaData {
    * @return A string corresponding to the server's version.
    */
   String getAvaticaServerVersion();
+
+  /**
+   * Discards the results of metadata calls, such as {@link #getTables} and
+   * {@link #getColumns}, that the connection has cached (see the
+   * {@code metadata_cache_size} connection property), so that subsequent
+   * calls go to the server. Call it after changing the schema.
+   *
+   * <p>The default implementation does nothing, which is correct for
+   * implementations that do not cache metadata.
+   */
+  default void invalidateMetadataCache() {
+    // Nothing is cached by default
+  }
 }
 
 // End AvaticaSpecificDatabaseMetaData.java
@@ -137,7 +137,52 @@ public enum BuiltInConnectionProperty implements ConnectionProperty {
    * HTTP Response Timeout (socket timeout) in milliseconds.
    */
   HTTP_RESPONSE_TIMEOUT("http_response_timeout",
-      Type.NUMBER, Timeout.ofMinutes(3).toMilliseconds(), false);
+      Type.NUMBER, Timeout.ofMinutes(3).toMilliseconds(), false),
+
+  /**
+   * Whether to ask the server to send frames as columns rather than rows.
+   * Only used with protobuf serialization; servers that do not know columnar
+   * frames keep sending rows.
+   */
+  COLUMNAR_FRAMES("columnar_frames", Type.BOOLEAN, Boolean.FALSE, false),
+
+  /**
+   * Whether to request the next frame of a result set in the background while
+   * the application is still reading the current one.
+   */
+  PIPELINED_FETCH("pipelined_fetch", Type.BOOLEAN, Boolean.FALSE, false),
+
+  /**
+   * Minimum size in bytes of an HTTP request body to send gzip-compressed;
+   * negative to never compress requests. The server must be configured to
+   * accept compressed requests.
+   */
+  HTTP_REQUEST_COMPRESSION_THRESHOLD("http_request_compression_threshold",
+      Type.NUMBER, -1, false),
+
+  /**
+   * Whether to talk to the server over HTTP/2, multiplexing concurrent
+   * requests over one connection; cleartext (h2c) for http URLs and
+   * negotiated by ALPN for https URLs.
+   */
+  USE_HTTP2("use_http2", Type.BOOLEAN, Boolean.FALSE, false),
+
+  /**
+   * Maximum number of metadata results, such as those of {@code getTables}
+   * and {@code getColumns}, that a connection caches; 0 to not cache them.
+   */
+  METADATA_CACHE_SIZE("metadata_cache_size", Type.NUMBER, 0, false),
+
+  /** Time in milliseconds for which a cached metadata result is used. */
+  METADATA_CACHE_TTL("metadata_cache_ttl", Type.NUMBER, 60000L, false),
+
+  /**
+   * Maximum number of prepared statement signatures that a connection caches
+   * by SQL; 0 to not cache them. Preparing SQL whose signature is cached
+   * makes no request, and the server prepares the statement as it first
+   * executes it.
+   */
+  SIGNATURE_CACHE_SIZE("signature_cache_size", Type.NUMBER, 0, false);
 
   private final String camelName;
   private final Type type;
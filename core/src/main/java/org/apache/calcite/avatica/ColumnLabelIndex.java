@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica;
+
+import java.util.List;
+
+/**
+ * Index from the label of a column to its ordinal, matching labels without
+ * regard to case.
+ *
+ * <p>An open-addressing hash table with linear probing, kept at most half
+ * full, so that looking up a label costs about one hash of the label and one
+ * {@link String#equalsIgnoreCase(String)}, however many columns there are.
+ *
+ * <p>The hash is computed on each character folded the same way as
+ * {@link String#equalsIgnoreCase(String)} folds it, so labels that are equal
+ * ignoring case have the same hash. Per JDBC, if several columns have the
+ * same label, the first wins.
+ */
+final class ColumnLabelIndex {
+  private final String[] labels;
+  private final int[] hashes;
+  private final int[] ordinals;
+  private final int mask;
+
+  ColumnLabelIndex(List<ColumnMetaData> columns) {
+    int capacity = 2;
+    while (capacity < columns.size() * 2) {
+      capacity <<= 1;
+    }
+    this.labels = new String[capacity];
+    this.hashes = new int[capacity];
+    this.ordinals = new int[capacity];
+    this.mask = capacity - 1;
+    for (ColumnMetaData column : columns) {
+      if (column.label != null) {
+        add(column.label, column.ordinal);
+      }
+    }
+  }
+
+  private void add(String label, int ordinal) {
+    final int hash = hash(label);
+    int i = hash & mask;
+    while (labels[i] != null) {
+      if (hashes[i] == hash && labels[i].equalsIgnoreCase(label)) {
+        // An earlier column has this label
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    labels[i] = label;
+    hashes[i] = hash;
+    ordinals[i] = ordinal;
+  }
+
+  /** Returns the 0-based ordinal of the first column with a given label,
+   * ignoring case, or -1 if there is none. */
+  int find(String label) {
+    final int hash = hash(label);
+    int i = hash & mask;
+    String candidate;
+    while ((candidate = labels[i]) != null) {
+      if (hashes[i] == hash && candidate.equalsIgnoreCase(label)) {
+        return ordinals[i];
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  private static int hash(String label) {
+    int h = 0;
+    for (int i = 0; i < label.length(); i++) {
+      h = 31 * h + fold(label.charAt(i));
+    }
+    // Spread the high bits, as the table is indexed by the low ones
+    return h ^ (h >>> 16);
+  }
+
+  /** Folds a character the way {@link String#equalsIgnoreCase(String)}
+   * compares it. */
+  private static char fold(char c) {
+    if (c < 128) {
+      return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+}
+
+// End ColumnLabelIndex.java
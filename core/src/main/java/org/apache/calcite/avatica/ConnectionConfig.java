@@ -84,6 +84,20 @@ public interface ConnectionConfig {
   long getHttpConnectionTimeout();
   /** @see BuiltInConnectionProperty#HTTP_RESPONSE_TIMEOUT **/
   long getHttpResponseTimeout();
+  /** @see BuiltInConnectionProperty#COLUMNAR_FRAMES **/
+  boolean columnarFrames();
+  /** @see BuiltInConnectionProperty#PIPELINED_FETCH **/
+  boolean pipelinedFetch();
+  /** @see BuiltInConnectionProperty#HTTP_REQUEST_COMPRESSION_THRESHOLD **/
+  int getHttpRequestCompressionThreshold();
+  /** @see BuiltInConnectionProperty#USE_HTTP2 **/
+  boolean useHttp2();
+  /** @see BuiltInConnectionProperty#METADATA_CACHE_SIZE **/
+  int metadataCacheSize();
+  /** @see BuiltInConnectionProperty#METADATA_CACHE_TTL **/
+  long metadataCacheTtl();
+  /** @see BuiltInConnectionProperty#SIGNATURE_CACHE_SIZE **/
+  int signatureCacheSize();
 }
 
 // End ConnectionConfig.java
@@ -175,6 +175,35 @@ public long getHttpResponseTimeout() {
     return BuiltInConnectionProperty.HTTP_RESPONSE_TIMEOUT.wrap(properties).getLong();
   }
 
+  public boolean columnarFrames() {
+    return BuiltInConnectionProperty.COLUMNAR_FRAMES.wrap(properties).getBoolean();
+  }
+
+  public boolean pipelinedFetch() {
+    return BuiltInConnectionProperty.PIPELINED_FETCH.wrap(properties).getBoolean();
+  }
+
+  public int getHttpRequestCompressionThreshold() {
+    return BuiltInConnectionProperty.HTTP_REQUEST_COMPRESSION_THRESHOLD.wrap(properties)
+        .getInt();
+  }
+
+  public boolean useHttp2() {
+    return BuiltInConnectionProperty.USE_HTTP2.wrap(properties).getBoolean();
+  }
+
+  public int metadataCacheSize() {
+    return BuiltInConnectionProperty.METADATA_CACHE_SIZE.wrap(properties).getInt();
+  }
+
+  public long metadataCacheTtl() {
+    return BuiltInConnectionProperty.METADATA_CACHE_TTL.wrap(properties).getLong();
+  }
+
+  public int signatureCacheSize() {
+    return BuiltInConnectionProperty.SIGNATURE_CACHE_SIZE.wrap(properties).getInt();
+  }
+
   /** Converts a {@link Properties} object containing (name, value)
    * pairs into a map whose keys are
    * {@link org.apache.calcite.avatica.InternalProperty} objects.
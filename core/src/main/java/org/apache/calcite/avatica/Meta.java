@@ -18,6 +18,7 @@
 
 import org.apache.calcite.avatica.proto.Common;
 import org.apache.calcite.avatica.remote.TypedValue;
+import org.apache.calcite.avatica.util.ColumnarRows;
 import org.apache.calcite.avatica.util.FilteredConstants;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -25,7 +26,9 @@
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.google.protobuf.ByteString;
 import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.UnsafeByteOperations;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -33,9 +36,11 @@
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +65,16 @@ public interface Meta {
    */
   Map<DatabaseProperty, Object> getDatabaseProperties(ConnectionHandle ch);
 
+  /**
+   * Discards any results of metadata calls that have been cached for a
+   * connection, so that subsequent calls return current metadata.
+   *
+   * <p>The default implementation does nothing.
+   */
+  default void invalidateMetadataCache(ConnectionHandle ch) {
+    // Nothing is cached
+  }
+
   /** Per {@link DatabaseMetaData#getTables(String, String, String, String[])}. */
   MetaResultSet getTables(ConnectionHandle ch,
       String catalog,
@@ -938,10 +953,57 @@ public static Frame create(@JsonProperty("offset") long offset,
     }
 
     public Common.Frame toProto() {
+      return toProto(false);
+    }
+
+    /**
+     * Serializes this frame to protobuf.
+     *
+     * <p>If {@code columnar} is true, the values are sent as one
+     * {@link Common.ColumnVector} per column, which avoids a
+     * {@link Common.TypedValue} per cell. Frames without rows or whose rows
+     * differ in width are always sent as rows.
+     *
+     * @param columnar Whether the peer accepts columnar frames
+     * @return The protobuf frame
+     */
+    public Common.Frame toProto(boolean columnar) {
       Common.Frame.Builder builder = Common.Frame.newBuilder();
 
       builder.setDone(done).setOffset(offset);
 
+      if (columnar && this.rows instanceof ColumnarRows) {
+        final ColumnarRows columnarRows = (ColumnarRows) this.rows;
+        if (columnarRows.size() > 0 && columnarRows.getColumnCount() > 0) {
+          for (int i = 0; i < columnarRows.getColumnCount(); i++) {
+            builder.addColumns(serializeColumnVector(columnarRows, i));
+          }
+          return builder.setRowCount(columnarRows.size()).build();
+        }
+      } else if (columnar) {
+        final List<List<?>> columnarRows = columnarRows(this.rows);
+        if (columnarRows != null) {
+          final int columnCount = columnarRows.get(0).size();
+          for (int i = 0; i < columnCount; i++) {
+            builder.addColumns(serializeColumnVector(columnValues(columnarRows, i)));
+          }
+          return builder.setRowCount(columnarRows.size()).build();
+        }
+      }
+
+      if (this.rows instanceof ColumnarRows) {
+        // Rows are built from the columns, without boxing a row at a time
+        final ColumnarRows columnarRows = (ColumnarRows) this.rows;
+        for (int i = 0; i < columnarRows.size(); i++) {
+          final Common.Row.Builder rowBuilder = Common.Row.newBuilder();
+          for (int j = 0; j < columnarRows.getColumnCount(); j++) {
+            rowBuilder.addValue(serializeColumn(columnarRows, i, j));
+          }
+          builder.addRows(rowBuilder.build());
+        }
+        return builder.build();
+      }
+
       for (Object row : this.rows) {
         if (null == row) {
           // Does this need to be persisted for some reason?
@@ -970,7 +1032,212 @@ public Common.Frame toProto() {
       return builder.build();
     }
 
+    /**
+     * Returns the non-null rows as lists of equal size, or null if the rows
+     * cannot be sent as columns.
+     */
+    private static List<List<?>> columnarRows(Iterable<Object> rows) {
+      final List<List<?>> list = new ArrayList<>();
+      for (Object row : rows) {
+        if (null == row) {
+          // Skipped, as when sending rows
+          continue;
+        }
+
+        final List<?> values;
+        if (row instanceof Object[]) {
+          values = Arrays.asList((Object[]) row);
+        } else if (row instanceof List) {
+          values = (List<?>) row;
+        } else if (row instanceof Iterable) {
+          final List<Object> copy = new ArrayList<>();
+          for (Object element : (Iterable<?>) row) {
+            copy.add(element);
+          }
+          values = copy;
+        } else {
+          throw new RuntimeException("Only arrays are supported");
+        }
+
+        if (!list.isEmpty() && list.get(0).size() != values.size()) {
+          return null;
+        }
+        list.add(values);
+      }
+      if (list.isEmpty() || list.get(0).isEmpty()) {
+        return null;
+      }
+      return list;
+    }
+
+    /** Returns a view of the values of one column of some rows. */
+    private static List<?> columnValues(final List<List<?>> rows, final int column) {
+      return new AbstractList<Object>() {
+        @Override public Object get(int index) {
+          return rows.get(index).get(column);
+        }
+
+        @Override public int size() {
+          return rows.size();
+        }
+      };
+    }
+
+    /**
+     * Determines how a column is sent: the type of its values if they all have
+     * the same type and that type has a vector, {@link Common.Rep#NULL} if
+     * every value is null, and {@link Common.Rep#OBJECT} otherwise.
+     */
+    private static Common.Rep columnVectorType(List<?> values) {
+      Class<?> clazz = null;
+      for (Object value : values) {
+        if (value == null) {
+          continue;
+        }
+        if (clazz == null) {
+          clazz = value.getClass();
+        } else if (clazz != value.getClass()) {
+          return Common.Rep.OBJECT;
+        }
+      }
+      if (clazz == null) {
+        return Common.Rep.NULL;
+      } else if (clazz == Byte.class) {
+        return Common.Rep.BYTE;
+      } else if (clazz == Short.class) {
+        return Common.Rep.SHORT;
+      } else if (clazz == Integer.class) {
+        return Common.Rep.INTEGER;
+      } else if (clazz == Long.class) {
+        return Common.Rep.LONG;
+      } else if (clazz == Float.class) {
+        return Common.Rep.FLOAT;
+      } else if (clazz == Double.class) {
+        return Common.Rep.DOUBLE;
+      } else if (clazz == Boolean.class) {
+        return Common.Rep.BOOLEAN;
+      } else if (clazz == String.class) {
+        return Common.Rep.STRING;
+      } else if (clazz == byte[].class) {
+        return Common.Rep.BYTE_STRING;
+      }
+      return Common.Rep.OBJECT;
+    }
+
+    /**
+     * Serializes a column of {@link ColumnarRows}. Primitive columns are
+     * copied straight from their arrays, without boxing.
+     */
+    static Common.ColumnVector serializeColumnVector(final ColumnarRows rows,
+        final int column) {
+      final ColumnMetaData.Rep rep = rows.getRep(column);
+      if (rep == ColumnMetaData.Rep.OBJECT) {
+        return serializeColumnVector(
+            new AbstractList<Object>() {
+              @Override public Object get(int index) {
+                return rows.getObject(index, column);
+              }
+
+              @Override public int size() {
+                return rows.size();
+              }
+            });
+      }
+
+      final Common.ColumnVector.Builder builder = Common.ColumnVector.newBuilder();
+      builder.setType(rep.toProto());
+      for (int i = 0; i < rows.size(); i++) {
+        if (rows.isNull(i, column)) {
+          continue;
+        }
+        if (rep == ColumnMetaData.Rep.FLOAT || rep == ColumnMetaData.Rep.DOUBLE) {
+          builder.addDoubleValues(rows.getDouble(i, column));
+        } else {
+          builder.addNumberValues(rows.getLong(i, column));
+        }
+      }
+      final byte[] nulls = rows.getNullBitmap(column);
+      if (nulls != null) {
+        builder.setNullBitmap(UnsafeByteOperations.unsafeWrap(nulls));
+      }
+      return builder.build();
+    }
+
+    static Common.ColumnVector serializeColumnVector(List<?> values) {
+      final Common.Rep type = columnVectorType(values);
+      final Common.ColumnVector.Builder builder = Common.ColumnVector.newBuilder();
+      builder.setType(type);
+
+      switch (type) {
+      case NULL:
+        return builder.build();
+      case OBJECT:
+        for (Object value : values) {
+          builder.addValues(serializeColumn(value));
+        }
+        return builder.build();
+      default:
+        break;
+      }
+
+      byte[] nulls = null;
+      Map<String, Integer> dictionary = null;
+      for (int i = 0; i < values.size(); i++) {
+        final Object value = values.get(i);
+        if (value == null) {
+          if (nulls == null) {
+            nulls = new byte[(values.size() + 7) >>> 3];
+          }
+          nulls[i >>> 3] |= 1 << (i & 7);
+          continue;
+        }
+        switch (type) {
+        case BYTE:
+        case SHORT:
+        case INTEGER:
+        case LONG:
+          builder.addNumberValues(((Number) value).longValue());
+          break;
+        case FLOAT:
+        case DOUBLE:
+          builder.addDoubleValues(((Number) value).doubleValue());
+          break;
+        case BOOLEAN:
+          builder.addBoolValues((Boolean) value);
+          break;
+        case STRING:
+          if (dictionary == null) {
+            dictionary = new HashMap<>();
+          }
+          Integer index = dictionary.get(value);
+          if (index == null) {
+            index = dictionary.size();
+            dictionary.put((String) value, index);
+            builder.addStringDictionary((String) value);
+          }
+          builder.addStringIndexes(index);
+          break;
+        case BYTE_STRING:
+          builder.addBytesValues(UnsafeByteOperations.unsafeWrap((byte[]) value));
+          break;
+        default:
+          throw new IllegalStateException("Unexpected column vector type: " + type);
+        }
+      }
+      if (nulls != null) {
+        builder.setNullBitmap(UnsafeByteOperations.unsafeWrap(nulls));
+      }
+      return builder.build();
+    }
+
     static void parseColumn(Common.Row.Builder rowBuilder, Object column) {
+      // Add value to row
+      rowBuilder.addValue(serializeColumn(column));
+    }
+
+    /** Serializes one value of a row, as it is sent when frames are sent
+     * as rows. */
+    public static Common.ColumnValue serializeColumn(Object column) {
       final Common.ColumnValue.Builder columnBuilder = Common.ColumnValue.newBuilder();
 
       if (column instanceof List) {
@@ -993,8 +1260,37 @@ static void parseColumn(Common.Row.Builder rowBuilder, Object column) {
         columnBuilder.addValue(scalarVal);
       }
 
-      // Add value to row
-      rowBuilder.addValue(columnBuilder.build());
+      return columnBuilder.build();
+    }
+
+    /** Serializes one value of {@link ColumnarRows}, as
+     * {@link #serializeColumn(Object)} does its boxed value. */
+    static Common.ColumnValue serializeColumn(ColumnarRows rows, int row, int column) {
+      final ColumnMetaData.Rep rep = rows.getRep(column);
+      if (rep == ColumnMetaData.Rep.OBJECT || rows.isNull(row, column)) {
+        return serializeColumn(rows.getObject(row, column));
+      }
+      final Common.TypedValue.Builder valueBuilder = Common.TypedValue.newBuilder();
+      valueBuilder.setType(rep.toProto());
+      switch (rep) {
+      case FLOAT:
+        // As TypedValue sends a Float
+        valueBuilder.setNumberValue(
+            Float.floatToIntBits((float) rows.getDouble(row, column)));
+        break;
+      case DOUBLE:
+        valueBuilder.setDoubleValue(rows.getDouble(row, column));
+        break;
+      default:
+        valueBuilder.setNumberValue(rows.getLong(row, column));
+      }
+      final Common.TypedValue value = valueBuilder.build();
+      return Common.ColumnValue.newBuilder()
+          .setHasArrayValue(false)
+          .setScalarValue(value)
+          // The deprecated 'value' repeated attribute, for backwards compat
+          .addValue(value)
+          .build();
     }
 
     static Common.TypedValue serializeScalar(Object element) {
@@ -1007,20 +1303,15 @@ static Common.TypedValue serializeScalar(Object element) {
     }
 
     public static Frame fromProto(Common.Frame proto) {
+      if (proto.getColumnsCount() > 0) {
+        return new Frame(proto.getOffset(), proto.getDone(), parseColumnarRows(proto));
+      }
+
       List<Object> parsedRows = new ArrayList<>(proto.getRowsCount());
       for (Common.Row protoRow : proto.getRowsList()) {
         ArrayList<Object> row = new ArrayList<>(protoRow.getValueCount());
         for (Common.ColumnValue protoColumn : protoRow.getValueList()) {
-          final Object value;
-          if (!isNewStyleColumn(protoColumn)) {
-            // Backward compatibility
-            value = parseOldStyleColumn(protoColumn);
-          } else {
-            // Current style parsing (separate scalar and array values)
-            value = parseColumn(protoColumn);
-          }
-
-          row.add(value);
+          row.add(parseColumnValue(protoColumn));
         }
 
         parsedRows.add(row);
@@ -1029,6 +1320,147 @@ public static Frame fromProto(Common.Frame proto) {
       return new Frame(proto.getOffset(), proto.getDone(), parsedRows);
     }
 
+    private static Object parseColumnValue(Common.ColumnValue protoColumn) {
+      if (!isNewStyleColumn(protoColumn)) {
+        // Backward compatibility
+        return parseOldStyleColumn(protoColumn);
+      }
+      // Current style parsing (separate scalar and array values)
+      return parseColumn(protoColumn);
+    }
+
+    /**
+     * Converts the vectors of a columnar frame back into rows. Values have the
+     * same types as if the frame had been sent as rows.
+     *
+     * <p>Numeric vectors stay unboxed in a {@link ColumnarRows}, whose
+     * {@link ColumnarRows.Row}s the cursor's accessors read without boxing.
+     * Binary values stay slices of the response until they are read, if they
+     * make up most of the frame; see {@link EncodedBytes}.
+     */
+    private static List<Object> parseColumnarRows(Common.Frame proto) {
+      final int rowCount = proto.getRowCount();
+      final int columnCount = proto.getColumnsCount();
+      final ColumnMetaData.Rep[] reps = new ColumnMetaData.Rep[columnCount];
+      for (int i = 0; i < columnCount; i++) {
+        reps[i] = storageRep(proto.getColumns(i).getType());
+      }
+      final ColumnarRows rows = new ColumnarRows(reps);
+      rows.addRows(rowCount);
+      final boolean copyBytes = shouldCopyBytes(proto);
+      for (int i = 0; i < columnCount; i++) {
+        parseColumnVector(proto.getColumns(i), rows, rowCount, i, copyBytes);
+      }
+      return rows.rows();
+    }
+
+    /** Returns whether to copy binary values out of the response as it is
+     * parsed, rather than hold them as {@link EncodedBytes} slices. A slice
+     * keeps the whole response reachable, which is only worth it if binary
+     * values make up most of the frame. */
+    private static boolean shouldCopyBytes(Common.Frame proto) {
+      long bytesSize = 0;
+      for (Common.ColumnVector vector : proto.getColumnsList()) {
+        for (int i = 0; i < vector.getBytesValuesCount(); i++) {
+          bytesSize += vector.getBytesValues(i).size();
+        }
+      }
+      return bytesSize > 0 && bytesSize * 2 < proto.getSerializedSize();
+    }
+
+    private static ColumnMetaData.Rep storageRep(Common.Rep type) {
+      switch (type) {
+      case BYTE:
+        return ColumnMetaData.Rep.BYTE;
+      case SHORT:
+        return ColumnMetaData.Rep.SHORT;
+      case INTEGER:
+        return ColumnMetaData.Rep.INTEGER;
+      case LONG:
+        return ColumnMetaData.Rep.LONG;
+      case FLOAT:
+        return ColumnMetaData.Rep.FLOAT;
+      case DOUBLE:
+        return ColumnMetaData.Rep.DOUBLE;
+      default:
+        return ColumnMetaData.Rep.OBJECT;
+      }
+    }
+
+    private static void parseColumnVector(Common.ColumnVector vector, ColumnarRows rows,
+        int rowCount, int column, boolean copyBytes) {
+      final Common.Rep type = vector.getType();
+      if (type == Common.Rep.NULL) {
+        // Every value is null, and the column is already full of them
+        return;
+      }
+      if (type == Common.Rep.OBJECT) {
+        for (int i = 0; i < rowCount; i++) {
+          rows.setObject(i, column, parseColumnValue(vector.getValues(i)));
+        }
+        return;
+      }
+
+      final ByteString nulls = vector.getNullBitmap();
+      int next = 0;
+      for (int i = 0; i < rowCount; i++) {
+        if (!nulls.isEmpty() && (nulls.byteAt(i >>> 3) & (1 << (i & 7))) != 0) {
+          rows.setNull(i, column);
+          continue;
+        }
+        final int j = next++;
+        switch (type) {
+        case BYTE:
+        case SHORT:
+        case INTEGER:
+        case LONG:
+          rows.setLong(i, column, vector.getNumberValues(j));
+          break;
+        case FLOAT:
+        case DOUBLE:
+          rows.setDouble(i, column, vector.getDoubleValues(j));
+          break;
+        case BOOLEAN:
+          rows.setObject(i, column, vector.getBoolValues(j));
+          break;
+        case STRING:
+          rows.setObject(i, column, vector.getStringDictionary(vector.getStringIndexes(j)));
+          break;
+        case BYTE_STRING:
+          rows.setObject(i, column,
+              copyBytes
+                  ? vector.getBytesValues(j).toByteArray()
+                  : new EncodedBytes(vector.getBytesValues(j)));
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported column vector type: " + type);
+        }
+      }
+    }
+
+    /**
+     * Value of a {@link Common.Rep#BYTE_STRING} vector, held as the slice of
+     * the response it was received in until it is read as a {@code byte[]}.
+     *
+     * <p>Responses are parsed with aliasing, so a slice shares the array of
+     * the whole response, and that array stays reachable for as long as any
+     * value of the frame that has not been read does. Values are held this way
+     * only if binary values make up most of the frame, as then the response
+     * is little larger than the values themselves; otherwise they are copied
+     * as the frame is parsed.
+     */
+    private static class EncodedBytes implements ColumnarRows.EncodedValue {
+      private final ByteString bytes;
+
+      EncodedBytes(ByteString bytes) {
+        this.bytes = bytes;
+      }
+
+      @Override public Object decode() {
+        return bytes.toByteArray();
+      }
+    }
+
     /**
      * Determines whether this message contains the new attributes in the
      * message. We can't directly test for the negative because our
@@ -19,6 +19,8 @@
 import org.apache.calcite.avatica.ColumnMetaData.AvaticaType;
 import org.apache.calcite.avatica.remote.TypedValue;
 import org.apache.calcite.avatica.util.ArrayIteratorCursor;
+import org.apache.calcite.avatica.util.ColumnarRows;
+import org.apache.calcite.avatica.util.ColumnarRowsCursor;
 import org.apache.calcite.avatica.util.Cursor;
 import org.apache.calcite.avatica.util.IteratorCursor;
 import org.apache.calcite.avatica.util.ListIteratorCursor;
@@ -40,6 +42,7 @@
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -47,6 +50,13 @@
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Basic implementation of {@link Meta}.
@@ -107,6 +117,23 @@ protected Getter createGetter(int ordinal) {
     }
   }
 
+  /** As {@link #createCursor(CursorFactory, Iterable)}, for the rows of
+   * frames whose first frame is {@code firstFrame}. If the rows of that frame
+   * are {@link ColumnarRows#rows() columnar rows}, as those of a columnar
+   * frame are, a {@link Style#LIST} cursor reads numeric values without
+   * boxing them. */
+  public static Cursor createCursor(CursorFactory cursorFactory,
+      Iterable<Object> iterable, Frame firstFrame) {
+    if (cursorFactory.style == Style.LIST
+        && firstFrame != null
+        && ColumnarRows.isRows(firstFrame.rows)) {
+      @SuppressWarnings("unchecked") final Iterable<List<Object>> iterable2 =
+          (Iterable<List<Object>>) (Iterable) iterable;
+      return new ColumnarRowsCursor(iterable2.iterator());
+    }
+    return createCursor(cursorFactory, iterable);
+  }
+
   public static List<List<Object>> collect(CursorFactory cursorFactory,
       final Iterator<Object> iterator, List<List<Object>> list) {
     final Iterable<Object> iterable = new Iterable<Object>() {
@@ -1582,14 +1609,48 @@ public Iterator<Object> iterator() {
     }
   }
 
+  /** Runs the fetches that {@link FetchIterator} issues ahead of need.
+   * Threads are daemons, so that an abandoned result set does not keep the
+   * JVM alive. */
+  private static final ExecutorService FETCH_EXECUTOR =
+      Executors.newCachedThreadPool(
+          new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+              final Thread thread =
+                  new Thread(r, "avatica-fetch-" + count.getAndIncrement());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+
+  private static long count(Iterable<Object> rows) {
+    if (rows instanceof Collection) {
+      return ((Collection<Object>) rows).size();
+    }
+    long count = 0;
+    for (Object ignored : rows) {
+      ++count;
+    }
+    return count;
+  }
+
   /** Iterator over rows coming from a sequence of {@link Meta.Frame}s. */
-  private class FetchIterator implements Iterator<Object> {
+  private class FetchIterator implements Iterator<Object>, AutoCloseable {
     private final AvaticaStatement stmt;
     private final QueryState state;
     private final int fetchSize;
     private Frame frame;
     private Iterator<Object> rows;
     private long currentOffset = 0;
+    /** Whether to fetch the next frame while the current one is being read. */
+    private final boolean pipelined;
+    /** Fetch of the frame at {@link #nextOffset}, issued ahead of need; or
+     * null. */
+    private Future<Frame> nextFrame;
+    private long nextOffset;
+    private boolean closed;
 
     private FetchIterator(AvaticaStatement stmt, QueryState state, Frame firstFrame) {
       this.stmt = stmt;
@@ -1601,12 +1662,14 @@ private FetchIterator(AvaticaStatement stmt, QueryState state, Frame firstFrame)
         fetchRowCount = AvaticaStatement.DEFAULT_FETCH_SIZE;
       }
       this.fetchSize = fetchRowCount;
+      this.pipelined = connection.config().pipelinedFetch();
       if (firstFrame == null) {
         frame = Frame.MORE;
         rows = EmptyIterator.INSTANCE;
       } else {
         frame = firstFrame;
         rows = firstFrame.rows.iterator();
+        fetchAhead();
       }
       moveNext();
     }
@@ -1615,6 +1678,13 @@ public void remove() {
       throw new UnsupportedOperationException("remove");
     }
 
+    /** Called when the result set is closed, including when its statement is
+     * re-executed. */
+    @Override public void close() {
+      closed = true;
+      awaitFetchAhead();
+    }
+
     public boolean hasNext() {
       return rows != null;
     }
@@ -1640,7 +1710,7 @@ private void moveNext() {
         }
         try {
           // currentOffset updated after element is read from `rows` iterator
-          frame = fetch(stmt.handle, currentOffset, fetchSize);
+          frame = fetchFrame();
         } catch (NoSuchStatementException e) {
           resetStatement();
           // re-fetch the batch where we left off
@@ -1670,10 +1740,88 @@ private void moveNext() {
         // It is valid for rows to be empty, so we go around the loop again to
         // check
         rows = frame.rows.iterator();
+        fetchAhead();
+      }
+    }
+
+    /** Returns the frame at {@link #currentOffset}, waiting for the fetch
+     * issued by {@link #fetchAhead()} if there is one. */
+    private Frame fetchFrame()
+        throws NoSuchStatementException, MissingResultsException {
+      if (nextFrame != null && nextOffset != currentOffset) {
+        // Not the frame wanted; the fetches must not overlap
+        awaitFetchAhead();
+      }
+      final Future<Frame> pending = nextFrame;
+      nextFrame = null;
+      if (pending == null) {
+        return fetch(stmt.handle, currentOffset, fetchSize);
+      }
+      try {
+        return pending.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        // Rethrow as if the fetch had been made on this thread, so that the
+        // caller's recovery applies to it too
+        final Throwable cause = e.getCause();
+        if (cause instanceof NoSuchStatementException) {
+          throw (NoSuchStatementException) cause;
+        } else if (cause instanceof MissingResultsException) {
+          throw (MissingResultsException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+      }
+    }
+
+    /** If pipelining is enabled and there are more rows, starts fetching the
+     * frame that follows the current one. */
+    private void fetchAhead() {
+      if (!pipelined || closed || frame.done) {
+        return;
+      }
+      final long offset = currentOffset + count(frame.rows);
+      final StatementHandle handle = stmt.handle;
+      nextOffset = offset;
+      nextFrame = FETCH_EXECUTOR.submit(
+          new Callable<Frame>() {
+            public Frame call() throws Exception {
+              return fetch(handle, offset, fetchSize);
+            }
+          });
+    }
+
+    /**
+     * Waits for the fetch issued ahead of need, if there is one, and drops it.
+     *
+     * <p>The server reads a statement's results in order, whatever offset is
+     * asked for, so a fetch still in flight when the statement is reset or
+     * re-executed would take, and lose, a frame of the new results. Futures
+     * cannot be cancelled here, so this waits for it to complete.
+     */
+    private void awaitFetchAhead() {
+      final Future<Frame> pending = nextFrame;
+      nextFrame = null;
+      if (pending == null) {
+        return;
+      }
+      try {
+        pending.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // Nobody is going to see these rows, so nobody needs to see their
+        // failure either
       }
     }
 
     private void resetStatement() {
+      awaitFetchAhead();
       // Defer to the statement to reset itself
       stmt.resetStatement();
     }
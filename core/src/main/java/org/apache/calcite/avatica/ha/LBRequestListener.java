@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.ha;
+
+/**
+ * Receives the outcome of each request that a client sends to a load balanced
+ * URL.
+ *
+ * <p>If the {@link LBStrategy} of a connection also implements this
+ * interface, the driver reports every request sent over that connection to it.
+ */
+public interface LBRequestListener {
+  /**
+   * Called before a request is sent.
+   *
+   * @param url The URL, as returned by {@link LBStrategy#getLbURL}
+   */
+  void requestStarted(String url);
+
+  /**
+   * Called once for each call to {@link #requestStarted}, when the response
+   * has been received or the request has failed.
+   *
+   * @param url The URL, as returned by {@link LBStrategy#getLbURL}
+   * @param elapsedNanos Time taken by the request, in nanoseconds
+   * @param succeeded Whether a response was received; false if the server
+   *     could not be reached
+   */
+  void requestFinished(String url, long elapsedNanos, boolean succeeded);
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.ha;
+
+import org.apache.calcite.avatica.ConnectionConfig;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Strategy for client side load balancing that favours responsive servers.
+ *
+ * <p>For each URL it tracks, from the requests reported to it as an
+ * {@link LBRequestListener}, a moving average of latency, the number of
+ * requests in flight and recent failures. It picks two servers at random and
+ * selects the one with the lower load, being average latency multiplied by
+ * requests in flight plus one; a server with no measured latency is tried
+ * first.
+ *
+ * <p>A server that fails a request is ejected for 10 seconds, doubling for
+ * each further consecutive failure up to 5 minutes, after which it is
+ * re-admitted. If every server is ejected, the one due to be re-admitted
+ * soonest is selected.
+ *
+ * <p>It's implemented as a singleton so that all connections share the
+ * state of each server.
+ */
+public class LatencyAwareLBStrategy implements LBStrategy, LBRequestListener {
+  private static final Logger LOG = LoggerFactory.getLogger(LatencyAwareLBStrategy.class);
+
+  public static final LatencyAwareLBStrategy INSTANCE = new LatencyAwareLBStrategy();
+  public static final String URL_SEPERATOR_CHAR = ",";
+
+  /** Weight of each new latency sample in the moving average. */
+  static final double LATENCY_WEIGHT = 0.3;
+  static final long BASE_EJECTION_NANOS = TimeUnit.SECONDS.toNanos(10);
+  static final long MAX_EJECTION_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+  private final ConcurrentMap<String, String[]> configToUrlListMap = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, ServerStats> urlToStatsMap = new ConcurrentHashMap<>();
+
+  // Visible for testing
+  LatencyAwareLBStrategy() { }
+
+  @Override public String getLbURL(ConnectionConfig config) {
+    String[] urls = configToUrlListMap.get(config.getLbURLs());
+    if (urls == null) {
+      urls = config.getLbURLs().split(URL_SEPERATOR_CHAR);
+      configToUrlListMap.putIfAbsent(config.getLbURLs(), urls);
+    }
+    final long now = nanoTime();
+    final List<String> admitted = new ArrayList<>(urls.length);
+    String soonest = null;
+    long soonestReadmission = 0;
+    for (String url : urls) {
+      final ServerStats stats = stats(url);
+      synchronized (stats) {
+        if (!stats.isEjected(now)) {
+          admitted.add(url);
+        } else if (soonest == null || stats.ejectedUntil - soonestReadmission < 0) {
+          soonest = url;
+          soonestReadmission = stats.ejectedUntil;
+        }
+      }
+    }
+
+    final String url;
+    if (admitted.isEmpty()) {
+      url = soonest;
+      LOG.debug("All servers are ejected");
+    } else if (admitted.size() == 1) {
+      url = admitted.get(0);
+    } else {
+      final Random random = ThreadLocalRandom.current();
+      final int i = random.nextInt(admitted.size());
+      int j = random.nextInt(admitted.size() - 1);
+      if (j >= i) {
+        j++;
+      }
+      final String first = admitted.get(i);
+      final String second = admitted.get(j);
+      url = stats(first).load() <= stats(second).load() ? first : second;
+    }
+    LOG.info("Selected URL:{}", url);
+    return url;
+  }
+
+  @Override public void requestStarted(String url) {
+    stats(url).inFlight.incrementAndGet();
+  }
+
+  @Override public void requestFinished(String url, long elapsedNanos, boolean succeeded) {
+    final ServerStats stats = stats(url);
+    stats.inFlight.decrementAndGet();
+    if (succeeded) {
+      stats.succeeded(elapsedNanos);
+    } else {
+      final long ejectionNanos = stats.failed(nanoTime());
+      LOG.debug("Ejected {} for {} ms", url, TimeUnit.NANOSECONDS.toMillis(ejectionNanos));
+    }
+  }
+
+  private ServerStats stats(String url) {
+    ServerStats stats = urlToStatsMap.get(url);
+    if (stats == null) {
+      urlToStatsMap.putIfAbsent(url, new ServerStats());
+      stats = urlToStatsMap.get(url);
+    }
+    return stats;
+  }
+
+  // Visible for testing
+  long nanoTime() {
+    return System.nanoTime();
+  }
+
+  /** What is known about one server. */
+  private static class ServerStats {
+    final AtomicInteger inFlight = new AtomicInteger();
+    /** Moving average of latency in nanoseconds; zero until measured. */
+    private double latency;
+    private int consecutiveFailures;
+    private boolean ejected;
+    private long ejectedUntil;
+
+    synchronized double load() {
+      return latency * (inFlight.get() + 1);
+    }
+
+    synchronized void succeeded(long elapsedNanos) {
+      latency = latency == 0
+          ? elapsedNanos
+          : latency + LATENCY_WEIGHT * (elapsedNanos - latency);
+      consecutiveFailures = 0;
+      ejected = false;
+    }
+
+    /** Ejects the server, and returns for how long. */
+    synchronized long failed(long now) {
+      ++consecutiveFailures;
+      final int doublings = Math.min(consecutiveFailures - 1, 16);
+      final long ejectionNanos = Math.min(BASE_EJECTION_NANOS << doublings, MAX_EJECTION_NANOS);
+      ejected = true;
+      ejectedUntil = now + ejectionNanos;
+      return ejectionNanos;
+    }
+
+    synchronized boolean isEjected(long now) {
+      return ejected && ejectedUntil - now > 0;
+    }
+  }
+}
@@ -17,13 +17,22 @@
 package org.apache.calcite.avatica.remote;
 
 import org.apache.calcite.avatica.AvaticaSeverity;
+import org.apache.calcite.avatica.Meta;
 import org.apache.calcite.avatica.NoSuchConnectionException;
+import org.apache.calcite.avatica.metrics.Histogram;
+import org.apache.calcite.avatica.metrics.MetricsSystem;
+import org.apache.calcite.avatica.metrics.Timer;
+import org.apache.calcite.avatica.metrics.Timer.Context;
+import org.apache.calcite.avatica.metrics.noop.NoopMetricsSystem;
 import org.apache.calcite.avatica.remote.Service.ErrorResponse;
 import org.apache.calcite.avatica.remote.Service.Request;
 import org.apache.calcite.avatica.remote.Service.Response;
 import org.apache.calcite.avatica.remote.Service.RpcMetadataResponse;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Abstract base class for {@link Handler}s to extend to inherit functionality common across
@@ -36,8 +45,38 @@
   protected final Service service;
   private RpcMetadataResponse metadata = null;
 
+  private final MetricsSystem handlerMetrics;
+  private final Timer decodeTimer;
+  private final Timer executeTimer;
+  final Timer encodeTimer;
+  private final Histogram requestSizes;
+  private final Histogram responseSizes;
+  private final Histogram frameRows;
+  /** Execution timers of each type of request, created on first use. */
+  private final ConcurrentMap<Class<?>, Timer> requestTimers = new ConcurrentHashMap<>();
+
   public AbstractHandler(Service service) {
+    this(service, NoopMetricsSystem.getInstance());
+  }
+
+  /**
+   * Creates a handler that records the time spent decoding, executing and
+   * encoding each request, and the sizes of requests and responses, in
+   * {@code metrics}.
+   */
+  protected AbstractHandler(Service service, MetricsSystem metrics) {
     this.service = service;
+    this.handlerMetrics = metrics;
+    this.decodeTimer = metrics.getTimer(metricName(HANDLER_DECODE_METRICS_NAME));
+    this.executeTimer = metrics.getTimer(metricName(HANDLER_EXECUTE_METRICS_NAME));
+    this.encodeTimer = metrics.getTimer(metricName(HANDLER_ENCODE_METRICS_NAME));
+    this.requestSizes = metrics.getHistogram(metricName(HANDLER_REQUEST_SIZE_METRICS_NAME));
+    this.responseSizes = metrics.getHistogram(metricName(HANDLER_RESPONSE_SIZE_METRICS_NAME));
+    this.frameRows = metrics.getHistogram(metricName(HANDLER_FRAME_ROWS_METRICS_NAME));
+  }
+
+  private String metricName(String name) {
+    return MetricsHelper.concat(getClass(), name);
   }
 
   abstract Request decode(T serializedRequest) throws IOException;
@@ -50,6 +89,14 @@ public AbstractHandler(Service service) {
    */
   abstract T encode(Response response) throws IOException;
 
+  /**
+   * Returns the size of a serialized request or response, or -1 if it is not
+   * known.
+   */
+  long sizeOf(T serialized) {
+    return -1;
+  }
+
   /**
    * Unwrap Avatica-specific context about a given exception.
    *
@@ -90,14 +137,105 @@ ErrorResponse unwrapException(Exception e) {
    */
   public HandlerResponse<T> apply(T serializedRequest) {
     try {
-      final Service.Request request = decode(serializedRequest);
-      final Service.Response response = request.accept(service);
-      return new HandlerResponse<>(encode(response), HTTP_OK);
+      final Service.Request request = decodeRequest(serializedRequest);
+      final Service.Response response = execute(request);
+      final T serializedResponse;
+      try (Context ctx = encodeTimer.start()) {
+        serializedResponse = encode(response);
+      }
+      final long size = sizeOf(serializedResponse);
+      if (size >= 0) {
+        responseSizes.update(size);
+      }
+      return new HandlerResponse<>(serializedResponse, HTTP_OK);
     } catch (Exception e) {
       return convertToErrorResponse(e);
     }
   }
 
+  private Service.Request decodeRequest(T serializedRequest) throws IOException {
+    final long size = sizeOf(serializedRequest);
+    if (size >= 0) {
+      requestSizes.update(size);
+    }
+    try (Context ctx = decodeTimer.start()) {
+      return decode(serializedRequest);
+    }
+  }
+
+  private Service.Response execute(Service.Request request) {
+    final Service.Response response;
+    try (Context ctx = executeTimer.start();
+         Context requestCtx = requestTimer(request.getClass()).start()) {
+      response = request.accept(service);
+    }
+    if (response instanceof Service.FetchResponse) {
+      updateFrameRows(((Service.FetchResponse) response).frame);
+    } else if (response instanceof Service.ExecuteResponse) {
+      final Service.ExecuteResponse executeResponse = (Service.ExecuteResponse) response;
+      if (executeResponse.results != null) {
+        for (Service.ResultSetResponse result : executeResponse.results) {
+          updateFrameRows(result.firstFrame);
+        }
+      }
+    } else if (response instanceof Service.ResultSetResponse) {
+      updateFrameRows(((Service.ResultSetResponse) response).firstFrame);
+    }
+    return response;
+  }
+
+  private Timer requestTimer(Class<?> requestClass) {
+    Timer timer = requestTimers.get(requestClass);
+    if (timer == null) {
+      timer = handlerMetrics.getTimer(
+          metricName(HANDLER_EXECUTE_METRICS_NAME + "." + requestClass.getSimpleName()));
+      requestTimers.putIfAbsent(requestClass, timer);
+    }
+    return timer;
+  }
+
+  private void updateFrameRows(Meta.Frame frame) {
+    // Rows that are not a collection would have to be iterated to count them
+    if (frame != null && frame.rows instanceof Collection) {
+      frameRows.update(((Collection<?>) frame.rows).size());
+    }
+  }
+
+  /**
+   * Compute a response for the given request like {@link #apply(Object)}, but leave it to the
+   * caller to serialize the response.
+   *
+   * @param serializedRequest The caller's request.
+   * @return A {@link Response}, or an {@link ErrorResponse} if the computation failed.
+   */
+  public HandlerResponse<Response> applyWithoutEncoding(T serializedRequest) {
+    try {
+      final Service.Request request = decodeRequest(serializedRequest);
+      return new HandlerResponse<>(execute(request), HTTP_OK);
+    } catch (Exception e) {
+      return new HandlerResponse<Response>(unwrapException(e), HTTP_INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Compute a response like {@link #applyWithoutEncoding(Object)}, for a request that the given
+   * decoder reads from somewhere other than a {@code T}, such as a stream.
+   *
+   * @param decoder Decodes the caller's request.
+   * @return A {@link Response}, or an {@link ErrorResponse} if the computation failed.
+   */
+  HandlerResponse<Response> applyWithoutEncoding(RequestDecoder decoder) {
+    try {
+      final Service.Request request;
+      try (Context ctx = decodeTimer.start()) {
+        request = decoder.decode();
+      }
+      return new HandlerResponse<>(execute(request), HTTP_OK);
+    } catch (Exception e) {
+      return new HandlerResponse<Response>(unwrapException(e), HTTP_INTERNAL_SERVER_ERROR);
+    }
+  }
+
   /**
    * Attempts to convert an Exception to an ErrorResponse. If there is an issue in serialization,
    * a RuntimeException is thrown instead (wrapping the original exception if necessary).
@@ -175,6 +313,11 @@ private String getCausalChain(Exception e) {
   @Override public void setRpcMetadata(RpcMetadataResponse metadata) {
     this.metadata = metadata;
   }
+
+  /** Reads a request, for {@link #applyWithoutEncoding(RequestDecoder)}. */
+  interface RequestDecoder {
+    Request decode() throws IOException;
+  }
 }
 
 // End AbstractHandler.java
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import java.io.IOException;
+
+/**
+ * Implementation of {@link org.apache.calcite.avatica.remote.Service}
+ * that exchanges the JSON representation of requests and responses with a
+ * peer service, in whatever form {@link #call(Request, Class)} encodes it.
+ *
+ * @see JsonService
+ * @see BinaryJsonService
+ */
+public abstract class AbstractJsonService extends AbstractService {
+  @Override SerializationType getSerializationType() {
+    return SerializationType.JSON;
+  }
+
+  /** Returns a decoded response as the expected type, or throws if it is an
+   * {@link ErrorResponse}. */
+  static <T> T cast(Response resp, Class<T> expectedType) {
+    if (resp instanceof ErrorResponse) {
+      throw ((ErrorResponse) resp).toException();
+    } else if (!expectedType.isAssignableFrom(resp.getClass())) {
+      throw new ClassCastException("Cannot cast " + resp.getClass() + " into " + expectedType);
+    }
+
+    return expectedType.cast(resp);
+  }
+
+  /**
+   * Sends a request to the peer service and returns its response.
+   *
+   * @param request The request
+   * @param expectedType The class of the expected response
+   * @return The response
+   * @throws IOException If there are errors during serialization
+   */
+  protected abstract <T> T call(Request request, Class<T> expectedType)
+      throws IOException;
+
+  protected RuntimeException handle(IOException e) {
+    return new RuntimeException(e);
+  }
+
+  public ResultSetResponse apply(CatalogsRequest request) {
+    try {
+      return finagle(call(request, ResultSetResponse.class));
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ResultSetResponse apply(SchemasRequest request) {
+    try {
+      return finagle(call(request, ResultSetResponse.class));
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ResultSetResponse apply(TablesRequest request) {
+    try {
+      return finagle(call(request, ResultSetResponse.class));
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ResultSetResponse apply(TableTypesRequest request) {
+    try {
+      return finagle(call(request, ResultSetResponse.class));
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ResultSetResponse apply(TypeInfoRequest request) {
+    try {
+      return finagle(call(request, ResultSetResponse.class));
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ResultSetResponse apply(ColumnsRequest request) {
+    try {
+      return finagle(call(request, ResultSetResponse.class));
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public PrepareResponse apply(PrepareRequest request) {
+    try {
+      return finagle(call(request, PrepareResponse.class));
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ExecuteResponse apply(PrepareAndExecuteRequest request) {
+    try {
+      return finagle(call(request, ExecuteResponse.class));
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public FetchResponse apply(FetchRequest request) {
+    try {
+      return call(request, FetchResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ExecuteResponse apply(ExecuteRequest request) {
+    try {
+      return finagle(call(request, ExecuteResponse.class));
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public CreateStatementResponse apply(CreateStatementRequest request) {
+    try {
+      return call(request, CreateStatementResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public CloseStatementResponse apply(CloseStatementRequest request) {
+    try {
+      return call(request, CloseStatementResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public OpenConnectionResponse apply(OpenConnectionRequest request) {
+    try {
+      return call(request, OpenConnectionResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public CloseConnectionResponse apply(CloseConnectionRequest request) {
+    try {
+      return call(request, CloseConnectionResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ConnectionSyncResponse apply(ConnectionSyncRequest request) {
+    try {
+      return call(request, ConnectionSyncResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public DatabasePropertyResponse apply(DatabasePropertyRequest request) {
+    try {
+      return call(request, DatabasePropertyResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public SyncResultsResponse apply(SyncResultsRequest request) {
+    try {
+      return call(request, SyncResultsResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public CommitResponse apply(CommitRequest request) {
+    try {
+      return call(request, CommitResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public RollbackResponse apply(RollbackRequest request) {
+    try {
+      return call(request, RollbackResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ExecuteBatchResponse apply(PrepareAndExecuteBatchRequest request) {
+    try {
+      return call(request, ExecuteBatchResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+
+  public ExecuteBatchResponse apply(ExecuteBatchRequest request) {
+    try {
+      return call(request, ExecuteBatchResponse.class);
+    } catch (IOException e) {
+      throw handle(e);
+    }
+  }
+}
+
+// End AbstractJsonService.java
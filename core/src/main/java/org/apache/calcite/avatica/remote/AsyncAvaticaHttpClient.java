@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link AvaticaHttpClient} which can send a request without blocking the calling thread
+ * until the response arrives.
+ */
+public interface AsyncAvaticaHttpClient extends AvaticaHttpClient {
+
+  /**
+   * Sends a serialized request to the Avatica server.
+   *
+   * @param request The serialized request.
+   * @return A future which completes with the serialized response, or exceptionally if the
+   *     request fails.
+   */
+  CompletableFuture<byte[]> sendAsync(byte[] request);
+
+}
+
+// End AsyncAvaticaHttpClient.java
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.ConnectionConfig;
+
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+
+/**
+ * Allows a pool of asynchronous http connections to be provided to enable TLS authentication.
+ * On clients with this interface setHttpAsyncClientPool() MUST be called before using them.
+ */
+public interface AsyncHttpClientPoolConfigurable {
+  /**
+   * Sets a PoolingAsyncClientConnectionManager containing the collection of SSL/TLS server
+   * keys and truststores to use for HTTPS calls.
+   *
+   * @param pool   The http connection pool
+   * @param config The connection config
+   */
+  void setHttpAsyncClientPool(PoolingAsyncClientConnectionManager pool, ConnectionConfig config);
+}
+
+// End AsyncHttpClientPoolConfigurable.java
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.ConnectionConfig;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.auth.AuthSchemeFactory;
+import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.auth.StandardAuthScheme;
+import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.auth.BasicAuthCache;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.auth.BasicSchemeFactory;
+import org.apache.hc.client5.http.impl.auth.DigestSchemeFactory;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.NoHttpResponseException;
+import org.apache.hc.core5.http.config.Lookup;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link AsyncAvaticaHttpClient} on the asynchronous Apache HttpClient.
+ *
+ * <p>Requests are multiplexed over a pool of non-blocking connections, so a
+ * request in flight does not hold a thread. {@link #send(byte[])} waits for the
+ * response; use {@link #sendAsync(byte[])} or
+ * {@link RemoteProtobufService#applyAsync(Service.Request)} to avoid blocking.
+ *
+ * <p>To use it, set the {@code httpclient_impl} connection property to the
+ * name of this class, or set {@code use_http2}, in which case requests to a
+ * server are multiplexed over a single HTTP/2 connection. It supports BASIC and
+ * DIGEST authentication, but not SPNEGO.
+ */
+public class AvaticaCommonsHttpAsyncClientImpl implements AsyncAvaticaHttpClient,
+    AsyncHttpClientPoolConfigurable, UsernamePasswordAuthenticateable {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(AvaticaCommonsHttpAsyncClientImpl.class);
+
+  private static final AuthScope ANY_AUTH_SCOPE = new AuthScope(null, -1);
+
+  private static final long MIN_RETRY_BACKOFF_MILLIS = 10;
+  private static final long MAX_RETRY_BACKOFF_MILLIS = 1000;
+
+  /** Schedules retries, so that backing off does not block an I/O reactor thread. */
+  private static final ScheduledExecutorService RETRY_EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+              final Thread thread = new Thread(r, "avatica-http-retry");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+
+  protected final URI uri;
+  protected CloseableHttpAsyncClient client;
+  protected final BasicAuthCache authCache = new BasicAuthCache();
+  protected BasicCredentialsProvider credentialsProvider = null;
+  protected Lookup<AuthSchemeFactory> authRegistry = null;
+  protected RequestConfig requestConfig;
+  protected long connectTimeout;
+  protected long responseTimeout;
+  protected int requestCompressionThreshold = -1;
+
+  public AvaticaCommonsHttpAsyncClientImpl(URL url) {
+    this(toURI(Objects.requireNonNull(url)));
+  }
+
+  public AvaticaCommonsHttpAsyncClientImpl(URI uri) {
+    this.uri = Objects.requireNonNull(uri);
+  }
+
+  private static URI toURI(URL url) {
+    try {
+      return url.toURI();
+    } catch (URISyntaxException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  protected void initializeClient(PoolingAsyncClientConnectionManager pool,
+      ConnectionConfig config) {
+    this.connectTimeout = config.getHttpConnectionTimeout();
+    this.responseTimeout = config.getHttpResponseTimeout();
+    this.requestCompressionThreshold = config.getHttpRequestCompressionThreshold();
+    this.requestConfig = createRequestConfig();
+    if (config.useHttp2()) {
+      // One client per TLS configuration; the pool is not needed as requests to a server
+      // share one connection
+      this.client = CommonsHttpClientPoolCache.getHttp2Client(config);
+      return;
+    }
+    // One started client per pool; starting a client per connection would leak its reactor
+    this.client = CommonsHttpClientPoolCache.getAsyncClient(pool);
+  }
+
+  @SuppressWarnings("deprecation")
+  private RequestConfig createRequestConfig() {
+    final RequestConfig.Builder builder = RequestConfig.custom()
+        .setConnectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+        .setResponseTimeout(responseTimeout, TimeUnit.MILLISECONDS);
+    if (authRegistry != null) {
+      builder.setTargetPreferredAuthSchemes(
+          Arrays.asList(StandardAuthScheme.DIGEST, StandardAuthScheme.BASIC));
+    }
+    return builder.build();
+  }
+
+  /** Creates a context for one request; contexts are not safe for concurrent requests. */
+  private HttpClientContext createContext() {
+    final HttpClientContext context = HttpClientContext.create();
+    context.setRequestConfig(requestConfig);
+    if (null != credentialsProvider) {
+      context.setCredentialsProvider(credentialsProvider);
+      context.setAuthSchemeRegistry(authRegistry);
+      context.setAuthCache(authCache);
+    }
+    return context;
+  }
+
+  @Override public byte[] send(byte[] request) {
+    try {
+      return sendAsync(request).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  @Override public CompletableFuture<byte[]> sendAsync(byte[] request) {
+    final SimpleRequestBuilder builder = SimpleRequestBuilder.post(uri);
+    if (requestCompressionThreshold >= 0 && request.length >= requestCompressionThreshold) {
+      builder.setBody(AvaticaCommonsHttpClientImpl.gzip(request),
+          ContentType.APPLICATION_OCTET_STREAM);
+      builder.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    } else {
+      builder.setBody(request, ContentType.APPLICATION_OCTET_STREAM);
+    }
+    final CompletableFuture<byte[]> future = new CompletableFuture<>();
+    execute(builder.build(), future, MIN_RETRY_BACKOFF_MILLIS);
+    return future;
+  }
+
+  private void execute(final SimpleHttpRequest request, final CompletableFuture<byte[]> future,
+      final long retryBackoffMillis) {
+    client.execute(request, createContext(), new FutureCallback<SimpleHttpResponse>() {
+      @Override public void completed(SimpleHttpResponse response) {
+        final int statusCode = response.getCode();
+        if (HttpURLConnection.HTTP_OK == statusCode
+            || HttpURLConnection.HTTP_INTERNAL_ERROR == statusCode) {
+          final byte[] body = response.getBodyBytes();
+          future.complete(body == null ? new byte[0] : body);
+        } else if (HttpURLConnection.HTTP_UNAVAILABLE == statusCode) {
+          LOG.debug("Failed to connect to server (HTTP/503), retrying in {} ms",
+              retryBackoffMillis);
+          retry(request, future, retryBackoffMillis);
+        } else {
+          future.completeExceptionally(
+              new RuntimeException("Failed to execute HTTP Request, got HTTP/" + statusCode));
+        }
+      }
+
+      @Override public void failed(Exception e) {
+        if (e instanceof NoHttpResponseException) {
+          // This can happen when sitting behind a load balancer and a backend server dies
+          LOG.debug("The server failed to issue an HTTP response, retrying in {} ms",
+              retryBackoffMillis);
+          retry(request, future, retryBackoffMillis);
+          return;
+        }
+        LOG.debug("Failed to execute HTTP request", e);
+        future.completeExceptionally(
+            e instanceof RuntimeException ? e : new RuntimeException(e));
+      }
+
+      @Override public void cancelled() {
+        future.completeExceptionally(new CancellationException("HTTP request was cancelled"));
+      }
+    });
+  }
+
+  /** Executes a request again after a delay, doubling the delay for the next retry. */
+  private void retry(final SimpleHttpRequest request, final CompletableFuture<byte[]> future,
+      final long retryBackoffMillis) {
+    final long nextBackoffMillis = Math.min(retryBackoffMillis * 2, MAX_RETRY_BACKOFF_MILLIS);
+    try {
+      RETRY_EXECUTOR.schedule(
+          new Runnable() {
+            public void run() {
+              if (!future.isDone()) {
+                execute(request, future, nextBackoffMillis);
+              }
+            }
+          }, retryBackoffMillis, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+  }
+
+  @Override public void setUsernamePassword(AuthenticationType authType, String username,
+      String password) {
+    final UsernamePasswordCredentials credentials =
+        new UsernamePasswordCredentials(Objects.requireNonNull(username),
+            Objects.requireNonNull(password).toCharArray());
+    this.credentialsProvider = new BasicCredentialsProvider();
+    credentialsProvider.setCredentials(ANY_AUTH_SCOPE, credentials);
+
+    final RegistryBuilder<AuthSchemeFactory> authRegistryBuilder = RegistryBuilder.create();
+    switch (authType) {
+    case BASIC:
+      authRegistryBuilder.register(StandardAuthScheme.BASIC, new BasicSchemeFactory());
+      break;
+    case DIGEST:
+      authRegistryBuilder.register(StandardAuthScheme.DIGEST, new DigestSchemeFactory());
+      break;
+    default:
+      throw new IllegalArgumentException("Unsupported authentiation type: " + authType);
+    }
+    this.authRegistry = authRegistryBuilder.build();
+    this.requestConfig = createRequestConfig();
+  }
+
+  @Override public void setHttpAsyncClientPool(PoolingAsyncClientConnectionManager pool,
+      ConnectionConfig config) {
+    initializeClient(pool, config);
+  }
+}
+
+// End AvaticaCommonsHttpAsyncClientImpl.java
@@ -52,6 +52,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
@@ -62,6 +63,7 @@
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * A common class to invoke HTTP requests against the Avatica server agnostic of the data being
@@ -82,6 +84,10 @@ public class AvaticaCommonsHttpClientImpl implements AvaticaHttpClient, HttpClie
           .setUseCanonicalHostname(USE_CANONICAL_HOSTNAME)
           .build();
   private static AuthScope anyAuthScope = new AuthScope(null, -1);
+  /** Pauses before successive retries of a request that the server rejected as unavailable,
+   * which it may do to shed load, double from the first to the maximum. */
+  private static final long MIN_RETRY_BACKOFF_MILLIS = 10;
+  private static final long MAX_RETRY_BACKOFF_MILLIS = 1000;
 
   protected final URI uri;
   protected HttpHost httpHost;
@@ -96,6 +102,7 @@ public class AvaticaCommonsHttpClientImpl implements AvaticaHttpClient, HttpClie
   protected HttpClientContext context;
   protected long connectTimeout;
   protected long responseTimeout;
+  protected int requestCompressionThreshold = -1;
 
   @Deprecated
   public AvaticaCommonsHttpClientImpl(URL url) {
@@ -111,6 +118,7 @@ protected void initializeClient(PoolingHttpClientConnectionManager pool,
     this.authCache = new BasicAuthCache();
     this.connectTimeout = config.getHttpConnectionTimeout();
     this.responseTimeout = config.getHttpResponseTimeout();
+    this.requestCompressionThreshold = config.getHttpRequestCompressionThreshold();
     // A single thread-safe HttpClient, pooling connections via the
     // ConnectionManager
     RequestConfig requestConfig = createRequestConfig();
@@ -131,6 +139,18 @@ protected void initializeClient(PoolingHttpClientConnectionManager pool,
 
   }
 
+  /** Returns bytes compressed in gzip format. */
+  static byte[] gzip(byte[] bytes) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length / 2 + 32);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(baos)) {
+      gzip.write(bytes);
+    } catch (IOException e) {
+      // Cannot happen writing to memory
+      throw new RuntimeException(e);
+    }
+    return baos.toByteArray();
+  }
+
   // This is needed because we initialize the client object too early.
   @SuppressWarnings("deprecation")
   private RequestConfig createRequestConfig() {
@@ -159,8 +179,21 @@ private RequestConfig createRequestConfig() {
   }
 
   @Override public byte[] send(byte[] request) {
+    // The client sends "Accept-Encoding: gzip, deflate" and transparently decompresses
+    // responses, so only the request body needs handling here
+    final byte[] body;
+    final String contentEncoding;
+    if (requestCompressionThreshold >= 0 && request.length >= requestCompressionThreshold) {
+      body = gzip(request);
+      contentEncoding = "gzip";
+    } else {
+      body = request;
+      contentEncoding = null;
+    }
+    long retryBackoffMillis = MIN_RETRY_BACKOFF_MILLIS;
     while (true) {
-      ByteArrayEntity entity = new ByteArrayEntity(request, ContentType.APPLICATION_OCTET_STREAM);
+      ByteArrayEntity entity = new ByteArrayEntity(body, ContentType.APPLICATION_OCTET_STREAM,
+          contentEncoding);
       HttpPost post = new HttpPost(uri);
       post.setEntity(entity);
 
@@ -179,13 +212,12 @@ private RequestConfig createRequestConfig() {
             || HttpURLConnection.HTTP_INTERNAL_ERROR == statusCode) {
           userToken = context.getUserToken();
           return EntityUtils.toByteArray(response.getEntity());
-        } else if (HttpURLConnection.HTTP_UNAVAILABLE == statusCode) {
-          LOG.debug("Failed to connect to server (HTTP/503), retrying");
-          continue;
+        } else if (HttpURLConnection.HTTP_UNAVAILABLE != statusCode) {
+          throw new RuntimeException(
+              "Failed to execute HTTP Request, got HTTP/" + statusCode);
         }
-
-        throw new RuntimeException(
-            "Failed to execute HTTP Request, got HTTP/" + statusCode);
+        LOG.debug("Failed to connect to server (HTTP/503), retrying in {} ms",
+            retryBackoffMillis);
       } catch (NoHttpResponseException e) {
         // This can happen when sitting behind a load balancer and a backend server dies
         LOG.debug("The server failed to issue an HTTP response, retrying");
@@ -196,7 +228,19 @@ private RequestConfig createRequestConfig() {
         LOG.debug("Failed to execute HTTP request", e);
         throw new RuntimeException(e);
       }
+      retryBackoffMillis = backOff(retryBackoffMillis);
+    }
+  }
+
+  /** Sleeps before retrying a request; returns how long to sleep before the next retry. */
+  private static long backOff(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
     }
+    return Math.min(millis * 2, MAX_RETRY_BACKOFF_MILLIS);
   }
 
   // Visible for testing
@@ -19,6 +19,7 @@
 import org.apache.calcite.avatica.ConnectionConfig;
 
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,7 +59,10 @@ public static AvaticaHttpClientFactoryImpl getInstance() {
       KerberosConnection kerberosUtil) {
     String className = config.httpClientClass();
     if (null == className) {
-      className = HTTP_CLIENT_IMPL_DEFAULT;
+      // Only the asynchronous client speaks HTTP/2
+      className = config.useHttp2()
+          ? AvaticaCommonsHttpAsyncClientImpl.class.getName()
+          : HTTP_CLIENT_IMPL_DEFAULT;
     }
 
     AvaticaHttpClient client = instantiateClient(className, url);
@@ -66,6 +70,9 @@ public static AvaticaHttpClientFactoryImpl getInstance() {
     if (client instanceof HttpClientPoolConfigurable) {
       PoolingHttpClientConnectionManager pool = CommonsHttpClientPoolCache.getPool(config);
       ((HttpClientPoolConfigurable) client).setHttpClientPool(pool, config);
+    } else if (client instanceof AsyncHttpClientPoolConfigurable) {
+      PoolingAsyncClientConnectionManager pool = CommonsHttpClientPoolCache.getAsyncPool(config);
+      ((AsyncHttpClientPoolConfigurable) client).setHttpAsyncClientPool(pool, config);
     } else {
       // Kept for backwards compatibility, the current AvaticaCommonsHttpClientImpl
       // does not implement these interfaces
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.metrics.MetricsSystem;
+import org.apache.calcite.avatica.metrics.Timer;
+import org.apache.calcite.avatica.metrics.Timer.Context;
+import org.apache.calcite.avatica.remote.Service.Request;
+import org.apache.calcite.avatica.remote.Service.Response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Implementation of {@link org.apache.calcite.avatica.remote.Handler}
+ * that decodes requests in a binary JSON format, Smile or CBOR, sends them to
+ * a {@link Service}, and encodes the responses in the same format.
+ *
+ * @see org.apache.calcite.avatica.remote.BinaryJsonService
+ */
+public class BinaryJsonHandler extends AbstractHandler<byte[]> {
+  private final ObjectMapper mapper;
+  private final Timer serializationTimer;
+
+  /**
+   * Creates a BinaryJsonHandler.
+   *
+   * @param service The underlying {@link Service}
+   * @param serialization {@link Driver.Serialization#SMILE} or
+   *     {@link Driver.Serialization#CBOR}
+   * @param metrics The metrics system
+   */
+  public BinaryJsonHandler(Service service, Driver.Serialization serialization,
+      MetricsSystem metrics) {
+    super(service, metrics);
+    this.mapper = BinaryJsonService.getMapper(serialization);
+    this.serializationTimer = metrics.getTimer(
+        MetricsHelper.concat(BinaryJsonHandler.class, HANDLER_SERIALIZATION_METRICS_NAME));
+  }
+
+  @Override Request decode(byte[] request) throws IOException {
+    try (Context ctx = serializationTimer.start()) {
+      return mapper.readValue(request, Request.class);
+    }
+  }
+
+  @Override long sizeOf(byte[] serialized) {
+    return serialized.length;
+  }
+
+  @Override byte[] encode(Response response) throws IOException {
+    try (Context ctx = serializationTimer.start()) {
+      return mapper.writeValueAsBytes(response);
+    }
+  }
+}
+
+// End BinaryJsonHandler.java
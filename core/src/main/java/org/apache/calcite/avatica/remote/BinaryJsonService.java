@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.Meta;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Implementation of {@link org.apache.calcite.avatica.remote.Service}
+ * that encodes requests and responses as JSON in a binary format, either
+ * Jackson's Smile or CBOR.
+ *
+ * <p>The messages are the same as those of {@link JsonService}, but are
+ * smaller and faster to parse, and are exchanged as bytes rather than strings.
+ * Rows of {@link Meta.Frame}s are written by {@link FrameJsonSerializer}.
+ */
+public abstract class BinaryJsonService extends AbstractJsonService {
+  private static final ObjectMapper SMILE_MAPPER = createMapper(new SmileFactory());
+  private static final ObjectMapper CBOR_MAPPER = createMapper(new CBORFactory());
+
+  protected final ObjectMapper mapper;
+  private final Driver.Serialization serialization;
+
+  /**
+   * Creates a BinaryJsonService.
+   *
+   * @param serialization {@link Driver.Serialization#SMILE} or
+   *     {@link Driver.Serialization#CBOR}
+   */
+  protected BinaryJsonService(Driver.Serialization serialization) {
+    this.serialization = Objects.requireNonNull(serialization);
+    this.mapper = getMapper(serialization);
+  }
+
+  private static ObjectMapper createMapper(JsonFactory factory) {
+    final ObjectMapper mapper = new ObjectMapper(factory);
+    mapper.configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true);
+    final SimpleModule module = new SimpleModule("AvaticaFrame");
+    module.addSerializer(Meta.Frame.class, new FrameJsonSerializer());
+    mapper.registerModule(module);
+    return mapper;
+  }
+
+  /**
+   * Returns the mapper that reads and writes messages in a binary format.
+   *
+   * @param serialization {@link Driver.Serialization#SMILE} or
+   *     {@link Driver.Serialization#CBOR}
+   * @return The mapper
+   */
+  public static ObjectMapper getMapper(Driver.Serialization serialization) {
+    switch (serialization) {
+    case SMILE:
+      return SMILE_MAPPER;
+    case CBOR:
+      return CBOR_MAPPER;
+    default:
+      throw new IllegalArgumentException("Not a binary JSON serialization: " + serialization);
+    }
+  }
+
+  /**
+   * Returns the HTTP content type of messages in a binary format.
+   *
+   * @param serialization {@link Driver.Serialization#SMILE} or
+   *     {@link Driver.Serialization#CBOR}
+   * @return The content type
+   */
+  public static String getContentType(Driver.Serialization serialization) {
+    switch (serialization) {
+    case SMILE:
+      return "application/x-jackson-smile";
+    case CBOR:
+      return "application/cbor";
+    default:
+      throw new IllegalArgumentException("Not a binary JSON serialization: " + serialization);
+    }
+  }
+
+  public Driver.Serialization getSerialization() {
+    return serialization;
+  }
+
+  /** Derived class should implement this method to transport requests and
+   * responses to and from the peer service. */
+  public abstract byte[] apply(byte[] request);
+
+  @Override protected <T> T call(Request request, Class<T> expectedType) throws IOException {
+    final byte[] response = apply(mapper.writeValueAsBytes(request));
+    return cast(mapper.readValue(response, Response.class), expectedType);
+  }
+}
+
+// End BinaryJsonService.java
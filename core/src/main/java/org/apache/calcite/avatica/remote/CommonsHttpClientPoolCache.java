@@ -18,12 +18,15 @@
 
 import org.apache.calcite.avatica.ConnectionConfig;
 
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
 import org.apache.hc.client5.http.ssl.HttpsSupport;
 import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
-import org.apache.hc.client5.http.ssl.TlsSocketStrategy;
 import org.apache.hc.core5.ssl.SSLContextBuilder;
 import org.apache.hc.core5.ssl.SSLContexts;
 
@@ -61,12 +64,51 @@ private CommonsHttpClientPoolCache() {
   private static final ConcurrentHashMap<String, PoolingHttpClientConnectionManager> CACHED_POOLS =
       new ConcurrentHashMap<>();
 
+  private static final ConcurrentHashMap<String, PoolingAsyncClientConnectionManager>
+      CACHED_ASYNC_POOLS = new ConcurrentHashMap<>();
+
+  private static final ConcurrentHashMap<String, CloseableHttpAsyncClient> CACHED_HTTP2_CLIENTS =
+      new ConcurrentHashMap<>();
+
+  private static final ConcurrentHashMap<PoolingAsyncClientConnectionManager,
+      CloseableHttpAsyncClient> CACHED_ASYNC_CLIENTS = new ConcurrentHashMap<>();
+
   public static PoolingHttpClientConnectionManager getPool(ConnectionConfig config) {
     String sslDisc = extractSSLParameters(config);
 
     return CACHED_POOLS.computeIfAbsent(sslDisc, k -> setupPool(config));
   }
 
+  /**
+   * Returns a pool of connections for asynchronous clients, shared in the same way as the pools
+   * returned by {@link #getPool(ConnectionConfig)}.
+   */
+  public static PoolingAsyncClientConnectionManager getAsyncPool(ConnectionConfig config) {
+    String sslDisc = extractSSLParameters(config);
+
+    return CACHED_ASYNC_POOLS.computeIfAbsent(sslDisc, k -> setupAsyncPool(config));
+  }
+
+  /**
+   * Returns a started HTTP/2 client, which multiplexes all requests to a server over one
+   * connection. Like pools, clients are shared by every connection with the same TLS
+   * configuration.
+   */
+  public static CloseableHttpAsyncClient getHttp2Client(ConnectionConfig config) {
+    String sslDisc = extractSSLParameters(config);
+
+    return CACHED_HTTP2_CLIENTS.computeIfAbsent(sslDisc, k -> setupHttp2Client(config));
+  }
+
+  /**
+   * Returns a started asynchronous client over the given pool. Clients hold an I/O reactor, so
+   * one client is shared by every connection that uses the pool rather than each connection
+   * starting its own.
+   */
+  public static CloseableHttpAsyncClient getAsyncClient(PoolingAsyncClientConnectionManager pool) {
+    return CACHED_ASYNC_CLIENTS.computeIfAbsent(pool, k -> setupAsyncClient(pool));
+  }
+
   private static PoolingHttpClientConnectionManager setupPool(ConnectionConfig config) {
     final String maxCnxns = System.getProperty(MAX_POOLED_CONNECTIONS_KEY,
         MAX_POOLED_CONNECTIONS_DEFAULT);
@@ -80,7 +122,41 @@ private static PoolingHttpClientConnectionManager setupPool(ConnectionConfig con
     return pool;
   }
 
-  private static TlsSocketStrategy createTlsSocketStrategy(ConnectionConfig config) {
+  private static PoolingAsyncClientConnectionManager setupAsyncPool(ConnectionConfig config) {
+    final String maxCnxns = System.getProperty(MAX_POOLED_CONNECTIONS_KEY,
+        MAX_POOLED_CONNECTIONS_DEFAULT);
+    final String maxCnxnsPerRoute = System.getProperty(MAX_POOLED_CONNECTION_PER_ROUTE_KEY,
+        MAX_POOLED_CONNECTION_PER_ROUTE_DEFAULT);
+    PoolingAsyncClientConnectionManager pool = PoolingAsyncClientConnectionManagerBuilder.create()
+        .setTlsStrategy(createTlsSocketStrategy(config))
+        .setMaxConnTotal(Integer.parseInt(maxCnxns))
+        .setMaxConnPerRoute(Integer.parseInt(maxCnxnsPerRoute)).build();
+    LOG.debug("Created new async pool {}", pool);
+    return pool;
+  }
+
+  private static CloseableHttpAsyncClient setupAsyncClient(
+      PoolingAsyncClientConnectionManager pool) {
+    // Request configuration and credentials are set per request, so the client can be shared
+    CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+        .setConnectionManager(pool)
+        .setConnectionManagerShared(true)
+        .build();
+    client.start();
+    LOG.debug("Created new async client {} over pool {}", client, pool);
+    return client;
+  }
+
+  private static CloseableHttpAsyncClient setupHttp2Client(ConnectionConfig config) {
+    CloseableHttpAsyncClient client = HttpAsyncClients.customHttp2()
+        .setTlsStrategy(createTlsSocketStrategy(config))
+        .build();
+    client.start();
+    LOG.debug("Created new HTTP/2 client {}", client);
+    return client;
+  }
+
+  private static DefaultClientTlsStrategy createTlsSocketStrategy(ConnectionConfig config) {
     try {
       return new DefaultClientTlsStrategy(getSSLContext(config),
           getHostnameVerifier(config.hostnameVerification()));
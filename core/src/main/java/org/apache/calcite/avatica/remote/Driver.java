@@ -23,6 +23,8 @@
 import org.apache.calcite.avatica.DriverVersion;
 import org.apache.calcite.avatica.Meta;
 import org.apache.calcite.avatica.UnregisteredDriver;
+import org.apache.calcite.avatica.ha.LBRequestListener;
+import org.apache.calcite.avatica.ha.LBStrategy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,7 +63,11 @@ public Driver() {
    */
   public enum Serialization {
     JSON,
-    PROTOBUF
+    PROTOBUF,
+    /** The JSON messages, in Jackson's binary Smile format. */
+    SMILE,
+    /** The JSON messages, in the binary CBOR format. */
+    CBOR
   }
 
   @Override protected String getConnectStringPrefix() {
@@ -133,6 +139,10 @@ Service createService(AvaticaConnection connection, ConnectionConfig config) {
       case PROTOBUF:
         service = new RemoteProtobufService(httpClient, new ProtobufTranslationImpl());
         break;
+      case SMILE:
+      case CBOR:
+        service = new RemoteBinaryJsonService(httpClient, serializationType);
+        break;
       default:
         throw new IllegalArgumentException("Unhandled serialization type: " + serializationType);
       }
@@ -152,8 +162,10 @@ Service createService(AvaticaConnection connection, ConnectionConfig config) {
   AvaticaHttpClient getHttpClient(AvaticaConnection connection, ConnectionConfig config) {
     URL url;
     String urlStr;
+    LBStrategy lbStrategy = null;
     if (config.useClientSideLb()) {
-      urlStr = config.getLBStrategy().getLbURL(config);
+      lbStrategy = config.getLBStrategy();
+      urlStr = lbStrategy.getLbURL(config);
     } else {
       urlStr = config.url();
     }
@@ -165,7 +177,13 @@ AvaticaHttpClient getHttpClient(AvaticaConnection connection, ConnectionConfig c
 
     AvaticaHttpClientFactory httpClientFactory = config.httpClientFactory();
 
-    return httpClientFactory.getClient(url, config, connection.getKerberosConnection());
+    final AvaticaHttpClient client =
+        httpClientFactory.getClient(url, config, connection.getKerberosConnection());
+    if (lbStrategy instanceof LBRequestListener) {
+      // Let the strategy learn from how the selected server responds
+      return LBReportingAvaticaHttpClient.wrap(client, urlStr, (LBRequestListener) lbStrategy);
+    }
+    return client;
   }
   @Override public Connection connect(String url, Properties info)
       throws SQLException {
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.Meta;
+import org.apache.calcite.avatica.util.ColumnarRows;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Writes a {@link Meta.Frame} straight to a {@link JsonGenerator}.
+ *
+ * <p>The output is the same as that of the bean serializer, an object with
+ * {@code offset}, {@code done} and {@code rows} fields, but values of the
+ * common scalar types are written without looking up a serializer for each
+ * one, and primitive columns of {@link ColumnarRows} are written without
+ * boxing. Other values are written by the serializer Jackson would use.
+ */
+class FrameJsonSerializer extends StdSerializer<Meta.Frame> {
+  FrameJsonSerializer() {
+    super(Meta.Frame.class);
+  }
+
+  @Override public void serialize(Meta.Frame frame, JsonGenerator gen,
+      SerializerProvider provider) throws IOException {
+    gen.writeStartObject();
+    gen.writeNumberField("offset", frame.offset);
+    gen.writeBooleanField("done", frame.done);
+    gen.writeFieldName("rows");
+    if (frame.rows == null) {
+      gen.writeNull();
+    } else if (frame.rows instanceof ColumnarRows) {
+      writeColumnarRows((ColumnarRows) frame.rows, gen, provider);
+    } else {
+      gen.writeStartArray();
+      for (Object row : frame.rows) {
+        writeValue(row, gen, provider);
+      }
+      gen.writeEndArray();
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeColumnarRows(ColumnarRows rows, JsonGenerator gen,
+      SerializerProvider provider) throws IOException {
+    final int columnCount = rows.getColumnCount();
+    gen.writeStartArray();
+    for (int row = 0; row < rows.size(); row++) {
+      gen.writeStartArray();
+      for (int column = 0; column < columnCount; column++) {
+        if (rows.isNull(row, column)) {
+          gen.writeNull();
+          continue;
+        }
+        switch (rows.getRep(column)) {
+        case BYTE:
+        case SHORT:
+        case INTEGER:
+          gen.writeNumber((int) rows.getLong(row, column));
+          break;
+        case LONG:
+          gen.writeNumber(rows.getLong(row, column));
+          break;
+        case FLOAT:
+          gen.writeNumber((float) rows.getDouble(row, column));
+          break;
+        case DOUBLE:
+          gen.writeNumber(rows.getDouble(row, column));
+          break;
+        default:
+          writeValue(rows.getObject(row, column), gen, provider);
+        }
+      }
+      gen.writeEndArray();
+    }
+    gen.writeEndArray();
+  }
+
+  private static void writeValue(Object value, JsonGenerator gen,
+      SerializerProvider provider) throws IOException {
+    if (value == null) {
+      gen.writeNull();
+    } else if (value instanceof String) {
+      gen.writeString((String) value);
+    } else if (value instanceof Integer) {
+      gen.writeNumber((Integer) value);
+    } else if (value instanceof Long) {
+      gen.writeNumber((Long) value);
+    } else if (value instanceof Double) {
+      gen.writeNumber((Double) value);
+    } else if (value instanceof Boolean) {
+      gen.writeBoolean((Boolean) value);
+    } else if (value instanceof BigDecimal) {
+      gen.writeNumber((BigDecimal) value);
+    } else if (value instanceof Short) {
+      gen.writeNumber((Short) value);
+    } else if (value instanceof Byte) {
+      gen.writeNumber((Byte) value);
+    } else if (value instanceof Float) {
+      gen.writeNumber((Float) value);
+    } else if (value instanceof byte[]) {
+      final byte[] bytes = (byte[]) value;
+      gen.writeBinary(provider.getConfig().getBase64Variant(), bytes, 0, bytes.length);
+    } else if (value instanceof Object[]) {
+      gen.writeStartArray();
+      for (Object o : (Object[]) value) {
+        writeValue(o, gen, provider);
+      }
+      gen.writeEndArray();
+    } else if (value instanceof List) {
+      gen.writeStartArray();
+      for (Object o : (List<?>) value) {
+        writeValue(o, gen, provider);
+      }
+      gen.writeEndArray();
+    } else {
+      provider.defaultSerializeValue(value, gen);
+    }
+  }
+}
+
+// End FrameJsonSerializer.java
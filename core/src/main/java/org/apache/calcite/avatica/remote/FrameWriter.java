@@ -0,0 +1,448 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.ColumnMetaData;
+import org.apache.calcite.avatica.Meta;
+import org.apache.calcite.avatica.proto.Common;
+import org.apache.calcite.avatica.util.Base64;
+import org.apache.calcite.avatica.util.ColumnarRows;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes a {@link Meta.Frame} as rows straight to a {@link CodedOutputStream}.
+ *
+ * <p>The bytes are the same as those of {@link Meta.Frame#toProto()}, but no
+ * {@link Common.TypedValue}, {@link Common.ColumnValue} or {@link Common.Row}
+ * is built for values of the common scalar types, and primitive columns of
+ * {@link ColumnarRows} are written without boxing.
+ *
+ * <p>The length of a message precedes it on the wire, so the frame is walked
+ * twice: the constructor computes and remembers the size of every row and
+ * value, and {@link #writeTo(CodedOutputStream)} writes them. Values that have
+ * no direct encoding here, such as arrays, are built as messages as before.
+ */
+class FrameWriter {
+  private static final int TYPE = Common.TypedValue.TYPE_FIELD_NUMBER;
+  private static final int BOOL_VALUE = Common.TypedValue.BOOL_VALUE_FIELD_NUMBER;
+  private static final int STRING_VALUE = Common.TypedValue.STRING_VALUE_FIELD_NUMBER;
+  private static final int NUMBER_VALUE = Common.TypedValue.NUMBER_VALUE_FIELD_NUMBER;
+  private static final int BYTES_VALUE = Common.TypedValue.BYTES_VALUE_FIELD_NUMBER;
+  private static final int DOUBLE_VALUE = Common.TypedValue.DOUBLE_VALUE_FIELD_NUMBER;
+  private static final int NULL = Common.TypedValue.NULL_FIELD_NUMBER;
+
+  private final Meta.Frame frame;
+  /** For each row, its size followed by the size of the
+   * {@link Common.TypedValue} of each of its values; -1 for values that are
+   * in {@link #deferred}. */
+  private int[] sizes = new int[64];
+  private int sizeCount;
+  /** In the order they are written: the strings of values whose string form
+   * is computed, and the {@link Common.ColumnValue}s of values that have no
+   * direct encoding. */
+  private final List<Object> deferred = new ArrayList<>();
+  private final int serializedSize;
+
+  FrameWriter(Meta.Frame frame) {
+    this.frame = frame;
+    this.serializedSize = computeFrameSize();
+  }
+
+  /** Returns the size of the frame, without a tag or length. */
+  int getSerializedSize() {
+    return serializedSize;
+  }
+
+  private int computeFrameSize() {
+    int size = 0;
+    if (frame.offset != 0) {
+      size += CodedOutputStream.computeUInt64Size(Common.Frame.OFFSET_FIELD_NUMBER,
+          frame.offset);
+    }
+    if (frame.done) {
+      size += CodedOutputStream.computeBoolSize(Common.Frame.DONE_FIELD_NUMBER, true);
+    }
+    if (frame.rows instanceof ColumnarRows) {
+      final ColumnarRows rows = (ColumnarRows) frame.rows;
+      for (int i = 0; i < rows.size(); i++) {
+        final int rowIndex = addSize(0);
+        int rowSize = 0;
+        for (int j = 0; j < rows.getColumnCount(); j++) {
+          if (isPrimitive(rows, i, j)) {
+            final int valueSize = primitiveSize(rows, i, j);
+            addSize(valueSize);
+            rowSize += columnValueSize(valueSize);
+          } else {
+            rowSize += valueSize(rows.getObject(i, j));
+          }
+        }
+        sizes[rowIndex] = rowSize;
+        size += lengthDelimitedSize(Common.Frame.ROWS_FIELD_NUMBER, rowSize);
+      }
+      return size;
+    }
+    for (Object row : frame.rows) {
+      if (null == row) {
+        // Skipped, as by Frame.toProto
+        continue;
+      }
+      final int rowIndex = addSize(0);
+      int rowSize = 0;
+      for (Object value : values(row)) {
+        rowSize += valueSize(value);
+      }
+      sizes[rowIndex] = rowSize;
+      size += lengthDelimitedSize(Common.Frame.ROWS_FIELD_NUMBER, rowSize);
+    }
+    return size;
+  }
+
+  /** Writes the fields of the frame, without a tag or length. */
+  void writeTo(CodedOutputStream out) throws IOException {
+    if (frame.offset != 0) {
+      out.writeUInt64(Common.Frame.OFFSET_FIELD_NUMBER, frame.offset);
+    }
+    if (frame.done) {
+      out.writeBool(Common.Frame.DONE_FIELD_NUMBER, true);
+    }
+    int next = 0;
+    int nextDeferred = 0;
+    if (frame.rows instanceof ColumnarRows) {
+      final ColumnarRows rows = (ColumnarRows) frame.rows;
+      for (int i = 0; i < rows.size(); i++) {
+        writeLengthDelimitedHeader(out, Common.Frame.ROWS_FIELD_NUMBER, sizes[next++]);
+        for (int j = 0; j < rows.getColumnCount(); j++) {
+          final int size = sizes[next++];
+          if (isPrimitive(rows, i, j)) {
+            writeColumnValueHeader(out, size);
+            writePrimitive(out, rows, i, j);
+            writeScalarValueHeader(out, size);
+            writePrimitive(out, rows, i, j);
+          } else {
+            nextDeferred = writeValue(out, rows.getObject(i, j), size, nextDeferred);
+          }
+        }
+      }
+      return;
+    }
+    for (Object row : frame.rows) {
+      if (null == row) {
+        continue;
+      }
+      writeLengthDelimitedHeader(out, Common.Frame.ROWS_FIELD_NUMBER, sizes[next++]);
+      for (Object value : values(row)) {
+        nextDeferred = writeValue(out, value, sizes[next++], nextDeferred);
+      }
+    }
+  }
+
+  private int addSize(int size) {
+    if (sizeCount == sizes.length) {
+      sizes = Arrays.copyOf(sizes, sizeCount * 2);
+    }
+    sizes[sizeCount] = size;
+    return sizeCount++;
+  }
+
+  /** Returns the values of a row, as {@link Meta.Frame#toProto()} sees them. */
+  private static List<?> values(Object row) {
+    if (row instanceof Object[]) {
+      return Arrays.asList((Object[]) row);
+    } else if (row instanceof List) {
+      return (List<?>) row;
+    } else if (row instanceof Iterable) {
+      final List<Object> values = new ArrayList<>();
+      for (Object value : (Iterable<?>) row) {
+        values.add(value);
+      }
+      return values;
+    }
+    throw new RuntimeException("Only arrays are supported");
+  }
+
+  private static int lengthDelimitedSize(int fieldNumber, int size) {
+    return CodedOutputStream.computeTagSize(fieldNumber)
+        + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+  }
+
+  private static void writeLengthDelimitedHeader(CodedOutputStream out, int fieldNumber,
+      int size) throws IOException {
+    out.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    out.writeUInt32NoTag(size);
+  }
+
+  /** Returns the size of a value within its row, given the size of its
+   * {@link Common.TypedValue}. */
+  private static int columnValueSize(int typedValueSize) {
+    // A scalar is sent as both the deprecated "value" and "scalar_value"
+    return lengthDelimitedSize(Common.Row.VALUE_FIELD_NUMBER,
+        lengthDelimitedSize(Common.ColumnValue.VALUE_FIELD_NUMBER, typedValueSize)
+            + lengthDelimitedSize(Common.ColumnValue.SCALAR_VALUE_FIELD_NUMBER,
+                typedValueSize));
+  }
+
+  private static void writeColumnValueHeader(CodedOutputStream out, int typedValueSize)
+      throws IOException {
+    writeLengthDelimitedHeader(out, Common.Row.VALUE_FIELD_NUMBER,
+        lengthDelimitedSize(Common.ColumnValue.VALUE_FIELD_NUMBER, typedValueSize)
+            + lengthDelimitedSize(Common.ColumnValue.SCALAR_VALUE_FIELD_NUMBER,
+                typedValueSize));
+    writeLengthDelimitedHeader(out, Common.ColumnValue.VALUE_FIELD_NUMBER, typedValueSize);
+  }
+
+  private static void writeScalarValueHeader(CodedOutputStream out, int typedValueSize)
+      throws IOException {
+    writeLengthDelimitedHeader(out, Common.ColumnValue.SCALAR_VALUE_FIELD_NUMBER,
+        typedValueSize);
+  }
+
+  /** Computes the size of a value within its row, remembering what
+   * {@link #writeValue} needs. */
+  private int valueSize(Object value) {
+    final int size = typedValueSize(value);
+    if (size >= 0) {
+      addSize(size);
+      return columnValueSize(size);
+    }
+    final Common.ColumnValue columnValue = Meta.Frame.serializeColumn(value);
+    deferred.add(columnValue);
+    addSize(-1);
+    return lengthDelimitedSize(Common.Row.VALUE_FIELD_NUMBER,
+        columnValue.getSerializedSize());
+  }
+
+  /** Writes a value within its row; returns the index of the next deferred
+   * object. */
+  private int writeValue(CodedOutputStream out, Object value, int size, int nextDeferred)
+      throws IOException {
+    if (size < 0) {
+      out.writeMessage(Common.Row.VALUE_FIELD_NUMBER,
+          (Common.ColumnValue) deferred.get(nextDeferred));
+      return nextDeferred + 1;
+    }
+    final String string;
+    if (hasComputedString(value)) {
+      string = (String) deferred.get(nextDeferred++);
+    } else {
+      string = null;
+    }
+    writeColumnValueHeader(out, size);
+    writeTypedValue(out, value, string);
+    writeScalarValueHeader(out, size);
+    writeTypedValue(out, value, string);
+    return nextDeferred;
+  }
+
+  private static boolean hasComputedString(Object value) {
+    return value instanceof BigDecimal || value instanceof Character
+        || value instanceof byte[];
+  }
+
+  /** Returns the size of the {@link Common.TypedValue} that
+   * {@link TypedValue#toProto(Common.TypedValue.Builder, Object)} would build
+   * for a value, or -1 if it is not encoded directly. */
+  private int typedValueSize(Object o) {
+    if (null == o) {
+      return typeSize(Common.Rep.NULL) + CodedOutputStream.computeBoolSize(NULL, true);
+    } else if (o instanceof Byte) {
+      return numberSize(Common.Rep.BYTE, (Byte) o);
+    } else if (o instanceof Short) {
+      return numberSize(Common.Rep.SHORT, (Short) o);
+    } else if (o instanceof Integer) {
+      return numberSize(Common.Rep.INTEGER, (Integer) o);
+    } else if (o instanceof Long) {
+      return numberSize(Common.Rep.LONG, (Long) o);
+    } else if (o instanceof Double) {
+      return doubleSize(Common.Rep.DOUBLE, (Double) o);
+    } else if (o instanceof Float) {
+      return numberSize(Common.Rep.FLOAT, Float.floatToIntBits((Float) o));
+    } else if (o instanceof BigDecimal) {
+      final String string = o.toString();
+      deferred.add(string);
+      return typeSize(Common.Rep.BIG_DECIMAL) + stringSize(string);
+    } else if (o instanceof String) {
+      return typeSize(Common.Rep.STRING) + stringSize((String) o);
+    } else if (o instanceof Character) {
+      final String string = o.toString();
+      deferred.add(string);
+      return typeSize(Common.Rep.CHARACTER) + stringSize(string);
+    } else if (o instanceof byte[]) {
+      final byte[] bytes = (byte[]) o;
+      // Sent as base64 too, for old clients (CALCITE-1209)
+      final String string = Base64.encodeBytes(bytes);
+      deferred.add(string);
+      return typeSize(Common.Rep.BYTE_STRING) + stringSize(string)
+          + (bytes.length == 0
+              ? 0 : CodedOutputStream.computeByteArraySize(BYTES_VALUE, bytes));
+    } else if (o instanceof Boolean) {
+      return typeSize(Common.Rep.BOOLEAN)
+          + ((Boolean) o ? CodedOutputStream.computeBoolSize(BOOL_VALUE, true) : 0);
+    } else if (o instanceof Timestamp) {
+      return numberSize(Common.Rep.JAVA_SQL_TIMESTAMP, ((Timestamp) o).getTime());
+    } else if (o instanceof java.sql.Date) {
+      return numberSize(Common.Rep.JAVA_SQL_DATE, ((java.sql.Date) o).getTime());
+    } else if (o instanceof Time) {
+      return numberSize(Common.Rep.JAVA_SQL_TIME, ((Time) o).getTime());
+    }
+    return -1;
+  }
+
+  /** Writes the fields of a {@link Common.TypedValue} sized by
+   * {@link #typedValueSize(Object)}, in field order. */
+  private static void writeTypedValue(CodedOutputStream out, Object o, String string)
+      throws IOException {
+    if (null == o) {
+      writeType(out, Common.Rep.NULL);
+      out.writeBool(NULL, true);
+    } else if (o instanceof Byte) {
+      writeNumber(out, Common.Rep.BYTE, (Byte) o);
+    } else if (o instanceof Short) {
+      writeNumber(out, Common.Rep.SHORT, (Short) o);
+    } else if (o instanceof Integer) {
+      writeNumber(out, Common.Rep.INTEGER, (Integer) o);
+    } else if (o instanceof Long) {
+      writeNumber(out, Common.Rep.LONG, (Long) o);
+    } else if (o instanceof Double) {
+      writeDouble(out, Common.Rep.DOUBLE, (Double) o);
+    } else if (o instanceof Float) {
+      writeNumber(out, Common.Rep.FLOAT, Float.floatToIntBits((Float) o));
+    } else if (o instanceof BigDecimal) {
+      writeType(out, Common.Rep.BIG_DECIMAL);
+      writeString(out, string);
+    } else if (o instanceof String) {
+      writeType(out, Common.Rep.STRING);
+      writeString(out, (String) o);
+    } else if (o instanceof Character) {
+      writeType(out, Common.Rep.CHARACTER);
+      writeString(out, string);
+    } else if (o instanceof byte[]) {
+      final byte[] bytes = (byte[]) o;
+      writeType(out, Common.Rep.BYTE_STRING);
+      writeString(out, string);
+      if (bytes.length != 0) {
+        out.writeByteArray(BYTES_VALUE, bytes);
+      }
+    } else if (o instanceof Boolean) {
+      writeType(out, Common.Rep.BOOLEAN);
+      if ((Boolean) o) {
+        out.writeBool(BOOL_VALUE, true);
+      }
+    } else if (o instanceof Timestamp) {
+      writeNumber(out, Common.Rep.JAVA_SQL_TIMESTAMP, ((Timestamp) o).getTime());
+    } else if (o instanceof java.sql.Date) {
+      writeNumber(out, Common.Rep.JAVA_SQL_DATE, ((java.sql.Date) o).getTime());
+    } else if (o instanceof Time) {
+      writeNumber(out, Common.Rep.JAVA_SQL_TIME, ((Time) o).getTime());
+    } else {
+      throw new IllegalStateException("Not directly encoded: " + o.getClass());
+    }
+  }
+
+  /** Whether a value of {@link ColumnarRows} is held in a primitive array. */
+  private static boolean isPrimitive(ColumnarRows rows, int row, int column) {
+    return rows.getRep(column) != ColumnMetaData.Rep.OBJECT && !rows.isNull(row, column);
+  }
+
+  private static int primitiveSize(ColumnarRows rows, int row, int column) {
+    final ColumnMetaData.Rep rep = rows.getRep(column);
+    switch (rep) {
+    case FLOAT:
+      return numberSize(Common.Rep.FLOAT,
+          Float.floatToIntBits((float) rows.getDouble(row, column)));
+    case DOUBLE:
+      return doubleSize(Common.Rep.DOUBLE, rows.getDouble(row, column));
+    default:
+      return numberSize(rep.toProto(), rows.getLong(row, column));
+    }
+  }
+
+  private static void writePrimitive(CodedOutputStream out, ColumnarRows rows, int row,
+      int column) throws IOException {
+    final ColumnMetaData.Rep rep = rows.getRep(column);
+    switch (rep) {
+    case FLOAT:
+      writeNumber(out, Common.Rep.FLOAT,
+          Float.floatToIntBits((float) rows.getDouble(row, column)));
+      break;
+    case DOUBLE:
+      writeDouble(out, Common.Rep.DOUBLE, rows.getDouble(row, column));
+      break;
+    default:
+      writeNumber(out, rep.toProto(), rows.getLong(row, column));
+    }
+  }
+
+  // Fields with default values are not written, as by the generated code
+
+  private static int typeSize(Common.Rep type) {
+    return type.getNumber() == 0 ? 0 : CodedOutputStream.computeEnumSize(TYPE, type.getNumber());
+  }
+
+  private static void writeType(CodedOutputStream out, Common.Rep type) throws IOException {
+    if (type.getNumber() != 0) {
+      out.writeEnum(TYPE, type.getNumber());
+    }
+  }
+
+  private static int numberSize(Common.Rep type, long value) {
+    return typeSize(type)
+        + (value == 0 ? 0 : CodedOutputStream.computeSInt64Size(NUMBER_VALUE, value));
+  }
+
+  private static void writeNumber(CodedOutputStream out, Common.Rep type, long value)
+      throws IOException {
+    writeType(out, type);
+    if (value != 0) {
+      out.writeSInt64(NUMBER_VALUE, value);
+    }
+  }
+
+  private static int doubleSize(Common.Rep type, double value) {
+    return typeSize(type) + (Double.doubleToRawLongBits(value) == 0
+        ? 0 : CodedOutputStream.computeDoubleSize(DOUBLE_VALUE, value));
+  }
+
+  private static void writeDouble(CodedOutputStream out, Common.Rep type, double value)
+      throws IOException {
+    writeType(out, type);
+    if (Double.doubleToRawLongBits(value) != 0) {
+      out.writeDouble(DOUBLE_VALUE, value);
+    }
+  }
+
+  private static int stringSize(String value) {
+    return value.isEmpty() ? 0 : CodedOutputStream.computeStringSize(STRING_VALUE, value);
+  }
+
+  private static void writeString(CodedOutputStream out, String value) throws IOException {
+    if (!value.isEmpty()) {
+      out.writeString(STRING_VALUE, value);
+    }
+  }
+}
+
+// End FrameWriter.java
@@ -32,6 +32,20 @@
   int HTTP_UNAUTHORIZED = 403;
   int HTTP_INTERNAL_SERVER_ERROR = 500;
   String HANDLER_SERIALIZATION_METRICS_NAME = "Handler.Serialization";
+  /** Timer of the decoding of requests. */
+  String HANDLER_DECODE_METRICS_NAME = "Handler.Decode";
+  /** Timer of the execution of requests by the service; suffixed with
+   * {@code "." + } the request's class name, such as {@code FetchRequest},
+   * for the timer of one type of request. */
+  String HANDLER_EXECUTE_METRICS_NAME = "Handler.Execute";
+  /** Timer of the encoding of responses. */
+  String HANDLER_ENCODE_METRICS_NAME = "Handler.Encode";
+  /** Histogram of the sizes of serialized requests. */
+  String HANDLER_REQUEST_SIZE_METRICS_NAME = "Handler.RequestSize";
+  /** Histogram of the sizes of serialized responses. */
+  String HANDLER_RESPONSE_SIZE_METRICS_NAME = "Handler.ResponseSize";
+  /** Histogram of the number of rows in each frame of a response. */
+  String HANDLER_FRAME_ROWS_METRICS_NAME = "Handler.FrameRows";
 
   /**
    * Struct that encapsulates the context of the result of a request to Avatica.
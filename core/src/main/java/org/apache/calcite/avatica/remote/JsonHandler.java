@@ -22,9 +22,13 @@
 import org.apache.calcite.avatica.remote.Service.Request;
 import org.apache.calcite.avatica.remote.Service.Response;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
 
 /**
@@ -37,12 +41,16 @@
 public class JsonHandler extends AbstractHandler<String> {
 
   protected static final ObjectMapper MAPPER = JsonService.MAPPER;
+  /** Writes to a stream without closing it, so that a failure can still be
+   * reported to the caller. */
+  private static final ObjectWriter STREAM_WRITER =
+      MAPPER.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
   final MetricsSystem metrics;
   final Timer serializationTimer;
 
   public JsonHandler(Service service, MetricsSystem metrics) {
-    super(service);
+    super(service, metrics);
     this.metrics = metrics;
     this.serializationTimer = this.metrics.getTimer(
         MetricsHelper.concat(JsonHandler.class, HANDLER_SERIALIZATION_METRICS_NAME));
@@ -58,6 +66,54 @@ public HandlerResponse<String> apply(String jsonRequest) {
     }
   }
 
+  /**
+   * Computes a response for a request read from a stream of JSON, like
+   * {@link #applyWithoutEncoding(Object)}, without first reading the request
+   * into a string. Jackson detects the encoding of the stream, which must be
+   * UTF-8, UTF-16 or UTF-32.
+   *
+   * @param request The stream to read the request from
+   * @return A {@link Response}, or an {@link Service.ErrorResponse} if the
+   *     computation failed
+   */
+  public HandlerResponse<Response> applyWithoutEncoding(final InputStream request) {
+    return applyWithoutEncoding(new RequestDecoder() {
+      @Override public Request decode() throws IOException {
+        try (Context ctx = serializationTimer.start()) {
+          return MAPPER.readValue(request, Service.Request.class);
+        }
+      }
+    });
+  }
+
+  /** Returns the size of a request or response in bytes when encoded as
+   * UTF-8, as it is sent, so that it can be compared with the size of a
+   * protobuf message. Counts rather than encodes, to avoid copying large
+   * responses. */
+  @Override long sizeOf(String serialized) {
+    final int length = serialized.length();
+    long size = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = serialized.charAt(i);
+      if (c < 0x80) {
+        size += 1;
+      } else if (c < 0x800) {
+        size += 2;
+      } else if (!Character.isSurrogate(c)) {
+        size += 3;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(serialized.charAt(i + 1))) {
+        // A supplementary character
+        size += 4;
+        i++;
+      } else {
+        // An unpaired surrogate is encoded as '?'
+        size += 1;
+      }
+    }
+    return size;
+  }
+
   /**
    * Serializes the provided object as JSON.
    *
@@ -71,6 +127,23 @@ public HandlerResponse<String> apply(String jsonRequest) {
       return w.toString();
     }
   }
+
+  /**
+   * Serializes a {@link Response} as UTF-8 JSON directly onto a stream, such as
+   * one returned by {@link #applyWithoutEncoding(InputStream)}. The stream is
+   * not closed.
+   *
+   * @param response The response to serialize
+   * @param out The stream to write the serialized response to
+   * @throws IOException If there are errors during serialization
+   */
+  public void encode(Response response, OutputStream out) throws IOException {
+    // The size of a streamed response is not known, so it is not recorded
+    try (Context ctx = serializationTimer.start();
+         Context encodeCtx = encodeTimer.start()) {
+      STREAM_WRITER.writeValue(out, response);
+    }
+  }
 }
 
 // End JsonHandler.java
@@ -27,7 +27,7 @@
  * Implementation of {@link org.apache.calcite.avatica.remote.Service}
  * that encodes requests and responses as JSON.
  */
-public abstract class JsonService extends AbstractService {
+public abstract class JsonService extends AbstractJsonService {
   public static final ObjectMapper MAPPER;
   static {
     MAPPER = new ObjectMapper();
@@ -43,21 +43,17 @@ public JsonService() {
    * responses to and from the peer service. */
   public abstract String apply(String request);
 
-  @Override SerializationType getSerializationType() {
-    return SerializationType.JSON;
-  }
-
   //@VisibleForTesting
   protected static <T> T decode(String response, Class<T> expectedType)
       throws IOException {
-    Response resp = MAPPER.readValue(response, Response.class);
-    if (resp instanceof ErrorResponse) {
-      throw ((ErrorResponse) resp).toException();
-    } else if (!expectedType.isAssignableFrom(resp.getClass())) {
-      throw new ClassCastException("Cannot cast " + resp.getClass() + " into " + expectedType);
-    }
+    return cast(MAPPER.readValue(response, Response.class), expectedType);
+  }
 
-    return expectedType.cast(resp);
+  /** Decodes a response from bytes of JSON, without first converting them
+   * to a string. */
+  protected static <T> T decode(byte[] response, Class<T> expectedType)
+      throws IOException {
+    return cast(MAPPER.readValue(response, Response.class), expectedType);
   }
 
   //@VisibleForTesting
@@ -67,176 +63,11 @@ protected static <T> String encode(T request) throws IOException {
     return w.toString();
   }
 
-  protected RuntimeException handle(IOException e) {
-    return new RuntimeException(e);
-  }
-
-  public ResultSetResponse apply(CatalogsRequest request) {
-    try {
-      return finagle(decode(apply(encode(request)), ResultSetResponse.class));
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ResultSetResponse apply(SchemasRequest request) {
-    try {
-      return finagle(decode(apply(encode(request)), ResultSetResponse.class));
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ResultSetResponse apply(TablesRequest request) {
-    try {
-      return finagle(decode(apply(encode(request)), ResultSetResponse.class));
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ResultSetResponse apply(TableTypesRequest request) {
-    try {
-      return finagle(decode(apply(encode(request)), ResultSetResponse.class));
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ResultSetResponse apply(TypeInfoRequest request) {
-    try {
-      return finagle(decode(apply(encode(request)), ResultSetResponse.class));
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ResultSetResponse apply(ColumnsRequest request) {
-    try {
-      return finagle(decode(apply(encode(request)), ResultSetResponse.class));
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public PrepareResponse apply(PrepareRequest request) {
-    try {
-      return finagle(decode(apply(encode(request)), PrepareResponse.class));
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ExecuteResponse apply(PrepareAndExecuteRequest request) {
-    try {
-      return finagle(decode(apply(encode(request)), ExecuteResponse.class));
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public FetchResponse apply(FetchRequest request) {
-    try {
-      return decode(apply(encode(request)), FetchResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ExecuteResponse apply(ExecuteRequest request) {
-    try {
-      return finagle(decode(apply(encode(request)), ExecuteResponse.class));
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public CreateStatementResponse apply(CreateStatementRequest request) {
-    try {
-      return decode(apply(encode(request)), CreateStatementResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public CloseStatementResponse apply(CloseStatementRequest request) {
-    try {
-      return decode(apply(encode(request)), CloseStatementResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public OpenConnectionResponse apply(OpenConnectionRequest request) {
-    try {
-      return decode(apply(encode(request)), OpenConnectionResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public CloseConnectionResponse apply(CloseConnectionRequest request) {
-    try {
-      return decode(apply(encode(request)), CloseConnectionResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ConnectionSyncResponse apply(ConnectionSyncRequest request) {
-    try {
-      return decode(apply(encode(request)), ConnectionSyncResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public DatabasePropertyResponse apply(DatabasePropertyRequest request) {
-    try {
-      return decode(apply(encode(request)), DatabasePropertyResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public SyncResultsResponse apply(SyncResultsRequest request) {
-    try {
-      return decode(apply(encode(request)), SyncResultsResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public CommitResponse apply(CommitRequest request) {
-    try {
-      return decode(apply(encode(request)), CommitResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public RollbackResponse apply(RollbackRequest request) {
-    try {
-      return decode(apply(encode(request)), RollbackResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ExecuteBatchResponse apply(PrepareAndExecuteBatchRequest request) {
-    try {
-      return decode(apply(encode(request)), ExecuteBatchResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
-  }
-
-  public ExecuteBatchResponse apply(ExecuteBatchRequest request) {
-    try {
-      return decode(apply(encode(request)), ExecuteBatchResponse.class);
-    } catch (IOException e) {
-      throw handle(e);
-    }
+  /** Encodes the request as a JSON string and transports it with
+   * {@link #apply(String)}. */
+  @Override protected <T> T call(Request request, Class<T> expectedType)
+      throws IOException {
+    return decode(apply(encode(request)), expectedType);
   }
 }
 
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.ha.LBRequestListener;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * HTTP client implementation which reports the latency and outcome of each
+ * request sent by the wrapped HTTP client to an {@link LBRequestListener}.
+ */
+class LBReportingAvaticaHttpClient implements AvaticaHttpClient {
+  final AvaticaHttpClient wrapped;
+  final String url;
+  final LBRequestListener listener;
+
+  LBReportingAvaticaHttpClient(AvaticaHttpClient wrapped, String url,
+      LBRequestListener listener) {
+    this.wrapped = Objects.requireNonNull(wrapped);
+    this.url = Objects.requireNonNull(url);
+    this.listener = Objects.requireNonNull(listener);
+  }
+
+  /** Wraps a client, keeping its ability to send requests asynchronously. */
+  static AvaticaHttpClient wrap(AvaticaHttpClient client, String url,
+      LBRequestListener listener) {
+    if (client instanceof AsyncAvaticaHttpClient) {
+      return new Async((AsyncAvaticaHttpClient) client, url, listener);
+    }
+    return new LBReportingAvaticaHttpClient(client, url, listener);
+  }
+
+  @Override public byte[] send(byte[] request) {
+    listener.requestStarted(url);
+    final long start = System.nanoTime();
+    boolean succeeded = false;
+    try {
+      final byte[] response = wrapped.send(request);
+      succeeded = true;
+      return response;
+    } finally {
+      listener.requestFinished(url, System.nanoTime() - start, succeeded);
+    }
+  }
+
+  /** Reporting client that wraps an {@link AsyncAvaticaHttpClient}. */
+  private static class Async extends LBReportingAvaticaHttpClient
+      implements AsyncAvaticaHttpClient {
+    Async(AsyncAvaticaHttpClient wrapped, String url, LBRequestListener listener) {
+      super(wrapped, url, listener);
+    }
+
+    @Override public CompletableFuture<byte[]> sendAsync(byte[] request) {
+      listener.requestStarted(url);
+      final long start = System.nanoTime();
+      final CompletableFuture<byte[]> future;
+      try {
+        future = ((AsyncAvaticaHttpClient) wrapped).sendAsync(request);
+      } catch (RuntimeException e) {
+        listener.requestFinished(url, System.nanoTime() - start, false);
+        throw e;
+      }
+      return future.whenComplete(new BiConsumer<byte[], Throwable>() {
+        @Override public void accept(byte[] response, Throwable failure) {
+          listener.requestFinished(url, System.nanoTime() - start, failure == null);
+        }
+      });
+    }
+  }
+}
+
+// End LBReportingAvaticaHttpClient.java
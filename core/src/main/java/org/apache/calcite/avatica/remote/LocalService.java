@@ -83,6 +83,13 @@ private static <E> List<E> list(Iterable<E> iterable) {
 
   /** Converts a result set (not serializable) into a serializable response. */
   public ResultSetResponse toResponse(Meta.MetaResultSet resultSet) {
+    return toResponse(resultSet, false);
+  }
+
+  /** Converts a result set (not serializable) into a serializable response,
+   * whose first frame is serialized as columns if {@code columnarFrames}. */
+  public ResultSetResponse toResponse(Meta.MetaResultSet resultSet,
+      boolean columnarFrames) {
     if (resultSet.updateCount != -1) {
       return new ResultSetResponse(resultSet.connectionId,
           resultSet.statementId, resultSet.ownStatement, null, null,
@@ -137,7 +144,8 @@ public ResultSetResponse toResponse(Meta.MetaResultSet resultSet) {
     }
 
     return new ResultSetResponse(resultSet.connectionId, resultSet.statementId,
-        resultSet.ownStatement, signature, frame, updateCount, serverLevelRpcMetadata);
+        resultSet.ownStatement, signature, frame, updateCount, serverLevelRpcMetadata,
+        columnarFrames);
   }
 
   public ResultSetResponse apply(CatalogsRequest request) {
@@ -227,7 +235,7 @@ public ExecuteResponse apply(PrepareAndExecuteRequest request) {
                 });
         final List<ResultSetResponse> results = new ArrayList<>();
         for (Meta.MetaResultSet metaResultSet : executeResult.resultSets) {
-          results.add(toResponse(metaResultSet));
+          results.add(toResponse(metaResultSet, request.columnarFrames));
         }
         return new ExecuteResponse(results, false, serverLevelRpcMetadata);
       } catch (NoSuchStatementException e) {
@@ -245,7 +253,8 @@ public FetchResponse apply(FetchRequest request) {
           meta.fetch(h,
               request.offset,
               request.fetchMaxRowCount);
-      return new FetchResponse(frame, false, false, serverLevelRpcMetadata);
+      return new FetchResponse(frame, false, false, serverLevelRpcMetadata,
+          request.columnarFrames);
     } catch (NullPointerException | NoSuchStatementException e) {
       // The Statement doesn't exist anymore, bubble up this information
       return new FetchResponse(null, true, true, serverLevelRpcMetadata);
@@ -262,7 +271,7 @@ public ExecuteResponse apply(ExecuteRequest request) {
 
         final List<ResultSetResponse> results = new ArrayList<>(executeResult.resultSets.size());
         for (Meta.MetaResultSet metaResultSet : executeResult.resultSets) {
-          results.add(toResponse(metaResultSet));
+          results.add(toResponse(metaResultSet, request.columnarFrames));
         }
         return new ExecuteResponse(results, false, serverLevelRpcMetadata);
       } catch (NoSuchStatementException e) {
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.Meta;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of metadata calls, such as {@code getTables} and {@code getColumns},
+ * cached by {@link RemoteMeta} for one connection.
+ *
+ * <p>Results are keyed by the method and its arguments. The cache holds at most
+ * a fixed number of results, evicting the least recently used, and each for a
+ * limited time.
+ */
+class MetadataCache {
+  private final long ttlNanos;
+  private final Map<List<Object>, Entry> entries;
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxSize Maximum number of results held
+   * @param ttlMillis Time in milliseconds for which a result is returned
+   */
+  MetadataCache(final int maxSize, long ttlMillis) {
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    this.entries = new LinkedHashMap<List<Object>, Entry>(16, 0.75f, true) {
+      @Override protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /** Returns the result cached for a key, or null if there is none or it
+   * has expired. */
+  synchronized Entry get(List<Object> key) {
+    final Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (System.nanoTime() - entry.createdNanos >= ttlNanos) {
+      entries.remove(key);
+      return null;
+    }
+    return entry;
+  }
+
+  /** Caches a result, which must be complete in its first frame. */
+  synchronized void put(List<Object> key, Meta.Signature signature, Meta.Frame frame) {
+    entries.put(key, new Entry(signature, frame, System.nanoTime()));
+  }
+
+  /** Discards all cached results. */
+  synchronized void invalidate() {
+    entries.clear();
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /** A cached result. */
+  static class Entry {
+    final Meta.Signature signature;
+    final Meta.Frame frame;
+    final long createdNanos;
+
+    Entry(Meta.Signature signature, Meta.Frame frame, long createdNanos) {
+      this.signature = signature;
+      this.frame = frame;
+      this.createdNanos = createdNanos;
+    }
+  }
+}
+
+// End MetadataCache.java
@@ -22,6 +22,7 @@
 import org.apache.calcite.avatica.remote.Service.Response;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Dispatches serialized protocol buffer messages to the provided {@link Service}
@@ -35,7 +36,7 @@ public class ProtobufHandler extends AbstractHandler<byte[]> {
   private final Timer serializationTimer;
 
   public ProtobufHandler(Service service, ProtobufTranslation translation, MetricsSystem metrics) {
-    super(service);
+    super(service, metrics);
     this.translation = translation;
     this.metrics = metrics;
     this.serializationTimer = this.metrics.getTimer(
@@ -52,11 +53,31 @@ public ProtobufHandler(Service service, ProtobufTranslation translation, Metrics
     }
   }
 
+  @Override long sizeOf(byte[] serialized) {
+    return serialized.length;
+  }
+
   @Override byte[] encode(Response response) throws IOException {
     try (Context ctx = serializationTimer.start()) {
       return translation.serializeResponse(response);
     }
   }
+
+  /**
+   * Serializes a {@link Response} directly onto a stream, such as one returned by
+   * {@link #applyWithoutEncoding(Object)}.
+   *
+   * @param response The response to serialize
+   * @param out The stream to write the serialized response to
+   * @throws IOException If there are errors during serialization
+   */
+  public void encode(Response response, OutputStream out) throws IOException {
+    // The size of a streamed response is not known, so it is not recorded
+    try (Context ctx = serializationTimer.start();
+         Context encodeCtx = encodeTimer.start()) {
+      translation.serializeResponse(response, out);
+    }
+  }
 }
 
 // End ProtobufHandler.java
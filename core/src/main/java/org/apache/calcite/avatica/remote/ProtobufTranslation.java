@@ -20,6 +20,7 @@
 import org.apache.calcite.avatica.remote.Service.Response;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Generic interface to support parsing of serialized protocol buffers between client and server.
@@ -34,6 +35,18 @@ public interface ProtobufTranslation {
    */
   byte[] serializeResponse(Response response) throws IOException;
 
+  /**
+   * Serializes a {@link Response} as a protocol buffer onto the given stream. Implementations
+   * should avoid holding the whole serialized response in memory.
+   *
+   * @param response The response to serialize
+   * @param out The stream to write the serialized response to
+   * @throws IOException If there are errors during serialization
+   */
+  default void serializeResponse(Response response, OutputStream out) throws IOException {
+    out.write(serializeResponse(response));
+  }
+
   /**
    * Serializes a {@link Request} as a protocol buffer.
    *
@@ -45,6 +58,9 @@ public interface ProtobufTranslation {
   /**
    * Parses a serialized protocol buffer request into a {@link Request}.
    *
+   * <p>Binary values of the request may refer to {@code bytes} rather than
+   * to a copy of them, so the caller must not modify the array afterwards.
+   *
    * @param bytes Serialized protocol buffer request from client
    * @return A Request object for the given bytes
    * @throws IOException If the protocol buffer cannot be deserialized
@@ -54,6 +70,9 @@ public interface ProtobufTranslation {
   /**
    * Parses a serialized protocol buffer response into a {@link Response}.
    *
+   * <p>Binary values of the response may refer to {@code bytes} rather than
+   * to a copy of them, so the caller must not modify the array afterwards.
+   *
    * @param bytes Serialized protocol buffer request from server
    * @return The Response object for the given bytes
    * @throws IOException If the protocol buffer cannot be deserialized
@@ -61,11 +61,13 @@
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
 import com.google.protobuf.TextFormat;
 import com.google.protobuf.UnsafeByteOperations;
+import com.google.protobuf.WireFormat;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -102,8 +104,7 @@ static class RequestTranslator {
 
     public Service.Request transform(ByteString serializedMessage) throws
         InvalidProtocolBufferException {
-      // This should already be an aliased CodedInputStream from the WireMessage parsing.
-      Message msg = parser.parseFrom(serializedMessage.newCodedInput());
+      Message msg = parser.parseFrom(newAliasedInput(serializedMessage));
       if (LOG.isTraceEnabled()) {
         LOG.trace(
             "Deserialized {} '{}'",
@@ -131,7 +132,9 @@ static class ResponseTranslator {
 
     public Service.Response transform(ByteString serializedMessage) throws
         InvalidProtocolBufferException {
-      Message msg = parser.parseFrom(serializedMessage);
+      // Binary cells of frames are read as slices of the response, and copied only once, when
+      // they are converted to byte[]
+      Message msg = parser.parseFrom(newAliasedInput(serializedMessage));
       if (LOG.isTraceEnabled()) {
         LOG.trace(
             "Deserialized {} '{}'",
@@ -353,6 +356,10 @@ public static ResponseTranslator getParserForResponse(String className) {
     // Avoid BAOS for its synchronized write methods, we don't need that concurrency control
     UnsynchronizedBuffer out = threadLocalBuffer.get();
     try {
+      if (isDirectlyWritable(response)) {
+        writeFetchResponse(out, (Service.FetchResponse) response);
+        return out.toArray();
+      }
       Message responseMsg = response.serialize();
       // Serialization of the response may be large
       if (LOG.isTraceEnabled()) {
@@ -369,6 +376,24 @@ public static ResponseTranslator getParserForResponse(String className) {
     }
   }
 
+  @Override public void serializeResponse(Response response, OutputStream out)
+      throws IOException {
+    if (isDirectlyWritable(response)) {
+      writeFetchResponse(out, (Service.FetchResponse) response);
+      return;
+    }
+    Message responseMsg = response.serialize();
+    // Serialization of the response may be large
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+          "Serializing {} '{}'",
+          responseMsg.getClass().getSimpleName(),
+          TextFormat.shortDebugString(responseMsg)
+      );
+    }
+    writeMessage(out, responseMsg);
+  }
+
   @Override public byte[] serializeRequest(Request request) throws IOException {
     // Avoid BAOS for its synchronized write methods, we don't need that concurrency control
     UnsynchronizedBuffer out = threadLocalBuffer.get();
@@ -409,6 +434,89 @@ void serializeMessage(OutputStream out, Message msg) throws IOException {
     wireMsg.writeTo(out);
   }
 
+  /**
+   * Writes the same bytes as {@link #serializeMessage(OutputStream, Message)}, but encodes the
+   * message directly onto the stream instead of first copying it into a buffer and then into a
+   * {@link WireMessage}.
+   */
+  void writeMessage(OutputStream out, Message msg) throws IOException {
+    CodedOutputStream codedOut = CodedOutputStream.newInstance(out);
+    // The fields of a WireMessage, in the order protobuf would write them
+    codedOut.writeBytes(WireMessage.NAME_FIELD_NUMBER, getClassNameBytes(msg.getClass()));
+    if (msg.getSerializedSize() > 0) {
+      codedOut.writeMessage(WireMessage.WRAPPED_MESSAGE_FIELD_NUMBER, msg);
+    }
+    codedOut.flush();
+  }
+
+  /**
+   * Whether a response is a {@link Service.FetchResponse} whose frame is sent as rows, which
+   * {@link #writeFetchResponse(OutputStream, Service.FetchResponse)} writes without building its
+   * messages. Trace logging needs the messages, so it turns this off.
+   */
+  boolean isDirectlyWritable(Response response) {
+    return response instanceof Service.FetchResponse
+        && !((Service.FetchResponse) response).columnarFrames
+        && !LOG.isTraceEnabled();
+  }
+
+  /**
+   * Writes the same bytes as {@link #writeMessage(OutputStream, Message)} would for the
+   * serialized response, but encodes the frame with a {@link FrameWriter} rather than building
+   * a message for every row and value.
+   */
+  void writeFetchResponse(OutputStream out, Service.FetchResponse response)
+      throws IOException {
+    final FrameWriter frameWriter =
+        null == response.frame ? null : new FrameWriter(response.frame);
+    final RpcMetadata metadata =
+        null == response.rpcMetadata ? null : response.rpcMetadata.serialize();
+
+    // The fields of a FetchResponse, in the order protobuf would write them
+    int size = 0;
+    if (null != frameWriter) {
+      size += CodedOutputStream.computeTagSize(FetchResponse.FRAME_FIELD_NUMBER)
+          + CodedOutputStream.computeUInt32SizeNoTag(frameWriter.getSerializedSize())
+          + frameWriter.getSerializedSize();
+    }
+    if (response.missingStatement) {
+      size += CodedOutputStream.computeBoolSize(FetchResponse.MISSING_STATEMENT_FIELD_NUMBER,
+          true);
+    }
+    if (response.missingResults) {
+      size += CodedOutputStream.computeBoolSize(FetchResponse.MISSING_RESULTS_FIELD_NUMBER,
+          true);
+    }
+    if (null != metadata) {
+      size += CodedOutputStream.computeMessageSize(FetchResponse.METADATA_FIELD_NUMBER,
+          metadata);
+    }
+
+    CodedOutputStream codedOut = CodedOutputStream.newInstance(out);
+    codedOut.writeBytes(WireMessage.NAME_FIELD_NUMBER, getClassNameBytes(FetchResponse.class));
+    if (size > 0) {
+      codedOut.writeTag(WireMessage.WRAPPED_MESSAGE_FIELD_NUMBER,
+          WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      codedOut.writeUInt32NoTag(size);
+      if (null != frameWriter) {
+        codedOut.writeTag(FetchResponse.FRAME_FIELD_NUMBER,
+            WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        codedOut.writeUInt32NoTag(frameWriter.getSerializedSize());
+        frameWriter.writeTo(codedOut);
+      }
+      if (response.missingStatement) {
+        codedOut.writeBool(FetchResponse.MISSING_STATEMENT_FIELD_NUMBER, true);
+      }
+      if (response.missingResults) {
+        codedOut.writeBool(FetchResponse.MISSING_RESULTS_FIELD_NUMBER, true);
+      }
+      if (null != metadata) {
+        codedOut.writeMessage(FetchResponse.METADATA_FIELD_NUMBER, metadata);
+      }
+    }
+    codedOut.flush();
+  }
+
   ByteString getClassNameBytes(Class<?> clz) {
     ByteString byteString = MESSAGE_CLASSES.get(clz);
     if (null == byteString) {
@@ -417,13 +525,20 @@ ByteString getClassNameBytes(Class<?> clz) {
     return byteString;
   }
 
-  @Override public Request parseRequest(byte[] bytes) throws IOException {
-    ByteString byteString = UnsafeByteOperations.unsafeWrap(bytes);
-    CodedInputStream inputStream = byteString.newCodedInput();
-    // Enable aliasing to avoid an extra copy to get at the serialized Request inside of the
-    // WireMessage.
+  /**
+   * Creates a stream that reads a message whose {@code bytes} fields are slices of the
+   * given buffer rather than copies of it. The buffer must not change afterwards.
+   */
+  static CodedInputStream newAliasedInput(ByteString byteString) {
+    final CodedInputStream inputStream = byteString.newCodedInput();
     inputStream.enableAliasing(true);
-    WireMessage wireMsg = WireMessage.parseFrom(inputStream);
+    return inputStream;
+  }
+
+  @Override public Request parseRequest(byte[] bytes) throws IOException {
+    // Alias to avoid an extra copy to get at the serialized Request inside of the WireMessage.
+    WireMessage wireMsg =
+        WireMessage.parseFrom(newAliasedInput(UnsafeByteOperations.unsafeWrap(bytes)));
 
     String serializedMessageClassName = wireMsg.getName();
 
@@ -441,12 +556,9 @@ ByteString getClassNameBytes(Class<?> clz) {
   }
 
   @Override public Response parseResponse(byte[] bytes) throws IOException {
-    ByteString byteString = UnsafeByteOperations.unsafeWrap(bytes);
-    CodedInputStream inputStream = byteString.newCodedInput();
-    // Enable aliasing to avoid an extra copy to get at the serialized Response inside of the
-    // WireMessage.
-    inputStream.enableAliasing(true);
-    WireMessage wireMsg = WireMessage.parseFrom(inputStream);
+    // Alias to avoid an extra copy to get at the serialized Response inside of the WireMessage.
+    WireMessage wireMsg =
+        WireMessage.parseFrom(newAliasedInput(UnsafeByteOperations.unsafeWrap(bytes)));
 
     String serializedMessageClassName = wireMsg.getName();
     try {
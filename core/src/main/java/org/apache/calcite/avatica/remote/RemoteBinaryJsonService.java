@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+/**
+ * Implementation of {@link org.apache.calcite.avatica.remote.Service}
+ * that translates requests into JSON in a binary format and sends them to a
+ * remote server, usually an HTTP server.
+ */
+public class RemoteBinaryJsonService extends BinaryJsonService {
+  private final AvaticaHttpClient client;
+
+  public RemoteBinaryJsonService(AvaticaHttpClient client,
+      Driver.Serialization serialization) {
+    super(serialization);
+    this.client = client;
+  }
+
+  @Override public byte[] apply(byte[] request) {
+    return client.send(request);
+  }
+}
+
+// End RemoteBinaryJsonService.java
@@ -21,6 +21,7 @@
 import org.apache.calcite.avatica.AvaticaParameter;
 import org.apache.calcite.avatica.AvaticaUtils;
 import org.apache.calcite.avatica.ColumnMetaData;
+import org.apache.calcite.avatica.ConnectionConfig;
 import org.apache.calcite.avatica.ConnectionPropertiesImpl;
 import org.apache.calcite.avatica.Meta;
 import org.apache.calcite.avatica.MetaImpl;
@@ -30,10 +31,14 @@
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of {@link org.apache.calcite.avatica.Meta} for the remote
@@ -43,6 +48,21 @@ class RemoteMeta extends MetaImpl {
   final Service service;
   final Map<String, ConnectionPropertiesImpl> propsMap = new HashMap<>();
   private Map<DatabaseProperty, Object> databaseProperties;
+  private MetadataCache metadataCache;
+  private boolean metadataCacheCreated;
+  /** Ids of statements of cached metadata results, which have no statement
+   * on the server; negative, so that they are never server ids. */
+  private final AtomicInteger localStatementIds = new AtomicInteger();
+  private Map<List<Object>, Signature> signatureCache;
+  private boolean signatureCacheCreated;
+  /** Prepared statements whose signatures came from {@link #signatureCache},
+   * by their local ids. Each is its local handle until it is executed, and
+   * then the handle of the statement that the server prepared. */
+  private final Map<Integer, StatementHandle> deferredStatements =
+      new ConcurrentHashMap<>();
+  /** Whether the server prepares a statement that it is asked to execute
+   * under a local id; cleared on the first request that shows it does not. */
+  private volatile boolean deferredPrepareSupported = true;
 
   RemoteMeta(AvaticaConnection connection, Service service) {
     super(connection);
@@ -69,6 +89,11 @@ private MetaResultSet toResultSet(Class clazz,
         response.ownStatement, signature0, response.firstFrame);
   }
 
+  /** Whether to ask the server for columnar frames. */
+  private boolean columnarFrames() {
+    return connection.config().columnarFrames();
+  }
+
   @Override public Map<DatabaseProperty, Object> getDatabaseProperties(ConnectionHandle ch) {
     synchronized (this) {
       // Compute map on first use, and cache
@@ -80,6 +105,91 @@ private MetaResultSet toResultSet(Class clazz,
     }
   }
 
+  /** Returns the cache of metadata results, or null if caching is disabled. */
+  private synchronized MetadataCache metadataCache() {
+    if (!metadataCacheCreated) {
+      final ConnectionConfig config = connection.config();
+      if (config.metadataCacheSize() > 0) {
+        metadataCache =
+            new MetadataCache(config.metadataCacheSize(), config.metadataCacheTtl());
+      }
+      metadataCacheCreated = true;
+    }
+    return metadataCache;
+  }
+
+  /**
+   * Returns the result of a metadata call from the cache, if it is there;
+   * otherwise makes the call, and caches the result if all of its rows are in
+   * its first frame.
+   */
+  private MetaResultSet cachedMetadata(ConnectionHandle ch, List<Object> key,
+      CallableWithoutException<MetaResultSet> call) {
+    final MetadataCache cache = metadataCache();
+    if (cache == null) {
+      return connection.invokeWithRetries(call);
+    }
+    final MetadataCache.Entry entry = cache.get(key);
+    if (entry != null) {
+      return MetaResultSet.create(ch.id, localStatementIds.decrementAndGet(), true,
+          entry.signature, entry.frame);
+    }
+    final MetaResultSet resultSet = connection.invokeWithRetries(call);
+    if (resultSet.updateCount == -1
+        && resultSet.firstFrame != null
+        && resultSet.firstFrame.done) {
+      cache.put(key, resultSet.signature, resultSet.firstFrame);
+    }
+    return resultSet;
+  }
+
+  /** Returns the cache of prepared statement signatures, or null if caching
+   * is disabled. */
+  private synchronized Map<List<Object>, Signature> signatureCache() {
+    if (!signatureCacheCreated) {
+      final int maxSize = connection.config().signatureCacheSize();
+      if (maxSize > 0) {
+        signatureCache = Collections.synchronizedMap(
+            new LinkedHashMap<List<Object>, Signature>(16, 0.75f, true) {
+              @Override protected boolean removeEldestEntry(
+                  Map.Entry<List<Object>, Signature> eldest) {
+                return size() > maxSize;
+              }
+            });
+      }
+      signatureCacheCreated = true;
+    }
+    return signatureCache;
+  }
+
+  /** Returns the handle on the server of a statement, which differs from the
+   * client's handle if the statement's preparation was deferred. */
+  private StatementHandle serverHandle(StatementHandle h) {
+    if (h.id >= 0) {
+      return h;
+    }
+    final StatementHandle deferred = deferredStatements.get(h.id);
+    return deferred == null ? h : deferred;
+  }
+
+  /** Prepares a deferred statement on the server, if it has not been
+   * already, and returns its handle on the server. */
+  private StatementHandle prepareDeferred(StatementHandle h) {
+    StatementHandle target = serverHandle(h);
+    if (target.id < 0 && target.signature != null) {
+      target = prepareOnServer(new ConnectionHandle(h.connectionId), target.signature.sql, -1);
+      deferredStatements.put(h.id, target);
+    }
+    return target;
+  }
+
+  @Override public void invalidateMetadataCache(ConnectionHandle ch) {
+    final MetadataCache cache = metadataCache();
+    if (cache != null) {
+      cache.invalidate();
+    }
+  }
+
   @Override public StatementHandle createStatement(final ConnectionHandle ch) {
     return connection.invokeWithRetries(
         new CallableWithoutException<StatementHandle>() {
@@ -93,13 +203,25 @@ public StatementHandle call() {
         });
   }
 
-  @Override public void closeStatement(final StatementHandle h) {
+  @Override public void closeStatement(StatementHandle h) {
+    final StatementHandle target;
+    if (h.id < 0) {
+      // A cached metadata result or a deferred statement; unless the latter
+      // has been executed, there is no statement on the server
+      final StatementHandle deferred = deferredStatements.remove(h.id);
+      if (deferred == null || deferred.id < 0) {
+        return;
+      }
+      target = deferred;
+    } else {
+      target = h;
+    }
     connection.invokeWithRetries(
         new CallableWithoutException<Void>() {
           public Void call() {
             final Service.CloseStatementResponse response =
                 service.apply(
-                    new Service.CloseStatementRequest(h.connectionId, h.id));
+                    new Service.CloseStatementRequest(target.connectionId, target.id));
             return null;
           }
         });
@@ -158,7 +280,7 @@ public ConnectionProperties call() {
   }
 
   @Override public MetaResultSet getCatalogs(final ConnectionHandle ch) {
-    return connection.invokeWithRetries(
+    return cachedMetadata(ch, Arrays.<Object>asList("getCatalogs", ch.id),
         new CallableWithoutException<MetaResultSet>() {
           public MetaResultSet call() {
             final Service.ResultSetResponse response =
@@ -170,7 +292,8 @@ public MetaResultSet call() {
 
   @Override public MetaResultSet getSchemas(final ConnectionHandle ch, final String catalog,
       final Pat schemaPattern) {
-    return connection.invokeWithRetries(
+    return cachedMetadata(ch,
+        Arrays.<Object>asList("getSchemas", ch.id, catalog, schemaPattern.s),
         new CallableWithoutException<MetaResultSet>() {
           public MetaResultSet call() {
             final Service.ResultSetResponse response =
@@ -183,7 +306,9 @@ public MetaResultSet call() {
 
   @Override public MetaResultSet getTables(final ConnectionHandle ch, final String catalog,
       final Pat schemaPattern, final Pat tableNamePattern, final List<String> typeList) {
-    return connection.invokeWithRetries(
+    return cachedMetadata(ch,
+        Arrays.<Object>asList("getTables", ch.id, catalog, schemaPattern.s, tableNamePattern.s,
+            typeList),
         new CallableWithoutException<MetaResultSet>() {
           public MetaResultSet call() {
             final Service.ResultSetResponse response =
@@ -196,7 +321,7 @@ public MetaResultSet call() {
   }
 
   @Override public MetaResultSet getTableTypes(final ConnectionHandle ch) {
-    return connection.invokeWithRetries(
+    return cachedMetadata(ch, Arrays.<Object>asList("getTableTypes", ch.id),
         new CallableWithoutException<MetaResultSet>() {
           public MetaResultSet call() {
             final Service.ResultSetResponse response =
@@ -207,7 +332,7 @@ public MetaResultSet call() {
   }
 
   @Override public MetaResultSet getTypeInfo(final ConnectionHandle ch) {
-    return connection.invokeWithRetries(
+    return cachedMetadata(ch, Arrays.<Object>asList("getTypeInfo", ch.id),
         new CallableWithoutException<MetaResultSet>() {
           public MetaResultSet call() {
             final Service.ResultSetResponse response =
@@ -219,7 +344,9 @@ public MetaResultSet call() {
 
   @Override public MetaResultSet getColumns(final ConnectionHandle ch, final String catalog,
       final Pat schemaPattern, final Pat tableNamePattern, final Pat columnNamePattern) {
-    return connection.invokeWithRetries(
+    return cachedMetadata(ch,
+        Arrays.<Object>asList("getColumns", ch.id, catalog, schemaPattern.s, tableNamePattern.s,
+            columnNamePattern.s),
         new CallableWithoutException<MetaResultSet>() {
           public MetaResultSet call() {
             final Service.ResultSetResponse response =
@@ -233,6 +360,34 @@ public MetaResultSet call() {
 
   @Override public StatementHandle prepare(final ConnectionHandle ch, final String sql,
       final long maxRowCount) {
+    final Map<List<Object>, Signature> cache = signatureCache();
+    // The server prepares deferred statements without a maximum row count
+    if (cache == null || !deferredPrepareSupported || maxRowCount != -1) {
+      return prepareOnServer(ch, sql, maxRowCount);
+    }
+    // Sync connection state first; the key depends on it, and the server
+    // must have it when it prepares the statement
+    connectionSync(ch, new ConnectionPropertiesImpl());
+    final ConnectionPropertiesImpl props = propsMap.get(ch.id);
+    final List<Object> key = Arrays.<Object>asList(sql,
+        props == null ? null : props.getCatalog(),
+        props == null ? null : props.getSchema());
+    final Signature signature = cache.get(key);
+    if (signature != null) {
+      final StatementHandle h =
+          new StatementHandle(ch.id, localStatementIds.decrementAndGet(), signature);
+      deferredStatements.put(h.id, h);
+      return h;
+    }
+    final StatementHandle h = prepareOnServer(ch, sql, maxRowCount);
+    if (h.signature != null) {
+      cache.put(key, h.signature);
+    }
+    return h;
+  }
+
+  private StatementHandle prepareOnServer(final ConnectionHandle ch, final String sql,
+      final long maxRowCount) {
     return connection.invokeWithRetries(
         new CallableWithoutException<StatementHandle>() {
           public StatementHandle call() {
@@ -270,7 +425,8 @@ public ExecuteResult call() {
                   callback.clear();
                   response = service.apply(
                       new Service.PrepareAndExecuteRequest(h.connectionId,
-                          h.id, sql, maxRowCount));
+                          h.id, sql, maxRowCount, AvaticaUtils.toSaturatedInt(maxRowCount),
+                          columnarFrames()));
                   if (response.missingStatement) {
                     throw new RuntimeException(new NoSuchStatementException(h));
                   }
@@ -300,15 +456,17 @@ public ExecuteResult call() {
     }
   }
 
-  @Override public Frame fetch(final StatementHandle h, final long offset,
+  @Override public Frame fetch(StatementHandle statement, final long offset,
       final int fetchMaxRowCount) throws NoSuchStatementException, MissingResultsException {
+    final StatementHandle h = serverHandle(statement);
     try {
       return connection.invokeWithRetries(
           new CallableWithoutException<Frame>() {
             public Frame call() {
               final Service.FetchResponse response =
                   service.apply(
-                      new Service.FetchRequest(h.connectionId, h.id, offset, fetchMaxRowCount));
+                      new Service.FetchRequest(h.connectionId, h.id, offset, fetchMaxRowCount,
+                          columnarFrames()));
               if (response.missingStatement) {
                 throw new RuntimeException(new NoSuchStatementException(h));
               }
@@ -335,15 +493,25 @@ public Frame call() {
     return execute(h, parameterValues, AvaticaUtils.toSaturatedInt(maxRowCount));
   }
 
-  @Override public ExecuteResult execute(final StatementHandle h,
+  @Override public ExecuteResult execute(StatementHandle statement,
       final List<TypedValue> parameterValues, final int maxRowsInFirstFrame)
       throws NoSuchStatementException {
+    final StatementHandle h = serverHandle(statement);
+    if (h.id < 0 && h.signature != null) {
+      final ExecuteResult result =
+          executeDeferred(statement.id, h, parameterValues, maxRowsInFirstFrame);
+      if (result != null) {
+        return result;
+      }
+      return execute(prepareDeferred(statement), parameterValues, maxRowsInFirstFrame);
+    }
     try {
       return connection.invokeWithRetries(
           new CallableWithoutException<ExecuteResult>() {
             public ExecuteResult call() {
               final Service.ExecuteResponse response = service.apply(
-                  new Service.ExecuteRequest(h, parameterValues, maxRowsInFirstFrame));
+                  new Service.ExecuteRequest(h, parameterValues, maxRowsInFirstFrame,
+                      columnarFrames()));
 
               if (response.missingStatement) {
                 throw new RuntimeException(new NoSuchStatementException(h));
@@ -366,8 +534,38 @@ public ExecuteResult call() {
     }
   }
 
-  @Override public boolean syncResults(final StatementHandle h, final QueryState state,
+  /**
+   * Executes a deferred statement, which the server prepares as it executes
+   * it, and remembers the statement's handle on the server. Returns null if
+   * the server does not support this.
+   */
+  private ExecuteResult executeDeferred(final int localId, final StatementHandle h,
+      final List<TypedValue> parameterValues, final int maxRowsInFirstFrame) {
+    return connection.invokeWithRetries(
+        new CallableWithoutException<ExecuteResult>() {
+          public ExecuteResult call() {
+            final Service.ExecuteResponse response = service.apply(
+                new Service.ExecuteRequest(h, parameterValues, maxRowsInFirstFrame,
+                    columnarFrames()));
+            if (response.missingStatement || response.results.isEmpty()) {
+              deferredPrepareSupported = false;
+              return null;
+            }
+            deferredStatements.put(localId,
+                new StatementHandle(h.connectionId, response.results.get(0).statementId,
+                    h.signature));
+            List<MetaResultSet> metaResultSets = new ArrayList<>();
+            for (Service.ResultSetResponse result : response.results) {
+              metaResultSets.add(toResultSet(null, result));
+            }
+            return new ExecuteResult(metaResultSets);
+          }
+        });
+  }
+
+  @Override public boolean syncResults(StatementHandle statement, final QueryState state,
       final long offset) throws NoSuchStatementException {
+    final StatementHandle h = serverHandle(statement);
     try {
       return connection.invokeWithRetries(
           new CallableWithoutException<Boolean>() {
@@ -422,8 +620,9 @@ public Void call() {
     });
   }
 
-  @Override public ExecuteBatchResult executeBatch(final StatementHandle h,
+  @Override public ExecuteBatchResult executeBatch(StatementHandle statement,
       final List<List<TypedValue>> parameterValues) throws NoSuchStatementException {
+    final StatementHandle h = prepareDeferred(statement);
     return connection.invokeWithRetries(new CallableWithoutException<ExecuteBatchResult>() {
       @Override public ExecuteBatchResult call() {
         Service.ExecuteBatchResponse response =
@@ -22,6 +22,8 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * ProtobufService implementation that queries against a remote implementation, using
@@ -39,7 +41,6 @@ public RemoteProtobufService(AvaticaHttpClient client, ProtobufTranslation trans
   }
 
   @Override public Response _apply(Request request) {
-    final Response resp;
     byte[] response = null;
     try {
       response = client.send(translation.serializeRequest(request));
@@ -48,7 +49,47 @@ public RemoteProtobufService(AvaticaHttpClient client, ProtobufTranslation trans
       // Failed to get a response from the server for the request.
       throw new RuntimeException(e);
     }
+    return parseResponse(request, response);
+  }
+
+  /**
+   * Sends a request without blocking the calling thread until the response arrives, if the
+   * client is an {@link AsyncAvaticaHttpClient}; otherwise sends it synchronously.
+   *
+   * @param request The request
+   * @return A future which completes with the response, or exceptionally if the request fails or
+   *     the server returns an error
+   */
+  public CompletableFuture<Response> applyAsync(final Request request) {
+    if (!(client instanceof AsyncAvaticaHttpClient)) {
+      final CompletableFuture<Response> future = new CompletableFuture<>();
+      try {
+        future.complete(_apply(request));
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+      return future;
+    }
 
+    final byte[] serialized;
+    try {
+      serialized = translation.serializeRequest(request);
+    } catch (IOException e) {
+      LOG.debug("Failed to execute remote request: {}", request);
+      final CompletableFuture<Response> future = new CompletableFuture<>();
+      future.completeExceptionally(new RuntimeException(e));
+      return future;
+    }
+    return ((AsyncAvaticaHttpClient) client).sendAsync(serialized)
+        .thenApply(new Function<byte[], Response>() {
+          @Override public Response apply(byte[] response) {
+            return parseResponse(request, response);
+          }
+        });
+  }
+
+  private Response parseResponse(Request request, byte[] response) {
+    final Response resp;
     try {
       resp = translation.parseResponse(response);
     } catch (IOException e) {
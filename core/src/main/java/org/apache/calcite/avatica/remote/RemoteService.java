@@ -18,6 +18,7 @@
 
 import org.apache.calcite.avatica.AvaticaUtils;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -36,6 +37,12 @@ public RemoteService(AvaticaHttpClient client) {
     byte[] response = client.send(request.getBytes(StandardCharsets.UTF_8));
     return AvaticaUtils.newStringUtf8(response);
   }
+
+  /** Sends the request as bytes of UTF-8 JSON, and decodes the response
+   * from bytes, without converting either to a string. */
+  @Override protected <T> T call(Request request, Class<T> expectedType) throws IOException {
+    return decode(client.send(MAPPER.writeValueAsBytes(request)), expectedType);
+  }
 }
 
 // End RemoteService.java
@@ -788,6 +788,9 @@ class ResultSetResponse extends Response {
     public final Meta.Frame firstFrame;
     public final long updateCount;
     public final RpcMetadataResponse rpcMetadata;
+    /** Whether the first frame is serialized as columns. Only applies to protobuf. */
+    @JsonIgnore
+    public final boolean columnarFrames;
 
     ResultSetResponse() {
       connectionId = null;
@@ -797,6 +800,7 @@ class ResultSetResponse extends Response {
       firstFrame = null;
       updateCount = 0;
       rpcMetadata = null;
+      columnarFrames = false;
     }
 
     @JsonCreator
@@ -808,6 +812,13 @@ public ResultSetResponse(
         @JsonProperty("firstFrame") Meta.Frame firstFrame,
         @JsonProperty("updateCount") long updateCount,
         @JsonProperty("rpcMetadata") RpcMetadataResponse rpcMetadata) {
+      this(connectionId, statementId, ownStatement, signature, firstFrame, updateCount,
+          rpcMetadata, false);
+    }
+
+    public ResultSetResponse(String connectionId, int statementId, boolean ownStatement,
+        Meta.Signature signature, Meta.Frame firstFrame, long updateCount,
+        RpcMetadataResponse rpcMetadata, boolean columnarFrames) {
       this.connectionId = connectionId;
       this.statementId = statementId;
       this.ownStatement = ownStatement;
@@ -815,6 +826,7 @@ public ResultSetResponse(
       this.firstFrame = firstFrame;
       this.updateCount = updateCount;
       this.rpcMetadata = rpcMetadata;
+      this.columnarFrames = columnarFrames;
     }
 
     @Override ResultSetResponse deserialize(Message genericMsg) {
@@ -836,8 +848,10 @@ static ResultSetResponse fromProto(Responses.ResultSetResponse msg) {
       }
 
       Meta.Frame frame = null;
+      boolean columnarFrames = false;
       if (msg.hasField(FIRST_FRAME_DESCRIPTOR)) {
         frame = Meta.Frame.fromProto(msg.getFirstFrame());
+        columnarFrames = msg.getFirstFrame().getColumnsCount() > 0;
       }
 
       RpcMetadataResponse metadata = null;
@@ -846,7 +860,7 @@ static ResultSetResponse fromProto(Responses.ResultSetResponse msg) {
       }
 
       return new ResultSetResponse(connectionId, msg.getStatementId(), msg.getOwnStatement(),
-          signature, frame, msg.getUpdateCount(), metadata);
+          signature, frame, msg.getUpdateCount(), metadata, columnarFrames);
     }
 
     @Override Responses.ResultSetResponse serialize() {
@@ -863,7 +877,7 @@ static ResultSetResponse fromProto(Responses.ResultSetResponse msg) {
       }
 
       if (null != firstFrame) {
-        builder.setFirstFrame(firstFrame.toProto());
+        builder.setFirstFrame(firstFrame.toProto(columnarFrames));
       }
 
       if (null != rpcMetadata) {
@@ -920,6 +934,9 @@ class PrepareAndExecuteRequest extends Request {
     public final long maxRowCount;
     public final int maxRowsInFirstFrame;
     public final int statementId;
+    /** Whether the client accepts columnar frames. Only sent with protobuf. */
+    @JsonIgnore
+    public final boolean columnarFrames;
 
     PrepareAndExecuteRequest() {
       connectionId = null;
@@ -927,6 +944,7 @@ class PrepareAndExecuteRequest extends Request {
       maxRowCount = 0;
       maxRowsInFirstFrame = 0;
       statementId = 0;
+      columnarFrames = false;
     }
 
     public PrepareAndExecuteRequest(String connectionId, int statementId, String sql,
@@ -941,11 +959,17 @@ public PrepareAndExecuteRequest(
         @JsonProperty("sql") String sql,
         @JsonProperty("maxRowsTotal") long maxRowCount,
         @JsonProperty("maxRowsInFirstFrame") int maxRowsInFirstFrame) {
+      this(connectionId, statementId, sql, maxRowCount, maxRowsInFirstFrame, false);
+    }
+
+    public PrepareAndExecuteRequest(String connectionId, int statementId, String sql,
+        long maxRowCount, int maxRowsInFirstFrame, boolean columnarFrames) {
       this.connectionId = connectionId;
       this.statementId = statementId;
       this.sql = sql;
       this.maxRowCount = maxRowCount;
       this.maxRowsInFirstFrame = maxRowsInFirstFrame;
+      this.columnarFrames = columnarFrames;
     }
 
     @Override ExecuteResponse accept(Service service) {
@@ -979,7 +1003,7 @@ public PrepareAndExecuteRequest(
       }
 
       return new PrepareAndExecuteRequest(connectionId, msg.getStatementId(), sql,
-          maxRowsTotal, maxRowsInFirstFrame);
+          maxRowsTotal, maxRowsInFirstFrame, msg.getColumnarFrames());
     }
 
     @Override Requests.PrepareAndExecuteRequest serialize() {
@@ -996,12 +1020,14 @@ public PrepareAndExecuteRequest(
       // Set both attributes for backwards compat
       builder.setMaxRowCount(maxRowCount).setMaxRowsTotal(maxRowCount);
       builder.setFirstFrameMaxSize(maxRowsInFirstFrame);
+      builder.setColumnarFrames(columnarFrames);
 
       return builder.build();
     }
 
     @Override public int hashCode() {
       int result = 1;
+      result = p(result, columnarFrames);
       result = p(result, connectionId);
       result = p(result, maxRowCount);
       result = p(result, maxRowsInFirstFrame);
@@ -1016,6 +1042,7 @@ public PrepareAndExecuteRequest(
           && statementId == ((PrepareAndExecuteRequest) o).statementId
           && maxRowCount == ((PrepareAndExecuteRequest) o).maxRowCount
           && maxRowsInFirstFrame == ((PrepareAndExecuteRequest) o).maxRowsInFirstFrame
+          && columnarFrames == ((PrepareAndExecuteRequest) o).columnarFrames
           && Objects.equals(connectionId, ((PrepareAndExecuteRequest) o).connectionId)
           && Objects.equals(sql, ((PrepareAndExecuteRequest) o).sql);
     }
@@ -1035,11 +1062,15 @@ class ExecuteRequest extends Request {
     public final Meta.StatementHandle statementHandle;
     public final List<TypedValue> parameterValues;
     public final int maxRowCount;
+    /** Whether the client accepts columnar frames. Only sent with protobuf. */
+    @JsonIgnore
+    public final boolean columnarFrames;
 
     ExecuteRequest() {
       statementHandle = null;
       parameterValues = null;
       maxRowCount = 0;
+      columnarFrames = false;
     }
 
     @JsonCreator
@@ -1047,9 +1078,15 @@ public ExecuteRequest(
         @JsonProperty("statementHandle") Meta.StatementHandle statementHandle,
         @JsonProperty("parameterValues") List<TypedValue> parameterValues,
         @JsonProperty("maxRowCount") int maxRowCount) {
+      this(statementHandle, parameterValues, maxRowCount, false);
+    }
+
+    public ExecuteRequest(Meta.StatementHandle statementHandle,
+        List<TypedValue> parameterValues, int maxRowCount, boolean columnarFrames) {
       this.statementHandle = statementHandle;
       this.parameterValues = parameterValues;
       this.maxRowCount = maxRowCount;
+      this.columnarFrames = columnarFrames;
     }
 
     @Override ExecuteResponse accept(Service service) {
@@ -1086,7 +1123,8 @@ public ExecuteRequest(
         maxFrameSize = (int) msg.getDeprecatedFirstFrameMaxSize();
       }
 
-      return new ExecuteRequest(statementHandle, values, maxFrameSize);
+      return new ExecuteRequest(statementHandle, values, maxFrameSize,
+          msg.getColumnarFrames());
     }
 
     @Override Requests.ExecuteRequest serialize() {
@@ -1112,6 +1150,7 @@ public ExecuteRequest(
       // Set the old and new field
       builder.setDeprecatedFirstFrameMaxSize(maxRowCount);
       builder.setFirstFrameMaxSize(maxRowCount);
+      builder.setColumnarFrames(columnarFrames);
 
       return builder.build();
     }
@@ -1121,6 +1160,7 @@ public ExecuteRequest(
       result = p(result, statementHandle);
       result = p(result, parameterValues);
       result = p(result, maxRowCount);
+      result = p(result, columnarFrames);
       return result;
     }
 
@@ -1128,6 +1168,7 @@ public ExecuteRequest(
       return o == this
           || o instanceof ExecuteRequest
           && maxRowCount == ((ExecuteRequest) o).maxRowCount
+          && columnarFrames == ((ExecuteRequest) o).columnarFrames
           && Objects.equals(statementHandle, ((ExecuteRequest) o).statementHandle)
           && Objects.equals(parameterValues, ((ExecuteRequest) o).parameterValues);
     }
@@ -1371,12 +1412,16 @@ class FetchRequest extends Request {
     /** Maximum number of rows to be returned in the frame. Negative means no
      * limit. */
     public final int fetchMaxRowCount;
+    /** Whether the client accepts a columnar frame. Only sent with protobuf. */
+    @JsonIgnore
+    public final boolean columnarFrames;
 
     FetchRequest() {
       connectionId = null;
       statementId = 0;
       offset = 0;
       fetchMaxRowCount = 0;
+      columnarFrames = false;
     }
 
     @JsonCreator
@@ -1385,10 +1430,16 @@ public FetchRequest(
         @JsonProperty("statementId") int statementId,
         @JsonProperty("offset") long offset,
         @JsonProperty("fetchMaxRowCount") int fetchMaxRowCount) {
+      this(connectionId, statementId, offset, fetchMaxRowCount, false);
+    }
+
+    public FetchRequest(String connectionId, int statementId, long offset,
+        int fetchMaxRowCount, boolean columnarFrames) {
       this.connectionId = connectionId;
       this.statementId = statementId;
       this.offset = offset;
       this.fetchMaxRowCount = fetchMaxRowCount;
+      this.columnarFrames = columnarFrames;
     }
 
     @Override FetchResponse accept(Service service) {
@@ -1410,7 +1461,7 @@ public FetchRequest(
       }
 
       return new FetchRequest(connectionId, msg.getStatementId(), msg.getOffset(),
-          fetchMaxRowCount);
+          fetchMaxRowCount, msg.getColumnarFrames());
     }
 
     @Override Requests.FetchRequest serialize() {
@@ -1424,12 +1475,14 @@ public FetchRequest(
       builder.setOffset(offset);
       // Both fields for backwards compat
       builder.setFetchMaxRowCount(fetchMaxRowCount).setFrameMaxSize(fetchMaxRowCount);
+      builder.setColumnarFrames(columnarFrames);
 
       return builder.build();
     }
 
     @Override public int hashCode() {
       int result = 1;
+      result = p(result, columnarFrames);
       result = p(result, connectionId);
       result = p(result, fetchMaxRowCount);
       result = p(result, offset);
@@ -1443,6 +1496,7 @@ public FetchRequest(
           && statementId == ((FetchRequest) o).statementId
           && offset == ((FetchRequest) o).offset
           && fetchMaxRowCount == ((FetchRequest) o).fetchMaxRowCount
+          && columnarFrames == ((FetchRequest) o).columnarFrames
           && Objects.equals(connectionId, ((FetchRequest) o).connectionId);
     }
   }
@@ -1456,10 +1510,14 @@ class FetchResponse extends Response {
     public boolean missingStatement = false;
     public boolean missingResults = false;
     public final RpcMetadataResponse rpcMetadata;
+    /** Whether the frame is serialized as columns. Only applies to protobuf. */
+    @JsonIgnore
+    public final boolean columnarFrames;
 
     FetchResponse() {
       frame = null;
       rpcMetadata = null;
+      columnarFrames = false;
     }
 
     @JsonCreator
@@ -1467,10 +1525,16 @@ public FetchResponse(@JsonProperty("frame") Meta.Frame frame,
         @JsonProperty("missingStatement") boolean missingStatement,
         @JsonProperty("missingResults") boolean missingResults,
         @JsonProperty("rpcMetadata") RpcMetadataResponse rpcMetadata) {
+      this(frame, missingStatement, missingResults, rpcMetadata, false);
+    }
+
+    public FetchResponse(Meta.Frame frame, boolean missingStatement, boolean missingResults,
+        RpcMetadataResponse rpcMetadata, boolean columnarFrames) {
       this.frame = frame;
       this.missingStatement = missingStatement;
       this.missingResults = missingResults;
       this.rpcMetadata = rpcMetadata;
+      this.columnarFrames = columnarFrames;
     }
 
     @Override FetchResponse deserialize(Message genericMsg) {
@@ -1483,14 +1547,14 @@ public FetchResponse(@JsonProperty("frame") Meta.Frame frame,
       }
 
       return new FetchResponse(Meta.Frame.fromProto(msg.getFrame()), msg.getMissingStatement(),
-          msg.getMissingResults(), metadata);
+          msg.getMissingResults(), metadata, msg.getFrame().getColumnsCount() > 0);
     }
 
     @Override Responses.FetchResponse serialize() {
       Responses.FetchResponse.Builder builder = Responses.FetchResponse.newBuilder();
 
       if (null != frame) {
-        builder.setFrame(frame.toProto());
+        builder.setFrame(frame.toProto(columnarFrames));
       }
 
       if (null != rpcMetadata) {
@@ -688,8 +688,8 @@ public static Object getSerialFromProto(Common.TypedValue protoValue) {
         return protoValue.getStringValue();
       }
       // TypedValue is still going to expect a b64string for BYTE_STRING even though we sent it
-      // across the wire natively as bytes. Return it as b64.
-      return (new ByteString(protoValue.getBytesValue().toByteArray())).toBase64String();
+      // across the wire natively as bytes. Return it as b64, copying the bytes only once.
+      return Base64.encodeBytes(protoValue.getBytesValue().toByteArray());
     case STRING:
       return protoValue.getStringValue();
     case PRIMITIVE_CHAR:
@@ -102,21 +102,21 @@ protected Accessor createAccessor(ColumnMetaData columnMetaData,
     }
     switch (columnMetaData.type.id) {
     case Types.TINYINT:
-      return new ByteAccessor(getter);
+      return exactNumericAccessor(getter, new ByteAccessor(getter));
     case Types.SMALLINT:
-      return new ShortAccessor(getter);
+      return exactNumericAccessor(getter, new ShortAccessor(getter));
     case Types.INTEGER:
-      return new IntAccessor(getter);
+      return exactNumericAccessor(getter, new IntAccessor(getter));
     case Types.BIGINT:
-      return new LongAccessor(getter);
+      return exactNumericAccessor(getter, new LongAccessor(getter));
     case Types.BOOLEAN:
     case Types.BIT:
       return new BooleanAccessor(getter);
     case Types.REAL:
-      return new FloatAccessor(getter);
+      return approximateNumericAccessor(getter, new FloatAccessor(getter));
     case Types.FLOAT:
     case Types.DOUBLE:
-      return new DoubleAccessor(getter);
+      return approximateNumericAccessor(getter, new DoubleAccessor(getter));
     case Types.DECIMAL:
       return new NumberAccessor(getter, columnMetaData.scale);
     case Types.CHAR:
@@ -262,6 +262,24 @@ private static String timeAsString(int v, Calendar calendar, int precision) {
     return DateTimeUtils.unixTimeToString(v, precision);
   }
 
+  /** Returns an accessor of exact numeric values that, if the getter can,
+   * reads values without boxing them. */
+  private static Accessor exactNumericAccessor(Getter getter,
+      ExactNumericAccessor accessor) {
+    return getter instanceof PrimitiveGetter
+        ? new UnboxedExactNumericAccessor((PrimitiveGetter) getter, accessor)
+        : accessor;
+  }
+
+  /** Returns an accessor of approximate numeric values that, if the getter
+   * can, reads values without boxing them. */
+  private static Accessor approximateNumericAccessor(Getter getter,
+      ApproximateNumericAccessor accessor) {
+    return getter instanceof PrimitiveGetter
+        ? new UnboxedApproximateNumericAccessor((PrimitiveGetter) getter, accessor)
+        : accessor;
+  }
+
   /** Implementation of {@link Cursor.Accessor}. */
   static class AccessorImpl implements Accessor {
     protected final Getter getter;
@@ -614,6 +632,83 @@ public double getDouble() throws SQLException {
     }
   }
 
+  /**
+   * Accessor of exact numeric values that reads a value the current record
+   * holds unboxed, as a {@link ColumnarRows.Row} does, without boxing it, and
+   * any other value by a boxing accessor.
+   *
+   * <p>One class serves {@link java.sql.Types#TINYINT},
+   * {@link java.sql.Types#SMALLINT}, {@link java.sql.Types#INTEGER} and
+   * {@link java.sql.Types#BIGINT}, so a call site that reads several such
+   * columns sees one accessor class, not four.
+   */
+  private static class UnboxedExactNumericAccessor extends ExactNumericAccessor {
+    private final PrimitiveGetter primitiveGetter;
+    private final ExactNumericAccessor boxed;
+
+    private UnboxedExactNumericAccessor(PrimitiveGetter getter,
+        ExactNumericAccessor boxed) {
+      super(getter);
+      this.primitiveGetter = getter;
+      this.boxed = boxed;
+    }
+
+    public byte getByte() throws SQLException {
+      return primitiveGetter.isPrimitive()
+          ? (byte) primitiveGetter.getLong()
+          : boxed.getByte();
+    }
+
+    public short getShort() throws SQLException {
+      return primitiveGetter.isPrimitive()
+          ? (short) primitiveGetter.getLong()
+          : boxed.getShort();
+    }
+
+    public int getInt() throws SQLException {
+      return primitiveGetter.isPrimitive()
+          ? (int) primitiveGetter.getLong()
+          : boxed.getInt();
+    }
+
+    public long getLong() throws SQLException {
+      return primitiveGetter.isPrimitive()
+          ? primitiveGetter.getLong()
+          : boxed.getLong();
+    }
+  }
+
+  /**
+   * Accessor of approximate numeric values that reads a value the current
+   * record holds unboxed without boxing it, and any other value by a boxing
+   * accessor; corresponds to {@link java.sql.Types#REAL},
+   * {@link java.sql.Types#FLOAT} and {@link java.sql.Types#DOUBLE}.
+   */
+  private static class UnboxedApproximateNumericAccessor
+      extends ApproximateNumericAccessor {
+    private final PrimitiveGetter primitiveGetter;
+    private final ApproximateNumericAccessor boxed;
+
+    private UnboxedApproximateNumericAccessor(PrimitiveGetter getter,
+        ApproximateNumericAccessor boxed) {
+      super(getter);
+      this.primitiveGetter = getter;
+      this.boxed = boxed;
+    }
+
+    public float getFloat() throws SQLException {
+      return primitiveGetter.isPrimitive()
+          ? (float) primitiveGetter.getDouble()
+          : boxed.getFloat();
+    }
+
+    public double getDouble() throws SQLException {
+      return primitiveGetter.isPrimitive()
+          ? primitiveGetter.getDouble()
+          : boxed.getDouble();
+    }
+  }
+
   /**
    * Accessor of exact numeric values. The subclass must implement the
    * {@link #getLong()} method.
@@ -1517,6 +1612,21 @@ protected interface Getter {
     boolean wasNull() throws SQLException;
   }
 
+  /** {@link Getter} that can also read a value of the current record that
+   * is held unboxed, without boxing it. */
+  protected interface PrimitiveGetter extends Getter {
+    /** Returns whether the current record holds the value unboxed, and
+     * therefore whether {@link #getLong()} and {@link #getDouble()} may be
+     * called. */
+    boolean isPrimitive() throws SQLException;
+
+    /** Returns the value as a {@code long}; zero if it is null. */
+    long getLong() throws SQLException;
+
+    /** Returns the value as a {@code double}; zero if it is null. */
+    double getDouble() throws SQLException;
+  }
+
   /** Abstract implementation of {@link Getter}. */
   protected abstract class AbstractGetter implements Getter {
     public boolean wasNull() throws SQLException {
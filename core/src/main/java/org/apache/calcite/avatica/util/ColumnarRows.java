@@ -0,0 +1,417 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.util;
+
+import org.apache.calcite.avatica.ColumnMetaData;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rows of a {@link org.apache.calcite.avatica.Meta.Frame}, stored column by
+ * column.
+ *
+ * <p>Columns of {@link ColumnMetaData.Rep#BYTE}, {@link ColumnMetaData.Rep#SHORT}
+ * and {@link ColumnMetaData.Rep#INTEGER} values are held in an {@code int[]},
+ * {@link ColumnMetaData.Rep#LONG} values in a {@code long[]}, and
+ * {@link ColumnMetaData.Rep#FLOAT} and {@link ColumnMetaData.Rep#DOUBLE} values
+ * in a {@code double[]}, each with a bitmap of the rows that are null. Any
+ * other column is {@link ColumnMetaData.Rep#OBJECT} and holds one object per
+ * row. A frame of mostly numeric rows is thus built and serialized without a
+ * boxed value per cell.
+ *
+ * <p>Viewed as a list, each element is a row as an {@code Object[]} whose
+ * values are boxed on demand, the same as the rows of any other frame.
+ */
+public class ColumnarRows extends AbstractList<Object> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final ColumnMetaData.Rep[] reps;
+  /** The values of each column: an {@code int[]}, {@code long[]},
+   * {@code double[]} or {@code Object[]}, depending on its rep. */
+  private final Object[] columns;
+  /** Bit {@code i & 7} of byte {@code i >>> 3} is set if row {@code i} is
+   * null; allocated on the first null of a column. */
+  private final byte[][] nulls;
+  private int capacity = INITIAL_CAPACITY;
+  private int size;
+
+  /**
+   * Creates an empty set of rows.
+   *
+   * @param reps How the values of each column are represented; reps that
+   *     have no primitive storage are treated as {@link ColumnMetaData.Rep#OBJECT}
+   */
+  public ColumnarRows(ColumnMetaData.Rep... reps) {
+    this.reps = new ColumnMetaData.Rep[reps.length];
+    this.columns = new Object[reps.length];
+    this.nulls = new byte[reps.length][];
+    for (int i = 0; i < reps.length; i++) {
+      this.reps[i] = storageRep(reps[i]);
+      this.columns[i] = newColumn(this.reps[i], capacity);
+    }
+  }
+
+  private static ColumnMetaData.Rep storageRep(ColumnMetaData.Rep rep) {
+    switch (rep) {
+    case BYTE:
+    case SHORT:
+    case INTEGER:
+    case LONG:
+    case FLOAT:
+    case DOUBLE:
+      return rep;
+    default:
+      return ColumnMetaData.Rep.OBJECT;
+    }
+  }
+
+  private static Object newColumn(ColumnMetaData.Rep rep, int capacity) {
+    switch (rep) {
+    case BYTE:
+    case SHORT:
+    case INTEGER:
+      return new int[capacity];
+    case LONG:
+      return new long[capacity];
+    case FLOAT:
+    case DOUBLE:
+      return new double[capacity];
+    default:
+      return new Object[capacity];
+    }
+  }
+
+  @Override public int size() {
+    return size;
+  }
+
+  /** Returns row {@code index} as an {@code Object[]} of boxed values. */
+  @Override public Object get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    final Object[] row = new Object[reps.length];
+    for (int i = 0; i < reps.length; i++) {
+      row[i] = getObject(index, i);
+    }
+    return row;
+  }
+
+  /** Returns the number of columns. */
+  public int getColumnCount() {
+    return reps.length;
+  }
+
+  /** Returns how the values of a column are stored. */
+  public ColumnMetaData.Rep getRep(int column) {
+    return reps[column];
+  }
+
+  /**
+   * Appends a row. Its values are set by the {@code set} methods, and are
+   * zero (or null, in an {@link ColumnMetaData.Rep#OBJECT} column) until then.
+   */
+  public void addRow() {
+    addRows(1);
+  }
+
+  /**
+   * Appends rows, as {@link #addRow()} does, for a reader that sets the
+   * values of each column in turn with the {@code set} methods that take a
+   * row.
+   */
+  public void addRows(int count) {
+    if (size + count > capacity) {
+      while (size + count > capacity) {
+        capacity += capacity >> 1;
+      }
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = grow(columns[i], capacity);
+        if (nulls[i] != null) {
+          nulls[i] = Arrays.copyOf(nulls[i], bitmapLength(capacity));
+        }
+      }
+    }
+    size += count;
+  }
+
+  private static Object grow(Object column, int capacity) {
+    if (column instanceof int[]) {
+      return Arrays.copyOf((int[]) column, capacity);
+    } else if (column instanceof long[]) {
+      return Arrays.copyOf((long[]) column, capacity);
+    } else if (column instanceof double[]) {
+      return Arrays.copyOf((double[]) column, capacity);
+    } else {
+      return Arrays.copyOf((Object[]) column, capacity);
+    }
+  }
+
+  private static int bitmapLength(int rowCount) {
+    return (rowCount + 7) >>> 3;
+  }
+
+  /** Sets a value of an integral column in the last row. */
+  public void setLong(int column, long value) {
+    setLong(size - 1, column, value);
+  }
+
+  /** Sets a value of an integral column. */
+  public void setLong(int row, int column, long value) {
+    final Object values = columns[column];
+    if (values instanceof int[]) {
+      ((int[]) values)[row] = (int) value;
+    } else if (values instanceof long[]) {
+      ((long[]) values)[row] = value;
+    } else {
+      throw new IllegalArgumentException("Column " + column + " is " + reps[column]);
+    }
+    clearNull(row, column);
+  }
+
+  /** Sets a value of a floating-point column in the last row. */
+  public void setDouble(int column, double value) {
+    setDouble(size - 1, column, value);
+  }
+
+  /** Sets a value of a floating-point column. */
+  public void setDouble(int row, int column, double value) {
+    final Object values = columns[column];
+    if (values instanceof double[]) {
+      ((double[]) values)[row] = value;
+    } else {
+      throw new IllegalArgumentException("Column " + column + " is " + reps[column]);
+    }
+    clearNull(row, column);
+  }
+
+  /** Sets a value of the last row to null. */
+  public void setNull(int column) {
+    setNull(size - 1, column);
+  }
+
+  /** Sets a value to null. */
+  public void setNull(int row, int column) {
+    if (reps[column] == ColumnMetaData.Rep.OBJECT) {
+      ((Object[]) columns[column])[row] = null;
+      return;
+    }
+    if (nulls[column] == null) {
+      nulls[column] = new byte[bitmapLength(capacity)];
+    }
+    nulls[column][row >>> 3] |= 1 << (row & 7);
+  }
+
+  /** Clears the null bit of a value that has been set. */
+  private void clearNull(int row, int column) {
+    final byte[] bitmap = nulls[column];
+    if (bitmap != null) {
+      bitmap[row >>> 3] &= ~(1 << (row & 7));
+    }
+  }
+
+  /** Sets a value of the last row, unboxing it if the column is primitive. */
+  public void setObject(int column, Object value) {
+    setObject(size - 1, column, value);
+  }
+
+  /** Sets a value, unboxing it if the column is primitive. An
+   * {@link EncodedValue} is kept as is and decoded when read. */
+  public void setObject(int row, int column, Object value) {
+    if (value == null) {
+      setNull(row, column);
+      return;
+    }
+    switch (reps[column]) {
+    case BYTE:
+    case SHORT:
+    case INTEGER:
+    case LONG:
+      setLong(row, column, ((Number) value).longValue());
+      break;
+    case FLOAT:
+    case DOUBLE:
+      setDouble(row, column, ((Number) value).doubleValue());
+      break;
+    default:
+      ((Object[]) columns[column])[row] = value;
+    }
+  }
+
+  /** Returns whether a value is null. */
+  public boolean isNull(int row, int column) {
+    if (reps[column] == ColumnMetaData.Rep.OBJECT) {
+      return ((Object[]) columns[column])[row] == null;
+    }
+    final byte[] bitmap = nulls[column];
+    return bitmap != null && (bitmap[row >>> 3] & (1 << (row & 7))) != 0;
+  }
+
+  /** Returns a value of an integral column; zero if the value is null. */
+  public long getLong(int row, int column) {
+    final Object values = columns[column];
+    if (values instanceof int[]) {
+      return ((int[]) values)[row];
+    } else if (values instanceof long[]) {
+      return ((long[]) values)[row];
+    }
+    throw new IllegalArgumentException("Column " + column + " is " + reps[column]);
+  }
+
+  /** Returns a value of a floating-point column; zero if the value is null. */
+  public double getDouble(int row, int column) {
+    final Object values = columns[column];
+    if (values instanceof double[]) {
+      return ((double[]) values)[row];
+    }
+    throw new IllegalArgumentException("Column " + column + " is " + reps[column]);
+  }
+
+  /** Returns a value, boxed to the Java type of the column's rep. */
+  public Object getObject(int row, int column) {
+    if (isNull(row, column)) {
+      return null;
+    }
+    switch (reps[column]) {
+    case BYTE:
+      return (byte) getLong(row, column);
+    case SHORT:
+      return (short) getLong(row, column);
+    case INTEGER:
+      return (int) getLong(row, column);
+    case LONG:
+      return getLong(row, column);
+    case FLOAT:
+      return (float) getDouble(row, column);
+    case DOUBLE:
+      return getDouble(row, column);
+    default:
+      final Object value = ((Object[]) columns[column])[row];
+      return value instanceof EncodedValue ? ((EncodedValue) value).decode() : value;
+    }
+  }
+
+  /**
+   * Returns the null bitmap of a column, one bit per row with bit {@code i & 7}
+   * of byte {@code i >>> 3} set if row {@code i} is null; or null if the
+   * column has no nulls.
+   */
+  public byte[] getNullBitmap(int column) {
+    if (reps[column] == ColumnMetaData.Rep.OBJECT) {
+      byte[] bitmap = null;
+      for (int i = 0; i < size; i++) {
+        if (((Object[]) columns[column])[i] == null) {
+          if (bitmap == null) {
+            bitmap = new byte[bitmapLength(size)];
+          }
+          bitmap[i >>> 3] |= 1 << (i & 7);
+        }
+      }
+      return bitmap;
+    }
+    return nulls[column] == null
+        ? null
+        : Arrays.copyOf(nulls[column], bitmapLength(size));
+  }
+
+  /**
+   * Returns these rows as a list of {@link Row}s, each a view of a row that
+   * boxes a value only when it is read as an object.
+   *
+   * <p>This is how the rows of a columnar frame reach the client's cursor,
+   * whose accessors read primitive values straight from the columns.
+   */
+  public List<Object> rows() {
+    return new RowList();
+  }
+
+  /** Returns whether a list of rows was returned by {@link #rows()}, and so
+   * holds {@link Row}s. */
+  public static boolean isRows(Iterable<?> rows) {
+    return rows instanceof RowList;
+  }
+
+  /** List of the rows of a {@link ColumnarRows}, as returned by
+   * {@link #rows()}. */
+  private class RowList extends AbstractList<Object> {
+    @Override public Object get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return new Row(index);
+    }
+
+    @Override public int size() {
+      return size;
+    }
+  }
+
+  /**
+   * Value of an {@link ColumnMetaData.Rep#OBJECT} column that is held in the
+   * form in which it was received, such as a slice of a protobuf message, and
+   * is decoded only when it is read.
+   *
+   * <p>{@link #getObject(int, int)} and the rows return the decoded value, a
+   * new one each time; a value that is never read is never decoded.
+   */
+  public interface EncodedValue {
+    /** Returns the value, decoded. */
+    Object decode();
+  }
+
+  /** View of a row of a {@link ColumnarRows}, as a list of its values. */
+  public class Row extends AbstractList<Object> {
+    private final int index;
+
+    Row(int index) {
+      this.index = index;
+    }
+
+    @Override public Object get(int column) {
+      return getObject(index, column);
+    }
+
+    @Override public int size() {
+      return reps.length;
+    }
+
+    /** Returns whether a value is null. */
+    public boolean isNull(int column) {
+      return ColumnarRows.this.isNull(index, column);
+    }
+
+    /** Returns how the values of a column are stored. */
+    public ColumnMetaData.Rep getRep(int column) {
+      return reps[column];
+    }
+
+    /** Returns a value of an integral column; zero if the value is null. */
+    public long getLong(int column) {
+      return ColumnarRows.this.getLong(index, column);
+    }
+
+    /** Returns a value of a floating-point column; zero if the value is
+     * null. */
+    public double getDouble(int column) {
+      return ColumnarRows.this.getDouble(index, column);
+    }
+  }
+}
+
+// End ColumnarRows.java
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.util;
+
+import org.apache.calcite.avatica.ColumnMetaData;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Implementation of {@link Cursor} on top of an {@link Iterator} that
+ * returns the rows of {@link ColumnarRows}, such as those of a columnar frame.
+ *
+ * <p>Its numeric accessors read a value that a {@link ColumnarRows.Row} holds
+ * in a primitive array without boxing it. Other rows are read as by a
+ * {@link ListIteratorCursor}.
+ */
+public class ColumnarRowsCursor extends IteratorCursor<List<Object>> {
+
+  /**
+   * Creates a ColumnarRowsCursor.
+   *
+   * @param iterator Iterator
+   */
+  public ColumnarRowsCursor(Iterator<List<Object>> iterator) {
+    super(iterator);
+  }
+
+  protected Getter createGetter(int ordinal) {
+    return new ColumnarRowsGetter(ordinal);
+  }
+
+  /** Implementation of {@link PrimitiveGetter} that reads values of
+   * {@link ColumnarRows.Row}s. */
+  protected class ColumnarRowsGetter extends ListGetter
+      implements PrimitiveGetter {
+    public ColumnarRowsGetter(int index) {
+      super(index);
+    }
+
+    public boolean isPrimitive() throws SQLException {
+      final Object row;
+      try {
+        row = current();
+      } catch (RuntimeException e) {
+        throw new SQLException(e);
+      }
+      return row instanceof ColumnarRows.Row
+          && ((ColumnarRows.Row) row).getRep(index) != ColumnMetaData.Rep.OBJECT;
+    }
+
+    public long getLong() throws SQLException {
+      final ColumnarRows.Row row = (ColumnarRows.Row) current();
+      wasNull[0] = row.isNull(index);
+      switch (row.getRep(index)) {
+      case FLOAT:
+      case DOUBLE:
+        return (long) row.getDouble(index);
+      default:
+        return row.getLong(index);
+      }
+    }
+
+    public double getDouble() throws SQLException {
+      final ColumnarRows.Row row = (ColumnarRows.Row) current();
+      wasNull[0] = row.isNull(index);
+      switch (row.getRep(index)) {
+      case FLOAT:
+      case DOUBLE:
+        return row.getDouble(index);
+      default:
+        return row.getLong(index);
+      }
+    }
+  }
+}
+
+// End ColumnarRowsCursor.java
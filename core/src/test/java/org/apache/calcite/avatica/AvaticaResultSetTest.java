@@ -16,16 +16,23 @@
  */
 package org.apache.calcite.avatica;
 
+import org.apache.calcite.avatica.util.ListIteratorCursor;
+
 import org.junit.Test;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.TimeZone;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Test class for {@link AvaticaResultSet}
@@ -68,6 +75,38 @@ private static final class TestDriver extends UnregisteredDriver {
       assertEquals(0, resultSet.getRow());
     }
   }
+
+  @Test public void testFindColumn() throws SQLException {
+    final List<ColumnMetaData> columns = Arrays.asList(
+        MetaImpl.columnMetaData("ID", 0, Long.class, false),
+        MetaImpl.columnMetaData("name", 1, String.class, true),
+        MetaImpl.columnMetaData("Name", 2, String.class, true),
+        MetaImpl.columnMetaData("\u00c9t\u00e9", 3, String.class, true));
+    final Meta.Signature signature = new Meta.Signature(columns, "SELECT * FROM TABLE",
+        Collections.<AvaticaParameter>emptyList(), Collections.<String, Object>emptyMap(),
+        Meta.CursorFactory.LIST, Meta.StatementType.SELECT);
+    final List<List<Object>> rows =
+        Collections.singletonList(Arrays.<Object>asList(1L, "a", "b", "c"));
+    try (AvaticaResultSet resultSet =
+             new AvaticaResultSet(null, null, signature, null, TimeZone.getTimeZone("GMT"), null)
+                 .execute2(new ListIteratorCursor(rows.iterator()), columns)) {
+      assertEquals(1, resultSet.findColumn("ID"));
+      assertEquals(1, resultSet.findColumn("id"));
+      // If several columns have the same label, the first wins
+      assertEquals(2, resultSet.findColumn("NAME"));
+      assertEquals(2, resultSet.findColumn("Name"));
+      assertEquals(4, resultSet.findColumn("\u00e9T\u00c9"));
+      assertTrue(resultSet.next());
+      assertEquals(1L, resultSet.getLong("id"));
+      assertEquals("a", resultSet.getString("NAME"));
+      try {
+        resultSet.findColumn("missing");
+        fail("expected error");
+      } catch (SQLException e) {
+        assertEquals("column 'missing' not found", e.getMessage());
+      }
+    }
+  }
 }
 
 // End AvaticaResultSetTest.java
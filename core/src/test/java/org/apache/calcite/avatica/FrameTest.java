@@ -20,9 +20,12 @@
 import org.apache.calcite.avatica.proto.Common;
 import org.apache.calcite.avatica.proto.Common.ColumnValue;
 import org.apache.calcite.avatica.proto.Common.TypedValue;
+import org.apache.calcite.avatica.util.ColumnarRows;
 
+import com.google.protobuf.CodedInputStream;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -34,6 +37,9 @@
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -46,7 +52,11 @@ public class FrameTest {
       .setType(Common.Rep.LONG).build();
 
   private void serializeAndTestEquality(Frame frame) {
-    Frame frameCopy = Frame.fromProto(frame.toProto());
+    assertCopyEquals(frame, Frame.fromProto(frame.toProto()));
+    assertCopyEquals(frame, Frame.fromProto(frame.toProto(true)));
+  }
+
+  private void assertCopyEquals(Frame frame, Frame frameCopy) {
 
     assertEquals(frame.done, frameCopy.done);
     assertEquals(frame.offset, frameCopy.offset);
@@ -312,6 +322,173 @@ public void testBigDecimal() {
     List<Object> expectedRow = (List<Object>) rows.get(0);
     assertEquals(expectedRow.get(0), newRow.get(0));
     assertEquals(expectedRow.get(1), newRow.get(1));
+
+    // Arrays are sent as one ColumnValue per row in a columnar frame
+    Common.Frame columnarFrame = frame.toProto(true);
+    assertEquals(0, columnarFrame.getRowsCount());
+    assertEquals(Common.Rep.OBJECT, columnarFrame.getColumns(1).getType());
+    assertEquals(frame, Frame.fromProto(columnarFrame));
+  }
+
+  @Test public void testColumnarVectors() {
+    List<Object> rows = new ArrayList<>();
+    rows.add(new Object[] {1L, 1.5d, "a", true, null, 1});
+    rows.add(new Object[] {null, 2.5d, "b", null, null, 2L});
+    rows.add(new Object[] {3L, null, "a", false, null, 3});
+    Frame frame = new Frame(10, false, rows);
+
+    Common.Frame protoFrame = frame.toProto(true);
+    assertEquals(0, protoFrame.getRowsCount());
+    assertEquals(3, protoFrame.getRowCount());
+    assertEquals(6, protoFrame.getColumnsCount());
+
+    // Values are dense, nulls are only in the bitmap
+    Common.ColumnVector longs = protoFrame.getColumns(0);
+    assertEquals(Common.Rep.LONG, longs.getType());
+    assertEquals(Arrays.asList(1L, 3L), longs.getNumberValuesList());
+    assertEquals(1, longs.getNullBitmap().size());
+    assertEquals(0b010, longs.getNullBitmap().byteAt(0));
+
+    Common.ColumnVector doubles = protoFrame.getColumns(1);
+    assertEquals(Common.Rep.DOUBLE, doubles.getType());
+    assertEquals(Arrays.asList(1.5d, 2.5d), doubles.getDoubleValuesList());
+
+    // Repeated strings are sent once
+    Common.ColumnVector strings = protoFrame.getColumns(2);
+    assertEquals(Common.Rep.STRING, strings.getType());
+    assertEquals(Arrays.asList("a", "b"), strings.getStringDictionaryList());
+    assertEquals(Arrays.asList(0, 1, 0), strings.getStringIndexesList());
+    assertTrue(strings.getNullBitmap().isEmpty());
+
+    assertEquals(Common.Rep.BOOLEAN, protoFrame.getColumns(3).getType());
+    assertEquals(Common.Rep.NULL, protoFrame.getColumns(4).getType());
+
+    // Mixed types fall back to a value per row
+    Common.ColumnVector mixed = protoFrame.getColumns(5);
+    assertEquals(Common.Rep.OBJECT, mixed.getType());
+    assertEquals(3, mixed.getValuesCount());
+
+    Frame copy = Frame.fromProto(protoFrame);
+    assertEquals(frame, copy);
+    assertEquals(Frame.fromProto(frame.toProto()), copy);
+  }
+
+  @Test public void testColumnarNullBitmap() {
+    // More than a byte of rows, with nulls on both sides of the byte boundary
+    List<Object> rows = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      rows.add(new Object[] {i % 7 == 0 ? null : i});
+    }
+    Frame frame = new Frame(0, true, rows);
+    Common.ColumnVector vector = frame.toProto(true).getColumns(0);
+    assertEquals(Common.Rep.INTEGER, vector.getType());
+    assertEquals(3, vector.getNullBitmap().size());
+    assertEquals(17, vector.getNumberValuesCount());
+    serializeAndTestEquality(frame);
+  }
+
+  @Test public void testColumnarRows() {
+    ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.LONG, ColumnMetaData.Rep.SHORT,
+        ColumnMetaData.Rep.FLOAT, ColumnMetaData.Rep.OBJECT);
+    for (int i = 0; i < 20; i++) {
+      rows.addRow();
+      rows.setLong(0, i * 1000000000000L);
+      if (i % 3 == 0) {
+        rows.setNull(1);
+      } else {
+        rows.setLong(1, (short) i);
+      }
+      rows.setDouble(2, i / 4f);
+      rows.setObject(3, i % 5 == 0 ? null : "v" + (i % 2));
+    }
+    Frame frame = new Frame(0, true, rows);
+    Common.Frame protoFrame = frame.toProto(true);
+    assertEquals(20, protoFrame.getRowCount());
+    assertEquals(Common.Rep.LONG, protoFrame.getColumns(0).getType());
+    assertEquals(Common.Rep.SHORT, protoFrame.getColumns(1).getType());
+    assertEquals(13, protoFrame.getColumns(1).getNumberValuesCount());
+    assertEquals(Common.Rep.FLOAT, protoFrame.getColumns(2).getType());
+    assertEquals(Common.Rep.STRING, protoFrame.getColumns(3).getType());
+    assertEquals(2, protoFrame.getColumns(3).getStringDictionaryCount());
+    serializeAndTestEquality(frame);
+  }
+
+  @Test public void testColumnarRowsSentAsRows() {
+    ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.BYTE, ColumnMetaData.Rep.INTEGER,
+        ColumnMetaData.Rep.LONG, ColumnMetaData.Rep.FLOAT, ColumnMetaData.Rep.DOUBLE,
+        ColumnMetaData.Rep.OBJECT);
+    List<Object> boxed = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      rows.addRow();
+      rows.setLong(0, (byte) -i);
+      if (i % 4 == 0) {
+        rows.setNull(1);
+      } else {
+        rows.setLong(1, i);
+      }
+      rows.setLong(2, i * 1000000000000L);
+      rows.setDouble(3, i / 4f);
+      rows.setDouble(4, i / 3d);
+      rows.setObject(5, i % 3 == 0 ? null : "v" + i);
+      boxed.add(rows.get(i));
+    }
+    // Built from the columns, the rows are the same as those of boxed values
+    assertEquals(new Frame(0, true, boxed).toProto(),
+        new Frame(0, true, rows).toProto());
+  }
+
+  @Test public void testColumnarBytesAreDecodedWhenRead() throws Exception {
+    final byte[] value = new byte[1000];
+    Arrays.fill(value, (byte) 7);
+    List<Object> rows = new ArrayList<>();
+    rows.add(new Object[] {value, 1});
+    rows.add(new Object[] {null, 2});
+    List<?> copyRows = parseAliased(new Frame(0, true, rows).toProto(true));
+    List<?> row = (List<?>) copyRows.get(0);
+    byte[] bytes = (byte[]) row.get(0);
+    assertArrayEquals(value, bytes);
+    // Each read is a new copy, which the reader may modify
+    assertNotSame(bytes, row.get(0));
+    assertNull(((List<?>) copyRows.get(1)).get(0));
+  }
+
+  @Test public void testColumnarSmallBytesAreCopied() throws Exception {
+    // Binary values are a small part of the frame, so holding slices of the
+    // response would keep much more memory than the values need
+    List<Object> rows = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      rows.add(new Object[] {new byte[] {(byte) i}, "a longer string value " + i});
+    }
+    List<?> copyRows = parseAliased(new Frame(0, true, rows).toProto(true));
+    List<?> row = (List<?>) copyRows.get(3);
+    byte[] bytes = (byte[]) row.get(0);
+    assertArrayEquals(new byte[] {3}, bytes);
+    // Copied once, as the frame was parsed
+    assertSame(bytes, row.get(0));
+  }
+
+  /** Parses a frame as a response is parsed, so that binary values are
+   * slices of its bytes. */
+  private static List<?> parseAliased(Common.Frame protoFrame) throws IOException {
+    assertEquals(Common.Rep.BYTE_STRING, protoFrame.getColumns(0).getType());
+    CodedInputStream input = protoFrame.toByteString().newCodedInput();
+    input.enableAliasing(true);
+    return (List<?>) Frame.fromProto(Common.Frame.parseFrom(input)).rows;
+  }
+
+  @Test public void testColumnarFallsBackToRows() {
+    // Rows of different widths cannot be sent as columns
+    List<Object> rows = new ArrayList<>();
+    rows.add(new Object[] {1, 2});
+    rows.add(new Object[] {1});
+    Frame frame = new Frame(0, true, rows);
+    Common.Frame protoFrame = frame.toProto(true);
+    assertEquals(0, protoFrame.getColumnsCount());
+    assertEquals(2, protoFrame.getRowsCount());
+
+    Common.Frame emptyFrame = Frame.EMPTY.toProto(true);
+    assertEquals(0, emptyFrame.getColumnsCount());
+    assertEquals(0, emptyFrame.getRowsCount());
   }
 }
 
@@ -21,11 +21,17 @@
 import org.junit.Test;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -137,9 +143,75 @@ private static class MetaImplWithHardCodedResult extends MetaImpl {
     assertEquals(11, metaImpl.fetchCounter);
   }
 
+  @Test public void testPipelinedIterationReturnsRowsInOrder() throws SQLException {
+    final List<Object> expected = IntStream.range(0, 550).boxed().collect(Collectors.toList());
+    MetaImplWithHardCodedResult metaImpl =
+        new MetaImplWithHardCodedResult(mockConnection(50, true), expected);
+    final List<Object> actual = new ArrayList<>();
+    for (Object o : metaImpl.createIterable(null, new QueryState(""), null, null, null)) {
+      actual.add(o);
+    }
+    assertEquals(expected, actual);
+    // Nothing is fetched beyond the last frame
+    assertEquals(11, metaImpl.fetchCounter);
+  }
+
+  @Test public void testCloseWaitsForFetchAhead() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger inFlight = new AtomicInteger();
+    final MetaImplWithHardCodedResult metaImpl =
+        new MetaImplWithHardCodedResult(mockConnection(50, true),
+            IntStream.range(0, 550).boxed().collect(Collectors.toList())) {
+          @Override public Frame fetch(StatementHandle h, long offset, int fetchMaxRowCount) {
+            if (offset > 0) {
+              // Hold the fetch ahead in flight
+              inFlight.incrementAndGet();
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+              }
+              inFlight.decrementAndGet();
+            }
+            return super.fetch(h, offset, fetchMaxRowCount);
+          }
+        };
+    final Iterator<Object> iterator =
+        metaImpl.createIterable(null, new QueryState(""), null, null, null).iterator();
+    assertEquals(0, iterator.next());
+
+    final Thread closer = new Thread(new Runnable() {
+      @Override public void run() {
+        try {
+          ((AutoCloseable) iterator).close();
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+    closer.start();
+    closer.join(200);
+    assertTrue("close did not wait for the fetch ahead", closer.isAlive());
+
+    release.countDown();
+    closer.join();
+    assertEquals(0, inFlight.get());
+    // Nothing is fetched once closed
+    assertEquals(2, metaImpl.fetchCounter);
+  }
+
   private static AvaticaConnection mockConnection(int fetchSize) throws SQLException {
+    return mockConnection(fetchSize, false);
+  }
+
+  private static AvaticaConnection mockConnection(int fetchSize, boolean pipelined)
+      throws SQLException {
     AvaticaConnection connection = mock(AvaticaConnection.class);
     AvaticaStatement stmt = mock(AvaticaStatement.class);
+    Properties properties = new Properties();
+    properties.setProperty(BuiltInConnectionProperty.PIPELINED_FETCH.camelName(),
+        String.valueOf(pipelined));
+    when(connection.config()).thenReturn(new ConnectionConfigImpl(properties));
     when(connection.lookupStatement(any())).thenReturn(stmt);
     when(stmt.getFetchSize()).thenReturn(fetchSize);
     return connection;
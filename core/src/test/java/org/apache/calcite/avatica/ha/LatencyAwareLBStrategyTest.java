@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.ha;
+
+import org.apache.calcite.avatica.ConnectionConfig;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencyAwareLBStrategyTest {
+  private static final String URL1 = "http://host1.com";
+  private static final String URL2 = "http://host2.com";
+
+  ConnectionConfig mockedConnectionConfig = Mockito.mock(ConnectionConfig.class);
+  long now = 0;
+  LatencyAwareLBStrategy strategy = new LatencyAwareLBStrategy() {
+    @Override long nanoTime() {
+      return now;
+    }
+  };
+
+  public LatencyAwareLBStrategyTest() {
+    Mockito.when(mockedConnectionConfig.getLbURLs()).thenReturn(URL1 + "," + URL2);
+  }
+
+  private void request(String url, long millis, boolean succeeded) {
+    strategy.requestStarted(url);
+    strategy.requestFinished(url, TimeUnit.MILLISECONDS.toNanos(millis), succeeded);
+  }
+
+  private void assertSelected(String url) {
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(url, strategy.getLbURL(mockedConnectionConfig));
+    }
+  }
+
+  @Test
+  public void prefersLowerLatency() {
+    request(URL1, 100, true);
+    request(URL2, 5, true);
+    assertSelected(URL2);
+
+    // The average follows the server as it slows down
+    for (int i = 0; i < 10; i++) {
+      request(URL2, 500, true);
+    }
+    assertSelected(URL1);
+  }
+
+  @Test
+  public void prefersFewerRequestsInFlight() {
+    request(URL1, 10, true);
+    request(URL2, 10, true);
+    strategy.requestStarted(URL1);
+    assertSelected(URL2);
+    strategy.requestFinished(URL1, TimeUnit.MILLISECONDS.toNanos(10), true);
+    strategy.requestStarted(URL2);
+    assertSelected(URL1);
+  }
+
+  @Test
+  public void ejectsAndReadmitsFailedServer() {
+    request(URL1, 5, true);
+    request(URL2, 100, true);
+    request(URL1, 5, false);
+    assertSelected(URL2);
+
+    now += LatencyAwareLBStrategy.BASE_EJECTION_NANOS;
+    assertSelected(URL1);
+
+    // Consecutive failures eject for longer
+    request(URL1, 5, false);
+    now += LatencyAwareLBStrategy.BASE_EJECTION_NANOS;
+    assertSelected(URL2);
+    now += LatencyAwareLBStrategy.BASE_EJECTION_NANOS;
+    assertSelected(URL1);
+  }
+
+  @Test
+  public void selectsSoonestReadmittedIfAllEjected() {
+    request(URL2, 5, false);
+    now += 1;
+    request(URL1, 5, false);
+    assertSelected(URL2);
+  }
+}
@@ -17,6 +17,7 @@
 package org.apache.calcite.avatica.remote;
 
 import org.apache.calcite.avatica.AvaticaSeverity;
+import org.apache.calcite.avatica.metrics.noop.NoopMetricsSystem;
 import org.apache.calcite.avatica.remote.Handler.HandlerResponse;
 import org.apache.calcite.avatica.remote.Service.ErrorResponse;
 import org.apache.calcite.avatica.remote.Service.Request;
@@ -28,6 +29,7 @@
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -177,6 +179,15 @@ private String exceptionToString(Exception e) {
     HandlerResponse<String> response = handler.badRequestErrorResponse(exception);
     assertEquals(400, response.getStatusCode());
   }
+
+  @Test public void testJsonSizeIsUtf8Length() {
+    final JsonHandler handler =
+        new JsonHandler(Mockito.mock(Service.class), NoopMetricsSystem.getInstance());
+    for (String s : Arrays.asList("", "{\"sql\":\"select 1\"}", "caf\u00e9",
+        "\u20ac10", "\ud83d\ude00", "\ud83d", "a\ude00b")) {
+      assertEquals(s, s.getBytes(StandardCharsets.UTF_8).length, handler.sizeOf(s));
+    }
+  }
 }
 
 // End AbstractHandlerTest.java
@@ -57,6 +57,19 @@ public class AvaticaHttpClientFactoryTest {
         client instanceof AvaticaHttpClientImpl);
   }
 
+  @Test public void testAsyncHttpClient() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(BuiltInConnectionProperty.HTTP_CLIENT_IMPL.name(),
+        AvaticaCommonsHttpAsyncClientImpl.class.getName());
+    URL url = new URI("http://localhost:8765").toURL();
+    ConnectionConfig config = new ConnectionConfigImpl(props);
+    AvaticaHttpClientFactory httpClientFactory = new AvaticaHttpClientFactoryImpl();
+
+    AvaticaHttpClient client = httpClientFactory.getClient(url, config, null);
+    assertTrue("Client was an instance of " + client.getClass(),
+        client instanceof AvaticaCommonsHttpAsyncClientImpl);
+  }
+
   @Test(expected = RuntimeException.class) public void testInvalidHttpClient() throws Exception {
     Properties props = new Properties();
     props.setProperty(BuiltInConnectionProperty.HTTP_CLIENT_IMPL.name(),
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.ColumnMetaData;
+import org.apache.calcite.avatica.Meta.Frame;
+import org.apache.calcite.avatica.metrics.noop.NoopMetricsSystem;
+import org.apache.calcite.avatica.remote.Service.FetchRequest;
+import org.apache.calcite.avatica.remote.Service.FetchResponse;
+import org.apache.calcite.avatica.util.ColumnarRows;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link BinaryJsonService} and {@link BinaryJsonHandler}.
+ */
+public class BinaryJsonHandlerTest {
+  private static Frame mixedFrame() {
+    final List<Object> rows = new ArrayList<>();
+    rows.add(
+        new Object[] {null, (byte) -3, (short) 300, Integer.MIN_VALUE, Long.MAX_VALUE, 1.5f,
+            2.25d, "text", 'c', new BigDecimal("-12.345"), new byte[] {1, 2, 3}, true,
+            new Timestamp(1234567890L)});
+    rows.add(Arrays.<Object>asList(1, Arrays.asList("a", "b")));
+    rows.add(null);
+    return new Frame(200, false, rows);
+  }
+
+  private static Frame columnarFrame() {
+    final ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.INTEGER,
+        ColumnMetaData.Rep.LONG, ColumnMetaData.Rep.DOUBLE, ColumnMetaData.Rep.STRING);
+    for (int i = 0; i < 3; i++) {
+      rows.addRow();
+      rows.setLong(0, i);
+      rows.setLong(1, Long.MAX_VALUE - i);
+      if (i == 1) {
+        rows.setNull(2);
+      } else {
+        rows.setDouble(2, i / 4d);
+      }
+      rows.setObject(3, "row" + i);
+    }
+    return new Frame(0, true, rows);
+  }
+
+  /** The frame serializer writes the same bytes as the bean serializer. */
+  @Test public void testFrameSerializer() throws IOException {
+    for (Driver.Serialization serialization
+        : Arrays.asList(Driver.Serialization.SMILE, Driver.Serialization.CBOR)) {
+      final ObjectMapper mapper = BinaryJsonService.getMapper(serialization);
+      final ObjectMapper beanMapper = new ObjectMapper(mapper.getFactory().copy());
+      beanMapper.configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true);
+      for (Frame frame : Arrays.asList(mixedFrame(), columnarFrame(), Frame.EMPTY)) {
+        assertArrayEquals(beanMapper.writeValueAsBytes(frame), mapper.writeValueAsBytes(frame));
+      }
+    }
+  }
+
+  @Test public void testRoundTrip() {
+    final Service service = Mockito.mock(Service.class);
+    // Whole numbers, as untyped floating-point values are read as BigDecimal
+    final List<Object> rows = new ArrayList<>();
+    rows.add(new Object[] {1, Long.MAX_VALUE, "a", null, true});
+    rows.add(new Object[] {-2, 0, "\u00e9\u4e2d", "b", false});
+    final FetchResponse response =
+        new FetchResponse(new Frame(100, true, rows), false, false, null);
+    Mockito.when(service.apply(Mockito.any(FetchRequest.class))).thenReturn(response);
+    for (Driver.Serialization serialization
+        : Arrays.asList(Driver.Serialization.SMILE, Driver.Serialization.CBOR)) {
+      final BinaryJsonHandler handler =
+          new BinaryJsonHandler(service, serialization, NoopMetricsSystem.getInstance());
+      final BinaryJsonService client = new BinaryJsonService(serialization) {
+        @Override public byte[] apply(byte[] request) {
+          return handler.apply(request).getResponse();
+        }
+      };
+      final FetchResponse actual = client.apply(new FetchRequest("c", 1, 0, 100));
+      assertEquals(response.frame, actual.frame);
+    }
+  }
+}
+
+// End BinaryJsonHandlerTest.java
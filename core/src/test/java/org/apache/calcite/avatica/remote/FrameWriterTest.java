@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.ColumnMetaData;
+import org.apache.calcite.avatica.Meta.Frame;
+import org.apache.calcite.avatica.remote.Service.FetchResponse;
+import org.apache.calcite.avatica.remote.Service.RpcMetadataResponse;
+import org.apache.calcite.avatica.util.ColumnarRows;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link FrameWriter} writes the same bytes as the generated protobuf classes.
+ */
+public class FrameWriterTest {
+  private final ProtobufTranslationImpl translation = new ProtobufTranslationImpl();
+
+  private void assertSameBytes(FetchResponse response) throws IOException {
+    assertTrue(translation.isDirectlyWritable(response));
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    translation.writeMessage(expected, response.serialize());
+    final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    translation.writeFetchResponse(actual, response);
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    assertArrayEquals(expected.toByteArray(), translation.serializeResponse(response));
+  }
+
+  @Test public void testScalars() throws IOException {
+    final List<Object> rows = new ArrayList<>();
+    rows.add(
+        new Object[] {null, (byte) -3, (short) 300, 0, Integer.MIN_VALUE, Long.MAX_VALUE,
+            -1L, 1.5f, 0f, 2.25d, -0d, 0d, Double.NaN});
+    rows.add(
+        new Object[] {"", "text", "\u00e9\u4e2d\ud83d\ude00", 'c', new BigDecimal("-12.345"),
+            new byte[0], new byte[] {1, 2, 3}, true, false, new Timestamp(1234567890L),
+            new Date(86400000L), new Time(3600000L), null});
+    assertSameBytes(new FetchResponse(new Frame(200, false, rows), false, false, null));
+    assertSameBytes(
+        new FetchResponse(new Frame(0, true, rows), false, false,
+            new RpcMetadataResponse("localhost:8765")));
+  }
+
+  @Test public void testRowShapes() throws IOException {
+    final List<Object> rows = new ArrayList<>();
+    rows.add(Arrays.<Object>asList(1, "a"));
+    // Null rows are skipped; rows of different widths are fine
+    rows.add(null);
+    rows.add(new Object[] {2});
+    rows.add(new Object[0]);
+    // Values without a direct encoding are built as messages
+    rows.add(new Object[] {Arrays.asList(1, 2, 3), Collections.emptyList(), "b"});
+    assertSameBytes(new FetchResponse(new Frame(10, true, rows), false, false, null));
+  }
+
+  @Test public void testColumnarRows() throws IOException {
+    final ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.BYTE,
+        ColumnMetaData.Rep.INTEGER, ColumnMetaData.Rep.LONG, ColumnMetaData.Rep.FLOAT,
+        ColumnMetaData.Rep.DOUBLE, ColumnMetaData.Rep.OBJECT);
+    for (int i = 0; i < 40; i++) {
+      rows.addRow();
+      if (i % 4 == 0) {
+        for (int j = 0; j < 6; j++) {
+          rows.setNull(j);
+        }
+        continue;
+      }
+      rows.setLong(0, i - 20);
+      rows.setLong(1, i * 100000);
+      rows.setLong(2, -i * 10000000000L);
+      rows.setDouble(3, i / 3f);
+      rows.setDouble(4, i / 7d);
+      rows.setObject(5, i % 3 == 0 ? new BigDecimal(i) : "s" + i);
+    }
+    assertSameBytes(new FetchResponse(new Frame(40, false, rows), false, false, null));
+  }
+
+  @Test public void testWithoutFrame() throws IOException {
+    assertSameBytes(new FetchResponse(null, false, false, null));
+    assertSameBytes(new FetchResponse(null, true, false, null));
+    assertSameBytes(new FetchResponse(Frame.EMPTY, false, true, null));
+  }
+}
+
+// End FrameWriterTest.java
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.AvaticaConnection;
+import org.apache.calcite.avatica.AvaticaConnection.CallableWithoutException;
+import org.apache.calcite.avatica.BuiltInConnectionProperty;
+import org.apache.calcite.avatica.ConnectionConfigImpl;
+import org.apache.calcite.avatica.Meta;
+import org.apache.calcite.avatica.Meta.ConnectionHandle;
+import org.apache.calcite.avatica.Meta.Frame;
+import org.apache.calcite.avatica.Meta.MetaResultSet;
+import org.apache.calcite.avatica.Meta.Pat;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link MetadataCache} and its use by {@link RemoteMeta}.
+ */
+public class MetadataCacheTest {
+  private static final Meta.Signature SIGNATURE = Meta.Signature.create(
+      Collections.emptyList(), "?", Collections.emptyList(), Meta.CursorFactory.ARRAY,
+      Meta.StatementType.SELECT);
+
+  private static List<Object> key(String name) {
+    return Arrays.<Object>asList("getTables", name);
+  }
+
+  @Test public void testEvictsLeastRecentlyUsed() {
+    final MetadataCache cache = new MetadataCache(2, 60000);
+    cache.put(key("a"), SIGNATURE, Frame.EMPTY);
+    cache.put(key("b"), SIGNATURE, Frame.EMPTY);
+    assertNotNull(cache.get(key("a")));
+    cache.put(key("c"), SIGNATURE, Frame.EMPTY);
+    assertEquals(2, cache.size());
+    assertNotNull(cache.get(key("a")));
+    assertNull(cache.get(key("b")));
+    assertNotNull(cache.get(key("c")));
+  }
+
+  @Test public void testExpiry() {
+    final MetadataCache cache = new MetadataCache(10, 0);
+    cache.put(key("a"), SIGNATURE, Frame.EMPTY);
+    assertNull(cache.get(key("a")));
+    assertEquals(0, cache.size());
+  }
+
+  @Test public void testInvalidate() {
+    final MetadataCache cache = new MetadataCache(10, 60000);
+    cache.put(key("a"), SIGNATURE, Frame.EMPTY);
+    cache.invalidate();
+    assertNull(cache.get(key("a")));
+  }
+
+  private static RemoteMeta remoteMeta(Service service, int cacheSize) {
+    final Properties properties = new Properties();
+    properties.setProperty(BuiltInConnectionProperty.METADATA_CACHE_SIZE.name(),
+        Integer.toString(cacheSize));
+    final AvaticaConnection connection = mock(AvaticaConnection.class);
+    when(connection.config()).thenReturn(new ConnectionConfigImpl(properties));
+    when(connection.invokeWithRetries(any())).thenAnswer(new Answer<Object>() {
+      @Override public Object answer(InvocationOnMock invocation) {
+        return invocation.<CallableWithoutException<?>>getArgument(0).call();
+      }
+    });
+    return new RemoteMeta(connection, service);
+  }
+
+  private static Service tablesService(boolean done) {
+    final Service service = mock(Service.class);
+    when(service.apply(any(Service.TablesRequest.class))).thenReturn(
+        new Service.ResultSetResponse("conn", 7, true, SIGNATURE,
+            new Frame(0, done, Collections.emptyList()), -1, null));
+    return service;
+  }
+
+  @Test public void testRemoteMetaServesRepeatedCallsFromCache() {
+    final Service service = tablesService(true);
+    final RemoteMeta meta = remoteMeta(service, 10);
+    final ConnectionHandle ch = new ConnectionHandle("conn");
+
+    final MetaResultSet first =
+        meta.getTables(ch, null, Pat.of("s"), Pat.of("t%"), null);
+    final MetaResultSet second =
+        meta.getTables(ch, null, Pat.of("s"), Pat.of("t%"), null);
+    verify(service, times(1)).apply(any(Service.TablesRequest.class));
+    assertEquals(7, first.statementId);
+    assertSame(first.firstFrame, second.firstFrame);
+    // Cached results have no statement on the server, so closing them is local
+    assertTrue(second.statementId < 0);
+    meta.closeStatement(new Meta.StatementHandle("conn", second.statementId, null));
+    verify(service, never()).apply(any(Service.CloseStatementRequest.class));
+
+    // Other arguments are another entry
+    meta.getTables(ch, null, Pat.of("s"), Pat.of("u%"), null);
+    verify(service, times(2)).apply(any(Service.TablesRequest.class));
+
+    meta.invalidateMetadataCache(ch);
+    meta.getTables(ch, null, Pat.of("s"), Pat.of("t%"), null);
+    verify(service, times(3)).apply(any(Service.TablesRequest.class));
+  }
+
+  @Test public void testRemoteMetaDoesNotCacheIncompleteResults() {
+    final Service service = tablesService(false);
+    final RemoteMeta meta = remoteMeta(service, 10);
+    final ConnectionHandle ch = new ConnectionHandle("conn");
+    meta.getTables(ch, null, Pat.of("s"), Pat.of("t%"), null);
+    meta.getTables(ch, null, Pat.of("s"), Pat.of("t%"), null);
+    verify(service, times(2)).apply(any(Service.TablesRequest.class));
+  }
+
+  @Test public void testRemoteMetaCacheDisabledByDefault() {
+    final Service service = tablesService(true);
+    final RemoteMeta meta = remoteMeta(service, 0);
+    final ConnectionHandle ch = new ConnectionHandle("conn");
+    meta.getTables(ch, null, Pat.of("s"), Pat.of("t%"), null);
+    meta.getTables(ch, null, Pat.of("s"), Pat.of("t%"), null);
+    verify(service, times(2)).apply(any(Service.TablesRequest.class));
+  }
+}
+
+// End MetadataCacheTest.java
@@ -18,26 +18,38 @@
 
 import org.apache.calcite.avatica.Meta;
 import org.apache.calcite.avatica.Meta.Frame;
+import org.apache.calcite.avatica.metrics.Histogram;
+import org.apache.calcite.avatica.metrics.MetricsSystem;
+import org.apache.calcite.avatica.metrics.Timer;
 import org.apache.calcite.avatica.metrics.noop.NoopMetricsSystem;
 import org.apache.calcite.avatica.proto.Common;
 import org.apache.calcite.avatica.proto.Common.ColumnValue;
 import org.apache.calcite.avatica.proto.Requests;
 import org.apache.calcite.avatica.proto.Responses;
 import org.apache.calcite.avatica.remote.Handler.HandlerResponse;
+import org.apache.calcite.avatica.remote.Service.ErrorResponse;
 import org.apache.calcite.avatica.remote.Service.FetchRequest;
 import org.apache.calcite.avatica.remote.Service.FetchResponse;
+import org.apache.calcite.avatica.remote.Service.Response;
 import org.apache.calcite.avatica.remote.Service.RpcMetadataResponse;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 /**
@@ -133,6 +145,82 @@ public void testFetch() throws Exception {
     assertEquals("my_string", value.getStringValue());
   }
 
+  @Test
+  public void testMetrics() throws Exception {
+    final MetricsSystem metrics = Mockito.mock(MetricsSystem.class);
+    final Map<String, Timer> timers = new HashMap<>();
+    final Map<String, Histogram> histograms = new HashMap<>();
+    when(metrics.getTimer(anyString())).thenAnswer(new Answer<Timer>() {
+      @Override public Timer answer(InvocationOnMock invocation) {
+        final Timer timer = Mockito.mock(Timer.class);
+        when(timer.start()).thenReturn(Mockito.mock(Timer.Context.class));
+        timers.put(invocation.<String>getArgument(0), timer);
+        return timer;
+      }
+    });
+    when(metrics.getHistogram(anyString())).thenAnswer(new Answer<Histogram>() {
+      @Override public Histogram answer(InvocationOnMock invocation) {
+        final Histogram histogram = Mockito.mock(Histogram.class);
+        histograms.put(invocation.<String>getArgument(0), histogram);
+        return histogram;
+      }
+    });
+    handler = new ProtobufHandler(service, translation, metrics);
+
+    final byte[] serializedRequest = new byte[] {1, 2, 3};
+    final byte[] serializedResponse = new byte[] {4, 5};
+    FetchRequest request = new FetchRequest("cnxn1", 30, 10, 100);
+    List<Object> rows = new ArrayList<>();
+    rows.add(new Object[] {1});
+    rows.add(new Object[] {2});
+    FetchResponse response = new FetchResponse(Frame.create(0, true, rows), false, false, null);
+    when(translation.parseRequest(serializedRequest)).thenReturn(request);
+    when(service.apply(request)).thenReturn(response);
+    when(translation.serializeResponse(response)).thenReturn(serializedResponse);
+
+    assertEquals(200, handler.apply(serializedRequest).getStatusCode());
+    Mockito.verify(histogram(histograms, Handler.HANDLER_REQUEST_SIZE_METRICS_NAME))
+        .update(3L);
+    Mockito.verify(histogram(histograms, Handler.HANDLER_RESPONSE_SIZE_METRICS_NAME))
+        .update(2L);
+    Mockito.verify(histogram(histograms, Handler.HANDLER_FRAME_ROWS_METRICS_NAME))
+        .update(2);
+    for (String name : new String[] {Handler.HANDLER_DECODE_METRICS_NAME,
+        Handler.HANDLER_EXECUTE_METRICS_NAME, Handler.HANDLER_ENCODE_METRICS_NAME,
+        Handler.HANDLER_EXECUTE_METRICS_NAME + ".FetchRequest"}) {
+      final Timer timer = timers.get(MetricsHelper.concat(ProtobufHandler.class, name));
+      assertNotNull(name, timer);
+      Mockito.verify(timer).start();
+    }
+  }
+
+  private static Histogram histogram(Map<String, Histogram> histograms, String name) {
+    return histograms.get(MetricsHelper.concat(ProtobufHandler.class, name));
+  }
+
+  @Test
+  public void testApplyWithoutEncoding() throws Exception {
+    final byte[] serializedRequest = new byte[] {1};
+    final byte[] failingRequest = new byte[] {2};
+    FetchRequest request = new FetchRequest("cnxn1", 30, 10, 100);
+    FetchResponse response = new FetchResponse(Frame.EMPTY, false, false, null);
+
+    when(translation.parseRequest(serializedRequest)).thenReturn(request);
+    when(translation.parseRequest(failingRequest))
+        .thenThrow(new IllegalArgumentException("Malformed request"));
+    when(service.apply(request)).thenReturn(response);
+
+    HandlerResponse<Response> handlerResponse = handler.applyWithoutEncoding(serializedRequest);
+    assertEquals(200, handlerResponse.getStatusCode());
+    assertSame(response, handlerResponse.getResponse());
+
+    handlerResponse = handler.applyWithoutEncoding(failingRequest);
+    assertEquals(500, handlerResponse.getStatusCode());
+    assertTrue(handlerResponse.getResponse() instanceof ErrorResponse);
+    assertTrue(((ErrorResponse) handlerResponse.getResponse()).errorMessage
+        .contains("Malformed request"));
+  }
+
 }
 
 // End ProtobufHandlerTest.java
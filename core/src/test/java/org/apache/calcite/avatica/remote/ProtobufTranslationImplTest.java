@@ -73,6 +73,7 @@
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -86,6 +87,7 @@
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -137,6 +139,26 @@ public Response apply(Response response) throws IOException {
     }
   }
 
+  /**
+   * Identity function that accepts a response, serializes it to protobuf onto a stream, and
+   * converts it back.
+   */
+  private static class StreamingResponseFunc implements IdentityFunction<Response> {
+    private final ProtobufTranslation translation;
+
+    private StreamingResponseFunc(ProtobufTranslation translation) {
+      this.translation = translation;
+    }
+
+    public Response apply(Response response) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      translation.serializeResponse(response, out);
+      // Streaming must not change what is sent over the wire
+      assertArrayEquals(translation.serializeResponse(response), out.toByteArray());
+      return translation.parseResponse(out.toByteArray());
+    }
+  }
+
   @Parameters
   public static List<Object[]> parameters() {
     List<Object[]> params = new ArrayList<>();
@@ -148,6 +170,8 @@ public static List<Object[]> parameters() {
     RequestFunc requestFunc = new RequestFunc(translation);
     // Identity transformation for Responses
     ResponseFunc responseFunc = new ResponseFunc(translation);
+    // Identity transformation for Responses written to a stream
+    StreamingResponseFunc streamingResponseFunc = new StreamingResponseFunc(translation);
 
     List<Request> requests = getRequests();
     List<Request> requestsWithNulls = getRequestsWithNulls();
@@ -166,6 +190,7 @@ public static List<Object[]> parameters() {
     // Responses
     for (Response response : responses) {
       params.add(new Object[] {response, responseFunc});
+      params.add(new Object[] {response, streamingResponseFunc});
     }
 
     return params;
@@ -191,6 +216,9 @@ private static List<Request> getRequests() {
     requests.add(
         new PrepareAndExecuteRequest("connectionId", Integer.MAX_VALUE, "sql",
             Long.MAX_VALUE));
+    requests.add(
+        new PrepareAndExecuteRequest("connectionId", Integer.MAX_VALUE, "sql",
+            Long.MAX_VALUE, 100, true));
     requests.add(new PrepareRequest("connectionId", "sql", Long.MAX_VALUE));
 
     List<TypedValue> paramValues =
@@ -199,6 +227,8 @@ private static List<Request> getRequests() {
     FetchRequest fetchRequest = new FetchRequest("connectionId", Integer.MAX_VALUE,
         Long.MAX_VALUE, Integer.MAX_VALUE);
     requests.add(fetchRequest);
+    requests.add(
+        new FetchRequest("connectionId", Integer.MAX_VALUE, Long.MAX_VALUE, 100, true));
 
     requests.add(new CreateStatementRequest("connectionId"));
     requests.add(new CloseStatementRequest("connectionId", Integer.MAX_VALUE));
@@ -234,6 +264,7 @@ private static List<Request> getRequests() {
     Meta.StatementHandle handle = new Meta.StatementHandle("1234", 1, signature);
     requests.add(new ExecuteRequest(handle, Arrays.<TypedValue>asList((TypedValue) null), 10));
     requests.add(new ExecuteRequest(handle, Arrays.asList(TypedValue.EXPLICIT_NULL), 10));
+    requests.add(new ExecuteRequest(handle, null, 10, true));
 
     return requests;
   }
@@ -343,6 +374,11 @@ private static List<Response> getResponses() {
     responses.add(new FetchResponse(frame, false, false, rpcMetadata));
     responses.add(new FetchResponse(frame, true, true, rpcMetadata));
     responses.add(new FetchResponse(frame, false, true, rpcMetadata));
+    responses.add(new FetchResponse(frame, false, false, rpcMetadata, true));
+    ResultSetResponse columnarResults = new ResultSetResponse("connectionId",
+        Integer.MAX_VALUE, true, signature, frame, Long.MAX_VALUE, rpcMetadata, true);
+    responses.add(
+        new ExecuteResponse(Arrays.asList(columnarResults), false, rpcMetadata));
     responses.add(
         new PrepareResponse(
             new Meta.StatementHandle("connectionId", Integer.MAX_VALUE, signature),
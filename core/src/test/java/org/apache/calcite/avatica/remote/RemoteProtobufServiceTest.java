@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.AvaticaClientRuntimeException;
+import org.apache.calcite.avatica.AvaticaSeverity;
+import org.apache.calcite.avatica.remote.Service.CloseStatementRequest;
+import org.apache.calcite.avatica.remote.Service.CloseStatementResponse;
+import org.apache.calcite.avatica.remote.Service.ErrorResponse;
+import org.apache.calcite.avatica.remote.Service.Response;
+import org.apache.calcite.avatica.remote.Service.RpcMetadataResponse;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link RemoteProtobufService}.
+ */
+public class RemoteProtobufServiceTest {
+  private final ProtobufTranslation translation = new ProtobufTranslationImpl();
+
+  @Test public void testApplyAsyncDoesNotBlock() throws Exception {
+    final AsyncAvaticaHttpClient client = mock(AsyncAvaticaHttpClient.class);
+    final CompletableFuture<byte[]> pending = new CompletableFuture<>();
+    when(client.sendAsync(any(byte[].class))).thenReturn(pending);
+    final RemoteProtobufService service = new RemoteProtobufService(client, translation);
+
+    final CompletableFuture<Response> future =
+        service.applyAsync(new CloseStatementRequest("conn", 1));
+    assertFalse(future.isDone());
+    verify(client, never()).send(any(byte[].class));
+
+    final CloseStatementResponse expected =
+        new CloseStatementResponse(new RpcMetadataResponse("localhost:8765"));
+    pending.complete(translation.serializeResponse(expected));
+    assertEquals(expected, future.get());
+  }
+
+  @Test public void testApplyAsyncCompletesWithServerError() throws Exception {
+    final AsyncAvaticaHttpClient client = mock(AsyncAvaticaHttpClient.class);
+    final ErrorResponse error = new ErrorResponse(Collections.<String>emptyList(),
+        "failed", ErrorResponse.UNKNOWN_ERROR_CODE, ErrorResponse.UNKNOWN_SQL_STATE,
+        AvaticaSeverity.ERROR, null);
+    when(client.sendAsync(any(byte[].class)))
+        .thenReturn(CompletableFuture.completedFuture(translation.serializeResponse(error)));
+    final RemoteProtobufService service = new RemoteProtobufService(client, translation);
+
+    try {
+      service.applyAsync(new CloseStatementRequest("conn", 1)).get();
+      fail("Expected the server error");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof AvaticaClientRuntimeException);
+    }
+  }
+
+  @Test public void testApplyAsyncWithSynchronousClient() throws Exception {
+    final AvaticaHttpClient client = mock(AvaticaHttpClient.class);
+    final CloseStatementResponse expected =
+        new CloseStatementResponse(new RpcMetadataResponse("localhost:8765"));
+    when(client.send(any(byte[].class))).thenReturn(translation.serializeResponse(expected));
+    final RemoteProtobufService service = new RemoteProtobufService(client, translation);
+
+    final CompletableFuture<Response> future =
+        service.applyAsync(new CloseStatementRequest("conn", 1));
+    assertTrue(future.isDone());
+    assertEquals(expected, future.get());
+  }
+}
+
+// End RemoteProtobufServiceTest.java
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.AvaticaConnection;
+import org.apache.calcite.avatica.AvaticaConnection.CallableWithoutException;
+import org.apache.calcite.avatica.BuiltInConnectionProperty;
+import org.apache.calcite.avatica.ConnectionConfigImpl;
+import org.apache.calcite.avatica.ConnectionPropertiesImpl;
+import org.apache.calcite.avatica.Meta;
+import org.apache.calcite.avatica.Meta.ConnectionHandle;
+import org.apache.calcite.avatica.Meta.Frame;
+import org.apache.calcite.avatica.Meta.StatementHandle;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the cache of prepared statement signatures in {@link RemoteMeta}.
+ */
+public class SignatureCacheTest {
+  private static final String SQL = "select * from t where id = ?";
+  private static final Meta.Signature SIGNATURE = Meta.Signature.create(
+      Collections.emptyList(), SQL, Collections.emptyList(), Meta.CursorFactory.ARRAY,
+      Meta.StatementType.SELECT);
+
+  private final ConnectionHandle ch = new ConnectionHandle("conn");
+
+  private static RemoteMeta remoteMeta(Service service, int cacheSize) {
+    final Properties properties = new Properties();
+    properties.setProperty(BuiltInConnectionProperty.SIGNATURE_CACHE_SIZE.name(),
+        Integer.toString(cacheSize));
+    final AvaticaConnection connection = mock(AvaticaConnection.class);
+    when(connection.config()).thenReturn(new ConnectionConfigImpl(properties));
+    when(connection.invokeWithRetries(any())).thenAnswer(new Answer<Object>() {
+      @Override public Object answer(InvocationOnMock invocation) {
+        return invocation.<CallableWithoutException<?>>getArgument(0).call();
+      }
+    });
+    return new RemoteMeta(connection, service);
+  }
+
+  /** Mocks a server that prepares statements as id 5, and prepares deferred
+   * statements as id 9 if {@code deferredPrepare}. */
+  private static Service service(final boolean deferredPrepare) {
+    final Service service = mock(Service.class);
+    when(service.apply(any(Service.ConnectionSyncRequest.class))).thenReturn(
+        new Service.ConnectionSyncResponse(new ConnectionPropertiesImpl(), null));
+    when(service.apply(any(Service.PrepareRequest.class))).thenReturn(
+        new Service.PrepareResponse(new StatementHandle("conn", 5, SIGNATURE), null));
+    when(service.apply(any(Service.CloseStatementRequest.class))).thenReturn(
+        new Service.CloseStatementResponse());
+    when(service.apply(any(Service.ExecuteRequest.class))).thenAnswer(
+        new Answer<Service.ExecuteResponse>() {
+          @Override public Service.ExecuteResponse answer(InvocationOnMock invocation) {
+            final StatementHandle h =
+                invocation.<Service.ExecuteRequest>getArgument(0).statementHandle;
+            if (h.id < 0 && !deferredPrepare) {
+              return new Service.ExecuteResponse(
+                  Collections.<Service.ResultSetResponse>emptyList(), true, null);
+            }
+            final int id = h.id < 0 ? 9 : h.id;
+            return new Service.ExecuteResponse(
+                Collections.singletonList(
+                    new Service.ResultSetResponse("conn", id, true, SIGNATURE,
+                        new Frame(0, true, Collections.emptyList()), -1, null)),
+                false, null);
+          }
+        });
+    return service;
+  }
+
+  private static List<Service.ExecuteRequest> executeRequests(Service service, int count) {
+    final ArgumentCaptor<Service.ExecuteRequest> captor =
+        ArgumentCaptor.forClass(Service.ExecuteRequest.class);
+    verify(service, times(count)).apply(captor.capture());
+    return captor.getAllValues();
+  }
+
+  @Test public void testCachedSignatureDefersPrepare() throws Exception {
+    final Service service = service(true);
+    final RemoteMeta meta = remoteMeta(service, 10);
+
+    final StatementHandle first = meta.prepare(ch, SQL, -1);
+    assertEquals(5, first.id);
+    final StatementHandle second = meta.prepare(ch, SQL, -1);
+    verify(service, times(1)).apply(any(Service.PrepareRequest.class));
+    assertTrue(second.id < 0);
+    assertSame(SIGNATURE, second.signature);
+
+    // The first execute prepares the statement on the server; later ones use it
+    meta.execute(second, Collections.emptyList(), 100);
+    meta.execute(second, Collections.emptyList(), 100);
+    final List<Service.ExecuteRequest> requests = executeRequests(service, 2);
+    assertEquals(second.id, requests.get(0).statementHandle.id);
+    assertEquals(SQL, requests.get(0).statementHandle.signature.sql);
+    assertEquals(9, requests.get(1).statementHandle.id);
+
+    final ArgumentCaptor<Service.CloseStatementRequest> close =
+        ArgumentCaptor.forClass(Service.CloseStatementRequest.class);
+    meta.closeStatement(second);
+    verify(service).apply(close.capture());
+    assertEquals(9, close.getValue().statementId);
+  }
+
+  @Test public void testClosingUnexecutedStatementIsLocal() {
+    final Service service = service(true);
+    final RemoteMeta meta = remoteMeta(service, 10);
+    meta.prepare(ch, SQL, -1);
+    meta.closeStatement(meta.prepare(ch, SQL, -1));
+    verify(service, times(0)).apply(any(Service.CloseStatementRequest.class));
+  }
+
+  @Test public void testFallsBackIfServerCannotPrepareDeferred() throws Exception {
+    final Service service = service(false);
+    final RemoteMeta meta = remoteMeta(service, 10);
+    meta.prepare(ch, SQL, -1);
+    final StatementHandle h = meta.prepare(ch, SQL, -1);
+    assertTrue(h.id < 0);
+
+    meta.execute(h, Collections.emptyList(), 100);
+    verify(service, times(2)).apply(any(Service.PrepareRequest.class));
+    final List<Service.ExecuteRequest> requests = executeRequests(service, 2);
+    assertEquals(5, requests.get(1).statementHandle.id);
+
+    // No further deferral is attempted
+    assertEquals(5, meta.prepare(ch, SQL, -1).id);
+    verify(service, times(3)).apply(any(Service.PrepareRequest.class));
+  }
+
+  @Test public void testCacheDisabledByDefault() {
+    final Service service = service(true);
+    final RemoteMeta meta = remoteMeta(service, 0);
+    meta.prepare(ch, SQL, -1);
+    meta.prepare(ch, SQL, -1);
+    verify(service, times(2)).apply(any(Service.PrepareRequest.class));
+  }
+}
+
+// End SignatureCacheTest.java
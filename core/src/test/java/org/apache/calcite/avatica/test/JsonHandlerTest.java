@@ -21,6 +21,7 @@
 import org.apache.calcite.avatica.Meta;
 import org.apache.calcite.avatica.Meta.CursorFactory;
 import org.apache.calcite.avatica.metrics.noop.NoopMetricsSystem;
+import org.apache.calcite.avatica.remote.Handler;
 import org.apache.calcite.avatica.remote.JsonHandler;
 import org.apache.calcite.avatica.remote.JsonService;
 import org.apache.calcite.avatica.remote.LocalJsonService;
@@ -29,7 +30,11 @@
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -190,6 +195,27 @@ public ParameterValuesCheckingService(List<TypedValue> epv) {
     assertThat(expectedParameterValues.get(0), is(parameterValues.get(0)));
     assertThat(expectedParameterValues.get(1), is(parameterValues.get(1)));
   }
+
+  @Test public void testExecuteRequestFromStream() throws IOException {
+    final List<TypedValue> expectedParameterValues = new ArrayList<>();
+    final Service service = new ParameterValuesCheckingService(expectedParameterValues);
+    final JsonHandler jsonHandler = new JsonHandler(service, NoopMetricsSystem.getInstance());
+
+    final byte[] request = ("{'request':'execute',"
+        + "'parameterValues':[{'type':'STRING','value':'\u00e9\u4e2d'}]}")
+        .getBytes(StandardCharsets.UTF_8);
+    final Handler.HandlerResponse<Service.Response> response =
+        jsonHandler.applyWithoutEncoding(new ByteArrayInputStream(request));
+    assertThat(response.getStatusCode(), is(200));
+    assertThat(expectedParameterValues,
+        is(Collections.singletonList(TypedValue.create("STRING", "\u00e9\u4e2d"))));
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    jsonHandler.encode(response.getResponse(), out);
+    final Service.Response decoded =
+        JsonService.MAPPER.readValue(out.toByteArray(), Service.Response.class);
+    assertThat(decoded instanceof Service.ExecuteResponse, is(true));
+  }
 }
 
 // End JsonHandlerTest.java
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.util;
+
+import org.apache.calcite.avatica.ColumnMetaData;
+import org.apache.calcite.avatica.Meta;
+import org.apache.calcite.avatica.MetaImpl;
+
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ColumnarRows}.
+ */
+public class ColumnarRowsTest {
+
+  @Test public void testRowsAreBoxedToColumnRep() {
+    final ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.BYTE,
+        ColumnMetaData.Rep.INTEGER, ColumnMetaData.Rep.DOUBLE,
+        ColumnMetaData.Rep.STRING);
+    rows.addRow();
+    rows.setLong(0, 7);
+    rows.setLong(1, 42);
+    rows.setDouble(2, 1.5);
+    rows.setObject(3, "a");
+    // Reps without primitive storage hold objects
+    assertEquals(ColumnMetaData.Rep.OBJECT, rows.getRep(3));
+    assertArrayEquals(new Object[] {(byte) 7, 42, 1.5, "a"}, (Object[]) rows.get(0));
+  }
+
+  @Test public void testGrowthKeepsValuesAndNulls() {
+    final ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.LONG,
+        ColumnMetaData.Rep.OBJECT);
+    for (int i = 0; i < 100; i++) {
+      rows.addRow();
+      if (i % 10 == 0) {
+        rows.setNull(0);
+        rows.setNull(1);
+      } else {
+        rows.setLong(0, i);
+        rows.setObject(1, i);
+      }
+    }
+    assertEquals(100, rows.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i % 10 == 0, rows.isNull(i, 0));
+      assertEquals(i % 10 == 0 ? null : (long) i, rows.getObject(i, 0));
+      assertEquals(i % 10 == 0 ? null : i, rows.getObject(i, 1));
+    }
+
+    final byte[] bitmap = rows.getNullBitmap(0);
+    assertEquals(13, bitmap.length);
+    assertArrayEquals(bitmap, rows.getNullBitmap(1));
+  }
+
+  @Test public void testSettingValueClearsNull() {
+    final ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.INTEGER,
+        ColumnMetaData.Rep.LONG, ColumnMetaData.Rep.DOUBLE);
+    rows.addRows(2);
+    for (int i = 0; i < 3; i++) {
+      rows.setNull(0, i);
+      rows.setNull(1, i);
+    }
+    rows.setObject(0, 0, 3);
+    rows.setLong(0, 1, 4L);
+    rows.setDouble(0, 2, 0.5);
+    assertArrayEquals(new Object[] {3, 4L, 0.5}, (Object[]) rows.get(0));
+    // Other rows keep their nulls
+    assertArrayEquals(new Object[] {null, null, null}, (Object[]) rows.get(1));
+  }
+
+  @Test public void testNoNullBitmapWithoutNulls() {
+    final ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.FLOAT);
+    rows.addRow();
+    rows.setDouble(0, 0.25f);
+    assertFalse(rows.isNull(0, 0));
+    assertNull(rows.getNullBitmap(0));
+    assertTrue(rows.getObject(0, 0) instanceof Float);
+  }
+
+  @Test public void testRowViews() {
+    final ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.INTEGER,
+        ColumnMetaData.Rep.DOUBLE, ColumnMetaData.Rep.OBJECT);
+    rows.addRows(3);
+    for (int i = 0; i < 3; i++) {
+      rows.setLong(i, 0, i);
+      rows.setObject(i, 2, "r" + i);
+    }
+    rows.setDouble(0, 1, 0.5);
+    rows.setNull(1, 1);
+    rows.setDouble(2, 1, 2.5);
+
+    final List<Object> views = rows.rows();
+    assertEquals(3, views.size());
+    final ColumnarRows.Row row = (ColumnarRows.Row) views.get(1);
+    assertEquals(Arrays.asList(1, null, "r1"), row);
+    assertEquals(1L, row.getLong(0));
+    assertTrue(row.isNull(1));
+    assertEquals(ColumnMetaData.Rep.OBJECT, row.getRep(2));
+    assertEquals(2.5, ((ColumnarRows.Row) views.get(2)).getDouble(1), 0);
+  }
+
+  @Test public void testCursorReadsRowViews() throws SQLException {
+    final ColumnarRows rows = rowsForCursor();
+    @SuppressWarnings("unchecked") final Iterator<List<Object>> iterator =
+        (Iterator<List<Object>>) (Iterator) rows.rows().iterator();
+    checkCursor(new ColumnarRowsCursor(iterator));
+  }
+
+  /** A cursor that does not know its rows are columnar reads them boxed. */
+  @Test public void testListCursorReadsRowViews() throws SQLException {
+    final ColumnarRows rows = rowsForCursor();
+    @SuppressWarnings("unchecked") final Iterator<List<Object>> iterator =
+        (Iterator<List<Object>>) (Iterator) rows.rows().iterator();
+    checkCursor(new ListIteratorCursor(iterator));
+  }
+
+  @Test public void testCreateCursorForColumnarFrame() {
+    final Meta.CursorFactory factory = Meta.CursorFactory.LIST;
+    final Iterable<Object> iterable = Collections.emptyList();
+    final List<Object> rows = new ColumnarRows(ColumnMetaData.Rep.LONG).rows();
+    assertTrue(
+        MetaImpl.createCursor(factory, iterable, new Meta.Frame(0, true, rows))
+            instanceof ColumnarRowsCursor);
+    assertTrue(
+        MetaImpl.createCursor(factory, iterable, Meta.Frame.EMPTY)
+            instanceof ListIteratorCursor);
+    assertTrue(
+        MetaImpl.createCursor(Meta.CursorFactory.ARRAY, iterable,
+            new Meta.Frame(0, true, rows)) instanceof ArrayIteratorCursor);
+  }
+
+  private static ColumnarRows rowsForCursor() {
+    final ColumnarRows rows = new ColumnarRows(ColumnMetaData.Rep.LONG,
+        ColumnMetaData.Rep.FLOAT, ColumnMetaData.Rep.INTEGER);
+    rows.addRows(2);
+    rows.setLong(0, 0, 1L << 40);
+    rows.setDouble(0, 1, 0.25f);
+    rows.setNull(0, 2);
+    rows.setNull(1, 0);
+    rows.setDouble(1, 1, -1.5f);
+    rows.setLong(1, 2, 7);
+    return rows;
+  }
+
+  private static void checkCursor(Cursor cursor) throws SQLException {
+    final List<Cursor.Accessor> accessors = cursor.createAccessors(
+        Arrays.asList(MetaImpl.columnMetaData("L", 0, Long.class, true),
+            MetaImpl.columnMetaData("F", 1, Float.class, true),
+            MetaImpl.columnMetaData("I", 2, Integer.class, true)),
+        DateTimeUtils.calendar(), null);
+
+    assertTrue(cursor.next());
+    assertEquals(1L << 40, accessors.get(0).getLong());
+    assertFalse(accessors.get(0).wasNull());
+    assertEquals(0.25f, accessors.get(1).getFloat(), 0);
+    assertEquals(0.25d, accessors.get(1).getDouble(), 0);
+    assertEquals(0, accessors.get(2).getInt());
+    assertTrue(accessors.get(2).wasNull());
+    assertNull(accessors.get(2).getObject());
+
+    assertTrue(cursor.next());
+    assertEquals(0L, accessors.get(0).getLong());
+    assertTrue(accessors.get(0).wasNull());
+    assertNull(accessors.get(0).getBigDecimal());
+    assertEquals(-1, accessors.get(1).getLong());
+    assertEquals(7, accessors.get(2).getInt());
+    assertEquals(7d, accessors.get(2).getDouble(), 0);
+    assertEquals(7, accessors.get(2).getObject());
+    assertFalse(cursor.next());
+  }
+}
+
+// End ColumnarRowsTest.java
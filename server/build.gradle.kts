@@ -28,8 +28,15 @@ dependencies {
     api("org.eclipse.jetty:jetty-server")
     api("org.eclipse.jetty:jetty-util")
 
+    implementation("org.eclipse.jetty.http2:http2-server")
+    implementation("org.eclipse.jetty:jetty-alpn-server")
     implementation("org.slf4j:slf4j-api")
+    // Caffeine is used without its Guava adapter, which would require a recent Guava
+    implementation("com.github.ben-manes.caffeine:caffeine")
     implementation("com.google.guava:guava")
+    // ALPN, to negotiate HTTP/2 over TLS, on Java 9+ and on Java 8u252+ respectively
+    runtimeOnly("org.eclipse.jetty:jetty-alpn-java-server")
+    runtimeOnly("org.eclipse.jetty:jetty-alpn-openjdk8-server")
 
     testImplementation("com.github.stephenc.jcip:jcip-annotations")
     testImplementation("junit:junit")
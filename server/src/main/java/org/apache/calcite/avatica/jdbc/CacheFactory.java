@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.jdbc;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the caches in which {@link JdbcMeta} holds its connections and
+ * statements.
+ *
+ * <p>The implementation is named by
+ * {@link JdbcMeta.CacheFactorySettings#FACTORY} and must have a public
+ * no-argument constructor. The types it deals in are Avatica's own, so that
+ * an implementation is not tied to any particular caching library.
+ *
+ * @see CaffeineCacheFactory
+ * @see GuavaCacheFactory
+ */
+public interface CacheFactory {
+
+  /**
+   * Creates a cache that records statistics.
+   *
+   * @param spec How to size and expire the cache
+   * @param removalListener Called for each entry removed from the cache, on
+   *     {@link Spec#removalExecutor}
+   * @param <K> Key type
+   * @param <V> Value type
+   * @return A cache
+   */
+  <K, V> Cache<K, V> createCache(Spec spec, RemovalListener<K, V> removalListener);
+
+  /**
+   * A cache, as created by {@link #createCache}.
+   *
+   * @param <K> Key type
+   * @param <V> Value type
+   */
+  interface Cache<K, V> {
+    /** Returns the value for a key, or null if there is none. */
+    V getIfPresent(Object key);
+
+    /** Returns the value for a key, calling {@code loader} to create and
+     * cache it if there is none; concurrent calls for the same key wait for a
+     * single load. An exception thrown by the loader is wrapped in an
+     * {@link ExecutionException}, and nothing is cached. */
+    V get(K key, Callable<? extends V> loader) throws ExecutionException;
+
+    void put(K key, V value);
+
+    /** Removes the entry for a key, if any; the removal listener is told of
+     * it with cause {@link RemovalCause#EXPLICIT}. */
+    void invalidate(Object key);
+
+    void invalidateAll();
+
+    /** Returns the approximate number of entries. */
+    long size();
+
+    /** Returns a view of the entries; changes to it write through to the
+     * cache. */
+    ConcurrentMap<K, V> asMap();
+
+    /** Returns the number of lookups that found an entry. */
+    long hitCount();
+
+    /** Returns the number of lookups that found no entry. */
+    long missCount();
+
+    /** Performs any pending maintenance, such as expiry. */
+    void cleanUp();
+  }
+
+  /**
+   * Called when an entry is removed from a {@link Cache}.
+   *
+   * @param <K> Key type
+   * @param <V> Value type
+   */
+  interface RemovalListener<K, V> {
+    void onRemoval(K key, V value, RemovalCause cause);
+  }
+
+  /** Why an entry was removed from a {@link Cache}. */
+  enum RemovalCause {
+    /** Removed by the user. */
+    EXPLICIT,
+    /** Its value was replaced by the user. */
+    REPLACED,
+    /** Its key or value was garbage-collected. */
+    COLLECTED,
+    /** It expired. */
+    EXPIRED,
+    /** It was evicted because the cache was full. */
+    SIZE
+  }
+
+  /** How to size and expire a cache. */
+  class Spec {
+    /** Estimated number of threads that update the cache concurrently; a
+     * hint that implementations may ignore. */
+    public final int concurrencyLevel;
+    public final int initialCapacity;
+    public final long maximumSize;
+    /** Time after its last access, or after it was written if
+     * {@link #expireAfterWrite}, at which an entry expires. */
+    public final long expiryDuration;
+    public final TimeUnit expiryUnit;
+    /** Whether entries expire after they are written, however often they
+     * are read, rather than after their last access. */
+    public final boolean expireAfterWrite;
+    /** Runs removal listeners, so that releasing the resources of removed
+     * entries need not hold up the thread that removed them. */
+    public final Executor removalExecutor;
+
+    public Spec(int concurrencyLevel, int initialCapacity, long maximumSize,
+        long expiryDuration, TimeUnit expiryUnit, Executor removalExecutor) {
+      this(concurrencyLevel, initialCapacity, maximumSize, expiryDuration,
+          expiryUnit, false, removalExecutor);
+    }
+
+    public Spec(int concurrencyLevel, int initialCapacity, long maximumSize,
+        long expiryDuration, TimeUnit expiryUnit, boolean expireAfterWrite,
+        Executor removalExecutor) {
+      this.concurrencyLevel = concurrencyLevel;
+      this.initialCapacity = initialCapacity;
+      this.maximumSize = maximumSize;
+      this.expiryDuration = expiryDuration;
+      this.expiryUnit = Objects.requireNonNull(expiryUnit);
+      this.expireAfterWrite = expireAfterWrite;
+      this.removalExecutor = Objects.requireNonNull(removalExecutor);
+    }
+  }
+}
+
+// End CacheFactory.java
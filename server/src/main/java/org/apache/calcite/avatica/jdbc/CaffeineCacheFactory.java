@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.jdbc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * {@link CacheFactory} that creates Caffeine caches, which read without
+ * locking and evict by W-TinyLFU. This is the default.
+ *
+ * <p>Caffeine is used directly rather than through its Guava adapter, so it
+ * works with every supported version of Guava. The concurrency level is
+ * ignored.
+ */
+public class CaffeineCacheFactory implements CacheFactory {
+  @Override public <K, V> CacheFactory.Cache<K, V> createCache(Spec spec,
+      final CacheFactory.RemovalListener<K, V> removalListener) {
+    final Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .initialCapacity(spec.initialCapacity)
+        .maximumSize(spec.maximumSize);
+    if (spec.expireAfterWrite) {
+      builder.expireAfterWrite(spec.expiryDuration, spec.expiryUnit);
+    } else {
+      builder.expireAfterAccess(spec.expiryDuration, spec.expiryUnit);
+    }
+    final Cache<K, V> cache = builder
+        .executor(spec.removalExecutor)
+        .recordStats()
+        .removalListener(
+            new RemovalListener<K, V>() {
+              @Override public void onRemoval(K key, V value,
+                  com.github.benmanes.caffeine.cache.RemovalCause cause) {
+                removalListener.onRemoval(key, value, RemovalCause.valueOf(cause.name()));
+              }
+            })
+        .build();
+    return new CaffeineCache<>(cache);
+  }
+
+  /** A Caffeine cache as a {@link CacheFactory.Cache}.
+   *
+   * @param <K> Key type
+   * @param <V> Value type */
+  private static class CaffeineCache<K, V> implements CacheFactory.Cache<K, V> {
+    private final Cache<K, V> cache;
+
+    CaffeineCache(Cache<K, V> cache) {
+      this.cache = cache;
+    }
+
+    @Override public V getIfPresent(Object key) {
+      return cache.getIfPresent(key);
+    }
+
+    @Override public V get(K key, final Callable<? extends V> loader)
+        throws ExecutionException {
+      try {
+        return cache.get(key,
+            new Function<K, V>() {
+              @Override public V apply(K k) {
+                try {
+                  return loader.call();
+                } catch (Exception e) {
+                  throw new LoaderException(e);
+                }
+              }
+            });
+      } catch (LoaderException e) {
+        throw new ExecutionException(e.getCause());
+      }
+    }
+
+    @Override public void put(K key, V value) {
+      cache.put(key, value);
+    }
+
+    @Override public void invalidate(Object key) {
+      cache.invalidate(key);
+    }
+
+    @Override public void invalidateAll() {
+      cache.invalidateAll();
+    }
+
+    @Override public long size() {
+      return cache.estimatedSize();
+    }
+
+    @Override public ConcurrentMap<K, V> asMap() {
+      return cache.asMap();
+    }
+
+    @Override public long hitCount() {
+      return cache.stats().hitCount();
+    }
+
+    @Override public long missCount() {
+      return cache.stats().missCount();
+    }
+
+    @Override public void cleanUp() {
+      cache.cleanUp();
+    }
+  }
+
+  /** Carries an exception thrown by a loader out of
+   * {@link Cache#get(Object, Function)}, which cannot throw checked
+   * exceptions. */
+  private static class LoaderException extends RuntimeException {
+    LoaderException(Exception cause) {
+      super(cause);
+    }
+  }
+}
+
+// End CaffeineCacheFactory.java
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.jdbc;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalListeners;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@link CacheFactory} that creates Guava caches, which lock a segment of
+ * the cache for each write. Works with every supported version of Guava.
+ */
+public class GuavaCacheFactory implements CacheFactory {
+  @Override public <K, V> CacheFactory.Cache<K, V> createCache(Spec spec,
+      final CacheFactory.RemovalListener<K, V> removalListener) {
+    final RemovalListener<K, V> listener = new RemovalListener<K, V>() {
+      @Override public void onRemoval(RemovalNotification<K, V> notification) {
+        removalListener.onRemoval(notification.getKey(), notification.getValue(),
+            RemovalCause.valueOf(notification.getCause().name()));
+      }
+    };
+    final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+        .concurrencyLevel(spec.concurrencyLevel)
+        .initialCapacity(spec.initialCapacity)
+        .maximumSize(spec.maximumSize)
+        .recordStats();
+    if (spec.expireAfterWrite) {
+      builder.expireAfterWrite(spec.expiryDuration, spec.expiryUnit);
+    } else {
+      builder.expireAfterAccess(spec.expiryDuration, spec.expiryUnit);
+    }
+    final Cache<K, V> cache = builder
+        .removalListener(RemovalListeners.asynchronous(listener, spec.removalExecutor))
+        .build();
+    return new GuavaCache<>(cache);
+  }
+
+  /** A Guava cache as a {@link CacheFactory.Cache}.
+   *
+   * @param <K> Key type
+   * @param <V> Value type */
+  private static class GuavaCache<K, V> implements CacheFactory.Cache<K, V> {
+    private final Cache<K, V> cache;
+
+    GuavaCache(Cache<K, V> cache) {
+      this.cache = cache;
+    }
+
+    @Override public V getIfPresent(Object key) {
+      return cache.getIfPresent(key);
+    }
+
+    @Override public V get(K key, Callable<? extends V> loader)
+        throws ExecutionException {
+      try {
+        return cache.get(key, loader);
+      } catch (UncheckedExecutionException e) {
+        throw new ExecutionException(e.getCause());
+      }
+    }
+
+    @Override public void put(K key, V value) {
+      cache.put(key, value);
+    }
+
+    @Override public void invalidate(Object key) {
+      cache.invalidate(key);
+    }
+
+    @Override public void invalidateAll() {
+      cache.invalidateAll();
+    }
+
+    @Override public long size() {
+      return cache.size();
+    }
+
+    @Override public ConcurrentMap<K, V> asMap() {
+      return cache.asMap();
+    }
+
+    @Override public long hitCount() {
+      return cache.stats().hitCount();
+    }
+
+    @Override public long missCount() {
+      return cache.stats().missCount();
+    }
+
+    @Override public void cleanUp() {
+      cache.cleanUp();
+    }
+  }
+}
+
+// End GuavaCacheFactory.java
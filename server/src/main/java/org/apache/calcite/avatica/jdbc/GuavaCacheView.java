@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.jdbc;
+
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.CacheStats;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A {@link CacheFactory.Cache} seen through Guava's
+ * {@link com.google.common.cache.Cache} interface, which is how
+ * {@link JdbcMeta} has always exposed its caches to subclasses and tests.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+class GuavaCacheView<K, V> extends AbstractCache<K, V> {
+  private final CacheFactory.Cache<K, V> cache;
+
+  GuavaCacheView(CacheFactory.Cache<K, V> cache) {
+    this.cache = cache;
+  }
+
+  @Override public V getIfPresent(Object key) {
+    return cache.getIfPresent(key);
+  }
+
+  @Override public V get(K key, Callable<? extends V> loader)
+      throws ExecutionException {
+    return cache.get(key, loader);
+  }
+
+  @Override public void put(K key, V value) {
+    cache.put(key, value);
+  }
+
+  @Override public void invalidate(Object key) {
+    cache.invalidate(key);
+  }
+
+  @Override public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  @Override public long size() {
+    return cache.size();
+  }
+
+  @Override public ConcurrentMap<K, V> asMap() {
+    return cache.asMap();
+  }
+
+  @Override public CacheStats stats() {
+    return new CacheStats(cache.hitCount(), cache.missCount(), 0, 0, 0, 0);
+  }
+
+  @Override public void cleanUp() {
+    cache.cleanUp();
+  }
+}
+
+// End GuavaCacheView.java
@@ -28,7 +28,10 @@
 import org.apache.calcite.avatica.NoSuchStatementException;
 import org.apache.calcite.avatica.QueryState;
 import org.apache.calcite.avatica.SqlType;
+import org.apache.calcite.avatica.jdbc.CacheFactory.RemovalCause;
+import org.apache.calcite.avatica.metrics.Counter;
 import org.apache.calcite.avatica.metrics.Gauge;
+import org.apache.calcite.avatica.metrics.Histogram;
 import org.apache.calcite.avatica.metrics.MetricsSystem;
 import org.apache.calcite.avatica.metrics.noop.NoopMetricsSystem;
 import org.apache.calcite.avatica.proto.Common;
@@ -39,9 +42,7 @@
 
 import com.google.common.base.Optional;
 import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalListener;
-import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,26 +60,57 @@
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.apache.calcite.avatica.remote.MetricsHelper.concat;
 
 /** Implementation of {@link Meta} upon an existing JDBC data source. */
-public class JdbcMeta implements ProtobufMeta {
+public class JdbcMeta implements ProtobufMeta, AutoCloseable {
   private static final Logger LOG = LoggerFactory.getLogger(JdbcMeta.class);
 
   private static final String CONN_CACHE_KEY_BASE = "avatica.connectioncache";
 
   private static final String STMT_CACHE_KEY_BASE = "avatica.statementcache";
 
+  private static final String PREFETCH_KEY_BASE = "avatica.prefetch";
+
+  private static final String METADATA_CACHE_KEY_BASE = "avatica.metadatacache";
+
+  private static final String CACHE_FACTORY_KEY_BASE = "avatica.cachefactory";
+
+  /** Number of removed connections and statements that may wait to be
+   * closed by the removal threads. */
+  private static final int REMOVAL_QUEUE_SIZE = 1000;
+
+  /** Number of statements whose ages the LongestLivedStatements gauge
+   * reports. */
+  private static final int LONGEST_LIVED_STATEMENTS = 10;
+
   /** Special value for {@code Statement#getLargeMaxRows()} that means fetch
    * an unlimited number of rows in a single batch.
    *
@@ -94,11 +126,37 @@ public class JdbcMeta implements ProtobufMeta {
    * created by this JdbcMeta. */
   private final AtomicInteger statementIdGenerator = new AtomicInteger();
 
+  /** Number of statements that hold an open result set. */
+  private final AtomicLong openResultSets = new AtomicLong();
+
   private final String url;
   private final Properties info;
   private final Cache<String, Connection> connectionCache;
   private final Cache<Integer, StatementInfo> statementCache;
   private final MetricsSystem metrics;
+  /** Runs the removal listeners of the caches; null if they run on the thread
+   * that removed the entry. */
+  private final ExecutorService removalExecutor;
+  /** Reads the next frame of each result set ahead of the client; null if
+   * prefetching is disabled. */
+  private final ExecutorService prefetchExecutor;
+  /** Serializes the work on each connection with the prefetches of its
+   * statements, by connection id; null if prefetching is disabled. */
+  private final ConcurrentMap<String, Lock> connectionLocks;
+  /** Metadata results, read in full and shared by all connections; null if
+   * metadata caching is disabled. */
+  private final Cache<List<Object>, MetaResultSet> metadataCache;
+  /** Maximum number of idle prepared statements pooled per connection; zero
+   * if pooling is disabled. */
+  private final int preparedStatementPoolSize;
+  private final ConcurrentMap<String, PreparedStatementPool> preparedStatementPools =
+      new ConcurrentHashMap<>();
+  /** When each open connection was opened, as {@link System#nanoTime()}. */
+  private final ConcurrentMap<String, Long> connectionOpenTimes = new ConcurrentHashMap<>();
+  private final Map<RemovalCause, Counter> connectionRemovals;
+  private final Map<RemovalCause, Counter> statementRemovals;
+  private final Histogram connectionLifetimes;
+  private final Histogram statementLifetimes;
 
   /**
    * Creates a JdbcMeta.
@@ -147,6 +205,43 @@ public JdbcMeta(String url, Properties info, MetricsSystem metrics)
     this.url = url;
     this.info = info;
     this.metrics = Objects.requireNonNull(metrics);
+    this.connectionRemovals = removalCounters("ConnectionCacheRemovals");
+    this.statementRemovals = removalCounters("StatementCacheRemovals");
+    this.connectionLifetimes =
+        metrics.getHistogram(concat(JdbcMeta.class, "ConnectionLifetimes"));
+    this.statementLifetimes =
+        metrics.getHistogram(concat(JdbcMeta.class, "StatementLifetimes"));
+
+    final CacheFactory cacheFactory = AvaticaUtils.instantiatePlugin(CacheFactory.class,
+        info.getProperty(CacheFactorySettings.FACTORY.key(),
+            CacheFactorySettings.FACTORY.defaultValue()));
+    final Executor listenerExecutor;
+    if (Boolean.parseBoolean(
+        info.getProperty(CacheFactorySettings.ASYNC_REMOVAL.key(),
+            CacheFactorySettings.ASYNC_REMOVAL.defaultValue()))) {
+      final int threads = Integer.parseInt(
+          info.getProperty(CacheFactorySettings.REMOVAL_THREADS.key(),
+              CacheFactorySettings.REMOVAL_THREADS.defaultValue()));
+      // When the queue is full, the thread that removed the entry closes it
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+          60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(REMOVAL_QUEUE_SIZE),
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("avatica-cache-removal-%d")
+              .build(),
+          new ThreadPoolExecutor.CallerRunsPolicy());
+      executor.allowCoreThreadTimeOut(true);
+      this.removalExecutor = executor;
+      listenerExecutor = executor;
+    } else {
+      this.removalExecutor = null;
+      // MoreExecutors.directExecutor() needs Guava 18
+      listenerExecutor = new Executor() {
+        public void execute(Runnable command) {
+          command.run();
+        }
+      };
+    }
 
     int concurrencyLevel = Integer.parseInt(
         info.getProperty(ConnectionCacheSettings.CONCURRENCY_LEVEL.key(),
@@ -163,13 +258,11 @@ public JdbcMeta(String url, Properties info, MetricsSystem metrics)
     TimeUnit connectionExpiryUnit = TimeUnit.valueOf(
         info.getProperty(ConnectionCacheSettings.EXPIRY_UNIT.key(),
             ConnectionCacheSettings.EXPIRY_UNIT.defaultValue()));
-    this.connectionCache = CacheBuilder.newBuilder()
-        .concurrencyLevel(concurrencyLevel)
-        .initialCapacity(initialCapacity)
-        .maximumSize(maxCapacity)
-        .expireAfterAccess(connectionExpiryDuration, connectionExpiryUnit)
-        .removalListener(new ConnectionExpiryHandler())
-        .build();
+    this.connectionCache = new GuavaCacheView<>(
+        cacheFactory.createCache(
+            new CacheFactory.Spec(concurrencyLevel, initialCapacity, maxCapacity,
+                connectionExpiryDuration, connectionExpiryUnit, listenerExecutor),
+            new ConnectionExpiryHandler()));
     LOG.debug("instantiated connection cache: {}", connectionCache.stats());
 
     concurrencyLevel = Integer.parseInt(
@@ -187,16 +280,69 @@ public JdbcMeta(String url, Properties info, MetricsSystem metrics)
     connectionExpiryUnit = TimeUnit.valueOf(
         info.getProperty(StatementCacheSettings.EXPIRY_UNIT.key(),
             StatementCacheSettings.EXPIRY_UNIT.defaultValue()));
-    this.statementCache = CacheBuilder.newBuilder()
-        .concurrencyLevel(concurrencyLevel)
-        .initialCapacity(initialCapacity)
-        .maximumSize(maxCapacity)
-        .expireAfterAccess(connectionExpiryDuration, connectionExpiryUnit)
-        .removalListener(new StatementExpiryHandler())
-        .build();
+    this.statementCache = new GuavaCacheView<>(
+        cacheFactory.createCache(
+            new CacheFactory.Spec(concurrencyLevel, initialCapacity, maxCapacity,
+                connectionExpiryDuration, connectionExpiryUnit, listenerExecutor),
+            new StatementExpiryHandler()));
 
     LOG.debug("instantiated statement cache: {}", statementCache.stats());
 
+    this.preparedStatementPoolSize = Integer.parseInt(
+        info.getProperty(StatementCacheSettings.POOL_SIZE.key(),
+            StatementCacheSettings.POOL_SIZE.defaultValue()));
+
+    if (Boolean.parseBoolean(
+        info.getProperty(PrefetchSettings.ENABLED.key(),
+            PrefetchSettings.ENABLED.defaultValue()))) {
+      int threads = Integer.parseInt(
+          info.getProperty(PrefetchSettings.THREADS.key(),
+              PrefetchSettings.THREADS.defaultValue()));
+      this.prefetchExecutor = Executors.newFixedThreadPool(threads,
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("avatica-prefetch-%d")
+              .build());
+      this.connectionLocks = new ConcurrentHashMap<>();
+      LOG.debug("instantiated prefetcher with {} threads", threads);
+    } else {
+      this.prefetchExecutor = null;
+      this.connectionLocks = null;
+    }
+
+    maxCapacity = Long.parseLong(
+        info.getProperty(MetadataCacheSettings.MAX_CAPACITY.key(),
+            MetadataCacheSettings.MAX_CAPACITY.defaultValue()));
+    if (maxCapacity > 0) {
+      long metadataExpiryDuration = Long.parseLong(
+          info.getProperty(MetadataCacheSettings.EXPIRY_DURATION.key(),
+              MetadataCacheSettings.EXPIRY_DURATION.defaultValue()));
+      TimeUnit metadataExpiryUnit = TimeUnit.valueOf(
+          info.getProperty(MetadataCacheSettings.EXPIRY_UNIT.key(),
+              MetadataCacheSettings.EXPIRY_UNIT.defaultValue()));
+      // Results expire after they are read from the database, however often
+      // they are served, so that they are not stale for long
+      this.metadataCache = new GuavaCacheView<>(
+          cacheFactory.createCache(
+              new CacheFactory.Spec(concurrencyLevel,
+                  (int) Math.min(initialCapacity, maxCapacity), maxCapacity,
+                  metadataExpiryDuration, metadataExpiryUnit, true, listenerExecutor),
+              new CacheFactory.RemovalListener<List<Object>, MetaResultSet>() {
+                @Override public void onRemoval(List<Object> key, MetaResultSet value,
+                    RemovalCause cause) {
+                  // Cached results hold no statement, so there is nothing to close
+                }
+              }));
+      LOG.debug("instantiated metadata cache: {}", metadataCache.stats());
+      this.metrics.register(concat(JdbcMeta.class, "MetadataCacheSize"), new Gauge<Long>() {
+        @Override public Long getValue() {
+          return metadataCache.size();
+        }
+      });
+    } else {
+      this.metadataCache = null;
+    }
+
     // Register some metrics
     this.metrics.register(concat(JdbcMeta.class, "ConnectionCacheSize"), new Gauge<Long>() {
       @Override public Long getValue() {
@@ -209,6 +355,131 @@ public JdbcMeta(String url, Properties info, MetricsSystem metrics)
         return statementCache.size();
       }
     });
+
+    this.metrics.register(concat(JdbcMeta.class, "ConnectionCacheHitRate"),
+        new Gauge<Double>() {
+          @Override public Double getValue() {
+            return connectionCache.stats().hitRate();
+          }
+        });
+
+    this.metrics.register(concat(JdbcMeta.class, "StatementCacheHitRate"),
+        new Gauge<Double>() {
+          @Override public Double getValue() {
+            return statementCache.stats().hitRate();
+          }
+        });
+
+    this.metrics.register(concat(JdbcMeta.class, "OpenResultSets"), new Gauge<Long>() {
+      @Override public Long getValue() {
+        return countOpenResultSets();
+      }
+    });
+
+    this.metrics.register(concat(JdbcMeta.class, "OldestStatementAge"), new Gauge<Long>() {
+      @Override public Long getValue() {
+        return oldestStatementAgeMillis();
+      }
+    });
+
+    this.metrics.register(concat(JdbcMeta.class, "LongestLivedStatements"),
+        new Gauge<Map<String, Long>>() {
+          @Override public Map<String, Long> getValue() {
+            return longestLivedStatements(LONGEST_LIVED_STATEMENTS);
+          }
+        });
+  }
+
+  /**
+   * Closes all connections and statements, and stops the threads that this
+   * JdbcMeta started. It must not be used afterwards.
+   */
+  @Override public void close() {
+    statementCache.invalidateAll();
+    connectionCache.invalidateAll();
+    if (removalExecutor != null) {
+      // Lets the removal listeners already queued close their entries
+      removalExecutor.shutdown();
+    }
+    if (prefetchExecutor != null) {
+      // Queued prefetches still run, as closing their statements waits for them
+      prefetchExecutor.shutdown();
+    }
+  }
+
+  /** Creates a counter of the entries removed from a cache for each cause. */
+  private Map<RemovalCause, Counter> removalCounters(String name) {
+    final Map<RemovalCause, Counter> counters = new EnumMap<>(RemovalCause.class);
+    for (RemovalCause cause : RemovalCause.values()) {
+      counters.put(cause, metrics.getCounter(concat(JdbcMeta.class, name + "." + cause.name())));
+    }
+    return counters;
+  }
+
+  /** Returns the number of statements that hold an open result set. */
+  long countOpenResultSets() {
+    return openResultSets.get();
+  }
+
+  /**
+   * Returns how long the oldest statement has been open, in milliseconds, or
+   * 0 if there are no statements.
+   */
+  long oldestStatementAgeMillis() {
+    final long now = System.nanoTime();
+    long oldest = now;
+    for (StatementInfo info : statementCache.asMap().values()) {
+      if (info.getCreationNanos() - oldest < 0) {
+        oldest = info.getCreationNanos();
+      }
+    }
+    return TimeUnit.NANOSECONDS.toMillis(now - oldest);
+  }
+
+  /**
+   * Returns the ages, in milliseconds, of the statements that have been open
+   * longest, oldest first, keyed by connection id and statement id separated
+   * by "/".
+   *
+   * @param limit Maximum number of statements to return
+   */
+  Map<String, Long> longestLivedStatements(int limit) {
+    // The youngest of the oldest statements seen so far is at the head
+    final PriorityQueue<Map.Entry<Integer, StatementInfo>> oldest =
+        new PriorityQueue<>(limit + 1,
+            new Comparator<Map.Entry<Integer, StatementInfo>>() {
+              public int compare(Map.Entry<Integer, StatementInfo> e1,
+                  Map.Entry<Integer, StatementInfo> e2) {
+                return Long.signum(
+                    e2.getValue().getCreationNanos() - e1.getValue().getCreationNanos());
+              }
+            });
+    for (Map.Entry<Integer, StatementInfo> entry : statementCache.asMap().entrySet()) {
+      oldest.add(entry);
+      if (oldest.size() > limit) {
+        oldest.poll();
+      }
+    }
+    final List<Map.Entry<Integer, StatementInfo>> entries = new ArrayList<>(oldest.size());
+    while (!oldest.isEmpty()) {
+      entries.add(oldest.poll());
+    }
+    Collections.reverse(entries);
+    final long now = System.nanoTime();
+    final Map<String, Long> ages = new LinkedHashMap<>();
+    for (Map.Entry<Integer, StatementInfo> entry : entries) {
+      ages.put(entry.getValue().getConnectionId() + "/" + entry.getKey(),
+          TimeUnit.NANOSECONDS.toMillis(now - entry.getValue().getCreationNanos()));
+    }
+    return ages;
+  }
+
+  /** Creates a StatementInfo that counts towards {@link #countOpenResultSets()}
+   * and is reported by {@link #longestLivedStatements(int)}. */
+  private StatementInfo counted(String connectionId, StatementInfo info) {
+    info.setOpenResultSetCounter(openResultSets);
+    info.setConnectionId(connectionId);
+    return info;
   }
 
   // For testing purposes
@@ -226,6 +497,11 @@ protected Cache<Integer, StatementInfo> getStatementCache() {
     return statementCache;
   }
 
+  // For testing purposes
+  protected Cache<List<Object>, MetaResultSet> getMetadataCache() {
+    return metadataCache;
+  }
+
   /**
    * Converts from JDBC metadata to Avatica columns.
    */
@@ -296,13 +572,18 @@ protected static Signature signature(ResultSetMetaData metaData)
 
   public Map<DatabaseProperty, Object> getDatabaseProperties(ConnectionHandle ch) {
     try {
-      final Map<DatabaseProperty, Object> map = new HashMap<>();
-      final Connection conn = getConnection(ch.id);
-      final DatabaseMetaData metaData = conn.getMetaData();
-      for (DatabaseProperty p : DatabaseProperty.values()) {
-        addProperty(map, metaData, p);
+      final Lock lock = lockConnection(ch.id);
+      try {
+        final Map<DatabaseProperty, Object> map = new HashMap<>();
+        final Connection conn = getConnection(ch.id);
+        final DatabaseMetaData metaData = conn.getMetaData();
+        for (DatabaseProperty p : DatabaseProperty.values()) {
+          addProperty(map, metaData, p);
+        }
+        return map;
+      } finally {
+        unlock(lock);
       }
-      return map;
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -324,51 +605,120 @@ private static Object addProperty(Map<DatabaseProperty, Object> map,
     return map.put(p, propertyValue);
   }
 
-  public MetaResultSet getTables(ConnectionHandle ch, String catalog, Pat schemaPattern,
-      Pat tableNamePattern, List<String> typeList) {
+  public MetaResultSet getTables(ConnectionHandle ch, final String catalog,
+      final Pat schemaPattern, final Pat tableNamePattern, final List<String> typeList) {
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getTables(catalog, schemaPattern.s,
-              tableNamePattern.s, toArray(typeList));
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      return metadata(ch, new MetadataCall() {
+        public ResultSet call(DatabaseMetaData metaData) throws SQLException {
+          return metaData.getTables(catalog, schemaPattern.s, tableNamePattern.s,
+              toArray(typeList));
+        }
+      }, "getTables", catalog, schemaPattern.s, tableNamePattern.s, typeList);
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
   }
 
+  /** Reads a metadata result set. */
+  private interface MetadataCall {
+    ResultSet call(DatabaseMetaData metaData) throws SQLException;
+  }
+
+  /**
+   * Returns the result of a metadata call. If metadata caching is enabled,
+   * returns a result from {@link #metadataCache} if there is one for the same
+   * user and arguments, and otherwise reads the result in full and caches it;
+   * cached results have no {@link StatementInfo}.
+   */
+  private MetaResultSet metadata(ConnectionHandle ch, final MetadataCall call,
+      Object... args) throws SQLException {
+    final Lock lock = lockConnection(ch.id);
+    try {
+      final Connection conn = getConnection(ch.id);
+      final DatabaseMetaData metaData = conn.getMetaData();
+      if (metadataCache == null) {
+        final ResultSet rs = call.call(metaData);
+        int stmtId = registerMetaStatement(ch.id, rs);
+        return JdbcResultSet.create(ch.id, stmtId, rs);
+      }
+      final List<Object> key = new ArrayList<>(args.length + 3);
+      // Users may be allowed to see different objects, and null arguments may
+      // mean the connection's current catalog or schema
+      key.add(metaData.getUserName());
+      key.add(conn.getCatalog());
+      key.add(conn.getSchema());
+      Collections.addAll(key, args);
+      final MetaResultSet cached;
+      try {
+        // Concurrent requests for the same result wait for a single read
+        cached = metadataCache.get(key, new Callable<MetaResultSet>() {
+          public MetaResultSet call() throws SQLException {
+            final ResultSet rs = call.call(metaData);
+            final Statement statement = rs.getStatement();
+            try {
+              return JdbcResultSet.create(null, -1, rs);
+            } finally {
+              rs.close();
+              if (statement != null) {
+                statement.close();
+              }
+            }
+          }
+        });
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof SQLException) {
+          throw (SQLException) e.getCause();
+        }
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw new RuntimeException(e.getCause());
+      }
+      return MetaResultSet.create(ch.id, statementIdGenerator.getAndIncrement(), true,
+          cached.signature, cached.firstFrame);
+    } finally {
+      unlock(lock);
+    }
+  }
+
   /**
     * Registers a StatementInfo for the given ResultSet, returning the id under
     * which it is registered. This should be used for metadata ResultSets, which
     * have an implicit statement created.
     */
-  private int registerMetaStatement(ResultSet rs) throws SQLException {
+  private int registerMetaStatement(String connectionId, ResultSet rs) throws SQLException {
     final int id = statementIdGenerator.getAndIncrement();
-    StatementInfo statementInfo = new StatementInfo(rs.getStatement());
+    StatementInfo statementInfo = counted(connectionId, new StatementInfo(rs.getStatement()));
     statementInfo.setResultSet(rs);
     statementCache.put(id, statementInfo);
     return id;
   }
 
-  public MetaResultSet getColumns(ConnectionHandle ch, String catalog, Pat schemaPattern,
-      Pat tableNamePattern, Pat columnNamePattern) {
+  public MetaResultSet getColumns(ConnectionHandle ch, final String catalog,
+      final Pat schemaPattern, final Pat tableNamePattern, final Pat columnNamePattern) {
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getColumns(catalog, schemaPattern.s,
-              tableNamePattern.s, columnNamePattern.s);
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      return metadata(ch, new MetadataCall() {
+        public ResultSet call(DatabaseMetaData metaData) throws SQLException {
+          return metaData.getColumns(catalog, schemaPattern.s, tableNamePattern.s,
+              columnNamePattern.s);
+        }
+      }, "getColumns", catalog, schemaPattern.s, tableNamePattern.s, columnNamePattern.s);
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
   }
 
-  public MetaResultSet getSchemas(ConnectionHandle ch, String catalog, Pat schemaPattern) {
+  public MetaResultSet getSchemas(ConnectionHandle ch, final String catalog,
+      final Pat schemaPattern) {
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getSchemas(catalog, schemaPattern.s);
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      return metadata(ch, new MetadataCall() {
+        public ResultSet call(DatabaseMetaData metaData) throws SQLException {
+          return metaData.getSchemas(catalog, schemaPattern.s);
+        }
+      }, "getSchemas", catalog, schemaPattern.s);
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -376,9 +726,11 @@ public MetaResultSet getSchemas(ConnectionHandle ch, String catalog, Pat schemaP
 
   public MetaResultSet getCatalogs(ConnectionHandle ch) {
     try {
-      final ResultSet rs = getConnection(ch.id).getMetaData().getCatalogs();
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      return metadata(ch, new MetadataCall() {
+        public ResultSet call(DatabaseMetaData metaData) throws SQLException {
+          return metaData.getCatalogs();
+        }
+      }, "getCatalogs");
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -386,9 +738,11 @@ public MetaResultSet getCatalogs(ConnectionHandle ch) {
 
   public MetaResultSet getTableTypes(ConnectionHandle ch) {
     try {
-      final ResultSet rs = getConnection(ch.id).getMetaData().getTableTypes();
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      return metadata(ch, new MetadataCall() {
+        public ResultSet call(DatabaseMetaData metaData) throws SQLException {
+          return metaData.getTableTypes();
+        }
+      }, "getTableTypes");
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -397,11 +751,16 @@ public MetaResultSet getTableTypes(ConnectionHandle ch) {
   public MetaResultSet getProcedures(ConnectionHandle ch, String catalog, Pat schemaPattern,
       Pat procedureNamePattern) {
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getProcedures(catalog, schemaPattern.s,
-              procedureNamePattern.s);
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      final Lock lock = lockConnection(ch.id);
+      try {
+        final ResultSet rs =
+            getConnection(ch.id).getMetaData().getProcedures(catalog, schemaPattern.s,
+                procedureNamePattern.s);
+        int stmtId = registerMetaStatement(ch.id, rs);
+        return JdbcResultSet.create(ch.id, stmtId, rs);
+      } finally {
+        unlock(lock);
+      }
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -410,11 +769,16 @@ public MetaResultSet getProcedures(ConnectionHandle ch, String catalog, Pat sche
   public MetaResultSet getProcedureColumns(ConnectionHandle ch, String catalog, Pat schemaPattern,
       Pat procedureNamePattern, Pat columnNamePattern) {
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getProcedureColumns(catalog,
-              schemaPattern.s, procedureNamePattern.s, columnNamePattern.s);
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      final Lock lock = lockConnection(ch.id);
+      try {
+        final ResultSet rs =
+            getConnection(ch.id).getMetaData().getProcedureColumns(catalog,
+                schemaPattern.s, procedureNamePattern.s, columnNamePattern.s);
+        int stmtId = registerMetaStatement(ch.id, rs);
+        return JdbcResultSet.create(ch.id, stmtId, rs);
+      } finally {
+        unlock(lock);
+      }
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -423,11 +787,16 @@ public MetaResultSet getProcedureColumns(ConnectionHandle ch, String catalog, Pa
   public MetaResultSet getColumnPrivileges(ConnectionHandle ch, String catalog, String schema,
       String table, Pat columnNamePattern) {
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getColumnPrivileges(catalog, schema,
-              table, columnNamePattern.s);
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      final Lock lock = lockConnection(ch.id);
+      try {
+        final ResultSet rs =
+            getConnection(ch.id).getMetaData().getColumnPrivileges(catalog, schema,
+                table, columnNamePattern.s);
+        int stmtId = registerMetaStatement(ch.id, rs);
+        return JdbcResultSet.create(ch.id, stmtId, rs);
+      } finally {
+        unlock(lock);
+      }
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -436,11 +805,16 @@ public MetaResultSet getColumnPrivileges(ConnectionHandle ch, String catalog, St
   public MetaResultSet getTablePrivileges(ConnectionHandle ch, String catalog, Pat schemaPattern,
       Pat tableNamePattern) {
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getTablePrivileges(catalog,
-              schemaPattern.s, tableNamePattern.s);
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      final Lock lock = lockConnection(ch.id);
+      try {
+        final ResultSet rs =
+            getConnection(ch.id).getMetaData().getTablePrivileges(catalog,
+                schemaPattern.s, tableNamePattern.s);
+        int stmtId = registerMetaStatement(ch.id, rs);
+        return JdbcResultSet.create(ch.id, stmtId, rs);
+      } finally {
+        unlock(lock);
+      }
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -451,11 +825,16 @@ public MetaResultSet getBestRowIdentifier(ConnectionHandle ch, String catalog, S
     LOG.trace("getBestRowIdentifier catalog:{} schema:{} table:{} scope:{} nullable:{}", catalog,
         schema, table, scope, nullable);
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getBestRowIdentifier(catalog, schema,
-              table, scope, nullable);
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      final Lock lock = lockConnection(ch.id);
+      try {
+        final ResultSet rs =
+            getConnection(ch.id).getMetaData().getBestRowIdentifier(catalog, schema,
+                table, scope, nullable);
+        int stmtId = registerMetaStatement(ch.id, rs);
+        return JdbcResultSet.create(ch.id, stmtId, rs);
+      } finally {
+        unlock(lock);
+      }
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -465,23 +844,29 @@ public MetaResultSet getVersionColumns(ConnectionHandle ch, String catalog, Stri
       String table) {
     LOG.trace("getVersionColumns catalog:{} schema:{} table:{}", catalog, schema, table);
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getVersionColumns(catalog, schema, table);
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      final Lock lock = lockConnection(ch.id);
+      try {
+        final ResultSet rs =
+            getConnection(ch.id).getMetaData().getVersionColumns(catalog, schema, table);
+        int stmtId = registerMetaStatement(ch.id, rs);
+        return JdbcResultSet.create(ch.id, stmtId, rs);
+      } finally {
+        unlock(lock);
+      }
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
   }
 
-  public MetaResultSet getPrimaryKeys(ConnectionHandle ch, String catalog, String schema,
-      String table) {
+  public MetaResultSet getPrimaryKeys(ConnectionHandle ch, final String catalog,
+      final String schema, final String table) {
     LOG.trace("getPrimaryKeys catalog:{} schema:{} table:{}", catalog, schema, table);
     try {
-      final ResultSet rs =
-          getConnection(ch.id).getMetaData().getPrimaryKeys(catalog, schema, table);
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      return metadata(ch, new MetadataCall() {
+        public ResultSet call(DatabaseMetaData metaData) throws SQLException {
+          return metaData.getPrimaryKeys(catalog, schema, table);
+        }
+      }, "getPrimaryKeys", catalog, schema, table);
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -505,9 +890,11 @@ public MetaResultSet getCrossReference(ConnectionHandle ch, String parentCatalog
 
   public MetaResultSet getTypeInfo(ConnectionHandle ch) {
     try {
-      final ResultSet rs = getConnection(ch.id).getMetaData().getTypeInfo();
-      int stmtId = registerMetaStatement(rs);
-      return JdbcResultSet.create(ch.id, stmtId, rs);
+      return metadata(ch, new MetadataCall() {
+        public ResultSet call(DatabaseMetaData metaData) throws SQLException {
+          return metaData.getTypeInfo();
+        }
+      }, "getTypeInfo");
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -557,6 +944,27 @@ public MetaResultSet getPseudoColumns(ConnectionHandle ch, String catalog, Pat s
     return null;
   }
 
+  /** Discards the cached metadata results of the database user of a
+   * connection. Results are shared by all connections of the same user, and
+   * those of other users are left in the cache. */
+  @Override public void invalidateMetadataCache(ConnectionHandle ch) {
+    if (metadataCache == null) {
+      return;
+    }
+    final String userName;
+    try {
+      userName = getConnection(ch.id).getMetaData().getUserName();
+    } catch (SQLException e) {
+      throw propagate(e);
+    }
+    // Keys start with the user name; see metadata
+    for (List<Object> key : metadataCache.asMap().keySet()) {
+      if (Objects.equals(userName, key.get(0))) {
+        metadataCache.invalidate(key);
+      }
+    }
+  }
+
   public Iterable<Object> createIterable(StatementHandle handle, QueryState state,
       Signature signature, List<TypedValue> parameterValues, Frame firstFrame) {
     return null;
@@ -576,13 +984,18 @@ protected Connection getConnection(String id) throws SQLException {
 
   public StatementHandle createStatement(ConnectionHandle ch) {
     try {
-      final Connection conn = getConnection(ch.id);
-      final Statement statement = conn.createStatement();
-      final int id = statementIdGenerator.getAndIncrement();
-      statementCache.put(id, new StatementInfo(statement));
-      StatementHandle h = new StatementHandle(ch.id, id, null);
-      LOG.trace("created statement {}", h);
-      return h;
+      final Lock lock = lockConnection(ch.id);
+      try {
+        final Connection conn = getConnection(ch.id);
+        final Statement statement = conn.createStatement();
+        final int id = statementIdGenerator.getAndIncrement();
+        statementCache.put(id, counted(ch.id, new StatementInfo(statement)));
+        StatementHandle h = new StatementHandle(ch.id, id, null);
+        LOG.trace("created statement {}", h);
+        return h;
+      } finally {
+        unlock(lock);
+      }
     } catch (SQLException e) {
       throw propagate(e);
     }
@@ -595,16 +1008,19 @@ public StatementHandle createStatement(ConnectionHandle ch) {
       return;
     }
     LOG.trace("closing statement {}", h);
+    final Lock lock = lockConnection(h.connectionId);
     try {
+      info.discardPrefetchedFrame();
       ResultSet results = info.getResultSet();
       if (info.isResultSetInitialized() && null != results) {
         results.close();
       }
-      info.statement.close();
+      info.closeStatement();
     } catch (SQLException e) {
       throw propagate(e);
     } finally {
       statementCache.invalidate(h.id);
+      unlock(lock);
     }
   }
 
@@ -629,11 +1045,37 @@ public StatementHandle createStatement(ConnectionHandle ch) {
         conn.close();
         throw new RuntimeException("Connection already exists: " + ch.id);
       }
+      connectionOpenTimes.put(ch.id, System.nanoTime());
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
   }
 
+  /** Returns the pool of prepared statements of a connection, or null if
+   * pooling is disabled. */
+  private PreparedStatementPool preparedStatementPool(String connectionId) {
+    if (preparedStatementPoolSize <= 0) {
+      return null;
+    }
+    PreparedStatementPool pool = preparedStatementPools.get(connectionId);
+    if (pool == null) {
+      final PreparedStatementPool newPool =
+          new PreparedStatementPool(preparedStatementPoolSize);
+      pool = preparedStatementPools.putIfAbsent(connectionId, newPool);
+      if (pool == null) {
+        pool = newPool;
+      }
+    }
+    return pool;
+  }
+
+  private void closePreparedStatementPool(String connectionId) {
+    final PreparedStatementPool pool = preparedStatementPools.remove(connectionId);
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
   // Visible for testing
   protected Connection createConnection(String url, Properties info) throws SQLException {
     // Allows simpler testing of openConnection
@@ -647,12 +1089,15 @@ protected Connection createConnection(String url, Properties info) throws SQLExc
       return;
     }
     LOG.trace("closing connection {}", ch);
+    final Lock lock = lockConnection(ch.id);
     try {
+      closePreparedStatementPool(ch.id);
       conn.close();
     } catch (SQLException e) {
       throw propagate(e);
     } finally {
       connectionCache.invalidate(ch.id);
+      unlock(lock);
     }
   }
 
@@ -679,13 +1124,18 @@ protected void apply(Connection conn, ConnectionProperties connProps)
       ConnectionProperties connProps) {
     LOG.trace("syncing properties for connection {}", ch);
     try {
-      Connection conn = getConnection(ch.id);
-      ConnectionPropertiesImpl props = new ConnectionPropertiesImpl(conn).merge(connProps);
-      if (props.isDirty()) {
-        apply(conn, props);
-        props.setDirty(false);
+      final Lock lock = lockConnection(ch.id);
+      try {
+        Connection conn = getConnection(ch.id);
+        ConnectionPropertiesImpl props = new ConnectionPropertiesImpl(conn).merge(connProps);
+        if (props.isDirty()) {
+          apply(conn, props);
+          props.setDirty(false);
+        }
+        return props;
+      } finally {
+        unlock(lock);
       }
-      return props;
     } catch (SQLException e) {
       throw propagate(e);
     }
@@ -704,24 +1154,39 @@ RuntimeException propagate(Throwable e) {
   public StatementHandle prepare(ConnectionHandle ch, String sql,
       long maxRowCount) {
     try {
-      final Connection conn = getConnection(ch.id);
-      final PreparedStatement statement = conn.prepareStatement(sql);
-      final int id = getStatementIdGenerator().getAndIncrement();
-      Meta.StatementType statementType = null;
-      if (statement.isWrapperFor(AvaticaPreparedStatement.class)) {
-        final AvaticaPreparedStatement avaticaPreparedStatement;
-        avaticaPreparedStatement =
-            statement.unwrap(AvaticaPreparedStatement.class);
-        statementType = avaticaPreparedStatement.getStatementType();
+      final Lock lock = lockConnection(ch.id);
+      try {
+        final Connection conn = getConnection(ch.id);
+        final PreparedStatementPool pool = preparedStatementPool(ch.id);
+        PreparedStatementPool.Entry pooled = pool == null ? null : pool.take(sql);
+        if (pooled == null) {
+          final PreparedStatement statement = conn.prepareStatement(sql);
+          Meta.StatementType statementType = null;
+          if (statement.isWrapperFor(AvaticaPreparedStatement.class)) {
+            final AvaticaPreparedStatement avaticaPreparedStatement;
+            avaticaPreparedStatement =
+                statement.unwrap(AvaticaPreparedStatement.class);
+            statementType = avaticaPreparedStatement.getStatementType();
+          }
+          pooled = new PreparedStatementPool.Entry(sql, statement,
+              signature(statement.getMetaData(), statement.getParameterMetaData(),
+                  sql, statementType));
+        } else {
+          LOG.trace("reusing pooled statement for {}", sql);
+        }
+        final int id = getStatementIdGenerator().getAndIncrement();
+        // Set the maximum number of rows
+        setMaxRows(pooled.statement, maxRowCount);
+        getStatementCache().put(id,
+            counted(ch.id, pool == null
+                ? new StatementInfo(pooled.statement)
+                : new StatementInfo(pool, pooled)));
+        StatementHandle h = new StatementHandle(ch.id, id, pooled.signature);
+        LOG.trace("prepared statement {}", h);
+        return h;
+      } finally {
+        unlock(lock);
       }
-      // Set the maximum number of rows
-      setMaxRows(statement, maxRowCount);
-      getStatementCache().put(id, new StatementInfo(statement));
-      StatementHandle h = new StatementHandle(ch.id, id,
-          signature(statement.getMetaData(), statement.getParameterMetaData(),
-              sql, statementType));
-      LOG.trace("prepared statement {}", h);
-      return h;
     } catch (SQLException e) {
       throw propagate(e);
     }
@@ -741,23 +1206,32 @@ public ExecuteResult prepareAndExecute(StatementHandle h, String sql, long maxRo
       if (info == null) {
         throw new NoSuchStatementException(h);
       }
-      final Statement statement = info.statement;
-      // Make sure that we limit the number of rows for the query
-      setMaxRows(statement, maxRowCount);
-      boolean ret = statement.execute(sql);
-      info.setResultSet(statement.getResultSet());
-      // Either execute(sql) returned true or the resultSet was null
-      assert ret || null == info.getResultSet();
       final List<MetaResultSet> resultSets = new ArrayList<>();
-      if (null == info.getResultSet()) {
-        // Create a special result set that just carries update count
-        resultSets.add(
-            JdbcResultSet.count(h.connectionId, h.id,
-                AvaticaUtils.getLargeUpdateCount(statement)));
-      } else {
-        resultSets.add(
-            JdbcResultSet.create(h.connectionId, h.id, info.getResultSet(), maxRowsInFirstFrame));
+      final Lock lock = lockConnection(h.connectionId);
+      try {
+        final Statement statement = info.statement;
+        // Wait for any read of the previous results before the statement is touched
+        info.discardPrefetchedFrame();
+        // Make sure that we limit the number of rows for the query
+        setMaxRows(statement, maxRowCount);
+        boolean ret = statement.execute(sql);
+        info.setResultSet(statement.getResultSet());
+        // Either execute(sql) returned true or the resultSet was null
+        assert ret || null == info.getResultSet();
+        if (null == info.getResultSet()) {
+          // Create a special result set that just carries update count
+          resultSets.add(
+              JdbcResultSet.count(h.connectionId, h.id,
+                  AvaticaUtils.getLargeUpdateCount(statement)));
+        } else {
+          resultSets.add(
+              JdbcResultSet.create(h.connectionId, h.id, info.getResultSet(),
+                  maxRowsInFirstFrame));
+        }
+      } finally {
+        unlock(lock);
       }
+      prefetchAfterFirstFrame(h.connectionId, info, resultSets.get(0));
       LOG.trace("prepAndExec statement {}", h);
       // TODO: review client to ensure statementId is updated when appropriate
       return new ExecuteResult(resultSets);
@@ -789,17 +1263,24 @@ public boolean syncResults(StatementHandle sh, QueryState state, long offset)
       if (null == info) {
         throw new NoSuchStatementException(sh);
       }
-      final Statement statement = info.statement;
-      // Let the state recreate the necessary ResultSet on the Statement
-      info.setResultSet(state.invoke(conn, statement));
+      final Lock lock = lockConnection(sh.connectionId);
+      try {
+        final Statement statement = info.statement;
+        // Wait for any read of the previous results before the statement is touched
+        info.discardPrefetchedFrame();
+        // Let the state recreate the necessary ResultSet on the Statement
+        info.setResultSet(state.invoke(conn, statement));
+
+        if (null != info.getResultSet()) {
+          // If it is non-null, try to advance to the requested offset.
+          return info.advanceResultSetToOffset(info.getResultSet(), offset);
+        }
 
-      if (null != info.getResultSet()) {
-        // If it is non-null, try to advance to the requested offset.
-        return info.advanceResultSetToOffset(info.getResultSet(), offset);
+        // No results, nothing to do. Client can move on.
+        return false;
+      } finally {
+        unlock(lock);
       }
-
-      // No results, nothing to do. Client can move on.
-      return false;
     } catch (SQLException e) {
       throw propagate(e);
     }
@@ -821,15 +1302,177 @@ public Frame fetch(StatementHandle h, long offset, int fetchMaxRowCount) throws
       }
       if (statementInfo.getResultSet() == null) {
         return Frame.EMPTY;
-      } else {
+      } else if (prefetchExecutor == null) {
         return JdbcResultSet.frame(statementInfo, statementInfo.getResultSet(), offset,
             fetchMaxRowCount, calendar, Optional.<Meta.Signature>absent());
       }
+      final Frame frame;
+      final Lock lock = lockConnection(h.connectionId);
+      try {
+        frame = prefetchedFrame(statementInfo, offset, fetchMaxRowCount);
+      } finally {
+        unlock(lock);
+      }
+      // Rows left over from a prefetched frame larger than the request are
+      // the next frame already
+      if (!frame.done && !statementInfo.hasPrefetchedFrame()) {
+        prefetch(h.connectionId, statementInfo, offset + rowCount(frame),
+            fetchMaxRowCount);
+      }
+      return frame;
     } catch (SQLException e) {
       throw propagate(e);
     }
   }
 
+  /**
+   * Builds the frame at {@code offset}, starting with any rows that were read
+   * ahead of the request and reading the remainder from the result set.
+   */
+  private Frame prefetchedFrame(StatementInfo statementInfo, long offset,
+      int fetchMaxRowCount) throws SQLException {
+    final Frame prefetched = statementInfo.takePrefetchedFrame();
+    if (prefetched == null || prefetched.offset != offset) {
+      if (prefetched != null) {
+        // The client did not ask for the rows that were read ahead, so they
+        // are dropped, as they would be by any other read
+        LOG.debug("discarding prefetched offset {} for requested offset {}",
+            prefetched.offset, offset);
+        if (prefetched.done) {
+          // The result set was read to the end and closed
+          return new Frame(offset, true, Collections.emptyList());
+        }
+      }
+      return JdbcResultSet.frame(statementInfo, statementInfo.getResultSet(), offset,
+          fetchMaxRowCount, calendar, Optional.<Meta.Signature>absent());
+    }
+    final int count = rowCount(prefetched);
+    if (fetchMaxRowCount <= 0
+        || count == fetchMaxRowCount
+        || prefetched.done && count < fetchMaxRowCount) {
+      // The usual case, served as read
+      return new Frame(offset, prefetched.done, prefetched.rows);
+    }
+    final List<Object> rows = new ArrayList<>(count);
+    for (Object row : prefetched.rows) {
+      rows.add(row);
+    }
+    if (rows.size() > fetchMaxRowCount) {
+      // The client asked for fewer rows than were read; keep the rest for the
+      // next request.
+      final List<Object> rest =
+          new ArrayList<>(rows.subList(fetchMaxRowCount, rows.size()));
+      statementInfo.setPrefetchedFrame(
+          CompletableFuture.completedFuture(
+              new Frame(offset + fetchMaxRowCount, prefetched.done, rest)));
+      return new Frame(offset, false,
+          new ArrayList<>(rows.subList(0, fetchMaxRowCount)));
+    }
+    // The client asked for more rows than were read; read the remainder now.
+    final Frame remainder = JdbcResultSet.frame(statementInfo,
+        statementInfo.getResultSet(), offset + rows.size(),
+        fetchMaxRowCount - rows.size(), calendar,
+        Optional.<Meta.Signature>absent());
+    for (Object row : remainder.rows) {
+      rows.add(row);
+    }
+    return new Frame(offset, remainder.done, rows);
+  }
+
+  /**
+   * Starts reading the frame after the first frame of a result set on the
+   * prefetch pool, if there are more rows.
+   */
+  private void prefetchAfterFirstFrame(String connectionId,
+      StatementInfo statementInfo, MetaResultSet resultSet) {
+    final Frame firstFrame = resultSet.firstFrame;
+    if (prefetchExecutor == null || firstFrame == null || firstFrame.done
+        || statementInfo.getResultSet() == null) {
+      return;
+    }
+    final int count = rowCount(firstFrame);
+    if (count > 0) {
+      // Clients usually ask for frames as large as the first
+      prefetch(connectionId, statementInfo, firstFrame.offset + count, count);
+    }
+  }
+
+  /** Starts reading the frame at {@code offset} on the prefetch pool. */
+  private void prefetch(final String connectionId, final StatementInfo statementInfo,
+      final long offset, final int fetchMaxRowCount) {
+    final ResultSet resultSet = statementInfo.getResultSet();
+    statementInfo.setPrefetchedFrame(
+        prefetchExecutor.submit(new Callable<Frame>() {
+          @Override public Frame call() throws SQLException {
+            // Requests wait for prefetched frames while they hold the
+            // connection, so a prefetch must not wait for a request. If the
+            // connection is busy, the rows are read when they are asked for.
+            final Lock lock = connectionLock(connectionId);
+            if (!lock.tryLock()) {
+              return null;
+            }
+            try {
+              // Calendar is not thread-safe, so the worker uses its own
+              return JdbcResultSet.frame(statementInfo, resultSet, offset,
+                  fetchMaxRowCount, Unsafe.localCalendar(),
+                  Optional.<Meta.Signature>absent());
+            } finally {
+              lock.unlock();
+            }
+          }
+        }));
+  }
+
+  /**
+   * Returns the lock that serializes work on a connection with the prefetches
+   * of its statements; a {@link Connection} need not be safe for use by more
+   * than one thread.
+   */
+  // Visible for testing
+  Lock connectionLock(String connectionId) {
+    Lock lock = connectionLocks.get(connectionId);
+    if (lock == null) {
+      final Lock newLock = new ReentrantLock();
+      lock = connectionLocks.putIfAbsent(connectionId, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
+  /**
+   * Acquires the lock of a connection, waiting for any prefetch that is
+   * reading from one of its result sets. Release it with {@link #unlock}.
+   *
+   * @return The lock, or null if prefetching is disabled
+   */
+  private Lock lockConnection(String connectionId) {
+    if (connectionLocks == null) {
+      return null;
+    }
+    final Lock lock = connectionLock(connectionId);
+    lock.lock();
+    return lock;
+  }
+
+  private static void unlock(Lock lock) {
+    if (lock != null) {
+      lock.unlock();
+    }
+  }
+
+  private static int rowCount(Frame frame) {
+    if (frame.rows instanceof Collection) {
+      return ((Collection<Object>) frame.rows).size();
+    }
+    int count = 0;
+    for (Object ignored : frame.rows) {
+      ++count;
+    }
+    return count;
+  }
+
   private static String[] toArray(List<String> typeList) {
     if (typeList == null) {
       return null;
@@ -852,46 +1495,74 @@ private static String[] toArray(List<String> typeList) {
 
       final StatementInfo statementInfo = getStatementCache().getIfPresent(h.id);
       if (null == statementInfo) {
+        if (h.id < 0 && h.signature != null && h.signature.sql != null) {
+          // A client that knew the signature deferred preparing the statement
+          // until now; the results carry the id of the statement prepared here
+          final StatementHandle prepared =
+              prepare(new ConnectionHandle(h.connectionId), h.signature.sql, -1);
+          boolean executed = false;
+          try {
+            final ExecuteResult result =
+                execute(prepared, parameterValues, maxRowsInFirstFrame);
+            executed = true;
+            return result;
+          } finally {
+            if (!executed) {
+              // The client never learns the id, so nobody else would close it
+              closeStatement(prepared);
+            }
+          }
+        }
         throw new NoSuchStatementException(h);
       }
       final List<MetaResultSet> resultSets;
-      final PreparedStatement preparedStatement =
-          (PreparedStatement) statementInfo.statement;
-
-      if (parameterValues != null) {
-        for (int i = 0; i < parameterValues.size(); i++) {
-          TypedValue o = parameterValues.get(i);
-          preparedStatement.setObject(i + 1, o.toJdbc(calendar));
+      final Lock lock = lockConnection(h.connectionId);
+      try {
+        final PreparedStatement preparedStatement =
+            (PreparedStatement) statementInfo.statement;
+        // Wait for any read of the previous results before the statement is touched
+        statementInfo.discardPrefetchedFrame();
+
+        if (parameterValues != null) {
+          for (int i = 0; i < parameterValues.size(); i++) {
+            TypedValue o = parameterValues.get(i);
+            preparedStatement.setObject(i + 1, o.toJdbc(calendar));
+          }
         }
-      }
 
-      if (preparedStatement.execute()) {
-        final Signature signature2;
-        if (preparedStatement.isWrapperFor(AvaticaPreparedStatement.class)) {
-          signature2 = h.signature;
-        } else {
-          h.signature = signature(preparedStatement.getMetaData(),
-              preparedStatement.getParameterMetaData(), h.signature.sql,
-              Meta.StatementType.SELECT);
-          signature2 = h.signature;
-        }
+        if (preparedStatement.execute()) {
+          final Signature signature2;
+          if (preparedStatement.isWrapperFor(AvaticaPreparedStatement.class)) {
+            signature2 = h.signature;
+          } else {
+            h.signature = signature(preparedStatement.getMetaData(),
+                preparedStatement.getParameterMetaData(), h.signature.sql,
+                Meta.StatementType.SELECT);
+            signature2 = h.signature;
+          }
 
-        // Make sure we set this for subsequent fetch()'s to find the result set.
-        statementInfo.setResultSet(preparedStatement.getResultSet());
+          // Make sure we set this for subsequent fetch()'s to find the result set.
+          statementInfo.setResultSet(preparedStatement.getResultSet());
 
-        if (statementInfo.getResultSet() == null) {
-          resultSets = Collections.<MetaResultSet>singletonList(
-              JdbcResultSet.empty(h.connectionId, h.id, signature2));
+          if (statementInfo.getResultSet() == null) {
+            resultSets = Collections.<MetaResultSet>singletonList(
+                JdbcResultSet.empty(h.connectionId, h.id, signature2));
+          } else {
+            resultSets = Collections.<MetaResultSet>singletonList(
+                JdbcResultSet.create(h.connectionId, h.id, statementInfo.getResultSet(),
+                    maxRowsInFirstFrame, signature2));
+          }
         } else {
+          // The previous results, if any, are gone; fetch must not serve them
+          statementInfo.setResultSet(null);
           resultSets = Collections.<MetaResultSet>singletonList(
-              JdbcResultSet.create(h.connectionId, h.id, statementInfo.getResultSet(),
-                  maxRowsInFirstFrame, signature2));
+              JdbcResultSet.count(h.connectionId, h.id, preparedStatement.getUpdateCount()));
         }
-      } else {
-        resultSets = Collections.<MetaResultSet>singletonList(
-            JdbcResultSet.count(h.connectionId, h.id, preparedStatement.getUpdateCount()));
-      }
 
+      } finally {
+        unlock(lock);
+      }
+      prefetchAfterFirstFrame(h.connectionId, statementInfo, resultSets.get(0));
       return new ExecuteResult(resultSets);
     } catch (SQLException e) {
       throw propagate(e);
@@ -899,20 +1570,26 @@ private static String[] toArray(List<String> typeList) {
   }
 
   @Override public void commit(ConnectionHandle ch) {
+    final Lock lock = lockConnection(ch.id);
     try {
       final Connection conn = getConnection(ch.id);
       conn.commit();
     } catch (SQLException e) {
       throw propagate(e);
+    } finally {
+      unlock(lock);
     }
   }
 
   @Override public void rollback(ConnectionHandle ch) {
+    final Lock lock = lockConnection(ch.id);
     try {
       final Connection conn = getConnection(ch.id);
       conn.rollback();
     } catch (SQLException e) {
       throw propagate(e);
+    } finally {
+      unlock(lock);
     }
   }
 
@@ -925,14 +1602,22 @@ private static String[] toArray(List<String> typeList) {
         throw new NoSuchStatementException(h);
       }
 
-      // addBatch() for each sql command
-      final Statement stmt = info.statement;
-      for (String sqlCommand : sqlCommands) {
-        stmt.addBatch(sqlCommand);
-      }
+      final Lock lock = lockConnection(h.connectionId);
+      try {
+        // Wait for any read of the previous results before the statement is touched
+        info.discardPrefetchedFrame();
+
+        // addBatch() for each sql command
+        final Statement stmt = info.statement;
+        for (String sqlCommand : sqlCommands) {
+          stmt.addBatch(sqlCommand);
+        }
 
-      // Execute the batch and return the results
-      return new ExecuteBatchResult(AvaticaUtils.executeLargeBatch(stmt));
+        // Execute the batch and return the results
+        return new ExecuteBatchResult(AvaticaUtils.executeLargeBatch(stmt));
+      } finally {
+        unlock(lock);
+      }
     } catch (SQLException e) {
       throw propagate(e);
     }
@@ -946,25 +1631,33 @@ private static String[] toArray(List<String> typeList) {
         throw new NoSuchStatementException(h);
       }
 
-      final PreparedStatement preparedStmt = (PreparedStatement) info.statement;
-      int rowUpdate = 1;
-      for (List<TypedValue> batch : updateBatches) {
-        int i = 1;
-        for (TypedValue value : batch) {
-          // Set the TypedValue in the PreparedStatement
-          try {
-            preparedStmt.setObject(i, value.toJdbc(calendar));
-            i++;
-          } catch (SQLException e) {
-            throw new RuntimeException("Failed to set value on row #" + rowUpdate
-                + " and column #" + i, e);
+      final Lock lock = lockConnection(h.connectionId);
+      try {
+        // Wait for any read of the previous results before the statement is touched
+        info.discardPrefetchedFrame();
+
+        final PreparedStatement preparedStmt = (PreparedStatement) info.statement;
+        int rowUpdate = 1;
+        for (List<TypedValue> batch : updateBatches) {
+          int i = 1;
+          for (TypedValue value : batch) {
+            // Set the TypedValue in the PreparedStatement
+            try {
+              preparedStmt.setObject(i, value.toJdbc(calendar));
+              i++;
+            } catch (SQLException e) {
+              throw new RuntimeException("Failed to set value on row #" + rowUpdate
+                  + " and column #" + i, e);
+            }
+            // Track the update number for better error messages
+            rowUpdate++;
           }
-          // Track the update number for better error messages
-          rowUpdate++;
+          preparedStmt.addBatch();
         }
-        preparedStmt.addBatch();
+        return new ExecuteBatchResult(AvaticaUtils.executeLargeBatch(preparedStmt));
+      } finally {
+        unlock(lock);
       }
-      return new ExecuteBatchResult(AvaticaUtils.executeLargeBatch(preparedStmt));
     } catch (SQLException e) {
       throw propagate(e);
     }
@@ -978,16 +1671,24 @@ private static String[] toArray(List<String> typeList) {
         throw new NoSuchStatementException(h);
       }
 
-      final PreparedStatement preparedStmt = (PreparedStatement) info.statement;
-      for (Requests.UpdateBatch update : updateBatches) {
-        int i = 1;
-        for (Common.TypedValue value : update.getParameterValuesList()) {
-          // Use the value and then increment
-          preparedStmt.setObject(i++, TypedValue.protoToJdbc(value, calendar));
+      final Lock lock = lockConnection(h.connectionId);
+      try {
+        // Wait for any read of the previous results before the statement is touched
+        info.discardPrefetchedFrame();
+
+        final PreparedStatement preparedStmt = (PreparedStatement) info.statement;
+        for (Requests.UpdateBatch update : updateBatches) {
+          int i = 1;
+          for (Common.TypedValue value : update.getParameterValuesList()) {
+            // Use the value and then increment
+            preparedStmt.setObject(i++, TypedValue.protoToJdbc(value, calendar));
+          }
+          preparedStmt.addBatch();
         }
-        preparedStmt.addBatch();
+        return new ExecuteBatchResult(AvaticaUtils.executeLargeBatch(preparedStmt));
+      } finally {
+        unlock(lock);
       }
-      return new ExecuteBatchResult(AvaticaUtils.executeLargeBatch(preparedStmt));
     } catch (SQLException e) {
       throw propagate(e);
     }
@@ -1014,7 +1715,14 @@ public enum StatementCacheSettings {
      *
      * <p>Used in conjunction with {@link #EXPIRY_DURATION}.</p>
      */
-    EXPIRY_UNIT(STMT_CACHE_KEY_BASE + ".expiryunit", TimeUnit.MINUTES.name());
+    EXPIRY_UNIT(STMT_CACHE_KEY_BASE + ".expiryunit", TimeUnit.MINUTES.name()),
+
+    /** JDBC connection property for setting the maximum number of idle prepared
+     * statements kept per connection for reuse by later prepares of the same SQL.
+     *
+     * <p>Zero, the default, disables pooling.</p>
+     */
+    POOL_SIZE(STMT_CACHE_KEY_BASE + ".poolsize", "0");
 
     private final String key;
     private final String defaultValue;
@@ -1035,6 +1743,120 @@ public String defaultValue() {
     }
   }
 
+  /** Configurable result set prefetch settings.
+   *
+   * <p>When enabled, after each frame is returned by {@link #fetch} the next
+   * frame of the same size is read from the JDBC result set on a worker pool,
+   * so that the client's following {@code fetch} can be answered without
+   * waiting on the database.</p>
+   */
+  public enum PrefetchSettings {
+    /** JDBC connection property for enabling result set prefetching. */
+    ENABLED(PREFETCH_KEY_BASE + ".enabled", "false"),
+
+    /** JDBC connection property for setting the number of prefetch threads. */
+    THREADS(PREFETCH_KEY_BASE + ".threads", "4");
+
+    private final String key;
+    private final String defaultValue;
+
+    PrefetchSettings(String key, String defaultValue) {
+      this.key = key;
+      this.defaultValue = defaultValue;
+    }
+
+    /** The configuration key for specifying this setting. */
+    public String key() {
+      return key;
+    }
+
+    /** The default value for this setting. */
+    public String defaultValue() {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Configurable metadata cache settings.
+   *
+   * <p>When enabled, the results of metadata calls such as
+   * {@link #getTables} and {@link #getColumns} are read in full and shared
+   * by all connections of the same database user until they expire, so that
+   * repeated calls neither query the database nor hold a statement open.
+   * Disabled by default, because results may be stale after DDL.</p>
+   */
+  public enum MetadataCacheSettings {
+    /** JDBC connection property for setting metadata cache maximum capacity;
+     * zero disables the cache. */
+    MAX_CAPACITY(METADATA_CACHE_KEY_BASE + ".maxcapacity", "0"),
+
+    /** JDBC connection property for setting metadata cache expiration duration. */
+    EXPIRY_DURATION(METADATA_CACHE_KEY_BASE + ".expiryduration", "60"),
+
+    /** JDBC connection property for setting metadata cache expiration unit. */
+    EXPIRY_UNIT(METADATA_CACHE_KEY_BASE + ".expiryunit", TimeUnit.SECONDS.name());
+
+    private final String key;
+    private final String defaultValue;
+
+    MetadataCacheSettings(String key, String defaultValue) {
+      this.key = key;
+      this.defaultValue = defaultValue;
+    }
+
+    /** The configuration key for specifying this setting. */
+    public String key() {
+      return key;
+    }
+
+    /** The default value for this setting. */
+    public String defaultValue() {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Configurable settings for how the connection and statement caches are
+   * created.
+   *
+   * <p>By default the caches are created by {@link CaffeineCacheFactory}, and
+   * connections and statements removed from them by expiry or eviction are
+   * closed on a small pool of threads rather than on the thread handling a
+   * request. Statements and connections closed by the client are still
+   * closed before the response is sent.</p>
+   */
+  public enum CacheFactorySettings {
+    /** JDBC connection property for setting the name of the
+     * {@link CacheFactory} class. */
+    FACTORY(CACHE_FACTORY_KEY_BASE + ".class", CaffeineCacheFactory.class.getName()),
+
+    /** JDBC connection property for whether removal listeners run on a separate
+     * thread pool; if false, they run on the thread that removed the entry. */
+    ASYNC_REMOVAL(CACHE_FACTORY_KEY_BASE + ".asyncremoval", "true"),
+
+    /** JDBC connection property for the number of threads that run removal
+     * listeners, if they run on a separate thread pool. */
+    REMOVAL_THREADS(CACHE_FACTORY_KEY_BASE + ".removalthreads", "2");
+
+    private final String key;
+    private final String defaultValue;
+
+    CacheFactorySettings(String key, String defaultValue) {
+      this.key = key;
+      this.defaultValue = defaultValue;
+    }
+
+    /** The configuration key for specifying this setting. */
+    public String key() {
+      return key;
+    }
+
+    /** The default value for this setting. */
+    public String defaultValue() {
+      return defaultValue;
+    }
+  }
+
   /** Configurable connection cache settings. */
   public enum ConnectionCacheSettings {
     /** JDBC connection property for setting connection cache concurrency level. */
@@ -1073,12 +1895,20 @@ public String defaultValue() {
 
   /** Callback for {@link #connectionCache} member expiration. */
   private class ConnectionExpiryHandler
-      implements RemovalListener<String, Connection> {
-
-    public void onRemoval(RemovalNotification<String, Connection> notification) {
-      String connectionId = notification.getKey();
-      Connection doomed = notification.getValue();
-      LOG.debug("Expiring connection {} because {}", connectionId, notification.getCause());
+      implements CacheFactory.RemovalListener<String, Connection> {
+
+    public void onRemoval(String connectionId, Connection doomed, RemovalCause cause) {
+      LOG.debug("Expiring connection {} because {}", connectionId, cause);
+      connectionRemovals.get(cause).increment();
+      final Long openTime = connectionOpenTimes.remove(connectionId);
+      if (openTime != null) {
+        connectionLifetimes.update(
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openTime));
+      }
+      closePreparedStatementPool(connectionId);
+      if (connectionLocks != null) {
+        connectionLocks.remove(connectionId);
+      }
       try {
         if (doomed != null) {
           doomed.close();
@@ -1091,22 +1921,22 @@ public void onRemoval(RemovalNotification<String, Connection> notification) {
 
   /** Callback for {@link #statementCache} member expiration. */
   private class StatementExpiryHandler
-      implements RemovalListener<Integer, StatementInfo> {
-    public void onRemoval(RemovalNotification<Integer, StatementInfo> notification) {
-      Integer stmtId = notification.getKey();
-      StatementInfo doomed = notification.getValue();
+      implements CacheFactory.RemovalListener<Integer, StatementInfo> {
+    public void onRemoval(Integer stmtId, StatementInfo doomed, RemovalCause cause) {
       if (doomed == null) {
         // log/throw?
         return;
       }
-      LOG.debug("Expiring statement {} because {}", stmtId, notification.getCause());
+      LOG.debug("Expiring statement {} because {}", stmtId, cause);
+      statementRemovals.get(cause).increment();
+      statementLifetimes.update(
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - doomed.getCreationNanos()));
       try {
+        doomed.discardPrefetchedFrame();
         if (doomed.getResultSet() != null) {
           doomed.getResultSet().close();
         }
-        if (doomed.statement != null) {
-          doomed.statement.close();
-        }
+        doomed.closeStatement();
       } catch (Throwable t) {
         LOG.info("Exception thrown while expiring statement {}", stmtId, t);
       }
@@ -23,6 +23,7 @@
 import org.apache.calcite.avatica.ColumnMetaData.AvaticaType;
 import org.apache.calcite.avatica.Meta;
 import org.apache.calcite.avatica.SqlType;
+import org.apache.calcite.avatica.util.ColumnarRows;
 import org.apache.calcite.avatica.util.DateTimeUtils;
 
 import com.google.common.base.Optional;
@@ -137,7 +138,11 @@ static Meta.Frame frame(StatementInfo info, ResultSet resultSet, long offset,
         arrayOffsets.add(i);
       }
     }
-    final List<Object> rows = new ArrayList<>();
+    final ColumnMetaData.Rep[] reps = new ColumnMetaData.Rep[columnCount];
+    for (int i = 0; i < types.length; i++) {
+      reps[i] = rep(types[i]);
+    }
+    final ColumnarRows rows = new ColumnarRows(reps);
     // Meta prepare/prepareAndExecute 0 return 0 row and done
     boolean done = fetchMaxRowCount == 0;
     for (int i = 0; fetchMaxRowCount < 0 || i < fetchMaxRowCount; i++) {
@@ -152,9 +157,9 @@ static Meta.Frame frame(StatementInfo info, ResultSet resultSet, long offset,
         resultSet.close();
         break;
       }
-      Object[] columns = new Object[columnCount];
+      rows.addRow();
       for (int j = 0; j < columnCount; j++) {
-        columns[j] = getValue(resultSet, types[j], j, calendar);
+        setValue(rows, j, resultSet, types[j], j + 1, calendar);
         if (arrayOffsets.contains(j)) {
           // If we have an Array type, our Signature is lacking precision. We can't extract the
           // component type of an Array from metadata, we have to update it as we're serializing
@@ -178,69 +183,139 @@ static Meta.Frame frame(StatementInfo info, ResultSet resultSet, long offset,
           }
         }
       }
-      rows.add(columns);
     }
     return new Meta.Frame(offset, done, rows);
   }
 
-  private static Object getValue(ResultSet resultSet, int type, int j,
-      Calendar calendar) throws SQLException {
+  /** Returns how {@link #setValue} stores values of a JDBC type. */
+  private static ColumnMetaData.Rep rep(int type) {
+    switch (type) {
+    case Types.BIGINT:
+    case Types.TIMESTAMP:
+      return ColumnMetaData.Rep.LONG;
+    case Types.INTEGER:
+    case Types.DATE:
+    case Types.TIME:
+      return ColumnMetaData.Rep.INTEGER;
+    case Types.SMALLINT:
+      return ColumnMetaData.Rep.SHORT;
+    case Types.TINYINT:
+      return ColumnMetaData.Rep.BYTE;
+    case Types.DOUBLE:
+    case Types.FLOAT:
+      return ColumnMetaData.Rep.DOUBLE;
+    case Types.REAL:
+      return ColumnMetaData.Rep.FLOAT;
+    default:
+      return ColumnMetaData.Rep.OBJECT;
+    }
+  }
+
+  /**
+   * Sets a value of the last row of {@code rows} from a column of a result
+   * set, without boxing numeric, date and time values.
+   *
+   * @param rows Rows whose column {@code column} has the rep of {@code type}
+   * @param column Column of {@code rows}
+   * @param resultSet Result set
+   * @param type JDBC type of the value
+   * @param index Column of {@code resultSet}, starting at 1
+   * @param calendar Calendar of dates and times
+   */
+  private static void setValue(ColumnarRows rows, int column, ResultSet resultSet,
+      int type, int index, Calendar calendar) throws SQLException {
     switch (type) {
     case Types.BIGINT:
-      final long aLong = resultSet.getLong(j + 1);
-      return aLong == 0 && resultSet.wasNull() ? null : aLong;
+      setLong(rows, column, resultSet, resultSet.getLong(index));
+      return;
     case Types.INTEGER:
-      final int anInt = resultSet.getInt(j + 1);
-      return anInt == 0 && resultSet.wasNull() ? null : anInt;
+      setLong(rows, column, resultSet, resultSet.getInt(index));
+      return;
     case Types.SMALLINT:
-      final short aShort = resultSet.getShort(j + 1);
-      return aShort == 0 && resultSet.wasNull() ? null : aShort;
+      setLong(rows, column, resultSet, resultSet.getShort(index));
+      return;
     case Types.TINYINT:
-      final byte aByte = resultSet.getByte(j + 1);
-      return aByte == 0 && resultSet.wasNull() ? null : aByte;
+      setLong(rows, column, resultSet, resultSet.getByte(index));
+      return;
     case Types.DOUBLE:
     case Types.FLOAT:
-      final double aDouble = resultSet.getDouble(j + 1);
-      return aDouble == 0D && resultSet.wasNull() ? null : aDouble;
+      setDouble(rows, column, resultSet, resultSet.getDouble(index));
+      return;
     case Types.REAL:
-      final float aFloat = resultSet.getFloat(j + 1);
-      return aFloat == 0D && resultSet.wasNull() ? null : aFloat;
+      setDouble(rows, column, resultSet, resultSet.getFloat(index));
+      return;
     case Types.DATE:
-      final Date aDate = resultSet.getDate(j + 1, calendar);
-      return aDate == null
-          ? null
-          : (int) (aDate.getTime() / DateTimeUtils.MILLIS_PER_DAY);
+      final Date aDate = resultSet.getDate(index, calendar);
+      if (aDate == null) {
+        rows.setNull(column);
+      } else {
+        rows.setLong(column, (int) (aDate.getTime() / DateTimeUtils.MILLIS_PER_DAY));
+      }
+      return;
     case Types.TIME:
-      final Time aTime = resultSet.getTime(j + 1, calendar);
-      return aTime == null
-          ? null
-          : (int) (aTime.getTime() % DateTimeUtils.MILLIS_PER_DAY);
+      final Time aTime = resultSet.getTime(index, calendar);
+      if (aTime == null) {
+        rows.setNull(column);
+      } else {
+        rows.setLong(column, (int) (aTime.getTime() % DateTimeUtils.MILLIS_PER_DAY));
+      }
+      return;
     case Types.TIMESTAMP:
-      final Timestamp aTimestamp = resultSet.getTimestamp(j + 1, calendar);
-      return aTimestamp == null ? null : aTimestamp.getTime();
+      final Timestamp aTimestamp = resultSet.getTimestamp(index, calendar);
+      if (aTimestamp == null) {
+        rows.setNull(column);
+      } else {
+        rows.setLong(column, aTimestamp.getTime());
+      }
+      return;
     case Types.ARRAY:
-      final Array array = resultSet.getArray(j + 1);
+      final Array array = resultSet.getArray(index);
       if (null == array) {
-        return null;
+        rows.setNull(column);
+        return;
       }
       try {
         // Recursively extracts an Array using its ResultSet-representation
-        return extractUsingResultSet(array, calendar);
+        rows.setObject(column, extractUsingResultSet(array, calendar));
       } catch (UnsupportedOperationException | SQLFeatureNotSupportedException e) {
         // Not every database might implement Array.getResultSet(). This call
         // assumes a non-nested array (depends on the db if that's a valid assumption)
-        return extractUsingArray(array, calendar);
+        rows.setObject(column, extractUsingArray(array, calendar));
       }
+      return;
     case Types.STRUCT:
-      Struct struct = resultSet.getObject(j + 1, Struct.class);
+      Struct struct = resultSet.getObject(index, Struct.class);
       Object[] attrs = struct.getAttributes();
       List<Object> list = new ArrayList<>(attrs.length);
       for (Object o : attrs) {
         list.add(o);
       }
-      return list;
+      rows.setObject(column, list);
+      return;
     default:
-      return resultSet.getObject(j + 1);
+      rows.setObject(column, resultSet.getObject(index));
+    }
+  }
+
+  /** Sets an integral value just read from a result set, or null if it was
+   * null. */
+  private static void setLong(ColumnarRows rows, int column, ResultSet resultSet,
+      long value) throws SQLException {
+    if (value == 0 && resultSet.wasNull()) {
+      rows.setNull(column);
+    } else {
+      rows.setLong(column, value);
+    }
+  }
+
+  /** Sets a floating-point value just read from a result set, or null if it
+   * was null. */
+  private static void setDouble(ColumnarRows rows, int column, ResultSet resultSet,
+      double value) throws SQLException {
+    if (value == 0D && resultSet.wasNull()) {
+      rows.setNull(column);
+    } else {
+      rows.setDouble(column, value);
     }
   }
 
@@ -250,12 +325,16 @@ private static Object getValue(ResultSet resultSet, int type, int j,
    */
   static List<?> extractUsingResultSet(Array array, Calendar calendar) throws SQLException {
     ResultSet arrayValues = array.getResultSet();
+    final int baseType = array.getBaseType();
+    final ColumnarRows values = new ColumnarRows(rep(baseType));
     TreeMap<Integer, Object> map = new TreeMap<>();
     while (arrayValues.next()) {
       // column 1 is the index in the array, column 2 is the value.
-      // Recurse on `getValue` to unwrap nested types correctly.
-      // `j` is zero-indexed and incremented for us, thus we have `1` being used twice.
-      map.put(arrayValues.getInt(1), getValue(arrayValues, array.getBaseType(), 1, calendar));
+      // Recurse on `setValue` to unwrap nested types correctly.
+      final int index = arrayValues.getInt(1);
+      values.addRow();
+      setValue(values, 0, arrayValues, baseType, 2, calendar);
+      map.put(index, values.getObject(values.size() - 1, 0));
     }
     // If the result set is not in the same order as the actual Array, TreeMap fixes that.
     // Need to make a concrete list to ensure Jackson serialization.
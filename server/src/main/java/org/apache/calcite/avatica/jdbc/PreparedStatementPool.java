@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.jdbc;
+
+import org.apache.calcite.avatica.Meta;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Idle {@link PreparedStatement}s of one connection, keyed by SQL, so that
+ * preparing the same SQL again can skip the database's parse and plan.
+ *
+ * <p>A pooled statement is owned by at most one {@link StatementInfo} at a
+ * time: it is taken from the pool when a client prepares its SQL, and
+ * released back when the client's statement is closed or expires from the
+ * statement cache. When the pool is full, the least recently released
+ * statement is closed.
+ */
+class PreparedStatementPool {
+  private static final Logger LOG = LoggerFactory.getLogger(PreparedStatementPool.class);
+
+  private final Map<String, Entry> idle;
+  private boolean closed;
+
+  PreparedStatementPool(final int maxSize) {
+    this.idle = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (size() > maxSize) {
+          close(eldest.getValue().statement);
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /** Takes an idle statement for {@code sql}, or returns null if there is
+   * none. */
+  synchronized Entry take(String sql) {
+    return idle.remove(sql);
+  }
+
+  /** Gives a statement back to the pool, or closes it if it cannot be
+   * reused. */
+  void release(Entry entry) {
+    try {
+      // Reset what the previous owner may have set; a row limit would
+      // otherwise survive into the next owner's results
+      entry.statement.setMaxRows(0);
+      entry.statement.clearParameters();
+      entry.statement.clearBatch();
+      entry.statement.clearWarnings();
+    } catch (SQLException e) {
+      LOG.debug("Not pooling statement for {}", entry.sql, e);
+      close(entry.statement);
+      return;
+    }
+    synchronized (this) {
+      // Keep one idle statement per SQL; two are only needed while both are in use
+      if (!closed && !idle.containsKey(entry.sql)) {
+        idle.put(entry.sql, entry);
+        return;
+      }
+    }
+    close(entry.statement);
+  }
+
+  /** Closes all idle statements. Statements released afterwards are closed
+   * too. */
+  void close() {
+    final List<Entry> doomed;
+    synchronized (this) {
+      closed = true;
+      doomed = new ArrayList<>(idle.values());
+      idle.clear();
+    }
+    for (Entry entry : doomed) {
+      close(entry.statement);
+    }
+  }
+
+  /** Returns the number of idle statements. */
+  synchronized int size() {
+    return idle.size();
+  }
+
+  private static void close(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      LOG.debug("Exception thrown while closing pooled statement", e);
+    }
+  }
+
+  /** A pooled statement, and the signature it was prepared with. */
+  static class Entry {
+    final String sql;
+    final PreparedStatement statement;
+    final Meta.Signature signature;
+
+    Entry(String sql, PreparedStatement statement, Meta.Signature signature) {
+      this.sql = sql;
+      this.statement = statement;
+      this.signature = signature;
+    }
+  }
+}
+
+// End PreparedStatementPool.java
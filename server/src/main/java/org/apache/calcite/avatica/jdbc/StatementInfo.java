@@ -16,10 +16,15 @@
  */
 package org.apache.calcite.avatica.jdbc;
 
+import org.apache.calcite.avatica.Meta;
+
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * All we know about a statement. Encapsulates a {@link ResultSet}.
@@ -35,11 +40,96 @@ public class StatementInfo {
   // a null ResultSet (from an update) from the lack of a ResultSet.
   private boolean resultsInitialized = false;
 
+  // Rows read from the ResultSet ahead of the client asking for them. They logically precede
+  // the current position of the ResultSet, so they must be served before reading any further.
+  private Future<Meta.Frame> prefetchedFrame;
+
+  // The pool that the statement is released to when closed, until it has been released; and the
+  // entry it was taken as. Both null if the statement is not pooled.
+  private PreparedStatementPool pool;
+  private PreparedStatementPool.Entry pooledEntry;
+
+  // The number of statements holding an open ResultSet, shared by the statements of a JdbcMeta;
+  // null if not counted. Whether this statement is one of them is tracked by holdsResultSet.
+  private AtomicLong openResultSets;
+  private boolean holdsResultSet;
+
+  // When this object was created, as System.nanoTime()
+  private final long creationNanos = System.nanoTime();
+
+  // The id of the connection that the statement belongs to, to report with its age; null if not
+  // known
+  private volatile String connectionId;
+
   public StatementInfo(Statement statement) {
     // May be null when coming from a DatabaseMetaData call
     this.statement = statement;
   }
 
+  /**
+   * @return When this statement was created, as a {@link System#nanoTime()} value.
+   */
+  long getCreationNanos() {
+    return creationNanos;
+  }
+
+  /**
+   * @return The id of the connection that this statement belongs to, or null if not known.
+   */
+  String getConnectionId() {
+    return connectionId;
+  }
+
+  void setConnectionId(String connectionId) {
+    this.connectionId = connectionId;
+  }
+
+  /**
+   * Creates a StatementInfo for a statement taken from a pool of prepared statements.
+   *
+   * @param pool The pool to release the statement to when it is closed
+   * @param entry The pooled statement
+   */
+  StatementInfo(PreparedStatementPool pool, PreparedStatementPool.Entry entry) {
+    this(entry.statement);
+    this.pool = pool;
+    this.pooledEntry = entry;
+  }
+
+  /**
+   * Counts this statement in {@code counter} while it holds an open {@link ResultSet}, that is
+   * from {@link #setResultSet(ResultSet)} with a non-null result set until the statement is
+   * closed or given a null result set.
+   */
+  synchronized void setOpenResultSetCounter(AtomicLong counter) {
+    this.openResultSets = counter;
+  }
+
+  private synchronized void holdResultSet(boolean holds) {
+    if (openResultSets != null && holds != holdsResultSet) {
+      openResultSets.addAndGet(holds ? 1 : -1);
+    }
+    holdsResultSet = holds;
+  }
+
+  /**
+   * Closes the statement, or releases it to the pool it was taken from. A pooled statement is
+   * released only once, however many times this is called.
+   */
+  void closeStatement() throws SQLException {
+    holdResultSet(false);
+    final PreparedStatementPool releaseTo;
+    synchronized (this) {
+      releaseTo = pool;
+      pool = null;
+    }
+    if (releaseTo != null) {
+      releaseTo.release(pooledEntry);
+    } else if (pooledEntry == null && statement != null) {
+      statement.close();
+    }
+  }
+
   // Visible for testing
   void setPosition(long position) {
     this.position = position;
@@ -56,8 +146,11 @@ long getPosition() {
    * @param resultSet The current ResultSet
    */
   public void setResultSet(ResultSet resultSet) {
+    // Rows read ahead from the previous ResultSet are no longer wanted
+    discardPrefetchedFrame();
     resultsInitialized = true;
     this.resultSet = resultSet;
+    holdResultSet(resultSet != null);
   }
 
   /**
@@ -74,6 +167,67 @@ public boolean isResultSetInitialized() {
     return resultsInitialized;
   }
 
+  /**
+   * Holds the frame being read ahead of the client. The caller must not read from the
+   * {@link ResultSet} until the frame has been taken back by {@link #takePrefetchedFrame()}.
+   *
+   * @param frame The (possibly still running) read of the next frame
+   */
+  synchronized void setPrefetchedFrame(Future<Meta.Frame> frame) {
+    this.prefetchedFrame = frame;
+  }
+
+  /**
+   * @return True if a frame read ahead of the client is held.
+   */
+  synchronized boolean hasPrefetchedFrame() {
+    return prefetchedFrame != null;
+  }
+
+  /**
+   * Waits for and removes the frame read ahead of the client.
+   *
+   * @return The prefetched frame, or null if there is none.
+   * @throws SQLException If reading the prefetched frame failed
+   */
+  Meta.Frame takePrefetchedFrame() throws SQLException {
+    final Future<Meta.Frame> frame;
+    synchronized (this) {
+      frame = prefetchedFrame;
+      prefetchedFrame = null;
+    }
+    if (null == frame) {
+      return null;
+    }
+    try {
+      return frame.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for prefetched rows", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new SQLException(cause);
+    }
+  }
+
+  /**
+   * Waits for and drops any frame read ahead of the client, so that the {@link ResultSet} is
+   * safe to close or replace.
+   */
+  void discardPrefetchedFrame() {
+    try {
+      takePrefetchedFrame();
+    } catch (SQLException | RuntimeException e) {
+      // Nobody is going to see these rows, so nobody needs to see their failure either
+    }
+  }
+
   /**
    * @see ResultSet#next()
    */
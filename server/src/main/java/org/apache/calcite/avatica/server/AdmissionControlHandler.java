@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.server;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Handler that limits the number of requests being handled at once, so that
+ * an overloaded server rejects the excess quickly instead of letting latency
+ * grow without bound.
+ *
+ * <p>A request that arrives when the limit is reached is suspended, in a
+ * bounded queue and for a bounded time, until another request finishes; it
+ * does not hold a thread while it waits. A request that finds the queue full,
+ * or waits too long, is rejected with HTTP/503, which Avatica clients retry.
+ *
+ * <p>If adaptive, the limit starts at the maximum and follows the latency of
+ * handled requests, in the manner of a gradient concurrency limiter: it falls
+ * when recent latency exceeds the long-term average by more than a tolerance,
+ * and otherwise grows by about its square root.
+ */
+class AdmissionControlHandler extends HandlerWrapper {
+  private static final Logger LOG = LoggerFactory.getLogger(AdmissionControlHandler.class);
+
+  /** Ratio of recent to long-term latency above which the limit falls. */
+  private static final double TOLERANCE = 1.5;
+  /** Weight of each latency sample in the long-term average. */
+  private static final double LONG_TERM_WEIGHT = 1d / 600;
+  /** Weight of each new estimate in the limit. */
+  private static final double SMOOTHING = 0.2;
+
+  /** Request attribute holding when a queued request was admitted, as a
+   * {@link System#nanoTime()} value. */
+  private static final String ADMITTED = AdmissionControlHandler.class.getName() + ".admitted";
+
+  /** Outcome of {@link #admit}. */
+  private enum Admission { ADMITTED, QUEUED, REJECTED }
+
+  private final int maxConcurrentRequests;
+  private final int maxQueuedRequests;
+  private final long maxQueueMillis;
+  private final boolean adaptive;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  // Guarded by lock
+  private final Deque<AsyncContext> queue = new ArrayDeque<>();
+  private int inFlight;
+  private double limit;
+  private double longTermLatency;
+
+  AdmissionControlHandler(int maxConcurrentRequests, int maxQueuedRequests,
+      long maxQueueTime, TimeUnit maxQueueTimeUnit, boolean adaptive) {
+    if (maxConcurrentRequests <= 0) {
+      throw new IllegalArgumentException("Maximum concurrent requests must be positive");
+    }
+    if (maxQueuedRequests < 0) {
+      throw new IllegalArgumentException("Maximum queued requests must be non-negative");
+    }
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.maxQueueMillis = maxQueueTimeUnit.toMillis(maxQueueTime);
+    // An async timeout of 0 means none, so a queue time below a millisecond disables the queue
+    this.maxQueuedRequests = maxQueueMillis > 0 ? maxQueuedRequests : 0;
+    this.adaptive = adaptive;
+    this.limit = maxConcurrentRequests;
+  }
+
+  @Override public void handle(String target, Request baseRequest, HttpServletRequest request,
+      HttpServletResponse response) throws IOException, ServletException {
+    final long start;
+    final Object admitted = request.getAttribute(ADMITTED);
+    if (admitted != null) {
+      // A queued request, dispatched again now that it has been admitted
+      request.removeAttribute(ADMITTED);
+      start = (Long) admitted;
+    } else {
+      switch (admit(request, response)) {
+      case ADMITTED:
+        start = System.nanoTime();
+        break;
+      case QUEUED:
+        // Suspended until admitted or timed out; no later handler sees it yet
+        baseRequest.setHandled(true);
+        return;
+      default:
+        LOG.debug("Rejecting request to {}, server is at capacity", target);
+        reject(response);
+        baseRequest.setHandled(true);
+        return;
+      }
+    }
+    boolean async = false;
+    try {
+      super.handle(target, baseRequest, request, response);
+      if (request.isAsyncStarted()) {
+        // The request is still being handled, say on a virtual thread
+        async = true;
+        request.getAsyncContext().addListener(new AsyncListener() {
+          @Override public void onComplete(AsyncEvent event) {
+            release(System.nanoTime() - start, true);
+          }
+
+          @Override public void onTimeout(AsyncEvent event) {
+            // onComplete follows
+          }
+
+          @Override public void onError(AsyncEvent event) {
+            // onComplete follows
+          }
+
+          @Override public void onStartAsync(AsyncEvent event) {
+            // Not restarted
+          }
+        });
+      }
+    } finally {
+      if (!async) {
+        release(System.nanoTime() - start, true);
+      }
+    }
+  }
+
+  private static void reject(HttpServletResponse response) {
+    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.setHeader(HttpHeader.RETRY_AFTER.asString(), "1");
+  }
+
+  /** Admits the request if there is capacity, and otherwise queues or
+   * rejects it. A queued request is suspended, and is dispatched again when
+   * {@link #release(long, boolean)} admits it. */
+  private Admission admit(HttpServletRequest request, final HttpServletResponse response) {
+    lock.lock();
+    try {
+      if (inFlight < currentLimit()) {
+        ++inFlight;
+        return Admission.ADMITTED;
+      }
+      if (queue.size() >= maxQueuedRequests) {
+        return Admission.REJECTED;
+      }
+      final AsyncContext context = request.startAsync();
+      context.setTimeout(maxQueueMillis);
+      context.addListener(new AsyncListener() {
+        @Override public void onTimeout(AsyncEvent event) {
+          if (dequeue(context)) {
+            LOG.debug("Rejecting request, timed out waiting for capacity");
+            reject(response);
+            context.complete();
+          }
+        }
+
+        @Override public void onError(AsyncEvent event) {
+          if (dequeue(context)) {
+            context.complete();
+          }
+        }
+
+        @Override public void onComplete(AsyncEvent event) {
+          // Already dequeued
+        }
+
+        @Override public void onStartAsync(AsyncEvent event) {
+          // Restarted by a later handler once admitted; it no longer concerns the queue
+        }
+      });
+      queue.add(context);
+      return Admission.QUEUED;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Removes a request from the queue; returns whether it was still queued. */
+  private boolean dequeue(AsyncContext context) {
+    lock.lock();
+    try {
+      return queue.remove(context);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Frees a slot, and admits as many queued requests as the limit allows.
+   * The latency of a request that was not handled is not a sample. */
+  private void release(long latencyNanos, boolean sample) {
+    final List<AsyncContext> admitted = new ArrayList<>();
+    lock.lock();
+    try {
+      --inFlight;
+      if (adaptive && sample) {
+        updateLimit(latencyNanos);
+      }
+      while (inFlight < currentLimit() && !queue.isEmpty()) {
+        ++inFlight;
+        admitted.add(queue.poll());
+      }
+    } finally {
+      lock.unlock();
+    }
+    // Dispatching only schedules the request on Jetty's pool, so a release on
+    // a thread outside the pool, such as a virtual thread, does not wait for one
+    for (AsyncContext context : admitted) {
+      try {
+        context.getRequest().setAttribute(ADMITTED, System.nanoTime());
+        context.dispatch();
+      } catch (IllegalStateException e) {
+        // The request completed, say because the client went away; pass the slot on
+        release(0, false);
+      }
+    }
+  }
+
+  private void updateLimit(long latencyNanos) {
+    if (longTermLatency == 0) {
+      longTermLatency = latencyNanos;
+    } else {
+      longTermLatency += LONG_TERM_WEIGHT * (latencyNanos - longTermLatency);
+      if (longTermLatency > 2 * latencyNanos) {
+        // Latency has dropped well below the average; let the average catch up
+        longTermLatency *= 0.95;
+      }
+    }
+    final double gradient =
+        Math.max(0.5, Math.min(1.0, TOLERANCE * longTermLatency / Math.max(latencyNanos, 1)));
+    final double estimate = limit * gradient + Math.sqrt(limit);
+    limit = Math.max(1, Math.min(maxConcurrentRequests,
+        limit * (1 - SMOOTHING) + estimate * SMOOTHING));
+  }
+
+  private int currentLimit() {
+    return (int) limit;
+  }
+}
+
+// End AdmissionControlHandler.java
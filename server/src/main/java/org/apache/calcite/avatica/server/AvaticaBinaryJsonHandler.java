@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.server;
+
+import org.apache.calcite.avatica.AvaticaUtils;
+import org.apache.calcite.avatica.metrics.MetricsSystem;
+import org.apache.calcite.avatica.metrics.Timer;
+import org.apache.calcite.avatica.metrics.Timer.Context;
+import org.apache.calcite.avatica.metrics.noop.NoopMetricsSystem;
+import org.apache.calcite.avatica.remote.BinaryJsonHandler;
+import org.apache.calcite.avatica.remote.BinaryJsonService;
+import org.apache.calcite.avatica.remote.Driver;
+import org.apache.calcite.avatica.remote.Handler.HandlerResponse;
+import org.apache.calcite.avatica.remote.Service;
+import org.apache.calcite.avatica.remote.Service.RpcMetadataResponse;
+import org.apache.calcite.avatica.util.UnsynchronizedBuffer;
+
+import org.eclipse.jetty.server.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.apache.calcite.avatica.remote.MetricsHelper.concat;
+
+/**
+ * Jetty handler that executes Avatica request-responses in a binary JSON
+ * format, Smile or CBOR.
+ */
+public class AvaticaBinaryJsonHandler extends AbstractAvaticaHandler {
+  private static final Logger LOG = LoggerFactory.getLogger(AvaticaBinaryJsonHandler.class);
+
+  final Service service;
+  final BinaryJsonHandler binaryJsonHandler;
+  final String contentType;
+
+  final MetricsSystem metrics;
+  final Timer requestTimer;
+
+  final ThreadLocal<UnsynchronizedBuffer> threadLocalBuffer;
+
+  final AvaticaServerConfiguration serverConfig;
+
+  public AvaticaBinaryJsonHandler(Service service, Driver.Serialization serialization) {
+    this(service, serialization, NoopMetricsSystem.getInstance(), null);
+  }
+
+  /**
+   * Creates a handler.
+   *
+   * @param service The underlying {@link Service}
+   * @param serialization {@link Driver.Serialization#SMILE} or
+   *     {@link Driver.Serialization#CBOR}
+   * @param metrics The metrics system
+   * @param serverConfig Avatica server configuration or null
+   */
+  public AvaticaBinaryJsonHandler(Service service, Driver.Serialization serialization,
+      MetricsSystem metrics, AvaticaServerConfiguration serverConfig) {
+    this.service = Objects.requireNonNull(service);
+    this.metrics = Objects.requireNonNull(metrics);
+    this.binaryJsonHandler = new BinaryJsonHandler(service, serialization, this.metrics);
+    this.contentType = BinaryJsonService.getContentType(serialization);
+
+    this.requestTimer = this.metrics.getTimer(
+        concat(AvaticaBinaryJsonHandler.class, MetricsAwareAvaticaHandler.REQUEST_TIMER_NAME));
+
+    this.threadLocalBuffer = new ThreadLocal<UnsynchronizedBuffer>() {
+      @Override public UnsynchronizedBuffer initialValue() {
+        return new UnsynchronizedBuffer();
+      }
+    };
+
+    this.serverConfig = serverConfig;
+  }
+
+  public void handle(String target, Request baseRequest,
+      HttpServletRequest request, HttpServletResponse response)
+      throws IOException, ServletException {
+    try (Context ctx = requestTimer.start()) {
+      if (!request.getMethod().equals("POST")) {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        response.getOutputStream().write(
+            "This server expects only POST calls.".getBytes(StandardCharsets.UTF_8));
+        baseRequest.setHandled(true);
+        return;
+      }
+
+      if (!isUserPermitted(serverConfig, baseRequest, request, response)) {
+        LOG.debug("HTTP request from {} is unauthenticated and authentication is required",
+            request.getRemoteAddr());
+        return;
+      }
+
+      final byte[] requestBytes;
+      // Avoid a new buffer creation for every HTTP request
+      final UnsynchronizedBuffer buffer = threadLocalBuffer.get();
+      try (ServletInputStream inputStream = request.getInputStream()) {
+        requestBytes = AvaticaUtils.readFullyToBytes(inputStream, buffer);
+      } finally {
+        buffer.reset();
+      }
+
+      response.setContentType(contentType);
+      HandlerResponse<byte[]> handlerResponse;
+      try {
+        if (null != serverConfig && serverConfig.supportsImpersonation()) {
+          String remoteUser = serverConfig.getRemoteUserExtractor().extract(request);
+          handlerResponse = serverConfig.doAsRemoteUser(remoteUser,
+              request.getRemoteAddr(), new Callable<HandlerResponse<byte[]>>() {
+                @Override public HandlerResponse<byte[]> call() {
+                  return binaryJsonHandler.apply(requestBytes);
+                }
+              });
+        } else {
+          handlerResponse = binaryJsonHandler.apply(requestBytes);
+        }
+      } catch (RemoteUserExtractionException e) {
+        LOG.debug("Failed to extract remote user from request", e);
+        handlerResponse = binaryJsonHandler.unauthenticatedErrorResponse(e);
+      } catch (RemoteUserDisallowedException e) {
+        LOG.debug("Remote user is not authorized", e);
+        handlerResponse = binaryJsonHandler.unauthorizedErrorResponse(e);
+      } catch (BadRequestException e) {
+        LOG.debug("Bad request exception", e);
+        handlerResponse = binaryJsonHandler.badRequestErrorResponse(e);
+      } catch (Exception e) {
+        LOG.debug("Error invoking request from {}", baseRequest.getRemoteAddr(), e);
+        handlerResponse = binaryJsonHandler.convertToErrorResponse(e);
+      }
+
+      baseRequest.setHandled(true);
+      response.setStatus(handlerResponse.getStatusCode());
+      response.getOutputStream().write(handlerResponse.getResponse());
+    }
+  }
+
+  @Override public void setServerRpcMetadata(RpcMetadataResponse metadata) {
+    // Set the metadata for the normal service calls
+    service.setRpcMetadata(metadata);
+    // Also add it to the handler to include with exceptions
+    binaryJsonHandler.setRpcMetadata(metadata);
+  }
+
+  @Override public MetricsSystem getMetrics() {
+    return metrics;
+  }
+}
+
+// End AvaticaBinaryJsonHandler.java
@@ -24,6 +24,7 @@
 import org.apache.calcite.avatica.remote.Handler.HandlerResponse;
 import org.apache.calcite.avatica.remote.JsonHandler;
 import org.apache.calcite.avatica.remote.Service;
+import org.apache.calcite.avatica.remote.Service.Response;
 import org.apache.calcite.avatica.remote.Service.RpcMetadataResponse;
 import org.apache.calcite.avatica.util.UnsynchronizedBuffer;
 
@@ -32,6 +33,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import javax.servlet.ServletException;
@@ -101,15 +103,13 @@ public void handle(String target, Request baseRequest,
         // First look for a request in the header, then look in the body.
         // The latter allows very large requests without hitting HTTP 413.
         String rawRequest = request.getHeader("request");
-        if (rawRequest == null) {
-          // Avoid a new buffer creation for every HTTP request
+        final String encoding = request.getCharacterEncoding();
+        if (rawRequest == null && encoding != null
+            && !StandardCharsets.UTF_8.name().equalsIgnoreCase(encoding)) {
+          // Jackson only detects the Unicode encodings; decode others here
           final UnsynchronizedBuffer buffer = threadLocalBuffer.get();
           try (ServletInputStream inputStream = request.getInputStream()) {
             byte[] bytes = AvaticaUtils.readFullyToBytes(inputStream, buffer);
-            String encoding = request.getCharacterEncoding();
-            if (encoding == null) {
-              encoding = "UTF-8";
-            }
             rawRequest = AvaticaUtils.newString(bytes, encoding);
           } finally {
             // Reset the offset into the buffer after we're done
@@ -117,20 +117,29 @@ public void handle(String target, Request baseRequest,
           }
         }
         final String jsonRequest = rawRequest;
-        LOG.trace("request: {}", jsonRequest);
+        if (jsonRequest != null) {
+          LOG.trace("request: {}", jsonRequest);
+        }
 
-        HandlerResponse<String> jsonResponse;
+        HandlerResponse<String> jsonResponse = null;
+        HandlerResponse<Response> unencodedResponse = null;
         try {
-          if (null != serverConfig && serverConfig.supportsImpersonation()) {
-            String remoteUser = serverConfig.getRemoteUserExtractor().extract(request);
-            jsonResponse = serverConfig.doAsRemoteUser(remoteUser,
-                request.getRemoteAddr(), new Callable<HandlerResponse<String>>() {
+          if (jsonRequest == null) {
+            // Parse the body as it arrives, without copying it into a string
+            final ServletInputStream inputStream = request.getInputStream();
+            unencodedResponse = applyAsRemoteUser(request,
+                new Callable<HandlerResponse<Response>>() {
+                  @Override public HandlerResponse<Response> call() {
+                    return jsonHandler.applyWithoutEncoding(inputStream);
+                  }
+                });
+          } else {
+            jsonResponse = applyAsRemoteUser(request,
+                new Callable<HandlerResponse<String>>() {
                   @Override public HandlerResponse<String> call() {
                     return jsonHandler.apply(jsonRequest);
                   }
                 });
-          } else {
-            jsonResponse = jsonHandler.apply(jsonRequest);
           }
         } catch (RemoteUserExtractionException e) {
           LOG.debug("Failed to extract remote user from request", e);
@@ -146,15 +155,45 @@ public void handle(String target, Request baseRequest,
           jsonResponse = jsonHandler.convertToErrorResponse(e);
         }
 
-        LOG.trace("response: {}", jsonResponse);
         baseRequest.setHandled(true);
+        if (null != unencodedResponse) {
+          response.setStatus(unencodedResponse.getStatusCode());
+          try {
+            // Write UTF-8 straight to the response, without a string in between
+            jsonHandler.encode(unencodedResponse.getResponse(), response.getOutputStream());
+            return;
+          } catch (IOException | RuntimeException e) {
+            if (response.isCommitted()) {
+              // Part of the response was already sent, the client will see a truncated message
+              throw e;
+            }
+            LOG.debug("Error serializing response for {}", baseRequest.getRemoteAddr(), e);
+            response.resetBuffer();
+            jsonResponse = jsonHandler.convertToErrorResponse(e);
+          }
+        }
+
+        LOG.trace("response: {}", jsonResponse);
         // Set the status code and write out the response.
         response.setStatus(jsonResponse.getStatusCode());
-        response.getWriter().println(jsonResponse.getResponse());
+        response.getOutputStream().write(
+            jsonResponse.getResponse().getBytes(StandardCharsets.UTF_8));
       }
     }
   }
 
+  /**
+   * Invokes the JsonHandler, as a doAs for the remote user if impersonation is enabled.
+   */
+  private <T> HandlerResponse<T> applyAsRemoteUser(HttpServletRequest request,
+      Callable<HandlerResponse<T>> action) throws Exception {
+    if (null != serverConfig && serverConfig.supportsImpersonation()) {
+      String remoteUser = serverConfig.getRemoteUserExtractor().extract(request);
+      return serverConfig.doAsRemoteUser(remoteUser, request.getRemoteAddr(), action);
+    }
+    return action.call();
+  }
+
   @Override public void setServerRpcMetadata(RpcMetadataResponse metadata) {
     // Set the metadata for the normal service calls
     service.setRpcMetadata(metadata);
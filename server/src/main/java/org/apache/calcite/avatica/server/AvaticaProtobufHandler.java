@@ -27,6 +27,7 @@
 import org.apache.calcite.avatica.remote.ProtobufTranslation;
 import org.apache.calcite.avatica.remote.ProtobufTranslationImpl;
 import org.apache.calcite.avatica.remote.Service;
+import org.apache.calcite.avatica.remote.Service.Response;
 import org.apache.calcite.avatica.remote.Service.RpcMetadataResponse;
 import org.apache.calcite.avatica.util.UnsynchronizedBuffer;
 
@@ -55,6 +56,7 @@ public class AvaticaProtobufHandler extends AbstractAvaticaHandler {
   private final MetricsSystem metrics;
   private final Timer requestTimer;
   private final AvaticaServerConfiguration serverConfig;
+  private final boolean streamResponses;
 
   final ThreadLocal<UnsynchronizedBuffer> threadLocalBuffer;
 
@@ -68,6 +70,20 @@ public AvaticaProtobufHandler(Service service, MetricsSystem metrics) {
 
   public AvaticaProtobufHandler(Service service, MetricsSystem metrics,
       AvaticaServerConfiguration serverConfig) {
+    this(service, metrics, serverConfig, false);
+  }
+
+  /**
+   * Creates a handler.
+   *
+   * @param service The underlying {@link Service}
+   * @param metrics The metrics system
+   * @param serverConfig Avatica server configuration or null
+   * @param streamResponses Whether to serialize successful responses directly onto the HTTP
+   *     response instead of buffering each one into a byte array first
+   */
+  public AvaticaProtobufHandler(Service service, MetricsSystem metrics,
+      AvaticaServerConfiguration serverConfig, boolean streamResponses) {
     this.service = Objects.requireNonNull(service);
     this.metrics = Objects.requireNonNull(metrics);
 
@@ -85,6 +101,7 @@ public AvaticaProtobufHandler(Service service, MetricsSystem metrics,
     };
 
     this.serverConfig = serverConfig;
+    this.streamResponses = streamResponses;
   }
 
   public void handle(String target, Request baseRequest,
@@ -117,21 +134,23 @@ public void handle(String target, Request baseRequest,
 
       response.setContentType("application/octet-stream;charset=utf-8");
       response.setStatus(HttpServletResponse.SC_OK);
-      HandlerResponse<byte[]> handlerResponse;
+      HandlerResponse<byte[]> handlerResponse = null;
+      HandlerResponse<Response> unencodedResponse = null;
       try {
-        if (null != serverConfig && serverConfig.supportsImpersonation()) {
-          // If we can't extract a user, need to throw 401 in that case.
-          String remoteUser = serverConfig.getRemoteUserExtractor().extract(request);
-          // Invoke the ProtobufHandler inside as doAs for the remote user.
-          // The doAsRemoteUser call may disallow a user, need to throw 403 in that case.
-          handlerResponse = serverConfig.doAsRemoteUser(remoteUser,
-            request.getRemoteAddr(), new Callable<HandlerResponse<byte[]>>() {
-              @Override public HandlerResponse<byte[]> call() {
-                return pbHandler.apply(requestBytes);
-              }
-            });
+        if (streamResponses) {
+          unencodedResponse = applyAsRemoteUser(request,
+              new Callable<HandlerResponse<Response>>() {
+                @Override public HandlerResponse<Response> call() {
+                  return pbHandler.applyWithoutEncoding(requestBytes);
+                }
+              });
         } else {
-          handlerResponse = pbHandler.apply(requestBytes);
+          handlerResponse = applyAsRemoteUser(request,
+              new Callable<HandlerResponse<byte[]>>() {
+                @Override public HandlerResponse<byte[]> call() {
+                  return pbHandler.apply(requestBytes);
+                }
+              });
         }
       } catch (RemoteUserExtractionException e) {
         LOG.debug("Failed to extract remote user from request", e);
@@ -149,11 +168,41 @@ public void handle(String target, Request baseRequest,
       }
 
       baseRequest.setHandled(true);
+      if (null != unencodedResponse) {
+        response.setStatus(unencodedResponse.getStatusCode());
+        try {
+          // Without a content length, Jetty sends the body in chunks as its buffer fills
+          pbHandler.encode(unencodedResponse.getResponse(), response.getOutputStream());
+          return;
+        } catch (RuntimeException e) {
+          if (response.isCommitted()) {
+            // Part of the response was already sent, the client will see a truncated message
+            throw e;
+          }
+          LOG.debug("Error serializing response for {}", baseRequest.getRemoteAddr(), e);
+          response.resetBuffer();
+          handlerResponse = pbHandler.convertToErrorResponse(e);
+        }
+      }
       response.setStatus(handlerResponse.getStatusCode());
       response.getOutputStream().write(handlerResponse.getResponse());
     }
   }
 
+  /**
+   * Invokes the ProtobufHandler, as a doAs for the remote user if impersonation is enabled.
+   */
+  private <T> HandlerResponse<T> applyAsRemoteUser(HttpServletRequest request,
+      Callable<HandlerResponse<T>> action) throws Exception {
+    if (null != serverConfig && serverConfig.supportsImpersonation()) {
+      // If we can't extract a user, need to throw 401 in that case.
+      String remoteUser = serverConfig.getRemoteUserExtractor().extract(request);
+      // The doAsRemoteUser call may disallow a user, need to throw 403 in that case.
+      return serverConfig.doAsRemoteUser(remoteUser, request.getRemoteAddr(), action);
+    }
+    return action.call();
+  }
+
   @Override public void setServerRpcMetadata(RpcMetadataResponse metadata) {
     // Set the metadata for the normal service calls
     service.setRpcMetadata(metadata);
@@ -83,13 +83,31 @@ public AvaticaHandler getHandler(Service service, Driver.Serialization serializa
    * configuration with metrics.
    *
    * @param service The underlying {@link Service}
-   * @param serialization The serializatio mechanism to use
+   * @param serialization The serialization mechanism to use
    * @param metricsConfig Configuration for the {@link MetricsSystem}.
    * @param serverConfig Avatica server configuration or null
    * @return An {@link AvaticaHandler}
    */
   public AvaticaHandler getHandler(Service service, Driver.Serialization serialization,
       MetricsSystemConfiguration<?> metricsConfig, AvaticaServerConfiguration serverConfig) {
+    return getHandler(service, serialization, metricsConfig, serverConfig, false);
+  }
+
+  /**
+   * Constructs the desired implementation for the given serialization method and server
+   * configuration with metrics.
+   *
+   * @param service The underlying {@link Service}
+   * @param serialization The serialization mechanism to use
+   * @param metricsConfig Configuration for the {@link MetricsSystem}.
+   * @param serverConfig Avatica server configuration or null
+   * @param streamResponses Whether to serialize responses directly onto the HTTP response,
+   *     only supported for {@link Driver.Serialization#PROTOBUF}
+   * @return An {@link AvaticaHandler}
+   */
+  public AvaticaHandler getHandler(Service service, Driver.Serialization serialization,
+      MetricsSystemConfiguration<?> metricsConfig, AvaticaServerConfiguration serverConfig,
+      boolean streamResponses) {
     if (null == metricsConfig) {
       metricsConfig = NoopMetricsSystemConfiguration.getInstance();
     }
@@ -99,7 +117,10 @@ public AvaticaHandler getHandler(Service service, Driver.Serialization serializa
     case JSON:
       return new AvaticaJsonHandler(service, metrics, serverConfig);
     case PROTOBUF:
-      return new AvaticaProtobufHandler(service, metrics, serverConfig);
+      return new AvaticaProtobufHandler(service, metrics, serverConfig, streamResponses);
+    case SMILE:
+    case CBOR:
+      return new AvaticaBinaryJsonHandler(service, serialization, metrics, serverConfig);
     default:
       throw new IllegalArgumentException("Unknown Avatica handler for " + serialization.name());
     }
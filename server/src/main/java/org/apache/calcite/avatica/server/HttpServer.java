@@ -23,6 +23,10 @@
 import org.apache.calcite.avatica.remote.Service.RpcMetadataResponse;
 import org.apache.calcite.avatica.util.SecurityUtils;
 
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
 import org.eclipse.jetty.security.Authenticator;
 import org.eclipse.jetty.security.ConfigurableSpnegoLoginService;
 import org.eclipse.jetty.security.ConstraintMapping;
@@ -42,6 +46,7 @@
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.DefaultHandler;
 import org.eclipse.jetty.server.handler.HandlerList;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.server.session.DefaultSessionIdManager;
 import org.eclipse.jetty.server.session.SessionHandler;
 import org.eclipse.jetty.util.security.Constraint;
@@ -65,10 +70,12 @@
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import javax.security.auth.Subject;
 import javax.security.auth.kerberos.KerberosPrincipal;
 import javax.security.auth.login.LoginContext;
 import javax.security.auth.login.LoginException;
+import javax.servlet.DispatcherType;
 
 /**
  * Avatica HTTP server.
@@ -91,6 +98,10 @@ public class HttpServer {
   private final SslContextFactory.Server sslFactory;
   private final List<ServerCustomizer<Server>> serverCustomizers;
   private final int maxAllowedHeaderSize;
+  private final int compressionThreshold;
+  private final boolean http2;
+  private final AdmissionControlHandler admissionControl;
+  private final boolean virtualThreads;
 
   @Deprecated
   public HttpServer(Handler handler) {
@@ -170,7 +181,7 @@ public HttpServer(int port, AvaticaHandler handler, AvaticaServerConfiguration c
       Subject subject, SslContextFactory.Server sslFactory, int maxAllowedHeaderSize) {
     this(port, handler, config, subject, sslFactory,
         Collections.<ServerCustomizer<Server>>emptyList(),
-        maxAllowedHeaderSize);
+        maxAllowedHeaderSize, -1, false, null, false);
   }
 
   /**
@@ -181,10 +192,17 @@ public HttpServer(int port, AvaticaHandler handler, AvaticaServerConfiguration c
    * @param subject The javax.security Subject for the server, or null
    * @param sslFactory A configured SslContextFactory.Server, or null
    * @param maxAllowedHeaderSize A maximum size in bytes that are allowed in an HTTP header
+   * @param compressionThreshold The minimum size in bytes of a response to compress, or a
+   *     negative value to disable compression
+   * @param http2 Whether to accept HTTP/2 as well as HTTP/1.1
+   * @param admissionControl Handler that limits concurrent requests, or null
+   * @param virtualThreads Whether to handle requests on virtual threads
    */
   private HttpServer(int port, AvaticaHandler handler, AvaticaServerConfiguration config,
       Subject subject, SslContextFactory.Server sslFactory,
-      List<ServerCustomizer<Server>> serverCustomizers, int maxAllowedHeaderSize) {
+      List<ServerCustomizer<Server>> serverCustomizers, int maxAllowedHeaderSize,
+      int compressionThreshold, boolean http2, AdmissionControlHandler admissionControl,
+      boolean virtualThreads) {
     this.port = port;
     this.handler = handler;
     this.config = config;
@@ -192,6 +210,10 @@ private HttpServer(int port, AvaticaHandler handler, AvaticaServerConfiguration
     this.sslFactory = sslFactory;
     this.serverCustomizers = serverCustomizers;
     this.maxAllowedHeaderSize = maxAllowedHeaderSize;
+    this.compressionThreshold = compressionThreshold;
+    this.http2 = http2;
+    this.admissionControl = admissionControl;
+    this.virtualThreads = virtualThreads;
   }
 
   static AvaticaHandler wrapJettyHandler(Handler handler) {
@@ -271,6 +293,22 @@ protected void internalStart() {
     }
   }
 
+  /**
+   * Wraps a handler so that responses of at least {@link #compressionThreshold} bytes are
+   * gzip-compressed for clients that accept it, and gzip-compressed request bodies are inflated.
+   */
+  private GzipHandler getCompressionHandler(Handler handler) {
+    final GzipHandler gzipHandler = new GzipHandler();
+    // Avatica requests are all POSTs; Jetty only compresses responses to GET by default
+    gzipHandler.setIncludedMethods("POST");
+    // Requests queued by admission control reach this handler on an async dispatch
+    gzipHandler.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+    gzipHandler.setMinGzipSize(compressionThreshold);
+    gzipHandler.setInflateBufferSize(8192);
+    gzipHandler.setHandler(handler);
+    return gzipHandler;
+  }
+
   private ServerConnector configureServerConnector() {
     final ServerConnector connector = getServerConnector();
     connector.setIdleTimeout(60 * 1000);
@@ -283,10 +321,17 @@ private HandlerList configureHandlers() {
     final HandlerList handlerList = new HandlerList();
     Handler avaticaHandler = handler;
 
+    // Innermost, so that authentication happens on the Jetty thread
+    if (virtualThreads) {
+      final VirtualThreadHandler virtualThreadHandler = new VirtualThreadHandler();
+      virtualThreadHandler.setHandler(avaticaHandler);
+      avaticaHandler = virtualThreadHandler;
+    }
+
     // Wrap the provided handler for security if we made one
     if (null != config) {
       ConstraintSecurityHandler securityHandler = getSecurityHandler();
-      securityHandler.setHandler(handler);
+      securityHandler.setHandler(avaticaHandler);
       // SPNEGO requires a session
       SessionHandler sessionHandler = new SessionHandler();
       // We could make this configurable, but the only downside of expiring the session is
@@ -296,6 +341,16 @@ private HandlerList configureHandlers() {
       avaticaHandler = sessionHandler;
     }
 
+    if (compressionThreshold >= 0) {
+      avaticaHandler = getCompressionHandler(avaticaHandler);
+    }
+
+    // Outermost, so that rejecting a request costs as little as possible
+    if (null != admissionControl) {
+      admissionControl.setHandler(avaticaHandler);
+      avaticaHandler = admissionControl;
+    }
+
     handlerList.setHandlers(new Handler[] {avaticaHandler, new DefaultHandler()});
 
     server.setHandler(handlerList);
@@ -328,12 +383,35 @@ protected ServerConnector getServerConnector() {
     httpConfiguration.setSendServerVersion(false);
     httpConfiguration.setRequestHeaderSize(maxAllowedHeaderSize);
 
+    if (http2) {
+      return getHttp2ServerConnector(factory);
+    }
     if (null == sslFactory) {
       return new ServerConnector(server, factory);
     }
     return new ServerConnector(server, AbstractConnectionFactory.getFactories(sslFactory, factory));
   }
 
+  /**
+   * Creates a connector which accepts HTTP/2 as well as HTTP/1.1: in cleartext (h2c) by prior
+   * knowledge or by upgrade, or over TLS (h2) as negotiated by ALPN.
+   */
+  private ServerConnector getHttp2ServerConnector(HttpConnectionFactory http11) {
+    final HttpConfiguration httpConfiguration = http11.getHttpConfiguration();
+    if (null == sslFactory) {
+      return new ServerConnector(server, http11,
+          new HTTP2CServerConnectionFactory(httpConfiguration));
+    }
+    final HTTP2ServerConnectionFactory h2 = new HTTP2ServerConnectionFactory(httpConfiguration);
+    final ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory();
+    alpn.setDefaultProtocol(http11.getProtocol());
+    // HTTP/2 forbids some cipher suites, so prefer those it allows
+    sslFactory.setCipherComparator(HTTP2Cipher.COMPARATOR);
+    sslFactory.setUseCipherSuitesOrder(true);
+    return new ServerConnector(server,
+        AbstractConnectionFactory.getFactories(sslFactory, alpn, h2, http11));
+  }
+
   private RpcMetadataResponse createRpcServerMetadata(ServerConnector connector) throws
       UnknownHostException {
     String host = connector.getHost();
@@ -530,6 +608,15 @@ public int getPort() {
 
     // The maximum size in bytes of an http header the server will read (64KB)
     private int maxAllowedHeaderSize = MAX_ALLOWED_HEADER_SIZE;
+    private boolean streamResponses = false;
+    private int compressionThreshold = -1;
+    private boolean http2 = false;
+    private int maxConcurrentRequests = 0;
+    private int maxQueuedRequests;
+    private long maxQueueTime;
+    private TimeUnit maxQueueTimeUnit;
+    private boolean adaptiveConcurrencyLimit = false;
+    private boolean virtualThreads = false;
     private AvaticaServerConfiguration serverConfig;
     private Subject subject;
 
@@ -823,6 +910,112 @@ public Builder<T> withMaxHeaderSize(int maxHeaderSize) {
       return this;
     }
 
+    /**
+     * Configures the server to write protobuf responses directly onto the HTTP response instead
+     * of buffering each one into a byte array first. This avoids holding large frames in memory
+     * twice. Has no effect with JSON serialization or a handler set by
+     * {@link #withHandler(AvaticaHandler)}.
+     *
+     * @param streamResponses Whether to stream responses
+     * @return <code>this</code>
+     */
+    public Builder<T> withStreamingResponses(boolean streamResponses) {
+      this.streamResponses = streamResponses;
+      return this;
+    }
+
+    /**
+     * Configures the server to gzip-compress responses of at least the given size for clients
+     * that send {@code Accept-Encoding: gzip}, and to accept request bodies sent with
+     * {@code Content-Encoding: gzip}. Compression is disabled by default.
+     *
+     * @param minSize The minimum size in bytes of a response to compress
+     * @return <code>this</code>
+     */
+    public Builder<T> withCompression(int minSize) {
+      if (minSize < 0) {
+        throw new IllegalArgumentException("Compression threshold must be non-negative");
+      }
+      this.compressionThreshold = minSize;
+      return this;
+    }
+
+    /**
+     * Configures the server to accept HTTP/2 as well as HTTP/1.1, so that a client can send
+     * many concurrent requests over one connection. Without TLS, the server accepts cleartext
+     * HTTP/2 (h2c); with TLS, clients negotiate HTTP/2 (h2) using ALPN, which requires Java 9+ or
+     * Java 8u252+.
+     *
+     * @param http2 Whether to accept HTTP/2
+     * @return <code>this</code>
+     */
+    public Builder<T> withHttp2(boolean http2) {
+      this.http2 = http2;
+      return this;
+    }
+
+    /**
+     * Configures the server to handle at most the given number of requests at once. Further
+     * requests wait in a queue of bounded size for a bounded time, and are rejected with
+     * HTTP/503 if the queue is full or the wait times out; Avatica clients retry such requests.
+     * There is no limit by default.
+     *
+     * <p>Queued requests are suspended, so they do not hold one of the pool's threads while
+     * they wait.
+     *
+     * @param maxConcurrentRequests The maximum number of requests to handle at once
+     * @param maxQueuedRequests The maximum number of requests to queue
+     * @param maxQueueTime The maximum time a request may wait in the queue
+     * @param unit The unit of <code>maxQueueTime</code>
+     * @return <code>this</code>
+     */
+    public Builder<T> withAdmissionControl(int maxConcurrentRequests, int maxQueuedRequests,
+        long maxQueueTime, TimeUnit unit) {
+      if (maxConcurrentRequests <= 0) {
+        throw new IllegalArgumentException("Maximum concurrent requests must be positive");
+      }
+      if (maxQueuedRequests < 0) {
+        throw new IllegalArgumentException("Maximum queued requests must be non-negative");
+      }
+      this.maxConcurrentRequests = maxConcurrentRequests;
+      this.maxQueuedRequests = maxQueuedRequests;
+      this.maxQueueTime = maxQueueTime;
+      this.maxQueueTimeUnit = Objects.requireNonNull(unit);
+      return this;
+    }
+
+    /**
+     * Configures the limit set by {@link #withAdmissionControl} to adapt to the latency of
+     * requests: the limit is lowered, down to one, while requests take markedly longer than
+     * usual, and raised again, up to the configured maximum, as latency recovers. Has no
+     * effect without admission control.
+     *
+     * @param adaptive Whether the limit on concurrent requests adapts to latency
+     * @return <code>this</code>
+     */
+    public Builder<T> withAdaptiveConcurrencyLimit(boolean adaptive) {
+      this.adaptiveConcurrencyLimit = adaptive;
+      return this;
+    }
+
+    /**
+     * Configures the server to handle each request on its own virtual thread, rather than on
+     * one of Jetty's pool of 200 threads, so that many more requests can block at once, say
+     * waiting on a JDBC driver, without exhausting the pool. Jetty's threads still accept
+     * connections, read request headers and authenticate. Requires Java 21 or later.
+     *
+     * @param virtualThreads Whether to handle requests on virtual threads
+     * @return <code>this</code>
+     * @throws UnsupportedOperationException if this JVM does not support virtual threads
+     */
+    public Builder<T> withVirtualThreads(boolean virtualThreads) {
+      if (virtualThreads && !VirtualThreadHandler.isSupported()) {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+      }
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
     /**
      * Builds the HttpServer instance from <code>this</code>.
      * @return An HttpServer.
@@ -866,8 +1059,13 @@ public HttpServer build() {
         jettyCustomizers.add((ServerCustomizer<Server>) customizer);
       }
 
+      final AdmissionControlHandler admissionControl = maxConcurrentRequests > 0
+          ? new AdmissionControlHandler(maxConcurrentRequests, maxQueuedRequests, maxQueueTime,
+              maxQueueTimeUnit, adaptiveConcurrencyLimit)
+          : null;
+
       return new HttpServer(port, handler, serverConfig, subject, sslFactory, jettyCustomizers,
-          maxAllowedHeaderSize);
+          maxAllowedHeaderSize, compressionThreshold, http2, admissionControl, virtualThreads);
     }
 
     protected SslContextFactory.Server buildSSLContextFactory() {
@@ -904,7 +1102,8 @@ private AvaticaHandler buildHandler(Builder b, AvaticaServerConfiguration config
 
       // Normal case, we create the handler for the user.
       HandlerFactory factory = new HandlerFactory();
-      return factory.getHandler(b.service, b.serialization, b.metricsConfig, config);
+      return factory.getHandler(b.service, b.serialization, b.metricsConfig, config,
+          b.streamResponses);
     }
 
     /**
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.server;
+
+import org.apache.calcite.avatica.util.SecurityUtils;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import javax.security.auth.Subject;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Handler that hands each request to a new virtual thread, so that the Jetty
+ * thread that received it is free as soon as it has been dispatched, and
+ * requests that block, say on a JDBC driver, do not hold on to platform
+ * threads.
+ *
+ * <p>The request is handled asynchronously. The virtual thread runs as the
+ * {@link Subject} of the Jetty thread that dispatched it, as virtual threads
+ * do not inherit it.
+ *
+ * <p>Virtual threads require Java 21 or later; they are reached by
+ * reflection, as Avatica is built for Java 8.
+ */
+class VirtualThreadHandler extends HandlerWrapper {
+  private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadHandler.class);
+
+  private ExecutorService executor;
+
+  /** Returns whether this JVM supports virtual threads. */
+  static boolean isSupported() {
+    try {
+      newThreadFactory();
+      return true;
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return false;
+    }
+  }
+
+  /** Calls {@code Thread.ofVirtual().name("avatica-vt-", 0).factory()}. */
+  private static ThreadFactory newThreadFactory() throws ReflectiveOperationException {
+    final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, "avatica-vt-", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (InvocationTargetException e) {
+      // Virtual threads are a preview feature in Java 19 and 20
+      if (e.getCause() instanceof UnsupportedOperationException) {
+        throw (UnsupportedOperationException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  @Override protected void doStart() throws Exception {
+    executor = (ExecutorService) Executors.class
+        .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+        .invoke(null, newThreadFactory());
+    super.doStart();
+  }
+
+  @Override protected void doStop() throws Exception {
+    super.doStop();
+    executor.shutdown();
+  }
+
+  @Override public void handle(final String target, final Request baseRequest,
+      final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException {
+    final AsyncContext async = request.startAsync();
+    // Results may take a long time to fetch
+    async.setTimeout(0);
+    // Stop later handlers from handling the request on this thread
+    baseRequest.setHandled(true);
+    final Subject subject = SecurityUtils.currentSubject();
+    try {
+      executor.execute(new Runnable() {
+        @Override public void run() {
+          try {
+            if (null == subject) {
+              handleOnThisThread(target, baseRequest, request, response);
+            } else {
+              SecurityUtils.callAs(subject, new Callable<Void>() {
+                @Override public Void call() throws Exception {
+                  handleOnThisThread(target, baseRequest, request, response);
+                  return null;
+                }
+              });
+            }
+          } catch (Throwable t) {
+            LOG.error("Failed to handle request to {}", target, t);
+            if (!response.isCommitted()) {
+              response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+          } finally {
+            async.complete();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // The server is stopping
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      async.complete();
+    }
+  }
+
+  private void handleOnThisThread(String target, Request baseRequest,
+      HttpServletRequest request, HttpServletResponse response)
+      throws IOException, ServletException {
+    super.handle(target, baseRequest, request, response);
+  }
+}
+
+// End VirtualThreadHandler.java
@@ -17,30 +17,64 @@
 package org.apache.calcite.avatica.jdbc;
 
 import org.apache.calcite.avatica.AvaticaPreparedStatement;
+import org.apache.calcite.avatica.ColumnMetaData.Rep;
+import org.apache.calcite.avatica.ConnectionPropertiesImpl;
+import org.apache.calcite.avatica.ConnectionSpec;
 import org.apache.calcite.avatica.Meta.ConnectionHandle;
+import org.apache.calcite.avatica.Meta.ExecuteResult;
+import org.apache.calcite.avatica.Meta.Frame;
+import org.apache.calcite.avatica.Meta.MetaResultSet;
+import org.apache.calcite.avatica.Meta.Pat;
 import org.apache.calcite.avatica.Meta.Signature;
 import org.apache.calcite.avatica.Meta.StatementHandle;
+import org.apache.calcite.avatica.metrics.Counter;
+import org.apache.calcite.avatica.metrics.Histogram;
+import org.apache.calcite.avatica.metrics.MetricsSystem;
+import org.apache.calcite.avatica.remote.MetricsHelper;
+import org.apache.calcite.avatica.remote.TypedValue;
 
 import com.google.common.cache.Cache;
 
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.sql.Connection;
 import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 
 /**
  * Unit tests for {@link JdbcMeta}.
@@ -60,6 +94,397 @@ public class JdbcMetaTest {
     }
   }
 
+  @Test public void testPrefetchReturnsSameRows() throws Exception {
+    final String sql = "select empno, ename from scott.emp order by empno";
+    final Properties prefetching = new Properties();
+    prefetching.setProperty(JdbcMeta.PrefetchSettings.ENABLED.key(), "true");
+    prefetching.setProperty(JdbcMeta.PrefetchSettings.THREADS.key(), "1");
+    ConnectionSpec.getDatabaseLock().lock();
+    try {
+      // Fetch sizes that match, undershoot and overshoot the prefetched frame,
+      // including a last frame that holds more rows than the next request
+      for (int[] fetchSizes : new int[][] {{3}, {4, 2}, {2, 5}, {6, 2}, {-1}}) {
+        assertEquals(fetchAll(new Properties(), sql, fetchSizes),
+            fetchAll(prefetching, sql, fetchSizes));
+      }
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+    }
+  }
+
+  @Test public void testReexecuteWaitsForPrefetch() throws Exception {
+    final String sql = "select empno from scott.emp where empno > ? order by empno";
+    final Properties info = new Properties();
+    info.setProperty("user", ConnectionSpec.HSQLDB.username);
+    info.setProperty("password", ConnectionSpec.HSQLDB.password);
+    info.setProperty(JdbcMeta.PrefetchSettings.ENABLED.key(), "true");
+    info.setProperty(JdbcMeta.PrefetchSettings.THREADS.key(), "1");
+    ConnectionSpec.getDatabaseLock().lock();
+    try {
+      final JdbcMeta meta = new JdbcMeta(ConnectionSpec.HSQLDB.url, info);
+      final ConnectionHandle ch = new ConnectionHandle(UUID.randomUUID().toString());
+      meta.openConnection(ch, Collections.<String, String>emptyMap());
+      try {
+        final StatementHandle h = meta.prepare(ch, sql, -1);
+        final List<TypedValue> parameters =
+            Collections.singletonList(TypedValue.ofLocal(Rep.INTEGER, 0));
+        meta.execute(h, parameters, 3);
+        // Starts reading the frame after this one
+        final Frame second = meta.fetch(h, 3, 2);
+        assertFalse(second.done);
+
+        // Stand in for a read of the old results that is still in progress
+        final StatementInfo statementInfo = meta.getStatementCache().getIfPresent(h.id);
+        statementInfo.discardPrefetchedFrame();
+        final ResultSet oldResults = statementInfo.getResultSet();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean touched = new AtomicBoolean();
+        final FutureTask<Frame> read = new FutureTask<>(new Callable<Frame>() {
+          @Override public Frame call() throws Exception {
+            release.await();
+            // Re-executing closes the old results
+            touched.set(oldResults.isClosed());
+            return new Frame(5, false, Collections.<Object>singletonList(new Object[] {0}));
+          }
+        });
+        new Thread(read).start();
+        statementInfo.setPrefetchedFrame(read);
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread reexecute = new Thread(new Runnable() {
+          @Override public void run() {
+            try {
+              meta.execute(h, parameters, 3);
+            } catch (Throwable e) {
+              failure.set(e);
+            }
+          }
+        });
+        reexecute.start();
+        reexecute.join(200);
+        assertTrue("execute did not wait for the read", reexecute.isAlive());
+
+        release.countDown();
+        reexecute.join();
+        assertNull(failure.get());
+        assertFalse("statement was executed during the read", touched.get());
+        // The rows read from the old results are not served for the new ones
+        assertEquals(rows(second), rows(meta.fetch(h, 3, 2)));
+      } finally {
+        meta.closeConnection(ch);
+      }
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+    }
+  }
+
+  @Test public void testPrefetchStandsAsideForConnection() throws Exception {
+    final String sql = "select empno, ename from scott.emp order by empno";
+    final Properties info = new Properties();
+    info.setProperty("user", ConnectionSpec.HSQLDB.username);
+    info.setProperty("password", ConnectionSpec.HSQLDB.password);
+    info.setProperty(JdbcMeta.PrefetchSettings.ENABLED.key(), "true");
+    info.setProperty(JdbcMeta.PrefetchSettings.THREADS.key(), "1");
+    ConnectionSpec.getDatabaseLock().lock();
+    try {
+      final List<Object> expected = fetchAll(new Properties(), sql, new int[] {-1});
+      final JdbcMeta meta = new JdbcMeta(ConnectionSpec.HSQLDB.url, info);
+      final ConnectionHandle ch = new ConnectionHandle(UUID.randomUUID().toString());
+      meta.openConnection(ch, Collections.<String, String>emptyMap());
+      try {
+        final StatementHandle h = meta.createStatement(ch);
+        final StatementInfo statementInfo = meta.getStatementCache().getIfPresent(h.id);
+        final Lock lock = meta.connectionLock(ch.id);
+        // Stand in for a request that is still using the connection
+        lock.lock();
+        try {
+          final ExecuteResult result = meta.prepareAndExecute(h, sql, -1, 3, null);
+          assertFalse(result.resultSets.get(0).firstFrame.done);
+          // The first frame starts a prefetch, which must not read meanwhile
+          assertTrue(statementInfo.hasPrefetchedFrame());
+          assertNull(statementInfo.takePrefetchedFrame());
+        } finally {
+          lock.unlock();
+        }
+        // The rows are read when they are asked for instead
+        assertEquals(expected.subList(3, 6), rows(meta.fetch(h, 3, 3)));
+
+        // Once the connection is free, the next frame is read ahead
+        final Frame prefetched = statementInfo.takePrefetchedFrame();
+        assertNotNull(prefetched);
+        assertEquals(6, prefetched.offset);
+        assertEquals(expected.subList(6, 9), rows(prefetched));
+
+        // Rows read ahead for another offset are not served
+        statementInfo.setPrefetchedFrame(
+            CompletableFuture.completedFuture(
+                new Frame(100, false,
+                    Collections.<Object>singletonList(new Object[] {0, "none"}))));
+        final Frame frame = meta.fetch(h, 9, 3);
+        assertEquals(9, frame.offset);
+        assertEquals(expected.subList(9, 12), rows(frame));
+        meta.closeStatement(h);
+      } finally {
+        meta.closeConnection(ch);
+      }
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+    }
+  }
+
+  @Test public void testExecuteDeferredPrepare() throws Exception {
+    final String sql = "select empno from scott.emp where empno = ?";
+    final Properties info = new Properties();
+    info.setProperty("user", ConnectionSpec.HSQLDB.username);
+    info.setProperty("password", ConnectionSpec.HSQLDB.password);
+    ConnectionSpec.getDatabaseLock().lock();
+    try {
+      final JdbcMeta meta = new JdbcMeta(ConnectionSpec.HSQLDB.url, info);
+      final ConnectionHandle ch = new ConnectionHandle(UUID.randomUUID().toString());
+      meta.openConnection(ch, Collections.<String, String>emptyMap());
+      try {
+        final StatementHandle prepared = meta.prepare(ch, sql, -1);
+        meta.closeStatement(prepared);
+        assertEquals(0, meta.getStatementCache().size());
+
+        // A client that has the signature sends a local, negative, id
+        final StatementHandle deferred =
+            new StatementHandle(ch.id, -1, prepared.signature);
+        final ExecuteResult result = meta.execute(deferred,
+            Collections.singletonList(TypedValue.ofLocal(Rep.INTEGER, 7369)), 10);
+        assertEquals(1, result.resultSets.size());
+        final MetaResultSet resultSet = result.resultSets.get(0);
+        assertTrue(resultSet.statementId >= 0);
+        assertNotNull(meta.getStatementCache().getIfPresent(resultSet.statementId));
+        final List<Object> rows = rows(resultSet.firstFrame);
+        assertEquals(1, rows.size());
+        assertEquals(7369, ((Number) ((List<?>) rows.get(0)).get(0)).intValue());
+        meta.closeStatement(
+            new StatementHandle(ch.id, resultSet.statementId, prepared.signature));
+
+        // If the execute fails, the statement prepared for it is closed
+        try {
+          meta.execute(deferred, Arrays.asList(TypedValue.ofLocal(Rep.INTEGER, 7369),
+              TypedValue.ofLocal(Rep.INTEGER, 7499)), 10);
+          fail("Expected an exception for too many parameters");
+        } catch (RuntimeException e) {
+          // Expected
+        }
+        assertEquals(0, meta.getStatementCache().size());
+      } finally {
+        meta.closeConnection(ch);
+      }
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+    }
+  }
+
+  private static List<Object> rows(Frame frame) {
+    final List<Object> rows = new ArrayList<>();
+    for (Object row : frame.rows) {
+      rows.add(Arrays.asList((Object[]) row));
+    }
+    return rows;
+  }
+
+  private static List<Object> fetchAll(Properties info, String sql, int[] fetchSizes)
+      throws Exception {
+    info.setProperty("user", ConnectionSpec.HSQLDB.username);
+    info.setProperty("password", ConnectionSpec.HSQLDB.password);
+    final JdbcMeta meta = new JdbcMeta(ConnectionSpec.HSQLDB.url, info);
+    final ConnectionHandle ch = new ConnectionHandle(UUID.randomUUID().toString());
+    meta.openConnection(ch, Collections.<String, String>emptyMap());
+    try {
+      final StatementHandle h = meta.createStatement(ch);
+      final ExecuteResult result = meta.prepareAndExecute(h, sql, -1, 3, null);
+      Frame frame = result.resultSets.get(0).firstFrame;
+      final List<Object> rows = new ArrayList<>();
+      long offset = 0;
+      int i = 0;
+      while (true) {
+        for (Object row : frame.rows) {
+          rows.add(Arrays.asList((Object[]) row));
+          offset++;
+        }
+        if (frame.done) {
+          break;
+        }
+        final int fetchSize = fetchSizes[i++ % fetchSizes.length];
+        frame = meta.fetch(h, offset, fetchSize);
+        // Offsets must stay contiguous whether or not the rows were prefetched
+        assertEquals(offset, frame.offset);
+        // and no frame may hold more rows than were asked for
+        assertTrue(fetchSize <= 0 || rows(frame).size() <= fetchSize);
+      }
+      meta.closeStatement(h);
+      return rows;
+    } finally {
+      meta.closeConnection(ch);
+    }
+  }
+
+  @Test public void testMetadataCacheSharesResults() throws Exception {
+    final Properties info = new Properties();
+    info.setProperty("user", ConnectionSpec.HSQLDB.username);
+    info.setProperty("password", ConnectionSpec.HSQLDB.password);
+    info.setProperty(JdbcMeta.MetadataCacheSettings.MAX_CAPACITY.key(), "10");
+    ConnectionSpec.getDatabaseLock().lock();
+    try {
+      final JdbcMeta meta = new JdbcMeta(ConnectionSpec.HSQLDB.url, info);
+      final ConnectionHandle ch1 = new ConnectionHandle(UUID.randomUUID().toString());
+      final ConnectionHandle ch2 = new ConnectionHandle(UUID.randomUUID().toString());
+      meta.openConnection(ch1, Collections.<String, String>emptyMap());
+      meta.openConnection(ch2, Collections.<String, String>emptyMap());
+      try {
+        final MetaResultSet first = meta.getTables(ch1, null, Pat.of("SCOTT"),
+            Pat.of(null), null);
+        assertEquals(1, meta.getMetadataCache().size());
+        // A second connection is served from the cache, without a statement
+        final MetaResultSet second = meta.getTables(ch2, null, Pat.of("SCOTT"),
+            Pat.of(null), null);
+        assertEquals(1, meta.getMetadataCache().size());
+        assertEquals(0, meta.getStatementCache().size());
+        assertEquals(ch2.id, second.connectionId);
+        assertTrue(second.firstFrame.done);
+        assertEquals(first.firstFrame.rows, second.firstFrame.rows);
+        assertFalse(first.firstFrame.rows.isEmpty());
+
+        // Different arguments are cached separately
+        meta.getTables(ch1, null, Pat.of("NONE"), Pat.of(null), null);
+        assertEquals(2, meta.getMetadataCache().size());
+
+        // Invalidating discards the results of the connection's user only
+        final List<Object> otherUserKey = Arrays.<Object>asList("OTHER", null, null);
+        meta.getMetadataCache().put(otherUserKey, first);
+        meta.invalidateMetadataCache(ch1);
+        assertEquals(1, meta.getMetadataCache().size());
+        assertNotNull(meta.getMetadataCache().getIfPresent(otherUserKey));
+        meta.getMetadataCache().invalidate(otherUserKey);
+
+        // Some drivers resolve null arguments against the current schema, so
+        // connections in different schemas do not share results
+        meta.connectionSync(ch2, new ConnectionPropertiesImpl().setSchema("SCOTT"));
+        meta.getTables(ch1, null, Pat.of(null), Pat.of(null), null);
+        meta.getTables(ch2, null, Pat.of(null), Pat.of(null), null);
+        assertEquals(2, meta.getMetadataCache().size());
+      } finally {
+        meta.closeConnection(ch1);
+        meta.closeConnection(ch2);
+      }
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+    }
+  }
+
+  @Test public void testPreparedStatementPoolReusesStatements() throws Exception {
+    final String sql = "select empno, ename from scott.emp where empno = ?";
+    final Properties info = new Properties();
+    info.setProperty("user", ConnectionSpec.HSQLDB.username);
+    info.setProperty("password", ConnectionSpec.HSQLDB.password);
+    info.setProperty(JdbcMeta.StatementCacheSettings.POOL_SIZE.key(), "1");
+    info.setProperty(JdbcMeta.CacheFactorySettings.ASYNC_REMOVAL.key(), "false");
+    ConnectionSpec.getDatabaseLock().lock();
+    try {
+      final JdbcMeta meta = new JdbcMeta(ConnectionSpec.HSQLDB.url, info);
+      final ConnectionHandle ch = new ConnectionHandle(UUID.randomUUID().toString());
+      meta.openConnection(ch, Collections.<String, String>emptyMap());
+      try {
+        final StatementHandle h1 = meta.prepare(ch, sql, 2);
+        final PreparedStatement statement1 = statement(meta, h1);
+        assertEquals(2, statement1.getMaxRows());
+        // A statement in use is not shared
+        final StatementHandle h2 = meta.prepare(ch, sql, -1);
+        final PreparedStatement statement2 = statement(meta, h2);
+        assertNotSame(statement1, statement2);
+
+        meta.closeStatement(h1);
+        meta.closeStatement(h2);
+        assertFalse(statement1.isClosed());
+        // A released statement does not keep its owner's row limit
+        assertEquals(0, statement1.getMaxRows());
+        // The pool holds one statement per SQL
+        assertTrue(statement2.isClosed());
+
+        final StatementHandle h3 = meta.prepare(ch, sql, -1);
+        assertSame(statement1, statement(meta, h3));
+        assertSame(h1.signature, h3.signature);
+
+        // Evicting the client's statement releases it too
+        meta.getStatementCache().invalidate(h3.id);
+        assertFalse(statement1.isClosed());
+        final StatementHandle h4 = meta.prepare(ch, "select ename from scott.emp", -1);
+        meta.closeStatement(h4);
+        // Pooling another SQL pushes out the least recently used
+        assertTrue(statement1.isClosed());
+      } finally {
+        meta.closeConnection(ch);
+      }
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+    }
+  }
+
+  @Test public void testCacheTelemetry() throws Exception {
+    final MetricsSystem metrics = Mockito.mock(MetricsSystem.class);
+    final Map<String, Counter> counters = new HashMap<>();
+    Mockito.when(metrics.getCounter(anyString())).thenAnswer(new Answer<Counter>() {
+      @Override public Counter answer(InvocationOnMock invocation) {
+        final Counter counter = Mockito.mock(Counter.class);
+        counters.put(invocation.<String>getArgument(0), counter);
+        return counter;
+      }
+    });
+    final Histogram statementLifetimes = Mockito.mock(Histogram.class);
+    Mockito.when(metrics.getHistogram(anyString())).thenReturn(Mockito.mock(Histogram.class));
+    Mockito.when(metrics.getHistogram(MetricsHelper.concat(JdbcMeta.class, "StatementLifetimes")))
+        .thenReturn(statementLifetimes);
+
+    final Properties info = new Properties();
+    info.setProperty("user", ConnectionSpec.HSQLDB.username);
+    info.setProperty("password", ConnectionSpec.HSQLDB.password);
+    info.setProperty(JdbcMeta.CacheFactorySettings.ASYNC_REMOVAL.key(), "false");
+    ConnectionSpec.getDatabaseLock().lock();
+    try {
+      final JdbcMeta meta = new JdbcMeta(ConnectionSpec.HSQLDB.url, info, metrics);
+      final ConnectionHandle ch = new ConnectionHandle(UUID.randomUUID().toString());
+      meta.openConnection(ch, Collections.<String, String>emptyMap());
+      try {
+        final StatementHandle h1 = meta.createStatement(ch);
+        Thread.sleep(10);
+        final StatementHandle h2 = meta.createStatement(ch);
+        meta.prepareAndExecute(h2, "select * from scott.emp", -1, 1, null);
+        assertEquals(1, meta.countOpenResultSets());
+        assertTrue(meta.oldestStatementAgeMillis() >= 10);
+        // The oldest statements are reported with their ids, oldest first
+        final Map<String, Long> ages = meta.longestLivedStatements(10);
+        assertEquals(Arrays.asList(ch.id + "/" + h1.id, ch.id + "/" + h2.id),
+            new ArrayList<>(ages.keySet()));
+        assertTrue(ages.get(ch.id + "/" + h1.id) >= 10);
+        assertEquals(Collections.singleton(ch.id + "/" + h1.id),
+            meta.longestLivedStatements(1).keySet());
+
+        meta.closeStatement(h1);
+        Mockito.verify(counters.get(
+            MetricsHelper.concat(JdbcMeta.class, "StatementCacheRemovals.EXPLICIT")))
+            .increment();
+        Mockito.verify(statementLifetimes).update(anyLong());
+        meta.closeStatement(h2);
+        assertEquals(0, meta.countOpenResultSets());
+      } finally {
+        meta.closeConnection(ch);
+      }
+      Mockito.verify(counters.get(
+          MetricsHelper.concat(JdbcMeta.class, "ConnectionCacheRemovals.EXPLICIT")))
+          .increment();
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+    }
+  }
+
+  private static PreparedStatement statement(JdbcMeta meta, StatementHandle h) {
+    return (PreparedStatement) meta.getStatementCache().getIfPresent(h.id).statement;
+  }
+
   @Test public void testPrepareSetsMaxRows() throws Exception {
     final String id = UUID.randomUUID().toString();
     final String sql = "SELECT * FROM FOO";
@@ -202,6 +627,64 @@ public class JdbcMetaTest {
     // Our opened connection should get closed when this race condition happens
     Mockito.verify(conn2).close();
   }
+
+  @Test public void testCacheFactories() throws Exception {
+    for (Class<?> factory
+        : Arrays.asList(CaffeineCacheFactory.class, GuavaCacheFactory.class)) {
+      for (boolean async : new boolean[] {false, true}) {
+        final Properties info = new Properties();
+        info.setProperty(JdbcMeta.CacheFactorySettings.FACTORY.key(), factory.getName());
+        info.setProperty(JdbcMeta.CacheFactorySettings.ASYNC_REMOVAL.key(),
+            Boolean.toString(async));
+        final Thread closer = closingThread(info);
+        if (async) {
+          assertNotSame(factory.getName(), Thread.currentThread(), closer);
+        } else {
+          assertSame(factory.getName(), Thread.currentThread(), closer);
+        }
+      }
+    }
+    // By default, evicted connections are closed on another thread
+    assertNotSame(Thread.currentThread(), closingThread(new Properties()));
+  }
+
+  @Test public void testCloseClosesConnections() throws Exception {
+    final Connection conn = Mockito.mock(Connection.class);
+    final JdbcMeta meta = new JdbcMeta("jdbc:url", new Properties()) {
+      @Override protected Connection createConnection(String url, Properties info) {
+        return conn;
+      }
+    };
+    meta.openConnection(new ConnectionHandle("id1"),
+        Collections.<String, String>emptyMap());
+    meta.close();
+    Mockito.verify(conn, Mockito.timeout(10000)).close();
+    assertEquals(0, meta.getConnectionCache().size());
+  }
+
+  /** Returns the thread on which an evicted connection is closed. */
+  private static Thread closingThread(Properties info) throws Exception {
+    final Connection conn = Mockito.mock(Connection.class);
+    final JdbcMeta meta = new JdbcMeta("jdbc:url", info) {
+      @Override protected Connection createConnection(String url, Properties info) {
+        return conn;
+      }
+    };
+    final ConnectionHandle ch = new ConnectionHandle("id1");
+    meta.openConnection(ch, Collections.<String, String>emptyMap());
+    assertEquals(conn, meta.getConnectionCache().getIfPresent(ch.id));
+
+    final AtomicReference<Thread> closer = new AtomicReference<>();
+    Mockito.doAnswer(new Answer<Void>() {
+      @Override public Void answer(InvocationOnMock invocation) {
+        closer.set(Thread.currentThread());
+        return null;
+      }
+    }).when(conn).close();
+    meta.getConnectionCache().invalidate(ch.id);
+    Mockito.verify(conn, Mockito.timeout(10000)).close();
+    return closer.get();
+  }
 }
 
 // End JdbcMetaTest.java
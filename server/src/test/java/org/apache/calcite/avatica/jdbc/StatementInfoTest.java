@@ -25,6 +25,7 @@
 import java.sql.ResultSet;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -102,6 +103,28 @@ public void testNoMovement() throws Exception {
     assertEquals(results, info.getResultSet());
   }
 
+  @Test public void testOpenResultSetCounter() throws Exception {
+    Statement stmt = Mockito.mock(Statement.class);
+    AtomicLong counter = new AtomicLong();
+
+    StatementInfo info = new StatementInfo(stmt);
+    info.setOpenResultSetCounter(counter);
+
+    info.setResultSet(Mockito.mock(ResultSet.class));
+    assertEquals(1, counter.get());
+    // Replacing the results does not count the statement twice
+    info.setResultSet(Mockito.mock(ResultSet.class));
+    assertEquals(1, counter.get());
+    info.setResultSet(null);
+    assertEquals(0, counter.get());
+
+    info.setResultSet(Mockito.mock(ResultSet.class));
+    info.closeStatement();
+    assertEquals(0, counter.get());
+    info.closeStatement();
+    assertEquals(0, counter.get());
+  }
+
   @Test public void testCheckPositionAfterFailedRelative() throws Exception {
     Statement stmt = Mockito.mock(Statement.class);
     ResultSet results = Mockito.mock(ResultSet.class);
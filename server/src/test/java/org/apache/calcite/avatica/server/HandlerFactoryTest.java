@@ -16,15 +16,41 @@
  */
 package org.apache.calcite.avatica.server;
 
+import org.apache.calcite.avatica.Meta.Frame;
 import org.apache.calcite.avatica.remote.Driver.Serialization;
+import org.apache.calcite.avatica.remote.ProtobufTranslation;
+import org.apache.calcite.avatica.remote.ProtobufTranslationImpl;
 import org.apache.calcite.avatica.remote.Service;
+import org.apache.calcite.avatica.remote.Service.ErrorResponse;
+import org.apache.calcite.avatica.remote.Service.FetchRequest;
+import org.apache.calcite.avatica.remote.Service.FetchResponse;
+import org.apache.calcite.avatica.remote.Service.Response;
 
 import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Tests the {@link HandlerFactory} implementation.
@@ -53,6 +79,181 @@ public void testProtobuf() {
     assertTrue("Expected an implementation of the AvaticaProtobufHandler, "
         + "but got " + handler.getClass(), handler instanceof AvaticaProtobufHandler);
   }
+
+  @Test
+  public void testStreamingProtobuf() {
+    Handler handler = factory.getHandler(service, Serialization.PROTOBUF, null, null, true);
+    assertTrue("Expected an implementation of the AvaticaProtobufHandler, "
+        + "but got " + handler.getClass(), handler instanceof AvaticaProtobufHandler);
+  }
+
+  @Test
+  public void testStreamedFetchResponseMatchesBuffered() throws Exception {
+    final FetchResponse fetchResponse = fetchResponse(2000);
+    Mockito.when(service.apply(Mockito.any(FetchRequest.class))).thenReturn(fetchResponse);
+
+    final ResponseOutputStream streamed = new ResponseOutputStream(Integer.MAX_VALUE);
+    handle(factory.getHandler(service, Serialization.PROTOBUF, null, null, true), streamed);
+    // The frame does not fit in one buffer, so it is sent in more than one write
+    assertTrue(streamed.writes > 1);
+
+    final ResponseOutputStream buffered = new ResponseOutputStream(Integer.MAX_VALUE);
+    handle(factory.getHandler(service, Serialization.PROTOBUF), buffered);
+
+    final ProtobufTranslation translation = new ProtobufTranslationImpl();
+    final Response response = translation.parseResponse(streamed.toByteArray());
+    assertEquals(translation.parseResponse(buffered.toByteArray()), response);
+    assertEquals(2000, rowCount(((FetchResponse) response).frame));
+  }
+
+  @Test
+  public void testStreamingFailsAfterResponseCommitted() throws Exception {
+    Mockito.when(service.apply(Mockito.any(FetchRequest.class)))
+        .thenReturn(fetchResponse(2000));
+
+    // The second write fails, once part of the response has been sent
+    final ResponseOutputStream out = new ResponseOutputStream(2);
+    final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    try {
+      handle(factory.getHandler(service, Serialization.PROTOBUF, null, null, true), out,
+          response);
+      fail("expected failure");
+    } catch (IllegalStateException e) {
+      assertEquals("connection closed", e.getMessage());
+    }
+    // An error cannot be sent in place of a response that has already begun
+    assertTrue(out.size() > 0);
+    Mockito.verify(response, Mockito.never()).resetBuffer();
+  }
+
+  @Test
+  public void testStreamingFailsBeforeResponseCommitted() throws Exception {
+    Mockito.when(service.apply(Mockito.any(FetchRequest.class)))
+        .thenReturn(fetchResponse(2000));
+
+    // The first write fails, before any of the response has been sent
+    final ResponseOutputStream out = new ResponseOutputStream(1);
+    final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    handle(factory.getHandler(service, Serialization.PROTOBUF, null, null, true), out,
+        response);
+    Mockito.verify(response).resetBuffer();
+    Mockito.verify(response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    final Response error = new ProtobufTranslationImpl().parseResponse(out.toByteArray());
+    assertTrue(error instanceof ErrorResponse);
+    assertFalse(((ErrorResponse) error).exceptions.isEmpty());
+  }
+
+  private static FetchResponse fetchResponse(int rowCount) {
+    final List<Object> rows = new ArrayList<>();
+    for (int i = 0; i < rowCount; i++) {
+      rows.add(Arrays.<Object>asList(i, "row " + i, i * 0.5, null, i % 2 == 0));
+    }
+    return new FetchResponse(new Frame(0, true, rows), false, false, null);
+  }
+
+  private static int rowCount(Frame frame) {
+    int count = 0;
+    for (Object row : frame.rows) {
+      count++;
+    }
+    return count;
+  }
+
+  private void handle(Handler handler, ResponseOutputStream out) throws Exception {
+    handle(handler, out, Mockito.mock(HttpServletResponse.class));
+  }
+
+  /** Sends a fetch request to a handler, writing the response to {@code out}. */
+  private void handle(Handler handler, final ResponseOutputStream out,
+      HttpServletResponse response) throws Exception {
+    final byte[] requestBytes = new ProtobufTranslationImpl()
+        .serializeRequest(new FetchRequest("conn", 1, 0, 2000));
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(request.getMethod()).thenReturn("POST");
+    Mockito.when(request.getInputStream()).thenReturn(new RequestInputStream(requestBytes));
+    Mockito.when(response.getOutputStream()).thenReturn(out);
+    // Like Jetty, the response is committed once any of it has been sent
+    Mockito.when(response.isCommitted()).thenAnswer(new Answer<Boolean>() {
+      @Override public Boolean answer(InvocationOnMock invocation) {
+        return out.size() > 0;
+      }
+    });
+    handler.handle("/", Mockito.mock(Request.class), request, response);
+  }
+
+  /** Reads a request from a byte array. */
+  private static class RequestInputStream extends ServletInputStream {
+    private final ByteArrayInputStream in;
+
+    RequestInputStream(byte[] bytes) {
+      this.in = new ByteArrayInputStream(bytes);
+    }
+
+    @Override public int read() {
+      return in.read();
+    }
+
+    @Override public boolean isFinished() {
+      return in.available() == 0;
+    }
+
+    @Override public boolean isReady() {
+      return true;
+    }
+
+    @Override public void setReadListener(ReadListener readListener) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** Collects a response, failing on a given write as if the client had
+   * disconnected. */
+  private static class ResponseOutputStream extends ServletOutputStream {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final int failingWrite;
+    int writes;
+
+    ResponseOutputStream(int failingWrite) {
+      this.failingWrite = failingWrite;
+    }
+
+    int size() {
+      return out.size();
+    }
+
+    byte[] toByteArray() {
+      return out.toByteArray();
+    }
+
+    @Override public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override public void write(byte[] b, int off, int len) throws IOException {
+      if (++writes == failingWrite) {
+        throw new IllegalStateException("connection closed");
+      }
+      out.write(b, off, len);
+    }
+
+    @Override public boolean isReady() {
+      return true;
+    }
+
+    @Override public void setWriteListener(WriteListener writeListener) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  @Test
+  public void testBinaryJson() {
+    for (Serialization serialization : new Serialization[] {Serialization.SMILE,
+        Serialization.CBOR}) {
+      Handler handler = factory.getHandler(service, serialization);
+      assertTrue("Expected an implementation of the AvaticaBinaryJsonHandler, "
+          + "but got " + handler.getClass(), handler instanceof AvaticaBinaryJsonHandler);
+    }
+  }
 }
 
 // End HandlerFactoryTest.java
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.server;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for admission control by {@link HttpServer}.
+ */
+public class HttpServerAdmissionControlTest {
+  private final CountDownLatch entered = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private HttpServer server;
+
+  private void startServer(int maxQueuedRequests) {
+    // Holds each request until released
+    final AbstractHandler blocking = new AbstractHandler() {
+      @Override public void handle(String target, Request baseRequest,
+          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        entered.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        baseRequest.setHandled(true);
+      }
+    };
+    server = HttpServer.Builder.<Server>newBuilder()
+        .withHandler(HttpServer.wrapJettyHandler(blocking))
+        .withAdmissionControl(1, maxQueuedRequests, 30, TimeUnit.SECONDS)
+        .withPort(0)
+        .build();
+    server.start();
+  }
+
+  @After public void stopServer() {
+    release.countDown();
+    executor.shutdownNow();
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  private HttpURLConnection post() throws Exception {
+    final HttpURLConnection conn = (HttpURLConnection)
+        new URI("http://localhost:" + server.getPort()).toURL().openConnection();
+    conn.setRequestMethod("POST");
+    conn.setDoOutput(true);
+    try (OutputStream os = conn.getOutputStream()) {
+      os.write(new byte[] {1});
+    }
+    return conn;
+  }
+
+  private Future<Integer> postInBackground() {
+    return executor.submit(new Callable<Integer>() {
+      @Override public Integer call() throws Exception {
+        return post().getResponseCode();
+      }
+    });
+  }
+
+  @Test public void testRejectsRequestsBeyondLimit() throws Exception {
+    startServer(0);
+    final Future<Integer> first = postInBackground();
+    assertTrue(entered.await(30, TimeUnit.SECONDS));
+
+    final HttpURLConnection rejected = post();
+    assertEquals(HttpURLConnection.HTTP_UNAVAILABLE, rejected.getResponseCode());
+    assertEquals("1", rejected.getHeaderField("Retry-After"));
+
+    release.countDown();
+    assertEquals(HttpURLConnection.HTTP_OK, (int) first.get(30, TimeUnit.SECONDS));
+    // Capacity is freed when a request completes
+    assertEquals(HttpURLConnection.HTTP_OK, post().getResponseCode());
+  }
+
+  @Test public void testQueuesRequestsBeyondLimit() throws Exception {
+    startServer(1);
+    final Future<Integer> first = postInBackground();
+    assertTrue(entered.await(30, TimeUnit.SECONDS));
+    final Future<Integer> queued = postInBackground();
+
+    release.countDown();
+    assertEquals(HttpURLConnection.HTTP_OK, (int) first.get(30, TimeUnit.SECONDS));
+    assertEquals(HttpURLConnection.HTTP_OK, (int) queued.get(30, TimeUnit.SECONDS));
+  }
+}
+
+// End HttpServerAdmissionControlTest.java
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.server;
+
+import org.apache.calcite.avatica.AvaticaUtils;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for compression of requests and responses by {@link HttpServer}.
+ */
+public class HttpServerCompressionTest {
+  private static final int THRESHOLD = 1024;
+
+  private HttpServer server;
+
+  @Before public void startServer() {
+    // Echoes the request body, as read by the handler
+    final AbstractHandler echo = new AbstractHandler() {
+      @Override public void handle(String target, Request baseRequest,
+          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final byte[] body = AvaticaUtils.readFullyToBytes(request.getInputStream());
+        response.setContentType("application/octet-stream");
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.getOutputStream().write(body);
+        baseRequest.setHandled(true);
+      }
+    };
+    server = HttpServer.Builder.<Server>newBuilder()
+        .withHandler(HttpServer.wrapJettyHandler(echo))
+        .withCompression(THRESHOLD)
+        .withPort(0)
+        .build();
+    server.start();
+  }
+
+  @After public void stopServer() {
+    server.stop();
+  }
+
+  private HttpURLConnection post(byte[] body, boolean gzipBody) throws Exception {
+    final HttpURLConnection conn = (HttpURLConnection)
+        new URI("http://localhost:" + server.getPort()).toURL().openConnection();
+    conn.setRequestMethod("POST");
+    conn.setDoOutput(true);
+    conn.setRequestProperty("Accept-Encoding", "gzip");
+    if (gzipBody) {
+      conn.setRequestProperty("Content-Encoding", "gzip");
+    }
+    try (OutputStream os = conn.getOutputStream()) {
+      os.write(gzipBody ? gzip(body) : body);
+    }
+    assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+    return conn;
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(baos)) {
+      gzip.write(bytes);
+    }
+    return baos.toByteArray();
+  }
+
+  private static byte[] payload(int length) {
+    final StringBuilder sb = new StringBuilder();
+    while (sb.length() < length) {
+      sb.append("row ").append(sb.length()).append(';');
+    }
+    return sb.substring(0, length).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test public void testLargeResponseIsCompressed() throws Exception {
+    final byte[] body = payload(THRESHOLD * 8);
+    final HttpURLConnection conn = post(body, false);
+    assertEquals("gzip", conn.getHeaderField("Content-Encoding"));
+    try (InputStream is = new GZIPInputStream(conn.getInputStream())) {
+      assertArrayEquals(body, AvaticaUtils.readFullyToBytes(is));
+    }
+  }
+
+  @Test public void testSmallResponseIsNotCompressed() throws Exception {
+    final byte[] body = payload(THRESHOLD / 4);
+    final HttpURLConnection conn = post(body, false);
+    assertNull(conn.getHeaderField("Content-Encoding"));
+    try (InputStream is = conn.getInputStream()) {
+      assertArrayEquals(body, AvaticaUtils.readFullyToBytes(is));
+    }
+  }
+
+  @Test public void testCompressedRequestIsInflated() throws Exception {
+    final byte[] body = payload(THRESHOLD / 4);
+    final HttpURLConnection conn = post(body, true);
+    try (InputStream is = conn.getInputStream()) {
+      assertArrayEquals(body, AvaticaUtils.readFullyToBytes(is));
+    }
+  }
+}
+
+// End HttpServerCompressionTest.java
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.server;
+
+import org.apache.calcite.avatica.AvaticaUtils;
+import org.apache.calcite.avatica.BuiltInConnectionProperty;
+import org.apache.calcite.avatica.ConnectionConfigImpl;
+import org.apache.calcite.avatica.remote.AsyncAvaticaHttpClient;
+import org.apache.calcite.avatica.remote.AvaticaCommonsHttpAsyncClientImpl;
+import org.apache.calcite.avatica.remote.AvaticaHttpClient;
+import org.apache.calcite.avatica.remote.AvaticaHttpClientFactoryImpl;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for HTTP/2 support in {@link HttpServer}.
+ */
+public class HttpServerHttp2Test {
+  private HttpServer server;
+
+  @Before public void startServer() {
+    // Replies with the protocol of the request, followed by its body
+    final AbstractHandler echo = new AbstractHandler() {
+      @Override public void handle(String target, Request baseRequest,
+          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final byte[] body = AvaticaUtils.readFullyToBytes(request.getInputStream());
+        response.setContentType("application/octet-stream");
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.getOutputStream()
+            .write((request.getProtocol() + " ").getBytes(StandardCharsets.UTF_8));
+        response.getOutputStream().write(body);
+        baseRequest.setHandled(true);
+      }
+    };
+    server = HttpServer.Builder.<Server>newBuilder()
+        .withHandler(HttpServer.wrapJettyHandler(echo))
+        .withHttp2(true)
+        .withPort(0)
+        .build();
+    server.start();
+  }
+
+  @After public void stopServer() {
+    server.stop();
+  }
+
+  private AvaticaHttpClient createClient(boolean http2) throws Exception {
+    final Properties props = new Properties();
+    props.setProperty(BuiltInConnectionProperty.USE_HTTP2.name(), Boolean.toString(http2));
+    return AvaticaHttpClientFactoryImpl.getInstance().getClient(
+        new URI("http://localhost:" + server.getPort()).toURL(),
+        new ConnectionConfigImpl(props), null);
+  }
+
+  private static String send(AvaticaHttpClient client, String request) {
+    return new String(client.send(request.getBytes(StandardCharsets.UTF_8)),
+        StandardCharsets.UTF_8);
+  }
+
+  @Test public void testHttp2Requests() throws Exception {
+    final AvaticaHttpClient client = createClient(true);
+    assertTrue(client instanceof AvaticaCommonsHttpAsyncClientImpl);
+    assertEquals("HTTP/2.0 hello", send(client, "hello"));
+
+    // Concurrent requests share the connection
+    final List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      futures.add(((AsyncAvaticaHttpClient) client)
+          .sendAsync(("request " + i).getBytes(StandardCharsets.UTF_8)));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      assertEquals("HTTP/2.0 request " + i,
+          new String(futures.get(i).get(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test public void testHttp11RequestsStillAccepted() throws Exception {
+    assertEquals("HTTP/1.1 hello", send(createClient(false), "hello"));
+  }
+}
+
+// End HttpServerHttp2Test.java
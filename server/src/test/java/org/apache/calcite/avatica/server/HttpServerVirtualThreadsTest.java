@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.server;
+
+import org.apache.calcite.avatica.AvaticaUtils;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for handling requests on virtual threads by {@link HttpServer}.
+ */
+public class HttpServerVirtualThreadsTest {
+  private HttpServer server;
+
+  @Before public void startServer() {
+    Assume.assumeTrue("Virtual threads are not supported", VirtualThreadHandler.isSupported());
+    // Echoes the request body after the name of the thread handling it
+    final AbstractHandler echo = new AbstractHandler() {
+      @Override public void handle(String target, Request baseRequest,
+          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final byte[] body = AvaticaUtils.readFullyToBytes(request.getInputStream());
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.getOutputStream().write(
+            (Thread.currentThread().getName() + ":").getBytes(StandardCharsets.UTF_8));
+        response.getOutputStream().write(body);
+        baseRequest.setHandled(true);
+      }
+    };
+    server = HttpServer.Builder.<Server>newBuilder()
+        .withHandler(HttpServer.wrapJettyHandler(echo))
+        .withVirtualThreads(true)
+        .withAdmissionControl(10, 0, 1, TimeUnit.SECONDS)
+        .withPort(0)
+        .build();
+    server.start();
+  }
+
+  @After public void stopServer() {
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  private String post(String body) throws Exception {
+    return post(server, body);
+  }
+
+  private static String post(HttpServer server, String body) throws Exception {
+    final HttpURLConnection conn = (HttpURLConnection)
+        new URI("http://localhost:" + server.getPort()).toURL().openConnection();
+    conn.setRequestMethod("POST");
+    conn.setDoOutput(true);
+    try (OutputStream os = conn.getOutputStream()) {
+      os.write(body.getBytes(StandardCharsets.UTF_8));
+    }
+    assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+    try (InputStream is = conn.getInputStream()) {
+      return AvaticaUtils.newStringUtf8(AvaticaUtils.readFullyToBytes(is));
+    }
+  }
+
+  @Test public void testRequestsAreHandledOnVirtualThreads() throws Exception {
+    final String response = post("ping");
+    assertTrue(response, response.startsWith("avatica-vt-"));
+    assertTrue(response, response.endsWith(":ping"));
+  }
+
+  @Test public void testAdmissionControlCountsAsyncRequests() throws Exception {
+    // More requests than the limit, one after another; each releases its slot on completion
+    for (int i = 0; i < 20; i++) {
+      assertTrue(post("ping").endsWith(":ping"));
+    }
+  }
+
+  @Test public void testQueueLargerThanThreadPool() throws Exception {
+    final int maxThreads = 32;
+    final int maxQueued = 2 * maxThreads;
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    // Holds each request until released
+    final AbstractHandler blocking = new AbstractHandler() {
+      @Override public void handle(String target, Request baseRequest,
+          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        entered.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        baseRequest.setHandled(true);
+      }
+    };
+    final ServerCustomizer<Server> smallPool = new ServerCustomizer<Server>() {
+      @Override public void customize(Server server) {
+        ((QueuedThreadPool) server.getThreadPool()).setMaxThreads(maxThreads);
+      }
+    };
+    final HttpServer saturated = HttpServer.Builder.<Server>newBuilder()
+        .withHandler(HttpServer.wrapJettyHandler(blocking))
+        .withVirtualThreads(true)
+        .withAdmissionControl(1, maxQueued, 30, TimeUnit.SECONDS)
+        .withServerCustomizers(Collections.singletonList(smallPool), Server.class)
+        .withPort(0)
+        .build();
+    saturated.start();
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      final Callable<String> post = new Callable<String>() {
+        @Override public String call() throws Exception {
+          return post(saturated, "ping");
+        }
+      };
+      final List<Future<String>> responses = new ArrayList<>();
+      responses.add(executor.submit(post));
+      assertTrue(entered.await(30, TimeUnit.SECONDS));
+      // Queue more requests than there are threads in the pool
+      for (int i = 0; i < maxQueued; i++) {
+        responses.add(executor.submit(post));
+      }
+      Thread.sleep(1000);
+
+      // Queued requests hold no thread, so the pool is free to admit them
+      release.countDown();
+      for (Future<String> response : responses) {
+        response.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+      saturated.stop();
+    }
+  }
+}
+
+// End HttpServerVirtualThreadsTest.java
@@ -29,6 +29,7 @@ pluginManagement {
         idv("com.github.vlsi.stage-vote-release", "com.github.vlsi.vlsi-release-plugins")
         idv("com.google.protobuf")
         idv("de.thetaphi.forbiddenapis")
+        idv("me.champeau.jmh")
         idv("org.jetbrains.gradle.plugin.idea-ext")
         idv("org.nosphere.apache.rat")
         idv("org.owasp.dependencycheck")
@@ -50,6 +51,7 @@ include(
         "tck",
         "standalone-server",
         "shaded:avatica",
+        "ubenchmark",
         "release"
         )
 
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+plugins {
+    `java-library`
+    id("me.champeau.jmh")
+}
+
+dependencies {
+    jmhImplementation(platform(project(":bom")))
+    jmhImplementation(project(":core"))
+    jmhImplementation(project(":server"))
+    jmhImplementation("com.fasterxml.jackson.core:jackson-databind")
+    jmhImplementation("com.google.guava:guava")
+    jmhImplementation("com.google.protobuf:protobuf-java")
+    jmhImplementation("org.openjdk.jmh:jmh-core")
+    jmhAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess")
+    jmhRuntimeOnly("org.hsqldb:hsqldb")
+    jmhRuntimeOnly("org.apache.logging.log4j:log4j-slf4j-impl")
+}
+
+val String.v: String get() = rootProject.extra["$this.version"] as String
+
+// See https://github.com/melix/jmh-gradle-plugin
+// The plugin does not read JMH options from the command line, so the common
+// ones are exposed as project properties, for instance:
+//   ./gradlew :ubenchmark:jmh -PjmhInclude=FrameBenchmark -PjmhParams=rowCount=1000
+jmh {
+    jmhVersion.set("jmh".v)
+    project.findProperty("jmhInclude")?.let {
+        includes.set(it.toString().split(","))
+    }
+    project.findProperty("jmhParams")?.let {
+        val params = it.toString().split(";").map { p -> p.split("=", limit = 2) }
+        benchmarkParameters.set(
+            params.associate { (k, v) -> k to objects.listProperty<String>().value(v.split(",")) }
+        )
+    }
+    project.findProperty("jmhProfilers")?.let {
+        profilers.set(it.toString().split(","))
+    }
+    project.findProperty("jmhFormat")?.let {
+        resultFormat.set(it.toString())
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.benchmarks;
+
+import org.apache.calcite.avatica.ColumnMetaData;
+import org.apache.calcite.avatica.Meta;
+import org.apache.calcite.avatica.MetaImpl;
+import org.apache.calcite.avatica.util.ColumnarRows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Synthetic result set shared by the benchmarks.
+ *
+ * <p>Each row has a {@code BIGINT}, an {@code INTEGER}, a {@code DOUBLE}, a
+ * {@code VARCHAR} and a nullable {@code VARCHAR} column, which is roughly what
+ * a fact table scan looks like on the wire.
+ */
+final class BenchmarkRows {
+  private BenchmarkRows() {
+  }
+
+  /** Column metadata matching the rows built by {@link #rows(int)}. */
+  static List<ColumnMetaData> columns() {
+    return Arrays.asList(
+        MetaImpl.columnMetaData("ID", 0, Long.class, false),
+        MetaImpl.columnMetaData("QTY", 1, Integer.class, false),
+        MetaImpl.columnMetaData("PRICE", 2, Double.class, false),
+        MetaImpl.columnMetaData("NAME", 3, String.class, false),
+        MetaImpl.columnMetaData("NOTE", 4, String.class, true));
+  }
+
+  /** Builds rows in the server-side form, one {@code Object[]} per row, as
+   * produced by {@code JdbcResultSet#frame}. */
+  static List<Object> rows(int rowCount) {
+    final List<Object> rows = new ArrayList<>(rowCount);
+    for (int i = 0; i < rowCount; i++) {
+      rows.add(
+          new Object[] {(long) i * 7919, i % 1000, i * 0.25D, "name-" + i,
+              i % 4 == 0 ? null : "note for row " + i});
+    }
+    return rows;
+  }
+
+  /** Builds rows in the client-side form, one {@code List} per row, as
+   * produced by {@link Meta.Frame#fromProto}. */
+  static List<List<Object>> listRows(int rowCount) {
+    final List<List<Object>> rows = new ArrayList<>(rowCount);
+    for (Object row : rows(rowCount)) {
+      rows.add(Arrays.asList((Object[]) row));
+    }
+    return rows;
+  }
+
+  /** Builds rows in the client-side form of a columnar frame, one
+   * {@link ColumnarRows.Row} per row, as produced by
+   * {@link Meta.Frame#fromProto} when the server sends columns. */
+  static List<List<Object>> columnarRows(int rowCount) {
+    final List<ColumnMetaData> columns = columns();
+    final ColumnMetaData.Rep[] reps = new ColumnMetaData.Rep[columns.size()];
+    for (int i = 0; i < reps.length; i++) {
+      reps[i] = columns.get(i).type.rep;
+    }
+    final ColumnarRows columnarRows = new ColumnarRows(reps);
+    for (Object row : rows(rowCount)) {
+      columnarRows.addRow();
+      final Object[] values = (Object[]) row;
+      for (int i = 0; i < values.length; i++) {
+        columnarRows.setObject(i, values[i]);
+      }
+    }
+    final List<List<Object>> rows = new ArrayList<>(rowCount);
+    for (Object row : columnarRows.rows()) {
+      @SuppressWarnings("unchecked") final List<Object> list = (List<Object>) row;
+      rows.add(list);
+    }
+    return rows;
+  }
+
+  /** Builds a frame holding {@code rowCount} rows. */
+  static Meta.Frame frame(int rowCount) {
+    return new Meta.Frame(0, false, rows(rowCount));
+  }
+}
+
+// End BenchmarkRows.java
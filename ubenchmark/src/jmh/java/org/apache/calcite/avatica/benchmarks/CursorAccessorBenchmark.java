@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.benchmarks;
+
+import org.apache.calcite.avatica.ColumnMetaData;
+import org.apache.calcite.avatica.util.ColumnarRowsCursor;
+import org.apache.calcite.avatica.util.Cursor;
+import org.apache.calcite.avatica.util.DateTimeUtils;
+import org.apache.calcite.avatica.util.ListIteratorCursor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading every column of every row through the
+ * {@link Cursor.Accessor}s that {@code AbstractCursor} creates, which is
+ * what {@code AvaticaResultSet.getXxx(int)} does on the client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CursorAccessorBenchmark {
+  @Param({"100", "10000"})
+  int rowCount;
+
+  List<ColumnMetaData> columns;
+  List<List<Object>> rows;
+  List<List<Object>> columnarRows;
+
+  @Setup
+  public void setup() {
+    columns = BenchmarkRows.columns();
+    rows = BenchmarkRows.listRows(rowCount);
+    columnarRows = BenchmarkRows.columnarRows(rowCount);
+  }
+
+  @Benchmark
+  public void typedGetters(Blackhole bh) throws SQLException {
+    readTyped(new ListIteratorCursor(rows.iterator()), bh);
+  }
+
+  /** As {@link #typedGetters}, but the rows hold numeric values unboxed, as
+   * do the rows of a columnar frame. */
+  @Benchmark
+  public void typedGettersColumnar(Blackhole bh) throws SQLException {
+    readTyped(new ColumnarRowsCursor(columnarRows.iterator()), bh);
+  }
+
+  private void readTyped(Cursor cursor, Blackhole bh) throws SQLException {
+    final List<Cursor.Accessor> accessors =
+        cursor.createAccessors(columns, DateTimeUtils.calendar(), null);
+    final Cursor.Accessor id = accessors.get(0);
+    final Cursor.Accessor qty = accessors.get(1);
+    final Cursor.Accessor price = accessors.get(2);
+    final Cursor.Accessor name = accessors.get(3);
+    final Cursor.Accessor note = accessors.get(4);
+    while (cursor.next()) {
+      bh.consume(id.getLong());
+      bh.consume(qty.getInt());
+      bh.consume(price.getDouble());
+      bh.consume(name.getString());
+      bh.consume(note.getString());
+    }
+    cursor.close();
+  }
+
+  @Benchmark
+  public void getObject(Blackhole bh) throws SQLException {
+    final Cursor cursor = new ListIteratorCursor(rows.iterator());
+    final List<Cursor.Accessor> accessors =
+        cursor.createAccessors(columns, DateTimeUtils.calendar(), null);
+    while (cursor.next()) {
+      for (Cursor.Accessor accessor : accessors) {
+        bh.consume(accessor.getObject());
+      }
+    }
+    cursor.close();
+  }
+}
+
+// End CursorAccessorBenchmark.java
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.benchmarks;
+
+import org.apache.calcite.avatica.Meta;
+import org.apache.calcite.avatica.proto.Common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks conversion of a {@link Meta.Frame} to and from its protobuf
+ * representation ({@link Meta.Frame#toProto()} and
+ * {@link Meta.Frame#fromProto(Common.Frame)}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameBenchmark {
+  @Param({"100", "10000"})
+  int rowCount;
+
+  Meta.Frame frame;
+  Common.Frame proto;
+
+  @Setup
+  public void setup() {
+    frame = BenchmarkRows.frame(rowCount);
+    proto = frame.toProto();
+  }
+
+  @Benchmark
+  public Common.Frame toProto() {
+    return frame.toProto();
+  }
+
+  @Benchmark
+  public Meta.Frame fromProto() {
+    return Meta.Frame.fromProto(proto);
+  }
+}
+
+// End FrameBenchmark.java
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.benchmarks;
+
+import org.apache.calcite.avatica.remote.JsonService;
+import org.apache.calcite.avatica.remote.Service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the JSON wire format: encoding and decoding a
+ * {@link Service.FetchResponse} with {@link JsonService#MAPPER}, the same way
+ * the JSON handler and {@code RemoteService} do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonServiceBenchmark {
+  @Param({"100", "10000"})
+  int rowCount;
+
+  Service.FetchResponse response;
+  String serializedResponse;
+
+  @Setup
+  public void setup() throws IOException {
+    response = new Service.FetchResponse(BenchmarkRows.frame(rowCount), false,
+        false, null);
+    serializedResponse = encodeResponse();
+  }
+
+  @Benchmark
+  public String encodeResponse() throws IOException {
+    final StringWriter w = new StringWriter();
+    JsonService.MAPPER.writeValue(w, response);
+    return w.toString();
+  }
+
+  @Benchmark
+  public Service.Response decodeResponse() throws IOException {
+    return JsonService.MAPPER.readValue(serializedResponse, Service.Response.class);
+  }
+}
+
+// End JsonServiceBenchmark.java
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.benchmarks;
+
+import org.apache.calcite.avatica.remote.ProtobufTranslation;
+import org.apache.calcite.avatica.remote.ProtobufTranslationImpl;
+import org.apache.calcite.avatica.remote.Service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the protobuf wire format as used by the HTTP transport: a
+ * {@link Service.FetchResponse} carrying a frame of rows, and the
+ * {@link Service.FetchRequest} that asks for it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtobufTranslationBenchmark {
+  @Param({"100", "10000"})
+  int rowCount;
+
+  ProtobufTranslation translation;
+  Service.FetchResponse response;
+  byte[] serializedResponse;
+  byte[] serializedRequest;
+
+  @Setup
+  public void setup() throws IOException {
+    translation = new ProtobufTranslationImpl();
+    response = new Service.FetchResponse(BenchmarkRows.frame(rowCount), false,
+        false, null);
+    serializedResponse = translation.serializeResponse(response);
+    serializedRequest = translation.serializeRequest(
+        new Service.FetchRequest("00000000-0000-0000-0000-000000000000", 1, 0,
+            rowCount));
+  }
+
+  @Benchmark
+  public byte[] serializeResponse() throws IOException {
+    return translation.serializeResponse(response);
+  }
+
+  @Benchmark
+  public Service.Response parseResponse() throws IOException {
+    return translation.parseResponse(serializedResponse);
+  }
+
+  @Benchmark
+  public Service.Request parseRequest() throws IOException {
+    return translation.parseRequest(serializedRequest);
+  }
+}
+
+// End ProtobufTranslationBenchmark.java
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.benchmarks;
+
+import org.apache.calcite.avatica.AvaticaParameter;
+import org.apache.calcite.avatica.AvaticaResultSet;
+import org.apache.calcite.avatica.ColumnMetaData;
+import org.apache.calcite.avatica.Meta;
+import org.apache.calcite.avatica.MetaImpl;
+import org.apache.calcite.avatica.util.ListIteratorCursor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading every column of every row of an
+ * {@link AvaticaResultSet} by label, as ORMs do, against reading them by
+ * index.
+ *
+ * <p>The result set is padded to {@code columnCount} columns, and the labels
+ * are looked up in lower case, so that a lookup has to ignore case and, were
+ * it a scan, would pass over many columns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultSetLabelBenchmark {
+  @Param({"10000"})
+  int rowCount;
+
+  @Param({"5", "50"})
+  int columnCount;
+
+  List<ColumnMetaData> columns;
+  List<List<Object>> rows;
+  Meta.Signature signature;
+  String[] labels;
+
+  @Setup
+  public void setup() {
+    final List<ColumnMetaData> benchmarkColumns = BenchmarkRows.columns();
+    final List<List<Object>> benchmarkRows = BenchmarkRows.listRows(rowCount);
+    final int padding = Math.max(0, columnCount - benchmarkColumns.size());
+    // The columns that are read come last
+    columns = new ArrayList<>();
+    for (int i = 0; i < padding; i++) {
+      columns.add(MetaImpl.columnMetaData("PAD" + i, i, Integer.class, true));
+    }
+    labels = new String[benchmarkColumns.size()];
+    for (ColumnMetaData column : benchmarkColumns) {
+      labels[column.ordinal] = column.label.toLowerCase(Locale.ROOT);
+      columns.add(
+          MetaImpl.columnMetaData(column.label, padding + column.ordinal, column.type,
+              column.nullable));
+    }
+    rows = new ArrayList<>(rowCount);
+    final List<Object> pad = Collections.nCopies(padding, null);
+    for (List<Object> row : benchmarkRows) {
+      final List<Object> paddedRow = new ArrayList<>(pad);
+      paddedRow.addAll(row);
+      rows.add(paddedRow);
+    }
+    signature = new Meta.Signature(columns, "SELECT * FROM T",
+        Collections.<AvaticaParameter>emptyList(), Collections.<String, Object>emptyMap(),
+        Meta.CursorFactory.LIST, Meta.StatementType.SELECT);
+  }
+
+  private AvaticaResultSet resultSet() throws SQLException {
+    return new AvaticaResultSet(null, null, signature, null, TimeZone.getTimeZone("UTC"), null)
+        .execute2(new ListIteratorCursor(rows.iterator()), columns);
+  }
+
+  @Benchmark
+  public void byIndex(Blackhole bh) throws SQLException {
+    final int first = columns.size() - labels.length + 1;
+    try (AvaticaResultSet resultSet = resultSet()) {
+      while (resultSet.next()) {
+        bh.consume(resultSet.getLong(first));
+        bh.consume(resultSet.getInt(first + 1));
+        bh.consume(resultSet.getDouble(first + 2));
+        bh.consume(resultSet.getString(first + 3));
+        bh.consume(resultSet.getString(first + 4));
+      }
+    }
+  }
+
+  @Benchmark
+  public void byLabel(Blackhole bh) throws SQLException {
+    try (AvaticaResultSet resultSet = resultSet()) {
+      while (resultSet.next()) {
+        bh.consume(resultSet.getLong(labels[0]));
+        bh.consume(resultSet.getInt(labels[1]));
+        bh.consume(resultSet.getDouble(labels[2]));
+        bh.consume(resultSet.getString(labels[3]));
+        bh.consume(resultSet.getString(labels[4]));
+      }
+    }
+  }
+}
+
+// End ResultSetLabelBenchmark.java
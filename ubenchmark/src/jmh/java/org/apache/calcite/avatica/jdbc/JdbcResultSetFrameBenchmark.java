@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.jdbc;
+
+import org.apache.calcite.avatica.Meta;
+import org.apache.calcite.avatica.util.DateTimeUtils;
+
+import com.google.common.base.Optional;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link JdbcResultSet#frame} reading a whole result set from an
+ * in-memory HSQLDB table in frames of {@code fetchSize} rows, which is the
+ * server-side work behind a sequence of {@code FetchRequest}s.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JdbcResultSetFrameBenchmark {
+  private static final String URL = "jdbc:hsqldb:mem:framebenchmark";
+
+  @Param({"100000"})
+  int rowCount;
+
+  @Param({"100", "1000", "10000"})
+  int fetchSize;
+
+  Connection connection;
+  Calendar calendar;
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    connection = DriverManager.getConnection(URL, "SA", "");
+    calendar = DateTimeUtils.calendar();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE bench IF EXISTS");
+      statement.execute("CREATE TABLE bench (id BIGINT, qty INTEGER,"
+          + " price DOUBLE, name VARCHAR(32), note VARCHAR(32))");
+    }
+    try (PreparedStatement insert =
+             connection.prepareStatement("INSERT INTO bench VALUES (?, ?, ?, ?, ?)")) {
+      for (int i = 0; i < rowCount; i++) {
+        insert.setLong(1, (long) i * 7919);
+        insert.setInt(2, i % 1000);
+        insert.setDouble(3, i * 0.25D);
+        insert.setString(4, "name-" + i);
+        insert.setString(5, i % 4 == 0 ? null : "note " + i);
+        insert.addBatch();
+        if (i % 1000 == 999) {
+          insert.executeBatch();
+        }
+      }
+      insert.executeBatch();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE bench");
+    }
+    connection.close();
+  }
+
+  @Benchmark
+  public long frames(Blackhole bh) throws SQLException {
+    long offset = 0;
+    try (Statement statement = connection.createStatement()) {
+      final ResultSet resultSet = statement.executeQuery("SELECT * FROM bench");
+      final StatementInfo info = new StatementInfo(statement);
+      info.setResultSet(resultSet);
+      Meta.Frame frame;
+      do {
+        frame = JdbcResultSet.frame(info, resultSet, offset, fetchSize, calendar,
+            Optional.<Meta.Signature>absent());
+        for (Object row : frame.rows) {
+          bh.consume(row);
+          offset++;
+        }
+      } while (!frame.done);
+    }
+    return offset;
+  }
+}
+
+// End JdbcResultSetFrameBenchmark.java